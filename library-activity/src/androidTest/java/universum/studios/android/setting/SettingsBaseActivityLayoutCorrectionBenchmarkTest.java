@@ -0,0 +1,119 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.util.Log;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+
+import org.junit.Test;
+
+import universum.studios.android.test.instrumented.InstrumentedTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class SettingsBaseActivityLayoutCorrectionBenchmarkTest extends InstrumentedTestCase {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "SettingsBaseActivityLayoutCorrectionBenchmarkTest";
+
+	private static final int PADDING = 16;
+	private static final int WIDTH = 1280;
+	private static final int HEIGHT = 800;
+	private static final int WARM_UP_SWITCHES_COUNT = 20;
+	private static final int SWITCHES_COUNT = 200;
+
+	@Test
+	public void testFragmentSwitchingInTwoPaneLayout() {
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				final LinearLayout layout = new LinearLayout(mContext);
+				final LinearLayout panelsContainer = new LinearLayout(mContext);
+				layout.addView(panelsContainer);
+				final LinearLayout headersPanel = new LinearLayout(mContext);
+				headersPanel.setPadding(PADDING, PADDING, PADDING, PADDING);
+				final ListView headersList = new ListView(mContext);
+				headersList.setId(android.R.id.list);
+				headersList.setPadding(PADDING, PADDING, PADDING, PADDING);
+				headersPanel.addView(headersList);
+				panelsContainer.addView(headersPanel);
+				final LinearLayout preferencesPanel = new LinearLayout(mContext);
+				preferencesPanel.setPadding(PADDING, PADDING, PADDING, PADDING);
+				final PreferencesFrame preferencesFrame = new PreferencesFrame(mContext);
+				preferencesFrame.setPadding(PADDING, PADDING, PADDING, PADDING);
+				preferencesPanel.addView(preferencesFrame);
+				panelsContainer.addView(preferencesPanel);
+				new SettingsBaseActivity.BasicLayoutCorrector().correctLayout(layout);
+				assertThat(headersPanel.getPaddingTop(), is(0));
+				assertThat(headersList.getPaddingTop(), is(0));
+				assertThat(preferencesPanel.getPaddingTop(), is(0));
+				assertThat(preferencesFrame.getPaddingTop(), is(0));
+				for (int i = 0; i < WARM_UP_SWITCHES_COUNT; i++) {
+					switchFragment(layout, preferencesFrame);
+				}
+				preferencesFrame.paddingChangesCount = 0;
+				final long startTime = SystemClock.elapsedRealtimeNanos();
+				for (int i = 0; i < SWITCHES_COUNT; i++) {
+					switchFragment(layout, preferencesFrame);
+				}
+				final long averageSwitchTime = (SystemClock.elapsedRealtimeNanos() - startTime) / SWITCHES_COUNT;
+				Log.i(TAG, "Average fragment switch time in two-pane layout: " + averageSwitchTime + "ns");
+				// Preferences frame has its padding already cleared, so it must not be set again.
+				assertThat(preferencesFrame.paddingChangesCount, is(0));
+				assertThat(preferencesFrame.getPaddingTop(), is(0));
+			}
+		});
+	}
+
+	private void switchFragment(final View layout, final FrameLayout preferencesFrame) {
+		preferencesFrame.removeAllViews();
+		preferencesFrame.addView(new View(mContext));
+		layout.measure(
+				View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY)
+		);
+		layout.layout(0, 0, WIDTH, HEIGHT);
+	}
+
+	private static final class PreferencesFrame extends FrameLayout {
+
+		int paddingChangesCount;
+
+		PreferencesFrame(final Context context) {
+			super(context);
+		}
+
+		@Override
+		public void setPadding(final int left, final int top, final int right, final int bottom) {
+			super.setPadding(left, top, right, bottom);
+			paddingChangesCount++;
+		}
+	}
+}
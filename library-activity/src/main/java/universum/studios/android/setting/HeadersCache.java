@@ -0,0 +1,301 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.res.Configuration;
+import android.os.Bundle;
+import android.preference.PreferenceActivity;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.XmlRes;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Process-level cache of {@link PreferenceActivity.Header Headers} loaded from Xml resources keyed
+ * by resource id of the Xml file and configuration of resources from which have been the headers
+ * loaded. Along with the headers is cached also hash of theirs content computed via {@link #computeHash(List)}.
+ * <p>
+ * The cache is used by {@link SettingsBaseActivity} to load the same headers without parsing of the
+ * Xml resource again and to restore its headers without saving them into its instance state.
+ *
+ * @author Martin Albedinsky
+ */
+final class HeadersCache {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "HeadersCache";
+
+	/**
+	 * Maximum count of entries held by the cache. The least recently used entries are dropped first.
+	 */
+	private static final int MAX_ENTRIES_COUNT = 8;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Map of cached entries ordered by theirs access.
+	 */
+	private static final Map<Key, Entry> sEntries = new LinkedHashMap<Key, Entry>(MAX_ENTRIES_COUNT, 0.75f, true) {
+
+		/**
+		 */
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+			return size() > MAX_ENTRIES_COUNT;
+		}
+	};
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 */
+	private HeadersCache() {
+		// Not allowed to be instantiated publicly.
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Returns the cached entry for the specified <var>xmlResource</var> and configuration of the
+	 * given <var>context</var>.
+	 * <p>
+	 * This method may be called from a background thread.
+	 *
+	 * @param context     Context from which resources should be the headers loaded.
+	 * @param xmlResource Resource id of the Xml file with headers.
+	 * @return The cached entry or {@code null} if there are no headers cached for the resource.
+	 */
+	@Nullable
+	static Entry get(@NonNull final Context context, @XmlRes final int xmlResource) {
+		synchronized (sEntries) {
+			return sEntries.get(new Key(xmlResource, context));
+		}
+	}
+
+	/**
+	 * Caches copies of the given <var>headers</var> loaded from the specified <var>xmlResource</var>
+	 * for configuration of the given <var>context</var>.
+	 * <p>
+	 * This method may be called from a background thread.
+	 *
+	 * @param context     Context from which resources have been the headers loaded.
+	 * @param xmlResource Resource id of the Xml file with headers.
+	 * @param headers     The loaded headers.
+	 * @return The cached entry.
+	 */
+	@NonNull
+	static Entry put(@NonNull final Context context, @XmlRes final int xmlResource, @NonNull final List<PreferenceActivity.Header> headers) {
+		final Entry entry = new Entry(copyHeaders(headers), computeHash(headers));
+		synchronized (sEntries) {
+			sEntries.put(new Key(xmlResource, context), entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Drops all cached entries.
+	 */
+	static void clear() {
+		synchronized (sEntries) {
+			sEntries.clear();
+		}
+	}
+
+	/**
+	 * Computes hash of content of the given <var>headers</var>.
+	 *
+	 * @param headers The headers of which hash to compute.
+	 * @return Hash of the headers.
+	 */
+	static long computeHash(@NonNull final List<PreferenceActivity.Header> headers) {
+		long hash = SettingHeadersAdapter.ID_HASH_OFFSET_BASIS;
+		for (final PreferenceActivity.Header header : headers) {
+			hash = SettingHeadersAdapter.hash(hash, header.id);
+			hash = SettingHeadersAdapter.hash(hash, header.titleRes);
+			hash = SettingHeadersAdapter.hash(hash, header.title);
+			hash = SettingHeadersAdapter.hash(hash, header.summaryRes);
+			hash = SettingHeadersAdapter.hash(hash, header.summary);
+			hash = SettingHeadersAdapter.hash(hash, header.breadCrumbTitleRes);
+			hash = SettingHeadersAdapter.hash(hash, header.breadCrumbTitle);
+			hash = SettingHeadersAdapter.hash(hash, header.breadCrumbShortTitleRes);
+			hash = SettingHeadersAdapter.hash(hash, header.breadCrumbShortTitle);
+			hash = SettingHeadersAdapter.hash(hash, header.iconRes);
+			hash = SettingHeadersAdapter.hash(hash, header.fragment);
+			hash = hashBundle(hash, header.fragmentArguments);
+			hash = SettingHeadersAdapter.hash(hash, header.intent == null ? null : header.intent.toUri(0));
+			hash = hashBundle(hash, header.extras);
+		}
+		return SettingHeadersAdapter.hash(hash, headers.size());
+	}
+
+	/**
+	 * Combines the given <var>hash</var> with keys and values of the specified <var>bundle</var>.
+	 */
+	private static long hashBundle(long hash, final Bundle bundle) {
+		if (bundle == null) {
+			return SettingHeadersAdapter.hash(hash, -1L);
+		}
+		// Keys are sorted so the hash does not depend on the order of the bundle's entries.
+		for (final String key : new TreeSet<>(bundle.keySet())) {
+			hash = SettingHeadersAdapter.hash(hash, key);
+			hash = SettingHeadersAdapter.hash(hash, String.valueOf(bundle.get(key)));
+		}
+		return hash;
+	}
+
+	/**
+	 * Creates copies of the given <var>headers</var> without parceling of them.
+	 *
+	 * @param headers The headers to copy.
+	 * @return List with copies of the headers.
+	 */
+	@NonNull
+	static ArrayList<PreferenceActivity.Header> copyHeaders(@NonNull final List<PreferenceActivity.Header> headers) {
+		final ArrayList<PreferenceActivity.Header> copies = new ArrayList<>(headers.size());
+		for (final PreferenceActivity.Header header : headers) {
+			final PreferenceActivity.Header copy = new PreferenceActivity.Header();
+			copy.id = header.id;
+			copy.titleRes = header.titleRes;
+			copy.title = header.title;
+			copy.summaryRes = header.summaryRes;
+			copy.summary = header.summary;
+			copy.breadCrumbTitleRes = header.breadCrumbTitleRes;
+			copy.breadCrumbTitle = header.breadCrumbTitle;
+			copy.breadCrumbShortTitleRes = header.breadCrumbShortTitleRes;
+			copy.breadCrumbShortTitle = header.breadCrumbShortTitle;
+			copy.iconRes = header.iconRes;
+			copy.fragment = header.fragment;
+			copy.fragmentArguments = header.fragmentArguments == null ? null : new Bundle(header.fragmentArguments);
+			copy.intent = header.intent == null ? null : new Intent(header.intent);
+			copy.extras = header.extras == null ? null : new Bundle(header.extras);
+			copies.add(copy);
+		}
+		return copies;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Entry of the cache holding the loaded headers along with hash of theirs content.
+	 */
+	static final class Entry {
+
+		/**
+		 * The cached headers. These should be never modified nor supplied to an activity directly,
+		 * only theirs copies obtained via {@link #copyHeaders()}.
+		 */
+		private final List<PreferenceActivity.Header> headers;
+
+		/**
+		 * Hash of content of the cached headers.
+		 */
+		final long hash;
+
+		/**
+		 * Creates a new instance of Entry with the given <var>headers</var> and <var>hash</var>.
+		 */
+		Entry(final List<PreferenceActivity.Header> headers, final long hash) {
+			this.headers = headers;
+			this.hash = hash;
+		}
+
+		/**
+		 * Creates copies of the cached headers.
+		 *
+		 * @return List with copies of the headers.
+		 */
+		@NonNull
+		ArrayList<PreferenceActivity.Header> copyHeaders() {
+			return HeadersCache.copyHeaders(headers);
+		}
+	}
+
+	/**
+	 * Key of an entry within the cache.
+	 */
+	private static final class Key {
+
+		/**
+		 * Resource id of the Xml file from which have been the headers loaded.
+		 */
+		final int xmlResource;
+
+		/**
+		 * Configuration of resources from which have been the headers loaded.
+		 */
+		final Configuration configuration;
+
+		/**
+		 * Creates a new instance of Key for the given <var>xmlResource</var> and <var>context</var>.
+		 *
+		 * @param xmlResource Resource id of the Xml file with headers.
+		 * @param context     Context from which resources are the headers loaded.
+		 */
+		Key(final int xmlResource, final Context context) {
+			this.xmlResource = xmlResource;
+			this.configuration = new Configuration(context.getResources().getConfiguration());
+		}
+
+		/**
+		 */
+		@Override
+		public int hashCode() {
+			return 31 * xmlResource + configuration.hashCode();
+		}
+
+		/**
+		 */
+		@Override
+		public boolean equals(final Object other) {
+			if (other == this) return true;
+			if (!(other instanceof Key)) return false;
+			final Key key = (Key) other;
+			return xmlResource == key.xmlResource && configuration.equals(key.configuration);
+		}
+	}
+}
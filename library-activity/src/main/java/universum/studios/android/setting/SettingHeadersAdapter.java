@@ -19,12 +19,20 @@
 package universum.studios.android.setting;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
 import android.preference.PreferenceActivity;
+import android.support.annotation.DrawableRes;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v4.content.ContextCompat;
 import android.text.TextUtils;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -34,7 +42,13 @@ import android.widget.TextView;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import universum.studios.android.ui.util.ResourceUtils;
 
@@ -52,6 +66,8 @@ import universum.studios.android.ui.util.ResourceUtils;
  * Data set of items with associated headers may be supplied via {@link #SettingHeadersAdapter(Context, List)}
  * constructor or changed via {@link #changeHeaders(List)}. A specific item at a desired position may
  * be obtained via {@link #getItem(int)} and its associated header via {@link Item#getHeader() getItem(int).getHeader()}.
+ * Headers that are rebuilt dynamically may be supplied via {@link #swapHeadersWithDiff(List)} which
+ * reuses items of unchanged headers and rebinds only views of the changed ones.
  *
  * @author Martin Albedinsky
  */
@@ -100,6 +116,40 @@ public class SettingHeadersAdapter extends BaseAdapter {
 	 */
 	public static final int VIEW_TYPE_HEADER = 2;
 
+	/**
+	 * Constant that identifies invalid/unspecified view type returned by {@link #viewTypeAt(int)}
+	 * for positions out of bounds of the current data set.
+	 */
+	private static final int NO_VIEW_TYPE = -1;
+
+	/**
+	 * Count of positions beyond the last bound position, in the direction of scrolling, for which
+	 * are icons of headers prefetched when the main thread is idle.
+	 */
+	private static final int ICON_PREFETCH_DISTANCE = 8;
+
+	/**
+	 * Maximum time in milliseconds that may be spent by prefetching of icons within a single idle
+	 * period of the main thread.
+	 */
+	private static final long ICON_PREFETCH_IDLE_BUDGET = 4;
+
+	/**
+	 * Offset basis of the 64-bit FNV-1a hash used to compute ids of items.
+	 */
+	static final long ID_HASH_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	/**
+	 * Prime of the 64-bit FNV-1a hash used to compute ids of items.
+	 */
+	private static final long ID_HASH_PRIME = 0x100000001b3L;
+
+	/**
+	 * Seed mixed into ids of category divider items so they differ from ids of items which follow
+	 * them.
+	 */
+	private static final long ID_SEED_DIVIDER = 0x5e771a65d1b1de75L;
+
 	/*
 	 * Interface ===================================================================================
 	 */
@@ -144,10 +194,61 @@ public class SettingHeadersAdapter extends BaseAdapter {
 	private List<PreferenceActivity.Header> mHeaders;
 
 	/**
-	 * todo:
+	 * List of items created for the current headers via {@link #createItemsFromHeaders(List)}.
 	 */
 	private List<SettingHeadersAdapter.Item> mItems;
 
+	/**
+	 * View types of the current items stored at the same positions as the items. View type and
+	 * enabled state of an item at a specific position may be resolved by a single array read.
+	 */
+	private byte[] mItemViewTypes;
+
+	/**
+	 * Set of view holders created by this adapter which are still referenced by theirs item views.
+	 * These holders are used to rebind only views of changed items.
+	 *
+	 * @see #swapHeadersWithDiff(List)
+	 */
+	private final Set<ViewHolder> mViewHolders = Collections.newSetFromMap(new WeakHashMap<ViewHolder, Boolean>());
+
+	/**
+	 * Copy of the resources configuration for which have been resolved titles and summaries cached
+	 * on items of this adapter. When the current configuration differs, for example due to locale
+	 * change, the cached texts are invalidated.
+	 *
+	 * @see #ensureResolvedTextsValid()
+	 */
+	private Configuration mResolvedTextsConfiguration;
+
+	/**
+	 * Constant states of icon drawables that have been already resolved for icon resources of
+	 * headers, for example on a background thread while the headers were loaded or while the main
+	 * thread was idle. Icons of items are created from these states instead of being loaded from
+	 * resources.
+	 *
+	 * @see #putIconStates(SparseArray)
+	 */
+	private final SparseArray<Drawable.ConstantState> mIconStates = new SparseArray<>();
+
+	/**
+	 * Position of the item that has been bound most recently. Icons are prefetched for positions
+	 * beyond this one.
+	 */
+	private int mLastBoundPosition = NO_POSITION;
+
+	/**
+	 * Direction in which are the items being bound, {@code 1} when scrolling towards the end of
+	 * the data set, {@code -1} otherwise.
+	 */
+	private int mBindDirection = 1;
+
+	/**
+	 * Idle handler prefetching icons of headers beyond the last bound position while the main
+	 * thread is idle.
+	 */
+	private final IconPrefetcher mIconPrefetcher = new IconPrefetcher();
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -224,43 +325,240 @@ public class SettingHeadersAdapter extends BaseAdapter {
 	public List<PreferenceActivity.Header> swapHeaders(@Nullable final List<PreferenceActivity.Header> headers) {
 		final List<PreferenceActivity.Header> oldHeaders = mHeaders;
 		this.mHeaders = headers;
-		this.mItems = headers == null || headers.isEmpty() ? null : createItemsFromHeaders(headers);
+		if (headers == null || headers.isEmpty()) {
+			this.mItems = null;
+			this.mItemViewTypes = null;
+		} else {
+			this.createItemsFromHeaders(headers);
+		}
+		return oldHeaders;
+	}
+
+	/**
+	 * Same as {@link #swapHeaders(List)} but the new data set is compared with the current one.
+	 * Headers are matched by theirs {@link PreferenceActivity.Header#id id} and
+	 * {@link PreferenceActivity.Header#fragment fragment} and items of matched headers are reused.
+	 * <p>
+	 * If there have been no headers inserted, removed nor moved, only views of items which headers
+	 * have changed are rebound, otherwise {@link #notifyDataSetChanged()} is called. If nothing has
+	 * changed, no notification is performed at all.
+	 *
+	 * @param headers The headers for which to update the current data set. May be {@code null} to
+	 *                clear the current data set.
+	 * @return The old headers. May be {@code null}.
+	 * @see #swapHeaders(List)
+	 */
+	@Nullable
+	public List<PreferenceActivity.Header> swapHeadersWithDiff(@Nullable final List<PreferenceActivity.Header> headers) {
+		final List<Item> oldItems = mItems;
+		final List<PreferenceActivity.Header> oldHeaders = swapHeaders(headers);
+		final List<Item> newItems = mItems;
+		if (oldItems == null || newItems == null) {
+			if (oldItems != newItems) {
+				notifyDataSetChanged();
+			}
+			return oldHeaders;
+		}
+		final Map<String, Item> oldItemsByKey = new HashMap<>(oldItems.size());
+		for (final Item oldItem : oldItems) {
+			if (oldItem.header != null) {
+				oldItemsByKey.put(createHeaderKey(oldItem.header), oldItem);
+			}
+		}
+		final int itemsCount = newItems.size();
+		boolean structureChanged = itemsCount != oldItems.size();
+		final boolean[] changedPositions = new boolean[itemsCount];
+		boolean changed = false;
+		for (int i = 0; i < itemsCount; i++) {
+			final Item newItem = newItems.get(i);
+			final Item oldItem;
+			if (newItem.header == null) {
+				// Divider items do not hold any data so they may be reused by position.
+				oldItem = i < oldItems.size() && oldItems.get(i).viewType == newItem.viewType ? oldItems.get(i) : null;
+			} else {
+				oldItem = oldItemsByKey.remove(createHeaderKey(newItem.header));
+			}
+			if (oldItem == null || oldItem.viewType != newItem.viewType) {
+				structureChanged = true;
+				continue;
+			}
+			if (newItem.header != null && (oldItem.showDivider != newItem.showDivider || !hasSameContent(oldItem.header, newItem.header))) {
+				changedPositions[i] = changed = true;
+			}
+			if (oldItem.header != newItem.header) {
+				oldItem.header = newItem.header;
+				oldItem.textsResolved = false;
+			}
+			oldItem.id = newItem.id;
+			oldItem.showDivider = newItem.showDivider;
+			newItems.set(i, oldItem);
+			structureChanged |= i >= oldItems.size() || oldItems.get(i) != oldItem;
+		}
+		if (structureChanged) {
+			notifyDataSetChanged();
+		} else if (changed) {
+			for (final ViewHolder viewHolder : new ArrayList<>(mViewHolders)) {
+				final int position = viewHolder.getAdapterPosition();
+				if (position >= 0 && position < itemsCount && changedPositions[position] && viewHolder.getItemViewType() == getItemViewType(position)) {
+					onBindViewHolder(viewHolder, position);
+				}
+			}
+		}
 		return oldHeaders;
 	}
 
 	/**
-	 * Creates a data set of {@link Item items} from the given list of <var>headers</var>.
+	 * Creates a key identifying the given <var>header</var> among headers of this adapter. Headers
+	 * are identified by theirs id and fragment, or by theirs title and intent if they do not specify
+	 * neither of them, like category headers.
+	 *
+	 * @param header The header for which to create its key.
+	 * @return The key for the header.
+	 */
+	private static String createHeaderKey(final PreferenceActivity.Header header) {
+		if (header.id != PreferenceActivity.HEADER_ID_UNDEFINED || !TextUtils.isEmpty(header.fragment)) {
+			return header.id + ":" + header.fragment;
+		}
+		return "#" + header.titleRes + ":" + header.title + ":" + (header.intent == null ? null : header.intent.toUri(0));
+	}
+
+	/**
+	 * Checks whether the given headers have the same content presented by this adapter.
+	 *
+	 * @param first  The first header to check.
+	 * @param second The second header to check.
+	 * @return {@code True} if views for the headers would be bound with the same data, {@code false}
+	 * otherwise.
+	 */
+	private static boolean hasSameContent(final PreferenceActivity.Header first, final PreferenceActivity.Header second) {
+		return first.titleRes == second.titleRes &&
+				TextUtils.equals(first.title, second.title) &&
+				first.summaryRes == second.summaryRes &&
+				TextUtils.equals(first.summary, second.summary) &&
+				first.iconRes == second.iconRes &&
+				TextUtils.equals(first.fragment, second.fragment) &&
+				(first.intent == null ? second.intent == null : first.intent.filterEquals(second.intent));
+	}
+
+	/**
+	 * Creates a data set of {@link Item items} from the given list of <var>headers</var> along with
+	 * array of theirs view types.
 	 * <p>
 	 * This method resolves the proper view type for each item and also whether a divider should be
 	 * shown for item depending on a position within the headers list and on how a particular item
 	 * is surrounded by header that is type of category header.
 	 *
-	 * @param headers The headers from which to create items for this adapter.
-	 * @return List of items, where each item, except divider item, will have the corresponding header
-	 * associated.
+	 * @param headers The headers from which to create items for this adapter. Each item, except
+	 *                divider item, will have the corresponding header associated.
 	 * @see #isCategoryHeader(PreferenceActivity.Header)
 	 */
-	private static List<Item> createItemsFromHeaders(final List<PreferenceActivity.Header> headers) {
-		final List<Item> items = new ArrayList<>(headers.size());
+	private void createItemsFromHeaders(final List<PreferenceActivity.Header> headers) {
 		final int headersCount = headers.size();
+		final List<Item> items = new ArrayList<>(headersCount + 1);
+		// There may be at most one divider before each header plus the last one.
+		final byte[] viewTypes = new byte[2 * headersCount + 1];
+		boolean nextIsCategory = isCategoryHeader(headers.get(0));
 		for (int i = 0; i < headersCount; i++) {
 			final PreferenceActivity.Header header = headers.get(i);
-			if (isCategoryHeader(header)) {
+			final boolean isCategory = nextIsCategory;
+			nextIsCategory = i < headersCount - 1 && isCategoryHeader(headers.get(i + 1));
+			if (isCategory) {
 				// Category header found.
 				if (i > 0) {
 					// Add category divider before each new category.
+					viewTypes[items.size()] = VIEW_TYPE_CATEGORY_DIVIDER;
 					items.add(new Item(VIEW_TYPE_CATEGORY_DIVIDER, null));
 				}
+				viewTypes[items.size()] = VIEW_TYPE_CATEGORY;
 				items.add(new Item(VIEW_TYPE_CATEGORY, header));
 			} else {
 				final Item item = new Item(VIEW_TYPE_HEADER, header);
-				item.showDivider = i < headersCount - 1 && !isCategoryHeader(headers.get(i + 1));
+				item.showDivider = i < headersCount - 1 && !nextIsCategory;
+				viewTypes[items.size()] = VIEW_TYPE_HEADER;
 				items.add(item);
 			}
 		}
 		// Add category divider also at the end of all items.
+		viewTypes[items.size()] = VIEW_TYPE_CATEGORY_DIVIDER;
 		items.add(new Item(VIEW_TYPE_CATEGORY_DIVIDER, null));
-		return items;
+		assignItemIds(items);
+		this.mItems = items;
+		this.mItemViewTypes = Arrays.copyOf(viewTypes, items.size());
+	}
+
+	/**
+	 * Assigns stable ids to the given <var>items</var>. Id of a header item is computed from
+	 * {@link PreferenceActivity.Header#id id}, {@link PreferenceActivity.Header#fragment fragment}
+	 * and title of its header, id of a divider item from the header of item that follows it. If
+	 * a computed id collides with id of a previous item, it is re-hashed until it is unique.
+	 *
+	 * @param items The items to which to assign ids.
+	 */
+	private static void assignItemIds(final List<Item> items) {
+		final int itemsCount = items.size();
+		final Set<Long> usedIds = new HashSet<>(itemsCount);
+		for (int i = 0; i < itemsCount; i++) {
+			final Item item = items.get(i);
+			long id;
+			if (item.header == null) {
+				final Item nextItem = i < itemsCount - 1 ? items.get(i + 1) : null;
+				id = nextItem == null || nextItem.header == null ? ID_HASH_OFFSET_BASIS : computeHeaderHash(nextItem.header);
+				id = hash(id, ID_SEED_DIVIDER);
+			} else {
+				id = computeHeaderHash(item.header);
+			}
+			while (id == NO_ID || !usedIds.add(id)) {
+				id = hash(id, i);
+			}
+			item.id = id;
+		}
+	}
+
+	/**
+	 * Computes 64-bit hash of the given <var>header</var> from its id, fragment and title resource
+	 * or title text if there is no resource specified. Intent is also taken into count for headers
+	 * without fragment.
+	 *
+	 * @param header The header of which hash to compute.
+	 * @return Hash of the header.
+	 */
+	private static long computeHeaderHash(final PreferenceActivity.Header header) {
+		long hash = hash(ID_HASH_OFFSET_BASIS, header.id);
+		hash = hash(hash, header.fragment);
+		hash = hash(hash, header.titleRes);
+		if (header.titleRes == 0) {
+			hash = hash(hash, header.title);
+		}
+		if (TextUtils.isEmpty(header.fragment) && header.intent != null) {
+			hash = hash(hash, header.intent.toUri(0));
+		}
+		return hash;
+	}
+
+	/**
+	 * Combines the given <var>hash</var> with bytes of the specified <var>value</var>.
+	 */
+	static long hash(long hash, final long value) {
+		for (int i = 0; i < 8; i++) {
+			hash ^= (value >>> (i * 8)) & 0xff;
+			hash *= ID_HASH_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * Combines the given <var>hash</var> with characters of the specified <var>value</var>.
+	 */
+	static long hash(long hash, final CharSequence value) {
+		if (value == null) {
+			return hash(hash, -1L);
+		}
+		final int length = value.length();
+		for (int i = 0; i < length; i++) {
+			hash ^= value.charAt(i);
+			hash *= ID_HASH_PRIME;
+		}
+		return hash(hash, length);
 	}
 
 	/**
@@ -303,10 +601,12 @@ public class SettingHeadersAdapter extends BaseAdapter {
 	}
 
 	/**
+	 * Ids of items are derived from content of theirs headers, so they are preserved also when
+	 * the headers are swapped.
 	 */
 	@Override
 	public long getItemId(final int position) {
-		return hasItemAt(position) ? position : NO_ID;
+		return hasItemAt(position) ? mItems.get(position).id : NO_ID;
 	}
 
 	/**
@@ -332,9 +632,19 @@ public class SettingHeadersAdapter extends BaseAdapter {
 	 */
 	@Override
 	public int getItemViewType(final int position) {
-		if (isCategoryAt(position)) return VIEW_TYPE_CATEGORY;
-		if (isCategoryDividerAt(position)) return VIEW_TYPE_CATEGORY_DIVIDER;
-		else return VIEW_TYPE_HEADER;
+		final int viewType = viewTypeAt(position);
+		return viewType == NO_VIEW_TYPE ? VIEW_TYPE_HEADER : viewType;
+	}
+
+	/**
+	 * Returns the view type of item at the specified <var>position</var>.
+	 *
+	 * @param position The position of item of which view type to return.
+	 * @return View type of the item or {@link #NO_VIEW_TYPE} if there is no item at the position.
+	 */
+	private int viewTypeAt(final int position) {
+		final byte[] viewTypes = mItemViewTypes;
+		return viewTypes != null && position >= 0 && position < viewTypes.length ? viewTypes[position] : NO_VIEW_TYPE;
 	}
 
 	/**
@@ -343,7 +653,7 @@ public class SettingHeadersAdapter extends BaseAdapter {
 	 */
 	@Override
 	public boolean isEnabled(final int position) {
-		return isHeaderAt(position);
+		return viewTypeAt(position) == VIEW_TYPE_HEADER;
 	}
 
 	/**
@@ -388,8 +698,7 @@ public class SettingHeadersAdapter extends BaseAdapter {
 	 * @return {@code True} if the item has the view type associated, {@code false} otherwise.
 	 */
 	private boolean hasItemAtViewTypeOf(final int position, final int viewType) {
-		final Item item = hasItemAt(position) ? getItem(position) : null;
-		return item != null && item.viewType == viewType;
+		return viewTypeAt(position) == viewType;
 	}
 
 	/**
@@ -403,15 +712,72 @@ public class SettingHeadersAdapter extends BaseAdapter {
 			viewHolder = onCreateViewHolder(parent, getItemViewType(position));
 			view = viewHolder.itemView;
 			view.setTag(viewHolder);
+			mViewHolders.add(viewHolder);
 		} else {
 			viewHolder = (ViewHolder) view.getTag();
 		}
 		// Ensure that the view holder has always the actual adapter position specified.
 		viewHolder.updateAdapterPosition(position);
 		onBindViewHolder(viewHolder, position);
+		this.scheduleIconsPrefetch(position);
 		return view;
 	}
 
+	/**
+	 * Schedules prefetching of icons for headers beyond the specified bound <var>position</var>,
+	 * if vector icons are used by this adapter, as inflation of vector drawables at bind time is
+	 * expensive. The icons are prefetched when the main thread becomes idle.
+	 *
+	 * @param position The position of item that has been just bound.
+	 * @see #prefetchIcons(long)
+	 */
+	private void scheduleIconsPrefetch(final int position) {
+		if (position != mLastBoundPosition) {
+			this.mBindDirection = position > mLastBoundPosition ? 1 : -1;
+			this.mLastBoundPosition = position;
+		}
+		if (mUseVectorIcons && !mIconPrefetcher.scheduled) {
+			mIconPrefetcher.scheduled = true;
+			Looper.myQueue().addIdleHandler(mIconPrefetcher);
+		}
+	}
+
+	/**
+	 * Resolves icons of headers at positions beyond the last bound position, in the direction in
+	 * which are the items being bound, that have not been resolved yet and stores constant states
+	 * of the resolved icons, so the icons are created from them when bound.
+	 *
+	 * @param deadline Uptime in milliseconds after which no more icons should be resolved.
+	 * @return {@code True} if there are still icons to be prefetched after the deadline,
+	 * {@code false} otherwise.
+	 * @see #resolveIconState(Context, int)
+	 */
+	boolean prefetchIcons(final long deadline) {
+		if (!mUseVectorIcons || mLastBoundPosition == NO_POSITION) {
+			return false;
+		}
+		for (int i = 1; i <= ICON_PREFETCH_DISTANCE; i++) {
+			final int position = mLastBoundPosition + i * mBindDirection;
+			final int viewType = viewTypeAt(position);
+			if (viewType == NO_VIEW_TYPE) {
+				break;
+			}
+			if (viewType != VIEW_TYPE_HEADER) {
+				continue;
+			}
+			final int iconRes = mItems.get(position).header.iconRes;
+			if (iconRes == 0 || mIconStates.indexOfKey(iconRes) >= 0) {
+				continue;
+			}
+			if (SystemClock.uptimeMillis() >= deadline) {
+				return true;
+			}
+			// Store also unresolved state, so resolving of the icon is not attempted again.
+			mIconStates.put(iconRes, resolveIconState(mContext, iconRes));
+		}
+		return false;
+	}
+
 	/**
 	 * Invoked from {@link #getView(int, View, ViewGroup)} in order to create a view holder along
 	 * with its corresponding item view for the specified <var>viewType</var>.
@@ -451,6 +817,96 @@ public class SettingHeadersAdapter extends BaseAdapter {
 		return mLayoutInflater.inflate(resource, parent, false);
 	}
 
+	/**
+	 * Resolves constant state of icon drawable for the specified <var>iconRes</var> which may be
+	 * later supplied to the adapter via {@link #putIconStates(SparseArray)}.
+	 * <p>
+	 * This method may be called from a background thread.
+	 *
+	 * @param context Context used to resolve the icon.
+	 * @param iconRes Resource id of the icon to resolve.
+	 * @return Constant state of the resolved icon or {@code null} if the icon cannot be resolved
+	 * at this time, in such case it is resolved when bound.
+	 */
+	@Nullable
+	static Drawable.ConstantState resolveIconState(@NonNull final Context context, @DrawableRes final int iconRes) {
+		Drawable icon;
+		try {
+			icon = ContextCompat.getDrawable(context, iconRes);
+		} catch (Resources.NotFoundException e) {
+			// Vector drawables cannot be loaded via framework on pre-Lollipop versions.
+			icon = null;
+		}
+		if (icon == null) {
+			try {
+				icon = ResourceUtils.getVectorDrawable(context.getResources(), iconRes, context.getTheme());
+			} catch (RuntimeException e) {
+				icon = null;
+			}
+		}
+		return icon == null ? null : icon.getConstantState();
+	}
+
+	/**
+	 * Adds constant states of already resolved icon drawables keyed by resource ids of the icons.
+	 * Icons of items with these icon resources are then created from the given states.
+	 *
+	 * @param iconStates The resolved icon states to add.
+	 * @see #resolveIconState(Context, int)
+	 */
+	void putIconStates(@NonNull final SparseArray<Drawable.ConstantState> iconStates) {
+		for (int i = 0; i < iconStates.size(); i++) {
+			mIconStates.put(iconStates.keyAt(i), iconStates.valueAt(i));
+		}
+	}
+
+	/**
+	 * Invalidates titles and summaries resolved and cached on items of this adapter, so they will be
+	 * resolved again from the current resources when the items are bound next time.
+	 * <p>
+	 * The cached texts are invalidated automatically when the configuration of resources changes,
+	 * so this method needs to be called only if headers resolve theirs texts differently for the
+	 * same configuration.
+	 */
+	public void invalidateResolvedTexts() {
+		if (mItems != null) {
+			for (final Item item : mItems) {
+				item.textsResolved = false;
+			}
+		}
+		this.mResolvedTextsConfiguration = null;
+	}
+
+	/**
+	 * Ensures that texts cached on items of this adapter have been resolved for the current
+	 * configuration of resources, otherwise invalidates them.
+	 */
+	private void ensureResolvedTextsValid() {
+		final Configuration configuration = mResources.getConfiguration();
+		if (mResolvedTextsConfiguration == null || !mResolvedTextsConfiguration.equals(configuration)) {
+			if (mResolvedTextsConfiguration != null) {
+				// Icons may be also resolved differently for the new configuration.
+				mIconStates.clear();
+			}
+			invalidateResolvedTexts();
+			this.mResolvedTextsConfiguration = new Configuration(configuration);
+		}
+	}
+
+	/**
+	 * Resolves title and summary of the given <var>item</var> from its header, if they are not
+	 * cached on the item yet.
+	 *
+	 * @param item The item of which texts to resolve.
+	 */
+	private void resolveTexts(final Item item) {
+		if (!item.textsResolved) {
+			item.title = item.header.getTitle(mResources);
+			item.summary = item.header.getSummary(mResources);
+			item.textsResolved = true;
+		}
+	}
+
 	/**
 	 * Invoked from {@link #getView(int, View, ViewGroup)} in order to perform binding of the given
 	 * <var>viewHolder</var> with data of the item from this adapter's data set at the specified
@@ -462,10 +918,12 @@ public class SettingHeadersAdapter extends BaseAdapter {
 	 *                   to the view holder.
 	 */
 	protected void onBindViewHolder(@NonNull final ViewHolder viewHolder, final int position) {
+		this.ensureResolvedTextsValid();
 		switch (viewHolder.getItemViewType()) {
 			case VIEW_TYPE_CATEGORY:
-				final PreferenceActivity.Header categoryHeader = getItem(position).header;
-				((CategoryHolder) viewHolder).title.setText(categoryHeader.getTitle(mResources));
+				final Item categoryItem = getItem(position);
+				this.resolveTexts(categoryItem);
+				((CategoryHolder) viewHolder).title.setText(categoryItem.title);
 				break;
 			case VIEW_TYPE_CATEGORY_DIVIDER:
 				final CategoryDividerHolder dividerHolder = (CategoryDividerHolder) viewHolder;
@@ -478,7 +936,10 @@ public class SettingHeadersAdapter extends BaseAdapter {
 					headerHolder.iconFrame.setVisibility(View.GONE);
 				} else {
 					headerHolder.iconFrame.setVisibility(View.VISIBLE);
-					if (mUseVectorIcons) {
+					final Drawable.ConstantState iconState = mIconStates.get(item.header.iconRes);
+					if (iconState != null) {
+						headerHolder.icon.setImageDrawable(iconState.newDrawable(mResources));
+					} else if (mUseVectorIcons) {
 						headerHolder.icon.setImageDrawable(ResourceUtils.getVectorDrawable(
 								mResources,
 								item.header.iconRes,
@@ -488,8 +949,9 @@ public class SettingHeadersAdapter extends BaseAdapter {
 						headerHolder.icon.setImageResource(item.header.iconRes);
 					}
 				}
-				headerHolder.title.setText(item.header.getTitle(mResources));
-				final CharSequence summary = item.header.getSummary(mResources);
+				this.resolveTexts(item);
+				headerHolder.title.setText(item.title);
+				final CharSequence summary = item.summary;
 				if (TextUtils.isEmpty(summary)) {
 					headerHolder.summary.setVisibility(View.GONE);
 				} else {
@@ -518,6 +980,27 @@ public class SettingHeadersAdapter extends BaseAdapter {
 	 * Inner classes ===============================================================================
 	 */
 
+	/**
+	 * An {@link MessageQueue.IdleHandler} that prefetches icons via {@link #prefetchIcons(long)}
+	 * within a limited time budget whenever the main thread becomes idle, and stays registered only
+	 * while there are icons to be prefetched.
+	 */
+	private final class IconPrefetcher implements MessageQueue.IdleHandler {
+
+		/**
+		 * Boolean flag indicating whether this prefetcher is registered in the message queue.
+		 */
+		boolean scheduled;
+
+		/**
+		 */
+		@Override
+		public boolean queueIdle() {
+			this.scheduled = prefetchIcons(SystemClock.uptimeMillis() + ICON_PREFETCH_IDLE_BUDGET);
+			return scheduled;
+		}
+	}
+
 	/**
 	 * Item class represents a data model for {@link SettingHeadersAdapter}. Each item, except divider
 	 * item, has associated header data that may be obtained via {@link #getHeader()}.
@@ -533,9 +1016,12 @@ public class SettingHeadersAdapter extends BaseAdapter {
 		final int viewType;
 
 		/**
-		 * Header data associated with this item.
+		 * Header data associated with this item. May be changed when this item is reused for
+		 * an updated header.
+		 *
+		 * @see SettingHeadersAdapter#swapHeadersWithDiff(List)
 		 */
-		final PreferenceActivity.Header header;
+		PreferenceActivity.Header header;
 
 		/**
 		 * Boolean flag indicating whether there should be visible divider in the view inflated for
@@ -543,6 +1029,23 @@ public class SettingHeadersAdapter extends BaseAdapter {
 		 */
 		boolean showDivider;
 
+		/**
+		 * Stable id of this item derived from its header.
+		 */
+		long id;
+
+		/**
+		 * Title and summary resolved from the header of this item. Valid only if {@link #textsResolved}
+		 * is {@code true}.
+		 */
+		CharSequence title, summary;
+
+		/**
+		 * Boolean flag indicating whether {@link #title} and {@link #summary} have been resolved
+		 * for the current header and configuration.
+		 */
+		boolean textsResolved;
+
 		/**
 		 * Creates a new instance of Item with the specified <var>viewType</var> and <var>header</var>
 		 * data.
@@ -19,7 +19,12 @@
 package universum.studios.android.setting;
 
 import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.preference.PreferenceActivity;
 import android.support.annotation.CallSuper;
 import android.support.annotation.ColorInt;
@@ -32,14 +37,18 @@ import android.support.v7.app.ActionBar;
 import android.support.v7.app.AppCompatDelegate;
 import android.support.v7.widget.Toolbar;
 import android.util.AndroidRuntimeException;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.MenuInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.widget.ListAdapter;
 import android.widget.ListView;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * A {@link PreferenceActivity} implementation that uses {@link AppCompatDelegate} to provide
@@ -51,6 +60,19 @@ import java.util.List;
  * may be obtained via {@link #setHeadersAdapter(ListAdapter)}. The headers that has been loaded and
  * are used by the headers adapter may be obtained via {@link #getHeaders()}.
  * <p>
+ * Headers may be also loaded asynchronously via {@link #loadHeadersFromResourceAsync(int, List)}
+ * called from {@link #onBuildHeaders(List)}. The headers Xml is then parsed and icons of the headers
+ * are resolved on a background executor while the headers list is empty, and the loaded headers are
+ * published to the headers adapter in a single swap on the main thread.
+ * <p>
+ * Instead of the default layout of the parent {@link PreferenceActivity}, this activity uses by
+ * default {@link R.layout#ui_settings_activity} layout which has flattened view hierarchy for both,
+ * single-pane and two-pane, modes and which does not need to be corrected after it is inflated.
+ * This may be disabled via {@link #onIsFlattenedLayoutEnabled()}.
+ * <p>
+ * Settings of this activity may be searched via {@link SettingsSearchIndex} loaded via
+ * {@link #loadSearchIndexAsync()} and a chosen search result may be shown via {@link #showSearchResult(SettingsSearchIndex.Result)}.
+ * <p>
  * If a {@link Toolbar} should be presented in the activity's view hierarchy, it may be added via
  * {@link #addToolbar()} which also attacheds the added toolbar as support action bar.
  *
@@ -75,6 +97,38 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 */
 	private static final String BUNDLE_HEADERS = ":android:headers";
 
+	/**
+	 * Bundle key used by parent {@link PreferenceActivity} to save and restore index of the current
+	 * header.
+	 */
+	private static final String BUNDLE_CURRENT_HEADER = ":android:cur_header";
+
+	/**
+	 * Bundle key used to save resource id of the Xml file from which have been the headers loaded.
+	 *
+	 * @see #onSaveInstanceState(Bundle)
+	 */
+	private static final String BUNDLE_HEADERS_RESOURCE = SettingsBaseActivity.class.getName() + ".BUNDLE.HeadersResource";
+
+	/**
+	 * Bundle key used to save hash of content of the headers instead of the headers themselves.
+	 *
+	 * @see #onSaveInstanceState(Bundle)
+	 */
+	private static final String BUNDLE_HEADERS_HASH = SettingsBaseActivity.class.getName() + ".BUNDLE.HeadersHash";
+
+	/**
+	 * Id of the placeholder header used while headers are being loaded asynchronously.
+	 *
+	 * @see #loadHeadersFromResourceAsync(int, List)
+	 */
+	private static final long HEADER_ID_PLACEHOLDER = Long.MIN_VALUE;
+
+	/**
+	 * Handler used to publish asynchronously loaded headers on the main thread.
+	 */
+	private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
 	/*
 	 * Interface ===================================================================================
 	 */
@@ -89,6 +143,11 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 */
 	private static final LayoutCorrector LAYOUT_CORRECTOR = new BasicLayoutCorrector();
 
+	/**
+	 * Executor used to load headers via {@link #loadHeadersFromResourceAsync(int, List)}.
+	 */
+	private static Executor sHeadersLoadingExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+
 	/*
 	 * Members =====================================================================================
 	 */
@@ -104,6 +163,14 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 */
 	private View mContentView;
 
+	/**
+	 * Flag indicating whether the current content view of this activity has been inflated from
+	 * the flattened {@link R.layout#ui_settings_activity} layout.
+	 *
+	 * @see #onIsFlattenedLayoutEnabled()
+	 */
+	private boolean mFlattenedLayout;
+
 	/**
 	 * Toolbar added into view hierarchy of this activity via {@link #addToolbar()}.
 	 */
@@ -114,6 +181,13 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 */
 	private List<Header> mHeaders;
 
+	/**
+	 * Resource id of the Xml file from which have been the headers loaded. If the headers have not
+	 * been modified after they were loaded, only this resource id is saved in the instance state
+	 * instead of the headers.
+	 */
+	private int mHeadersResource;
+
 	/**
 	 * Adapter providing item views for inflated preference headers.
 	 *
@@ -121,6 +195,26 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 */
 	private ListAdapter mHeadersAdapter;
 
+	/**
+	 * Task loading headers asynchronously. May be {@code null} if there is no loading running.
+	 *
+	 * @see #loadHeadersFromResourceAsync(int, List)
+	 */
+	private HeadersLoadingTask mHeadersLoadingTask;
+
+	/**
+	 * Search index loaded via {@link #loadSearchIndexAsync()}. May be {@code null} if it has not
+	 * been loaded yet.
+	 */
+	private SettingsSearchIndex mSearchIndex;
+
+	/**
+	 * Task loading search index asynchronously. May be {@code null} if there is no loading running.
+	 *
+	 * @see #loadSearchIndexAsync()
+	 */
+	private SearchIndexLoadingTask mSearchIndexLoadingTask;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -146,11 +240,23 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	protected void onCreate(@Nullable final Bundle savedInstanceState) {
 		delegate().installViewFactory();
 		delegate().onCreate(savedInstanceState);
+		if (savedInstanceState != null) {
+			this.restoreHeadersState(savedInstanceState);
+		}
 		super.onCreate(savedInstanceState);
 		if (savedInstanceState != null) {
 			this.mHeaders = savedInstanceState.getParcelableArrayList(BUNDLE_HEADERS);
+			if (mHeaders != null && isPlaceholder(mHeaders)) {
+				// State has been saved while headers were being loaded, load them again.
+				this.mHeaders = null;
+				setHeadersAdapter(new SettingHeadersAdapter(this));
+				invalidateHeaders();
+				return;
+			}
 		}
-		if (mHeaders != null) {
+		if (mHeadersLoadingTask != null) {
+			setHeadersAdapter(new SettingHeadersAdapter(this));
+		} else if (mHeaders != null) {
 			setHeadersAdapter(new SettingHeadersAdapter(this, mHeaders));
 		}
 	}
@@ -159,7 +265,242 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 */
 	@Override
 	public void loadHeadersFromResource(@XmlRes final int resid, @NonNull final List<Header> target) {
-		super.loadHeadersFromResource(resid, this.mHeaders = target);
+		this.mHeaders = target;
+		this.mHeadersResource = resid;
+		target.addAll(obtainHeadersEntry(resid).copyHeaders());
+	}
+
+	/**
+	 * Obtains entry with headers loaded from the specified Xml resource from {@link HeadersCache}.
+	 * If there is no entry cached yet, the headers are parsed via default implementation of
+	 * {@link #loadHeadersFromResource(int, List)} and cached.
+	 * <p>
+	 * This method may be called from a background thread.
+	 *
+	 * @param resid Resource id of the Xml file with headers.
+	 * @return Entry with the loaded headers.
+	 */
+	final HeadersCache.Entry obtainHeadersEntry(final int resid) {
+		final HeadersCache.Entry entry = HeadersCache.get(this, resid);
+		if (entry != null) {
+			return entry;
+		}
+		final List<Header> headers = new ArrayList<>();
+		super.loadHeadersFromResource(resid, headers);
+		return HeadersCache.put(this, resid, headers);
+	}
+
+	/**
+	 * Restores headers saved in the given <var>state</var> via {@link #onSaveInstanceState(Bundle)}
+	 * only by resource id of theirs Xml file. The headers are restored from {@link HeadersCache}
+	 * and put into the state, so they may be restored by the parent {@link PreferenceActivity}.
+	 * <p>
+	 * If hash of the restored headers does not match the saved one, for example when the headers
+	 * are loaded differently for the current configuration, the current header is not restored.
+	 *
+	 * @param state The state from which to restore headers.
+	 */
+	private void restoreHeadersState(final Bundle state) {
+		this.mHeadersResource = state.getInt(BUNDLE_HEADERS_RESOURCE, 0);
+		if (mHeadersResource == 0 || !state.containsKey(BUNDLE_HEADERS_HASH)) {
+			return;
+		}
+		final HeadersCache.Entry entry = obtainHeadersEntry(mHeadersResource);
+		if (entry.hash != state.getLong(BUNDLE_HEADERS_HASH)) {
+			state.remove(BUNDLE_CURRENT_HEADER);
+		}
+		state.putParcelableArrayList(BUNDLE_HEADERS, entry.copyHeaders());
+	}
+
+	/**
+	 * Same as {@link #loadHeadersFromResource(int, List)} but the headers are loaded on a background
+	 * executor along with icons specified for them, and then published to the target list and to
+	 * the {@link SettingHeadersAdapter} in a single step on the main thread. Until then the headers
+	 * list of this activity is empty.
+	 * <p>
+	 * This method should be called from {@link #onBuildHeaders(List)} with the list passed to it.
+	 * If this activity presents headers along with preferences in multiple panes, the headers are
+	 * loaded synchronously as the initial header needs to be known immediately.
+	 *
+	 * @param resid  Resource id of the Xml file with headers to load.
+	 * @param target The list into which to load the headers.
+	 * @see #onHeadersLoaded(List)
+	 * @see #setHeadersLoadingExecutor(Executor)
+	 */
+	protected void loadHeadersFromResourceAsync(@XmlRes final int resid, @NonNull final List<Header> target) {
+		if (mHeadersLoadingTask != null) {
+			mHeadersLoadingTask.cancel();
+			this.mHeadersLoadingTask = null;
+		}
+		if (onIsMultiPane() && !onIsHidingHeaders()) {
+			loadHeadersFromResource(resid, target);
+			onHeadersLoaded(target);
+			return;
+		}
+		this.mHeaders = target;
+		this.mHeadersResource = resid;
+		// Framework presents legacy single preferences screen if there are no headers built, so
+		// there needs to be a placeholder header until the headers are loaded.
+		final Header placeholder = new Header();
+		placeholder.id = HEADER_ID_PLACEHOLDER;
+		target.add(placeholder);
+		this.mHeadersLoadingTask = new HeadersLoadingTask(this, resid, target);
+		sHeadersLoadingExecutor.execute(mHeadersLoadingTask);
+	}
+
+	/**
+	 * Sets an executor that should be used to load headers for all settings activities via
+	 * {@link #loadHeadersFromResourceAsync(int, List)}.
+	 * <p>
+	 * Default executor is {@link AsyncTask#THREAD_POOL_EXECUTOR}.
+	 *
+	 * @param executor The desired executor.
+	 */
+	public static void setHeadersLoadingExecutor(@NonNull final Executor executor) {
+		sHeadersLoadingExecutor = executor;
+	}
+
+	/**
+	 * Checks whether the given <var>headers</var> contain only placeholder header added while
+	 * headers are being loaded asynchronously.
+	 */
+	private static boolean isPlaceholder(final List<Header> headers) {
+		return headers.size() == 1 && headers.get(0).id == HEADER_ID_PLACEHOLDER;
+	}
+
+	/**
+	 * Returns a flag indicating whether this activity is loading its headers asynchronously at
+	 * this time.
+	 *
+	 * @return {@code True} if headers loading is running, {@code false} otherwise.
+	 * @see #loadHeadersFromResourceAsync(int, List)
+	 */
+	protected boolean isLoadingHeaders() {
+		return mHeadersLoadingTask != null;
+	}
+
+	/**
+	 * Publishes the given asynchronously loaded <var>headers</var> into the target list and to the
+	 * current headers adapter.
+	 *
+	 * @param task       The task that loaded the headers.
+	 * @param headers    The loaded headers.
+	 * @param iconStates States of icons resolved for the loaded headers.
+	 */
+	final void publishLoadedHeaders(final HeadersLoadingTask task, final List<Header> headers, final SparseArray<Drawable.ConstantState> iconStates) {
+		if (mHeadersLoadingTask != task) {
+			return;
+		}
+		this.mHeadersLoadingTask = null;
+		task.target.clear();
+		task.target.addAll(headers);
+		if (mHeadersAdapter instanceof SettingHeadersAdapter) {
+			final SettingHeadersAdapter adapter = (SettingHeadersAdapter) mHeadersAdapter;
+			adapter.putIconStates(iconStates);
+			adapter.swapHeadersWithDiff(task.target);
+		}
+		onHeadersLoaded(task.target);
+	}
+
+	/**
+	 * Invoked whenever headers requested via {@link #loadHeadersFromResourceAsync(int, List)} has
+	 * been loaded and published to the headers adapter.
+	 *
+	 * @param headers The loaded headers.
+	 */
+	protected void onHeadersLoaded(@NonNull final List<Header> headers) {
+		// Inheritance hierarchies may perform here additional operations with the loaded headers.
+	}
+
+	/**
+	 * Loads {@link SettingsSearchIndex} for this activity on the background executor used also to
+	 * load headers. The index persisted by a previous loading is used if it has been built for the
+	 * current version and locale of the application and from the same sources, otherwise a new index
+	 * is built from sources specified via {@link #onBuildSearchIndex(SettingsSearchIndex.Builder)}
+	 * and persisted, so the preferences Xml files are parsed only on the first launch.
+	 * <p>
+	 * This method should be called after the headers of this activity have been built. When loaded,
+	 * the index is delivered to {@link #onSearchIndexLoaded(SettingsSearchIndex)}.
+	 *
+	 * @see #getSearchIndex()
+	 * @see #showSearchResult(SettingsSearchIndex.Result)
+	 */
+	protected void loadSearchIndexAsync() {
+		if (mSearchIndex != null || mSearchIndexLoadingTask != null) {
+			return;
+		}
+		final SettingsSearchIndex.Builder builder = new SettingsSearchIndex.Builder(this);
+		onBuildSearchIndex(builder);
+		this.mSearchIndexLoadingTask = new SearchIndexLoadingTask(this, builder, "ui_settings_search_index_" + getClass().getName());
+		sHeadersLoadingExecutor.execute(mSearchIndexLoadingTask);
+	}
+
+	/**
+	 * Invoked from {@link #loadSearchIndexAsync()} to specify sources from which should be built
+	 * the search index of this activity.
+	 * <p>
+	 * Default implementation adds headers loaded from the Xml resource specified via
+	 * {@link #loadHeadersFromResource(int, List)}. Subclasses should add here also preferences
+	 * Xml files of the fragments presented for the headers via {@link SettingsSearchIndex.Builder#addPreferences(String, int)}.
+	 *
+	 * @param builder The builder into which to add the sources.
+	 */
+	protected void onBuildSearchIndex(@NonNull final SettingsSearchIndex.Builder builder) {
+		if (mHeadersResource != 0) {
+			builder.addHeaders(obtainHeadersEntry(mHeadersResource).copyHeaders());
+		}
+	}
+
+	/**
+	 * Publishes the search index loaded by the given <var>task</var>, if it is still the current one.
+	 *
+	 * @param task        The task that has loaded the search index.
+	 * @param searchIndex The loaded search index.
+	 */
+	final void publishLoadedSearchIndex(final SearchIndexLoadingTask task, final SettingsSearchIndex searchIndex) {
+		if (mSearchIndexLoadingTask != task) {
+			return;
+		}
+		this.mSearchIndexLoadingTask = null;
+		this.mSearchIndex = searchIndex;
+		onSearchIndexLoaded(searchIndex);
+	}
+
+	/**
+	 * Invoked whenever search index requested via {@link #loadSearchIndexAsync()} has been loaded.
+	 *
+	 * @param searchIndex The loaded search index.
+	 */
+	protected void onSearchIndexLoaded(@NonNull final SettingsSearchIndex searchIndex) {
+		// Inheritance hierarchies may perform here pending queries.
+	}
+
+	/**
+	 * Returns the search index loaded via {@link #loadSearchIndexAsync()}.
+	 *
+	 * @return The search index or {@code null} if it has not been loaded yet.
+	 */
+	@Nullable
+	protected SettingsSearchIndex getSearchIndex() {
+		return mSearchIndex;
+	}
+
+	/**
+	 * Shows the fragment of the given search <var>result</var> with arguments requesting it to reveal
+	 * the target preference. If this activity presents headers along with preferences in multiple
+	 * panes, the fragment is switched in the preferences pane, otherwise it is started in a new
+	 * instance of this activity.
+	 *
+	 * @param result The search result to show.
+	 * @see SettingsSearchIndex.Result#createArguments()
+	 */
+	protected void showSearchResult(@NonNull final SettingsSearchIndex.Result result) {
+		final Bundle arguments = result.createArguments();
+		if (onIsMultiPane() && !onIsHidingHeaders()) {
+			switchToHeader(result.fragment, arguments);
+		} else {
+			startWithFragment(result.fragment, arguments, null, 0);
+		}
 	}
 
 	/**
@@ -242,9 +583,39 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 */
 	@Override
 	public void setContentView(@LayoutRes final int layoutResID) {
+		if (onIsFlattenedLayoutEnabled() && FlattenedLayout.isFrameworkLayout(getResources(), layoutResID) &&
+				!getIntent().getBooleanExtra(EXTRA_PREFS_SHOW_BUTTON_BAR, false)) {
+			final View layout = getLayoutInflater().inflate(R.layout.ui_settings_activity, null);
+			FlattenedLayout.assignFrameworkIds(layout);
+			this.mFlattenedLayout = true;
+			delegate().setContentView(layout);
+			return;
+		}
+		this.mFlattenedLayout = false;
 		delegate().setContentView(layoutResID);
 	}
 
+	/**
+	 * Invoked to determine whether this activity should use the flattened {@link R.layout#ui_settings_activity}
+	 * layout instead of the default layout of the parent {@link PreferenceActivity}.
+	 * <p>
+	 * The flattened layout contains the headers list along with the preferences frame in a view
+	 * hierarchy of a lower depth and also a stub for {@link Toolbar} that is inflated in place
+	 * whenever {@link #addToolbar()} is called, so no layout corrections need to be performed
+	 * for it. The default layout is used regardless of this flag if the flattened layout cannot be
+	 * bound to the parent activity on the current platform or if the button bar is requested to be
+	 * shown via {@link #EXTRA_PREFS_SHOW_BUTTON_BAR}.
+	 * <p>
+	 * This method is called during {@link #onCreate(Bundle)}.
+	 * <p>
+	 * Default implementation returns {@code true}.
+	 *
+	 * @return {@code True} to use the flattened layout, {@code false} to use the default one.
+	 */
+	protected boolean onIsFlattenedLayoutEnabled() {
+		return true;
+	}
+
 	/**
 	 */
 	@Override
@@ -272,8 +643,14 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	@CallSuper
 	public void onContentChanged() {
 		super.onContentChanged();
-		this.mContentView = ((ViewGroup) getWindow().getDecorView().findViewById(android.R.id.content)).getChildAt(0);
-		LAYOUT_CORRECTOR.correctLayout(mContentView);
+		final View contentView = ((ViewGroup) getWindow().getDecorView().findViewById(android.R.id.content)).getChildAt(0);
+		if (mContentView != contentView) {
+			// Correct each inflated content view only once. The flattened layout needs no correction.
+			this.mContentView = contentView;
+			if (!mFlattenedLayout) {
+				LAYOUT_CORRECTOR.correctLayout(contentView);
+			}
+		}
 	}
 
 	/**
@@ -295,8 +672,9 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 * Adds {@link Toolbar} into view hierarchy of this activity if it has not been added yet.
 	 * <p>
 	 * This implementation creates a new instance of the toolbar via {@link #onCreateToolbar(LayoutInflater, ViewGroup)}
-	 * if it is not created and added yet and adds it into this activity's content view at the
-	 * {@code 0} position, which is at the top. Also the added toolbar is attached to this activity
+	 * if it is not created and added yet and, if the created toolbar is not already attached to the
+	 * view hierarchy, adds it into this activity's content view at the {@code 0} position, which
+	 * is at the top. Also the added toolbar is attached to this activity
 	 * as support action bar via {@link #setSupportActionBar(Toolbar)} and if this activity is not
 	 * currently in state of hiding headers, the displaying of home as up for the attached action bar
 	 * is enabled via {@link ActionBar#setDisplayHomeAsUpEnabled(boolean)} and {@link View.OnClickListener}
@@ -318,8 +696,10 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 		}
 		if (mToolbar == null) {
 			this.mToolbar = onCreateToolbar(getLayoutInflater(), (ViewGroup) mContentView);
-			// Add Toolbar at the top of layout which is LinearLayout.
-			((ViewGroup) mContentView).addView(mToolbar, 0);
+			if (mToolbar.getParent() == null) {
+				// Add Toolbar at the top of layout which is LinearLayout.
+				((ViewGroup) mContentView).addView(mToolbar, 0);
+			}
 			setSupportActionBar(mToolbar);
 			if (onIsHidingHeaders()) {
 				final ActionBar actionBar = getSupportActionBar();
@@ -343,7 +723,9 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 * that will be added into view hierarchy of this activity.
 	 * <p>
 	 * This implementation by default inflates {@link R.layout#ui_toolbar} layout which contains
-	 * single Toolbar. Subclasses may override this method to create or inflate custom toolbar.
+	 * single Toolbar. If this activity uses the flattened layout, the toolbar is inflated in place
+	 * of the toolbar stub presented in that layout. Subclasses may override this method to create
+	 * or inflate custom toolbar.
 	 *
 	 * @param inflater Layout inflater that may be used to inflate the requested toolbar.
 	 * @param root     This activity's root view.
@@ -351,6 +733,10 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 */
 	@NonNull
 	protected Toolbar onCreateToolbar(@NonNull final LayoutInflater inflater, @NonNull final ViewGroup root) {
+		final View toolbarStub = root.findViewById(R.id.ui_settings_toolbar_stub);
+		if (toolbarStub instanceof ViewStub) {
+			return (Toolbar) ((ViewStub) toolbarStub).inflate();
+		}
 		return (Toolbar) inflater.inflate(R.layout.ui_toolbar, root, false);
 	}
 
@@ -415,11 +801,23 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	}
 
 	/**
+	 * This implementation saves only resource id of the Xml file with headers and hash of theirs
+	 * content instead of the headers themselves, if the headers have not been modified after they
+	 * were loaded via {@link #loadHeadersFromResource(int, List)}.
 	 */
 	@Override
 	protected void onSaveInstanceState(@NonNull final Bundle state) {
 		super.onSaveInstanceState(state);
 		delegate().onSaveInstanceState(state);
+		if (mHeadersResource != 0) {
+			state.putInt(BUNDLE_HEADERS_RESOURCE, mHeadersResource);
+			final List<Header> headers = state.getParcelableArrayList(BUNDLE_HEADERS);
+			final HeadersCache.Entry entry = headers == null ? null : HeadersCache.get(this, mHeadersResource);
+			if (entry != null && entry.hash == HeadersCache.computeHash(headers)) {
+				state.remove(BUNDLE_HEADERS);
+				state.putLong(BUNDLE_HEADERS_HASH, entry.hash);
+			}
+		}
 	}
 
 	/**
@@ -450,6 +848,14 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 */
 	@Override
 	protected void onDestroy() {
+		if (mHeadersLoadingTask != null) {
+			mHeadersLoadingTask.cancel();
+			this.mHeadersLoadingTask = null;
+		}
+		if (mSearchIndexLoadingTask != null) {
+			mSearchIndexLoadingTask.cancel();
+			this.mSearchIndexLoadingTask = null;
+		}
 		super.onDestroy();
 		delegate().onDestroy();
 	}
@@ -458,6 +864,280 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	 * Inner classes ===============================================================================
 	 */
 
+	/**
+	 * Runnable that loads headers from Xml along with theirs icons on a background executor and
+	 * publishes them to its activity on the main thread.
+	 */
+	static final class HeadersLoadingTask implements Runnable {
+
+		/**
+		 * Activity for which to load headers.
+		 */
+		final SettingsBaseActivity activity;
+
+		/**
+		 * Resource id of the Xml file with headers to load.
+		 */
+		final int xmlResource;
+
+		/**
+		 * List into which to publish the loaded headers.
+		 */
+		final List<Header> target;
+
+		/**
+		 * Boolean flag indicating whether this task has been cancelled.
+		 */
+		volatile boolean cancelled;
+
+		/**
+		 * Creates a new instance of HeadersLoadingTask for the given <var>activity</var>.
+		 *
+		 * @param activity    The activity for which to load headers.
+		 * @param xmlResource Resource id of the Xml file with headers to load.
+		 * @param target      The list into which to publish the loaded headers.
+		 */
+		HeadersLoadingTask(final SettingsBaseActivity activity, final int xmlResource, final List<Header> target) {
+			this.activity = activity;
+			this.xmlResource = xmlResource;
+			this.target = target;
+		}
+
+		/**
+		 */
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+			final List<Header> headers = activity.obtainHeadersEntry(xmlResource).copyHeaders();
+			final SparseArray<Drawable.ConstantState> iconStates = new SparseArray<>();
+			for (final Header header : headers) {
+				if (cancelled) {
+					return;
+				}
+				if (header.iconRes != 0 && iconStates.indexOfKey(header.iconRes) < 0) {
+					final Drawable.ConstantState iconState = SettingHeadersAdapter.resolveIconState(activity, header.iconRes);
+					if (iconState != null) {
+						iconStates.put(header.iconRes, iconState);
+					}
+				}
+			}
+			MAIN_HANDLER.post(new Runnable() {
+
+				/**
+				 */
+				@Override
+				public void run() {
+					if (!cancelled) {
+						activity.publishLoadedHeaders(HeadersLoadingTask.this, headers, iconStates);
+					}
+				}
+			});
+		}
+
+		/**
+		 * Cancels this task, so the loaded headers will not be published.
+		 */
+		void cancel() {
+			this.cancelled = true;
+		}
+	}
+
+	/**
+	 * Runnable that loads search index persisted for its activity or builds a new one if there is
+	 * no valid index persisted, on a background executor, and publishes it to its activity on the
+	 * main thread.
+	 */
+	static final class SearchIndexLoadingTask implements Runnable {
+
+		/**
+		 * Activity for which to load search index.
+		 */
+		final SettingsBaseActivity activity;
+
+		/**
+		 * Builder used to build a new search index if there is no valid one persisted.
+		 */
+		final SettingsSearchIndex.Builder builder;
+
+		/**
+		 * Name of the file in which is the search index persisted.
+		 */
+		final String fileName;
+
+		/**
+		 * Boolean flag indicating whether this task has been cancelled.
+		 */
+		volatile boolean cancelled;
+
+		/**
+		 * Creates a new instance of SearchIndexLoadingTask for the given <var>activity</var>.
+		 *
+		 * @param activity The activity for which to load search index.
+		 * @param builder  The builder used to build a new search index.
+		 * @param fileName Name of the file in which is the search index persisted.
+		 */
+		SearchIndexLoadingTask(final SettingsBaseActivity activity, final SettingsSearchIndex.Builder builder, final String fileName) {
+			this.activity = activity;
+			this.builder = builder;
+			this.fileName = fileName;
+		}
+
+		/**
+		 */
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+			SettingsSearchIndex searchIndex = builder.load(fileName);
+			if (searchIndex == null) {
+				searchIndex = builder.build();
+				searchIndex.save(activity, fileName);
+			}
+			final SettingsSearchIndex loadedSearchIndex = searchIndex;
+			MAIN_HANDLER.post(new Runnable() {
+
+				/**
+				 */
+				@Override
+				public void run() {
+					if (!cancelled) {
+						activity.publishLoadedSearchIndex(SearchIndexLoadingTask.this, loadedSearchIndex);
+					}
+				}
+			});
+		}
+
+		/**
+		 * Cancels this task, so the loaded search index will not be published.
+		 */
+		void cancel() {
+			this.cancelled = true;
+		}
+	}
+
+	/**
+	 * Binds the flattened {@link R.layout#ui_settings_activity} layout to the parent {@link PreferenceActivity}
+	 * which looks up its views by ids that are private to the Android framework. These ids are
+	 * resolved once and assigned to the corresponding views of each inflated flattened layout.
+	 */
+	static final class FlattenedLayout {
+
+		/**
+		 * Names of the framework layouts that are replaced by the flattened one. The material variant
+		 * is inflated by the parent activity on {@link android.os.Build.VERSION_CODES#LOLLIPOP Lollipop} and
+		 * above, the legacy one on older versions or with non-material themes.
+		 */
+		private static final String[] FRAMEWORK_LAYOUT_NAMES = {
+				"preference_list_content_material",
+				"preference_list_content"
+		};
+
+		/**
+		 * Names of the framework ids looked up by the parent activity in its layout.
+		 */
+		private static final String[] FRAMEWORK_ID_NAMES = {
+				"headers",
+				"list_footer",
+				"prefs_frame",
+				"prefs"
+		};
+
+		/**
+		 * Ids of views within the flattened layout corresponding to the {@link #FRAMEWORK_ID_NAMES}.
+		 */
+		private static final int[] LAYOUT_IDS = {
+				R.id.ui_settings_headers,
+				R.id.ui_settings_headers_footer,
+				R.id.ui_settings_preferences_frame,
+				R.id.ui_settings_preferences
+		};
+
+		/**
+		 * Resource ids of the framework layouts resolved by {@link #FRAMEWORK_LAYOUT_NAMES}. Ids of
+		 * layouts which are not available on the current platform are {@code 0}.
+		 */
+		private static int[] sFrameworkLayouts;
+
+		/**
+		 * Framework ids resolved by {@link #FRAMEWORK_ID_NAMES}. Will be {@code null} if some of
+		 * them could not be resolved.
+		 */
+		private static int[] sFrameworkIds;
+
+		/**
+		 * Flag indicating whether the framework resources have been already resolved.
+		 */
+		private static boolean sFrameworkResourcesResolved;
+
+		/**
+		 */
+		private FlattenedLayout() {
+			// Not allowed to be instantiated publicly.
+		}
+
+		/**
+		 * Checks whether the specified <var>layoutResId</var> is the framework layout that may be
+		 * replaced by the flattened one.
+		 *
+		 * @param resources   Resources used to resolve the framework resources.
+		 * @param layoutResId Resource id of the layout to check.
+		 * @return {@code True} if the layout may be replaced, {@code false} otherwise.
+		 */
+		static boolean isFrameworkLayout(@NonNull final Resources resources, @LayoutRes final int layoutResId) {
+			ensureFrameworkResources(resources);
+			if (sFrameworkIds == null || layoutResId == 0) {
+				return false;
+			}
+			for (final int frameworkLayout : sFrameworkLayouts) {
+				if (frameworkLayout == layoutResId) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Resolves the framework layout and ids if they have not been resolved yet.
+		 *
+		 * @param resources Resources used to resolve the framework resources.
+		 */
+		private static void ensureFrameworkResources(final Resources resources) {
+			if (sFrameworkResourcesResolved) {
+				return;
+			}
+			final int[] frameworkLayouts = new int[FRAMEWORK_LAYOUT_NAMES.length];
+			for (int i = 0; i < FRAMEWORK_LAYOUT_NAMES.length; i++) {
+				frameworkLayouts[i] = resources.getIdentifier(FRAMEWORK_LAYOUT_NAMES[i], "layout", "android");
+			}
+			sFrameworkLayouts = frameworkLayouts;
+			int[] frameworkIds = new int[FRAMEWORK_ID_NAMES.length];
+			for (int i = 0; i < FRAMEWORK_ID_NAMES.length; i++) {
+				frameworkIds[i] = resources.getIdentifier(FRAMEWORK_ID_NAMES[i], "id", "android");
+				if (frameworkIds[i] == 0) {
+					frameworkIds = null;
+					break;
+				}
+			}
+			sFrameworkIds = frameworkIds;
+			sFrameworkResourcesResolved = true;
+		}
+
+		/**
+		 * Assigns the resolved framework ids to the corresponding views of the given <var>layout</var>
+		 * inflated from the flattened layout resource.
+		 *
+		 * @param layout The inflated flattened layout.
+		 */
+		static void assignFrameworkIds(@NonNull final View layout) {
+			for (int i = 0; i < LAYOUT_IDS.length; i++) {
+				layout.findViewById(LAYOUT_IDS[i]).setId(sFrameworkIds[i]);
+			}
+		}
+	}
+
 	/**
 	 * Interface for correctors used to correct/modify the view hierarchy of {@link SettingsBaseActivity}
 	 * so it matches actual Material design guidelines.
@@ -475,8 +1155,11 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 	/**
 	 * A {@link LayoutCorrector} basic implementation that performs layout corrections related to
 	 * all Android platform versions.
+	 * <p>
+	 * Correction of a layout is performed in a single pass and properties of views are changed only
+	 * if they differ from the desired ones, so the correction does not request any redundant layout.
 	 */
-	private static class BasicLayoutCorrector implements LayoutCorrector {
+	static class BasicLayoutCorrector implements LayoutCorrector {
 
 		/**
 		 */
@@ -492,6 +1175,17 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 			}
 		}
 
+		/**
+		 * Clears padding of the given <var>view</var> if it has any.
+		 *
+		 * @param view The view of which padding to clear.
+		 */
+		static void clearPadding(final View view) {
+			if (view.getPaddingLeft() != 0 || view.getPaddingTop() != 0 || view.getPaddingRight() != 0 || view.getPaddingBottom() != 0) {
+				view.setPadding(0, 0, 0, 0);
+			}
+		}
+
 		/**
 		 * Performs correction of the given <var>headersPanelView</var>.
 		 * <p>
@@ -501,45 +1195,58 @@ public abstract class SettingsBaseActivity extends PreferenceActivity {
 		 * @param headersPanelView The headers panel view to be corrected.
 		 */
 		void correctHeadersPanel(final View headersPanelView) {
-			headersPanelView.setPadding(0, 0, 0, 0);
+			clearPadding(headersPanelView);
 			final ListView headersListView = (ListView) headersPanelView.findViewById(android.R.id.list);
-			headersListView.setPadding(0, 0, 0, 0);
-			headersListView.setDivider(null);
-			headersListView.setDividerHeight(0);
+			clearPadding(headersListView);
+			if (headersListView.getDivider() != null) {
+				headersListView.setDivider(null);
+			}
+			if (headersListView.getDividerHeight() != 0) {
+				headersListView.setDividerHeight(0);
+			}
 		}
 
 		/**
 		 * Performs correction of the given <var>preferencesPanelView</var>.
 		 * <p>
 		 * This implementation clears padding of the given preferences panel view and also of the
-		 * preferences frame view, if presented in the view hierarchy of the panel view.
+		 * preferences frame view, if presented in the view hierarchy of the panel view. As the
+		 * preferences frame may apply its padding again whenever a fragment's view is added into it,
+		 * its padding is cleared also after each such addition, but only if the frame has applied it.
 		 *
 		 * @param preferencesPanelView The preferences panel view to be corrected.
 		 */
 		void correctPreferencesPanel(final View preferencesPanelView) {
-			preferencesPanelView.setPadding(0, 0, 0, 0);
+			clearPadding(preferencesPanelView);
 			if (preferencesPanelView instanceof ViewGroup && ((ViewGroup) preferencesPanelView).getChildCount() > 0) {
 				final ViewGroup preferencesPanelViewGroup = (ViewGroup) preferencesPanelView;
 				final View preferencesFrameView = preferencesPanelViewGroup.getChildAt(preferencesPanelViewGroup.getChildCount() - 1);
-				if (preferencesFrameView != null) {
-					((ViewGroup) preferencesFrameView).setOnHierarchyChangeListener(new ViewGroup.OnHierarchyChangeListener() {
-
-						/**
-						 */
-						@Override
-						public void onChildViewAdded(@NonNull View parent, @NonNull View child) {
-							preferencesFrameView.setPadding(0, 0, 0, 0);
-						}
-
-						/**
-						 */
-						@Override
-						public void onChildViewRemoved(@NonNull View parent, @NonNull View child) {
-							// Ignored.
-						}
-					});
+				if (preferencesFrameView instanceof ViewGroup) {
+					clearPadding(preferencesFrameView);
+					((ViewGroup) preferencesFrameView).setOnHierarchyChangeListener(PREFERENCES_FRAME_CORRECTOR);
 				}
 			}
 		}
+
+		/**
+		 * Listener clearing padding of the preferences frame whenever the frame applies it again
+		 * after a new fragment's view has been added into it.
+		 */
+		private static final ViewGroup.OnHierarchyChangeListener PREFERENCES_FRAME_CORRECTOR = new ViewGroup.OnHierarchyChangeListener() {
+
+			/**
+			 */
+			@Override
+			public void onChildViewAdded(@NonNull final View parent, @NonNull final View child) {
+				clearPadding(parent);
+			}
+
+			/**
+			 */
+			@Override
+			public void onChildViewRemoved(@NonNull final View parent, @NonNull final View child) {
+				// Ignored.
+			}
+		};
 	}
 }
@@ -0,0 +1,86 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.preference.PreferenceActivity;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import universum.studios.android.test.local.RobolectricTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class HeadersCacheTest extends RobolectricTestCase {
+
+	private static PreferenceActivity.Header createHeader(final long id, final String title) {
+		final PreferenceActivity.Header header = new PreferenceActivity.Header();
+		header.id = id;
+		header.title = title;
+		header.fragment = "Fragment" + id;
+		header.intent = new Intent(Intent.ACTION_VIEW);
+		header.extras = new Bundle();
+		header.extras.putString("key", "value");
+		return header;
+	}
+
+	@Override
+	public void afterTest() throws Exception {
+		super.afterTest();
+		HeadersCache.clear();
+	}
+
+	@Test
+	public void testPutAndGet() {
+		final List<PreferenceActivity.Header> headers = Arrays.asList(createHeader(1, "Header 1"), createHeader(2, "Header 2"));
+		assertThat(HeadersCache.get(mApplication, 1), is(nullValue()));
+		final HeadersCache.Entry entry = HeadersCache.put(mApplication, 1, headers);
+		assertThat(HeadersCache.get(mApplication, 1), is(sameInstance(entry)));
+		assertThat(entry.hash, is(HeadersCache.computeHash(headers)));
+		final List<PreferenceActivity.Header> copies = entry.copyHeaders();
+		assertThat(copies.size(), is(2));
+		assertThat(copies.get(0), is(not(sameInstance(headers.get(0)))));
+		assertThat(copies.get(0).id, is(1L));
+		assertThat(copies.get(0).title.toString(), is("Header 1"));
+		assertThat(copies.get(0).extras.getString("key"), is("value"));
+		assertThat(HeadersCache.computeHash(copies), is(entry.hash));
+	}
+
+	@Test
+	public void testComputeHash() {
+		final long hash = HeadersCache.computeHash(Collections.singletonList(createHeader(1, "Header 1")));
+		assertThat(HeadersCache.computeHash(Collections.singletonList(createHeader(1, "Header 1"))), is(hash));
+		assertThat(HeadersCache.computeHash(Collections.singletonList(createHeader(1, "Changed Header 1"))), is(not(hash)));
+		final PreferenceActivity.Header header = createHeader(1, "Header 1");
+		header.extras.putInt("other", 1);
+		assertThat(HeadersCache.computeHash(Collections.singletonList(header)), is(not(hash)));
+	}
+}
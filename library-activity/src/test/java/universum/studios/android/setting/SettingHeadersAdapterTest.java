@@ -18,17 +18,287 @@
  */
 package universum.studios.android.setting;
 
+import android.content.Intent;
+import android.database.DataSetObserver;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.preference.PreferenceActivity;
+import android.util.SparseArray;
+import android.view.View;
+import android.widget.FrameLayout;
+
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import universum.studios.android.test.local.RobolectricTestCase;
 
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
 public final class SettingHeadersAdapterTest extends RobolectricTestCase {
 
+	private static final int HEADERS_COUNT = 500;
+
+	private static PreferenceActivity.Header createCategoryHeader(final String title) {
+		final PreferenceActivity.Header header = new PreferenceActivity.Header();
+		header.title = title;
+		return header;
+	}
+
+	private static PreferenceActivity.Header createHeader(final String title) {
+		final PreferenceActivity.Header header = new PreferenceActivity.Header();
+		header.title = title;
+		header.intent = new Intent(Intent.ACTION_VIEW);
+		return header;
+	}
+
+	private static PreferenceActivity.Header createHeader(final long id, final String fragment, final String title) {
+		final PreferenceActivity.Header header = new PreferenceActivity.Header();
+		header.id = id;
+		header.fragment = fragment;
+		header.title = title;
+		return header;
+	}
+
+	private static List<PreferenceActivity.Header> createHeaders(final int count) {
+		final List<PreferenceActivity.Header> headers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			headers.add(i % 10 == 0 ? createCategoryHeader("Category " + i) : createHeader("Header " + i));
+		}
+		return headers;
+	}
+
+	@Test
+	public void testItemViewTypes() {
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, Arrays.asList(
+				createCategoryHeader("Category 1"),
+				createHeader("Header 1"),
+				createHeader("Header 2"),
+				createCategoryHeader("Category 2"),
+				createHeader("Header 3")
+		));
+		assertThat(adapter.getCount(), is(7));
+		assertThat(adapter.getItemViewType(0), is(SettingHeadersAdapter.VIEW_TYPE_CATEGORY));
+		assertThat(adapter.getItemViewType(1), is(SettingHeadersAdapter.VIEW_TYPE_HEADER));
+		assertThat(adapter.getItemViewType(2), is(SettingHeadersAdapter.VIEW_TYPE_HEADER));
+		assertThat(adapter.getItemViewType(3), is(SettingHeadersAdapter.VIEW_TYPE_CATEGORY_DIVIDER));
+		assertThat(adapter.getItemViewType(4), is(SettingHeadersAdapter.VIEW_TYPE_CATEGORY));
+		assertThat(adapter.getItemViewType(5), is(SettingHeadersAdapter.VIEW_TYPE_HEADER));
+		assertThat(adapter.getItemViewType(6), is(SettingHeadersAdapter.VIEW_TYPE_CATEGORY_DIVIDER));
+		assertThat(adapter.getItem(1).showDivider, is(true));
+		assertThat(adapter.getItem(2).showDivider, is(false));
+		assertThat(adapter.getItem(5).showDivider, is(false));
+		for (int i = 0; i < adapter.getCount(); i++) {
+			assertThat(adapter.getItemViewType(i), is(adapter.getItem(i).viewType));
+			assertThat(adapter.isEnabled(i), is(adapter.getItem(i).viewType == SettingHeadersAdapter.VIEW_TYPE_HEADER));
+		}
+	}
+
+	@Test
+	public void testItemViewTypesOutOfBounds() {
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, Arrays.asList(createHeader("Header")));
+		assertThat(adapter.getItemViewType(-1), is(SettingHeadersAdapter.VIEW_TYPE_HEADER));
+		assertThat(adapter.getItemViewType(adapter.getCount()), is(SettingHeadersAdapter.VIEW_TYPE_HEADER));
+		assertThat(adapter.isEnabled(-1), is(false));
+		assertThat(adapter.isEnabled(adapter.getCount()), is(false));
+		assertThat(adapter.isCategoryAt(adapter.getCount()), is(false));
+	}
+
+	@Test
+	public void testItemViewTypesForEmptyHeaders() {
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication);
+		assertThat(adapter.getCount(), is(0));
+		assertThat(adapter.isEnabled(0), is(false));
+		assertThat(adapter.isHeaderAt(0), is(false));
+	}
+
+	@Test
+	public void testSwapHeadersWithDiffForChangedHeader() {
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, Arrays.asList(
+				createHeader(1, "Fragment1", "Header 1"),
+				createHeader(2, "Fragment2", "Header 2")
+		));
+		final ChangesObserver observer = new ChangesObserver();
+		adapter.registerDataSetObserver(observer);
+		final FrameLayout parent = new FrameLayout(mApplication);
+		final SettingHeadersAdapter.HeaderHolder holder = (SettingHeadersAdapter.HeaderHolder) adapter.getView(1, null, parent).getTag();
+		final SettingHeadersAdapter.Item firstItem = adapter.getItem(0);
+		final SettingHeadersAdapter.Item secondItem = adapter.getItem(1);
+		final PreferenceActivity.Header changedHeader = createHeader(2, "Fragment2", "Changed Header 2");
+		adapter.swapHeadersWithDiff(Arrays.asList(createHeader(1, "Fragment1", "Header 1"), changedHeader));
+		assertThat(observer.changesCount, is(0));
+		assertThat(adapter.getItem(0), is(sameInstance(firstItem)));
+		assertThat(adapter.getItem(1), is(sameInstance(secondItem)));
+		assertThat(adapter.getItem(1).getHeader(), is(sameInstance(changedHeader)));
+		assertThat(holder.title.getText().toString(), is("Changed Header 2"));
+	}
+
+	@Test
+	public void testSwapHeadersWithDiffForInsertedHeader() {
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, Arrays.asList(
+				createHeader(1, "Fragment1", "Header 1"),
+				createHeader(2, "Fragment2", "Header 2")
+		));
+		final ChangesObserver observer = new ChangesObserver();
+		adapter.registerDataSetObserver(observer);
+		final SettingHeadersAdapter.Item secondItem = adapter.getItem(1);
+		adapter.swapHeadersWithDiff(Arrays.asList(
+				createHeader(3, "Fragment3", "Header 3"),
+				createHeader(1, "Fragment1", "Header 1"),
+				createHeader(2, "Fragment2", "Header 2")
+		));
+		assertThat(observer.changesCount, is(1));
+		assertThat(adapter.getCount(), is(4));
+		assertThat(adapter.getItem(0), is(not(sameInstance(secondItem))));
+		assertThat(adapter.getItem(2), is(sameInstance(secondItem)));
+	}
+
 	@Test
-	public void test() {
-		// todo:: implement test
+	public void testSwapHeadersWithDiffForSameHeaders() {
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, Arrays.asList(createHeader(1, "Fragment1", "Header 1")));
+		final ChangesObserver observer = new ChangesObserver();
+		adapter.registerDataSetObserver(observer);
+		adapter.swapHeadersWithDiff(Arrays.asList(createHeader(1, "Fragment1", "Header 1")));
+		assertThat(observer.changesCount, is(0));
+		adapter.swapHeadersWithDiff(null);
+		assertThat(observer.changesCount, is(1));
+		assertThat(adapter.getCount(), is(0));
+	}
+
+	@Test
+	public void testStableIds() {
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, Arrays.asList(
+				createCategoryHeader("Category"),
+				createHeader(1, "Fragment1", "Header 1"),
+				createHeader(2, "Fragment2", "Header 2")
+		));
+		assertThat(adapter.hasStableIds(), is(true));
+		final long firstId = adapter.getItemId(1);
+		final long secondId = adapter.getItemId(2);
+		assertThat(firstId, is(not(secondId)));
+		adapter.swapHeaders(Arrays.asList(
+				createCategoryHeader("Category"),
+				createHeader(2, "Fragment2", "Header 2"),
+				createHeader(1, "Fragment1", "Header 1")
+		));
+		assertThat(adapter.getItemId(1), is(secondId));
+		assertThat(adapter.getItemId(2), is(firstId));
+		assertThat(adapter.getItemId(adapter.getCount()), is(SettingHeadersAdapter.NO_ID));
+	}
+
+	@Test
+	public void testStableIdsForDuplicateHeaders() {
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, createHeaders(HEADERS_COUNT));
+		adapter.swapHeaders(Arrays.asList(createHeader("Header"), createHeader("Header"), createHeader("Header")));
+		final Set<Long> ids = new HashSet<>();
+		for (int i = 0; i < adapter.getCount(); i++) {
+			assertThat(ids.add(adapter.getItemId(i)), is(true));
+			assertThat(adapter.getItemId(i), is(not(SettingHeadersAdapter.NO_ID)));
+		}
+	}
+
+	@Test
+	public void testResolvedTextsCache() {
+		final PreferenceActivity.Header header = createHeader(1, "Fragment1", "Header 1");
+		header.summary = "Summary 1";
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, Arrays.asList(header));
+		final FrameLayout parent = new FrameLayout(mApplication);
+		final View view = adapter.getView(0, null, parent);
+		final SettingHeadersAdapter.HeaderHolder holder = (SettingHeadersAdapter.HeaderHolder) view.getTag();
+		assertThat(holder.title.getText().toString(), is("Header 1"));
+		assertThat(holder.summary.getText().toString(), is("Summary 1"));
+		header.title = "Changed Header 1";
+		adapter.getView(0, view, parent);
+		assertThat(holder.title.getText().toString(), is("Header 1"));
+		adapter.invalidateResolvedTexts();
+		adapter.getView(0, view, parent);
+		assertThat(holder.title.getText().toString(), is("Changed Header 1"));
+	}
+
+	@Test
+	public void testPutIconStates() {
+		final PreferenceActivity.Header header = createHeader(1, "Fragment1", "Header 1");
+		header.iconRes = android.R.drawable.ic_menu_add;
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, Arrays.asList(header));
+		final SparseArray<Drawable.ConstantState> iconStates = new SparseArray<>();
+		iconStates.put(header.iconRes, new ColorDrawable(Color.RED).getConstantState());
+		adapter.putIconStates(iconStates);
+		final View view = adapter.getView(0, null, new FrameLayout(mApplication));
+		final SettingHeadersAdapter.HeaderHolder holder = (SettingHeadersAdapter.HeaderHolder) view.getTag();
+		assertThat(holder.icon.getDrawable(), is(instanceOf(ColorDrawable.class)));
+		assertThat(((ColorDrawable) holder.icon.getDrawable()).getColor(), is(Color.RED));
+	}
+
+	@Test
+	public void testPrefetchIcons() {
+		final List<PreferenceActivity.Header> headers = createHeaders(20);
+		for (final PreferenceActivity.Header header : headers) {
+			header.iconRes = android.R.drawable.ic_menu_add;
+		}
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, headers);
+		final FrameLayout parent = new FrameLayout(mApplication);
+		for (int i = 0; i < 3; i++) {
+			adapter.getView(i, null, parent);
+		}
+		adapter.setUseVectorIcons(true);
+		assertThat(adapter.prefetchIcons(0), is(true));
+		assertThat(adapter.prefetchIcons(Long.MAX_VALUE), is(false));
+		// Icon of all headers has been already resolved.
+		assertThat(adapter.prefetchIcons(0), is(false));
+	}
+
+	@Test
+	public void testPrefetchIconsWithoutVectorIcons() {
+		final List<PreferenceActivity.Header> headers = createHeaders(20);
+		for (final PreferenceActivity.Header header : headers) {
+			header.iconRes = android.R.drawable.ic_menu_add;
+		}
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, headers);
+		adapter.getView(0, null, new FrameLayout(mApplication));
+		assertThat(adapter.prefetchIcons(0), is(false));
+	}
+
+	@Test
+	public void testScrollPass() {
+		final SettingHeadersAdapter adapter = new SettingHeadersAdapter(mApplication, createHeaders(HEADERS_COUNT));
+		final int itemCount = adapter.getCount();
+		// Result of a pass should not depend on the previous passes.
+		assertThat(scrollPass(adapter, itemCount), is(HEADERS_COUNT - HEADERS_COUNT / 10));
+		assertThat(scrollPass(adapter, itemCount), is(HEADERS_COUNT - HEADERS_COUNT / 10));
+	}
+
+	private static int scrollPass(final SettingHeadersAdapter adapter, final int itemCount) {
+		// Queries performed by the list view for each item shown while scrolling.
+		int enabledCount = 0;
+		for (int position = 0; position < itemCount; position++) {
+			adapter.getItemViewType(position);
+			adapter.getItemId(position);
+			if (adapter.isEnabled(position)) {
+				enabledCount++;
+			}
+		}
+		return enabledCount;
+	}
+
+	private static final class ChangesObserver extends DataSetObserver {
+
+		int changesCount;
+
+		@Override
+		public void onChanged() {
+			changesCount++;
+		}
 	}
 }
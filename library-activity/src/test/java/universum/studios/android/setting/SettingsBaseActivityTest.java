@@ -18,17 +18,79 @@
  */
 package universum.studios.android.setting;
 
+import android.content.res.Resources;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
 import org.junit.Test;
 
 import universum.studios.android.test.local.RobolectricTestCase;
 
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.number.OrderingComparison.lessThan;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
 public final class SettingsBaseActivityTest extends RobolectricTestCase {
 
+	private static int computeHierarchyDepth(final View view) {
+		int depth = 0;
+		if (view instanceof ViewGroup) {
+			final ViewGroup viewGroup = (ViewGroup) view;
+			for (int i = 0; i < viewGroup.getChildCount(); i++) {
+				depth = Math.max(depth, computeHierarchyDepth(viewGroup.getChildAt(i)));
+			}
+		}
+		return depth + 1;
+	}
+
+	@Test
+	public void testFlattenedLayoutIsFrameworkMaterialLayout() {
+		final Resources resources = mApplication.getResources();
+		final int frameworkLayout = resources.getIdentifier("preference_list_content_material", "layout", "android");
+		assertThat(frameworkLayout, is(not(0)));
+		assertThat(SettingsBaseActivity.FlattenedLayout.isFrameworkLayout(resources, frameworkLayout), is(true));
+	}
+
+	@Test
+	public void testFlattenedLayoutIsFrameworkLayout() {
+		final Resources resources = mApplication.getResources();
+		final int frameworkLayout = resources.getIdentifier("preference_list_content", "layout", "android");
+		assertThat(frameworkLayout, is(not(0)));
+		assertThat(SettingsBaseActivity.FlattenedLayout.isFrameworkLayout(resources, frameworkLayout), is(true));
+		assertThat(SettingsBaseActivity.FlattenedLayout.isFrameworkLayout(resources, R.layout.ui_settings_activity), is(false));
+		assertThat(SettingsBaseActivity.FlattenedLayout.isFrameworkLayout(resources, 0), is(false));
+	}
+
+	@Test
+	public void testFlattenedLayoutAssignFrameworkIds() {
+		final Resources resources = mApplication.getResources();
+		// Resolves the framework ids.
+		SettingsBaseActivity.FlattenedLayout.isFrameworkLayout(resources, 0);
+		final View layout = LayoutInflater.from(mApplication).inflate(R.layout.ui_settings_activity, null);
+		SettingsBaseActivity.FlattenedLayout.assignFrameworkIds(layout);
+		for (final String idName : new String[]{"headers", "list_footer", "prefs_frame", "prefs"}) {
+			assertThat(layout.findViewById(resources.getIdentifier(idName, "id", "android")), is(notNullValue()));
+		}
+		assertThat(layout.findViewById(android.R.id.list), is(notNullValue()));
+		assertThat(layout.findViewById(R.id.ui_settings_headers), is(nullValue()));
+		assertThat(layout.findViewById(R.id.ui_settings_toolbar_stub), is(notNullValue()));
+	}
+
 	@Test
-	public void test() {
-		// todo:: implement test
+	public void testFlattenedLayoutHierarchyDepth() {
+		final LayoutInflater inflater = LayoutInflater.from(mApplication);
+		final View frameworkLayout = inflater.inflate(
+				mApplication.getResources().getIdentifier("preference_list_content", "layout", "android"),
+				null
+		);
+		final View flattenedLayout = inflater.inflate(R.layout.ui_settings_activity, null);
+		assertThat(computeHierarchyDepth(flattenedLayout), is(lessThan(computeHierarchyDepth(frameworkLayout))));
 	}
 }
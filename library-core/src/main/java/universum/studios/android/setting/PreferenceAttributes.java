@@ -0,0 +1,319 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.support.annotation.AttrRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.content.res.ResourcesCompat;
+import android.util.TypedValue;
+
+import java.util.Arrays;
+
+/**
+ * Compact snapshot of styled attribute values resolved for a specific preference. Unlike
+ * {@link TypedArray}, the snapshot does not hold any native resources so it may be kept by its owner
+ * for later use, for example to configure objects that are created lazily.
+ * <p>
+ * Values are accessed via attribute resource ids (for example {@code R.attr.dialogTitle}) instead of
+ * styleable indexes so the snapshot may contain values for attributes of multiple styleables.
+ * A new snapshot may be captured via {@link #capture(Context, TypedArray, int[])}.
+ *
+ * @author Martin Albedinsky
+ */
+public final class PreferenceAttributes {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "PreferenceAttributes";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Resources used to resolve values that may not be stored directly in the snapshot.
+	 */
+	private final Resources mResources;
+
+	/**
+	 * Theme used to resolve theme dependent values like color state lists referencing theme attributes.
+	 */
+	private final Resources.Theme mTheme;
+
+	/**
+	 * Sorted ids of attributes for which this snapshot contains values.
+	 */
+	private final int[] mAttrs;
+
+	/**
+	 * Values of attributes stored at the same positions as theirs ids in {@link #mAttrs}.
+	 */
+	private final TypedValue[] mValues;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of PreferenceAttributes with the given attributes and values.
+	 *
+	 * @param resources Resources used to resolve values.
+	 * @param theme     Theme used to resolve theme dependent values.
+	 * @param attrs     Sorted ids of attributes.
+	 * @param values    Values of attributes.
+	 */
+	private PreferenceAttributes(final Resources resources, final Resources.Theme theme, final int[] attrs, final TypedValue[] values) {
+		this.mResources = resources;
+		this.mTheme = theme;
+		this.mAttrs = attrs;
+		this.mValues = values;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Captures a snapshot of all values contained within the given <var>typedArray</var>.
+	 * <p>
+	 * <b>Note</b>, that the typed array is not recycled by this method.
+	 *
+	 * @param context    Context which resources and theme are used to resolve values that may not
+	 *                   be stored directly in the snapshot.
+	 * @param typedArray The typed array obtained for the specified <var>attrs</var>.
+	 * @param attrs      Sorted ids of attributes for which has been the typed array obtained.
+	 * @return Captured snapshot.
+	 */
+	@NonNull
+	public static PreferenceAttributes capture(@NonNull final Context context, @NonNull final TypedArray typedArray, @NonNull final int[] attrs) {
+		final int indexCount = typedArray.getIndexCount();
+		final int[] capturedAttrs = new int[indexCount];
+		final int[] capturedIndexes = new int[indexCount];
+		for (int i = 0; i < indexCount; i++) {
+			final int index = typedArray.getIndex(i);
+			capturedAttrs[i] = attrs[index];
+			capturedIndexes[i] = index;
+		}
+		// Indexes are reported in order of the attrs array which is sorted, but do not rely on it.
+		final int[] sortedAttrs = capturedAttrs.clone();
+		Arrays.sort(sortedAttrs);
+		final TypedValue[] values = new TypedValue[indexCount];
+		for (int i = 0; i < indexCount; i++) {
+			final TypedValue value = new TypedValue();
+			typedArray.getValue(capturedIndexes[i], value);
+			values[Arrays.binarySearch(sortedAttrs, capturedAttrs[i])] = value;
+		}
+		return new PreferenceAttributes(context.getResources(), context.getTheme(), sortedAttrs, values);
+	}
+
+	/**
+	 * Merges the specified arrays of attribute ids into a single sorted array without duplicates
+	 * that may be used to obtain styled attributes for all of the attributes in a single pass.
+	 *
+	 * @param attrs Arrays of attribute ids to be merged. Arrays may be {@code null}.
+	 * @return Merged sorted array.
+	 */
+	@NonNull
+	public static int[] mergeAttrs(@NonNull final int[]... attrs) {
+		int size = 0;
+		for (final int[] array : attrs) {
+			size += array == null ? 0 : array.length;
+		}
+		final int[] merged = new int[size];
+		int position = 0;
+		for (final int[] array : attrs) {
+			if (array != null) {
+				System.arraycopy(array, 0, merged, position, array.length);
+				position += array.length;
+			}
+		}
+		Arrays.sort(merged);
+		int uniqueSize = 0;
+		for (int i = 0; i < merged.length; i++) {
+			if (i == 0 || merged[i] != merged[i - 1]) {
+				merged[uniqueSize++] = merged[i];
+			}
+		}
+		return uniqueSize == merged.length ? merged : Arrays.copyOf(merged, uniqueSize);
+	}
+
+	/**
+	 * Returns the value of the specified <var>attr</var>.
+	 *
+	 * @param attr Id of the desired attribute.
+	 * @return Value or {@code null} if there is no value captured for the attribute.
+	 */
+	@Nullable
+	private TypedValue valueOf(final int attr) {
+		final int position = Arrays.binarySearch(mAttrs, attr);
+		return position < 0 ? null : mValues[position];
+	}
+
+	/**
+	 * Returns the count of attributes that have value within this snapshot.
+	 *
+	 * @return Count of values.
+	 */
+	public int size() {
+		return mAttrs.length;
+	}
+
+	/**
+	 * Checks whether this snapshot contains value for the specified <var>attr</var>.
+	 *
+	 * @param attr Id of the desired attribute.
+	 * @return {@code True} if there is value captured for the attribute, {@code false} otherwise.
+	 */
+	public boolean hasValue(@AttrRes final int attr) {
+		return Arrays.binarySearch(mAttrs, attr) >= 0;
+	}
+
+	/**
+	 * Same as {@link TypedArray#getResourceId(int, int)} for attribute id.
+	 */
+	public int getResourceId(@AttrRes final int attr, final int defValue) {
+		final TypedValue value = valueOf(attr);
+		if (value == null) {
+			return defValue;
+		}
+		if (value.resourceId != 0) {
+			return value.resourceId;
+		}
+		return value.type == TypedValue.TYPE_REFERENCE && value.data != 0 ? value.data : defValue;
+	}
+
+	/**
+	 * Same as {@link TypedArray#getText(int)} for attribute id.
+	 */
+	@Nullable
+	public CharSequence getText(@AttrRes final int attr) {
+		final TypedValue value = valueOf(attr);
+		if (value == null) {
+			return null;
+		}
+		return value.type == TypedValue.TYPE_STRING ? value.string : value.coerceToString();
+	}
+
+	/**
+	 * Same as {@link TypedArray#getString(int)} for attribute id.
+	 */
+	@Nullable
+	public String getString(@AttrRes final int attr) {
+		final CharSequence text = getText(attr);
+		return text == null ? null : text.toString();
+	}
+
+	/**
+	 * Same as {@link TypedArray#getTextArray(int)} for attribute id.
+	 */
+	@Nullable
+	public CharSequence[] getTextArray(@AttrRes final int attr) {
+		final int resId = getResourceId(attr, 0);
+		return resId == 0 ? null : mResources.getTextArray(resId);
+	}
+
+	/**
+	 * Same as {@link TypedArray#getInt(int, int)} for attribute id.
+	 */
+	public int getInt(@AttrRes final int attr, final int defValue) {
+		final TypedValue value = valueOf(attr);
+		if (value == null) {
+			return defValue;
+		}
+		if (value.type >= TypedValue.TYPE_FIRST_INT && value.type <= TypedValue.TYPE_LAST_INT) {
+			return value.data;
+		}
+		return value.type == TypedValue.TYPE_STRING ? Integer.parseInt(value.string.toString()) : defValue;
+	}
+
+	/**
+	 * Same as {@link TypedArray#getBoolean(int, boolean)} for attribute id.
+	 */
+	public boolean getBoolean(@AttrRes final int attr, final boolean defValue) {
+		final TypedValue value = valueOf(attr);
+		if (value == null) {
+			return defValue;
+		}
+		if (value.type >= TypedValue.TYPE_FIRST_INT && value.type <= TypedValue.TYPE_LAST_INT) {
+			return value.data != 0;
+		}
+		return value.type == TypedValue.TYPE_STRING ? Boolean.parseBoolean(value.string.toString()) : defValue;
+	}
+
+	/**
+	 * Same as {@link TypedArray#getColor(int, int)} for attribute id.
+	 * <p>
+	 * Color state lists and theme attribute references are resolved against the theme of the
+	 * context for which has been this snapshot captured.
+	 */
+	public int getColor(@AttrRes final int attr, final int defValue) {
+		TypedValue value = valueOf(attr);
+		if (value == null) {
+			return defValue;
+		}
+		if (value.type == TypedValue.TYPE_ATTRIBUTE) {
+			final TypedValue resolved = new TypedValue();
+			if (mTheme == null || !mTheme.resolveAttribute(value.data, resolved, true)) {
+				return defValue;
+			}
+			value = resolved;
+		}
+		if (value.type >= TypedValue.TYPE_FIRST_INT && value.type <= TypedValue.TYPE_LAST_INT) {
+			return value.data;
+		}
+		if (value.type == TypedValue.TYPE_STRING && value.resourceId != 0) {
+			final ColorStateList colors = ResourcesCompat.getColorStateList(mResources, value.resourceId, mTheme);
+			return colors == null ? defValue : colors.getDefaultColor();
+		}
+		return defValue;
+	}
+
+	/**
+	 * Same as {@link TypedArray#getDimensionPixelSize(int, int)} for attribute id.
+	 */
+	public int getDimensionPixelSize(@AttrRes final int attr, final int defValue) {
+		final TypedValue value = valueOf(attr);
+		if (value == null || value.type != TypedValue.TYPE_DIMENSION) {
+			return defValue;
+		}
+		return TypedValue.complexToDimensionPixelSize(value.data, mResources.getDisplayMetrics());
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
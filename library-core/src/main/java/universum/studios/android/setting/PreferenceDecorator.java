@@ -110,18 +110,45 @@ abstract class PreferenceDecorator {
 	 * @param defStyleAttr An attribute which contains a reference to a default style resource for
 	 *                     the attached preference within a theme of the given context.
 	 * @param defStyleRes  Resource id of the default style for the attached preference.
+	 * @see #processAttributes(TypedArray, int[])
 	 */
 	void processAttributes(final Context context, final AttributeSet attrs, final int defStyleAttr, final int defStyleRes) {
 		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_Preference, defStyleAttr, defStyleRes);
+		processAttributes(attributes, R.styleable.Ui_Settings_Preference);
+		attributes.recycle();
+	}
+
+	/**
+	 * This should be called from the attached preference during its initialization if it resolves
+	 * its styled attributes along with the attributes of {@link R.styleable#Ui_Settings_Preference}
+	 * in a single pass.
+	 * <p>
+	 * <b>Note</b>, that the given typed array is not recycled by this method.
+	 *
+	 * @param attributes The typed array obtained for the specified <var>attrs</var>.
+	 * @param attrs      Sorted array of attributes for which has been the typed array obtained.
+	 */
+	void processAttributes(final TypedArray attributes, final int[] attrs) {
 		for (int i = 0; i < attributes.getIndexCount(); i++) {
 			final int index = attributes.getIndex(i);
-			if (index == R.styleable.Ui_Settings_Preference_android_defaultValue) {
+			final int attr = attrs[index];
+			if (attr == android.R.attr.defaultValue) {
 				this.mDefaultValue = onGetDefaultValue(attributes, index);
-			} else if (index == R.styleable.Ui_Settings_Preference_uiVectorIcon) {
+			} else if (attr == R.attr.uiVectorIcon) {
 				setVectorIcon(attributes.getResourceId(index, 0));
 			}
 		}
-		attributes.recycle();
+	}
+
+	/**
+	 * Restores the default value for the associated preference that has been previously resolved
+	 * via {@link #processAttributes(TypedArray, int[])} for preference of the same class and the
+	 * same attributes.
+	 *
+	 * @param defaultValue The previously resolved default value. May be {@code null}.
+	 */
+	void restoreDefaultValue(@Nullable final Object defaultValue) {
+		this.mDefaultValue = defaultValue;
 	}
 
 	/**
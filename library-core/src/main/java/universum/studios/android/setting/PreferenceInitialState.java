@@ -0,0 +1,176 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.preference.Preference;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Initial state of a setting preference, that is, its resolved styled attributes and its default
+ * value, which may be recorded when the preference is inflated from Xml and later used to initialize
+ * a new instance of the same preference without resolving of its attributes again.
+ * <p>
+ * Recording of initial states is enabled for the current thread via {@link #startRecording()}.
+ * A recorded state may be used to initialize a new preference by setting it as pending via
+ * {@link #setPending(PreferenceInitialState)} right before the preference is instantiated.
+ *
+ * @author Martin Albedinsky
+ */
+final class PreferenceInitialState {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "PreferenceInitialState";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Initial states recorded for preferences initialized on the current thread. Contains
+	 * {@code null} if recording is not enabled for the current thread.
+	 */
+	private static final ThreadLocal<Map<Preference, PreferenceInitialState>> sRecordedStates = new ThreadLocal<>();
+
+	/**
+	 * Initial state that should be used by the next preference initialized on the current thread.
+	 */
+	private static final ThreadLocal<PreferenceInitialState> sPendingState = new ThreadLocal<>();
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Class of preference for which has been this state recorded.
+	 */
+	final Class<? extends Preference> preferenceClass;
+
+	/**
+	 * Snapshot of styled attributes resolved for the preference.
+	 */
+	final PreferenceAttributes attributes;
+
+	/**
+	 * Default value resolved for the preference. May be {@code null}.
+	 */
+	final Object defaultValue;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of PreferenceInitialState with the given values.
+	 *
+	 * @param preferenceClass Class of preference for which is the state created.
+	 * @param attributes      Snapshot of the resolved styled attributes.
+	 * @param defaultValue    The resolved default value. May be {@code null}.
+	 */
+	private PreferenceInitialState(final Class<? extends Preference> preferenceClass, final PreferenceAttributes attributes, final Object defaultValue) {
+		this.preferenceClass = preferenceClass;
+		this.attributes = attributes;
+		this.defaultValue = defaultValue;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Enables recording of initial states for preferences initialized on the current thread.
+	 *
+	 * @see #stopRecording()
+	 */
+	static void startRecording() {
+		sRecordedStates.set(new IdentityHashMap<Preference, PreferenceInitialState>());
+	}
+
+	/**
+	 * Records initial state of the given <var>preference</var> if recording is enabled for the
+	 * current thread.
+	 *
+	 * @param preference   The preference of which initial state to record.
+	 * @param attributes   Snapshot of styled attributes resolved for the preference.
+	 * @param defaultValue Default value resolved for the preference. May be {@code null}.
+	 */
+	static void record(@NonNull final Preference preference, @NonNull final PreferenceAttributes attributes, @Nullable final Object defaultValue) {
+		final Map<Preference, PreferenceInitialState> states = sRecordedStates.get();
+		if (states != null) {
+			states.put(preference, new PreferenceInitialState(preference.getClass(), attributes, defaultValue));
+		}
+	}
+
+	/**
+	 * Disables recording of initial states for the current thread.
+	 *
+	 * @return Initial states recorded since the last call to {@link #startRecording()} mapped to
+	 * theirs preferences. Empty map if recording has not been enabled.
+	 */
+	@NonNull
+	static Map<Preference, PreferenceInitialState> stopRecording() {
+		final Map<Preference, PreferenceInitialState> states = sRecordedStates.get();
+		sRecordedStates.remove();
+		return states == null ? new IdentityHashMap<Preference, PreferenceInitialState>(0) : states;
+	}
+
+	/**
+	 * Sets the given <var>state</var> as pending, so it will be used to initialize the next preference
+	 * of the corresponding class that is initialized on the current thread.
+	 *
+	 * @param state The desired state. May be {@code null} to clear the current pending one.
+	 */
+	static void setPending(@Nullable final PreferenceInitialState state) {
+		if (state == null) sPendingState.remove();
+		else sPendingState.set(state);
+	}
+
+	/**
+	 * Takes the pending initial state for a preference of the specified <var>preferenceClass</var>.
+	 *
+	 * @param preferenceClass Class of preference that is being initialized.
+	 * @return Pending state or {@code null} if there is no state pending for the preference class.
+	 */
+	@Nullable
+	static PreferenceInitialState takePending(@NonNull final Class<?> preferenceClass) {
+		final PreferenceInitialState state = sPendingState.get();
+		if (state == null || state.preferenceClass != preferenceClass) {
+			return null;
+		}
+		sPendingState.remove();
+		return state;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
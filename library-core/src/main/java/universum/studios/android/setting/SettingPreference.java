@@ -21,18 +21,37 @@ package universum.studios.android.setting;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.preference.Preference;
+import android.preference.PreferenceManager;
 import android.support.annotation.AttrRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.StyleRes;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.View;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Extended {@link Preference} that provides additional features supported by the <b>Settings</b>
  * library.
+ * <p>
+ * Setting preference resolves all its styled attributes in a single pass. Subclasses that need to
+ * resolve theirs own attributes should declare them via {@link #onGetPreferenceAttrs()} and access
+ * theirs values via {@link #getPreferenceAttributes()} during theirs initialization instead of
+ * obtaining the styled attributes by themselves.
+ * <p>
+ * Changes of setting preferences that affect only some views of theirs presented view may be
+ * notified via {@link #notifyChanged(int)} along with flags of the changes. If there is a
+ * {@link ChangeObserver} attached to the preference, like an adapter that presents the preference,
+ * such observer may rebind only the affected views via {@link #onBindViewChanges(View, int)}
+ * instead of rebinding of all presented preferences.
  *
  * <h3>Xml attributes</h3>
  * See {@link Preference}
@@ -53,24 +72,94 @@ public class SettingPreference extends Preference {
 	 */
 	// private static final String TAG = "SettingPreference";
 
+	/**
+	 * Flag indicating change in title of a setting preference.
+	 *
+	 * @see #notifyChanged(int)
+	 */
+	public static final int CHANGE_TITLE = 0x00000001;
+
+	/**
+	 * Flag indicating change in summary of a setting preference.
+	 *
+	 * @see #notifyChanged(int)
+	 */
+	public static final int CHANGE_SUMMARY = 0x00000001 << 1;
+
+	/**
+	 * Flag indicating change in icon of a setting preference.
+	 *
+	 * @see #notifyChanged(int)
+	 */
+	public static final int CHANGE_ICON = 0x00000001 << 2;
+
+	/**
+	 * Flag indicating change in state presented by widget of a setting preference.
+	 *
+	 * @see #notifyChanged(int)
+	 */
+	public static final int CHANGE_WIDGET = 0x00000001 << 3;
+
 	/*
 	 * Interface ===================================================================================
 	 */
 
+	/**
+	 * Observer which may be attached to a {@link SettingPreference} in order to receive targeted
+	 * notifications about changes of that preference.
+	 *
+	 * @author Martin Albedinsky
+	 * @see #setChangeObserver(ChangeObserver)
+	 */
+	public interface ChangeObserver {
+
+		/**
+		 * Invoked whenever the given <var>preference</var> notifies the specified <var>changes</var>.
+		 *
+		 * @param preference The preference that has changed.
+		 * @param changes    Flags of the changes. One or combination of {@link #CHANGE_TITLE},
+		 *                   {@link #CHANGE_SUMMARY}, {@link #CHANGE_ICON}, {@link #CHANGE_WIDGET}.
+		 * @see #onBindViewChanges(View, int)
+		 */
+		void onPreferenceChanged(@NonNull SettingPreference preference, int changes);
+	}
+
 	/*
 	 * Static members ==============================================================================
 	 */
 
+	/**
+	 * Map of merged and sorted attributes cached for each setting preference class.
+	 *
+	 * @see #onGetPreferenceAttrs()
+	 */
+	private static final Map<Class<?>, int[]> sPreferenceAttrs = new HashMap<>();
+
 	/*
 	 * Members =====================================================================================
 	 */
 
+	/**
+	 * Snapshot of styled attributes resolved for this preference during its initialization. This
+	 * snapshot is released when this preference is attached to preference hierarchy.
+	 *
+	 * @see #getPreferenceAttributes()
+	 */
+	private PreferenceAttributes mAttributes;
+
 	/**
 	 * Decorator used to extend API of this setting preference by functionality otherwise not supported
 	 * or not available due to current API level.
 	 */
 	private PreferenceDecorator mDecorator;
 
+	/**
+	 * Observer notified about changes of this preference.
+	 *
+	 * @see #notifyChanged(int)
+	 */
+	private ChangeObserver mChangeObserver;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -128,7 +217,81 @@ public class SettingPreference extends Preference {
 	 */
 	private void init(final Context context, final AttributeSet attrs, final int defStyleAttr, final int defStyleRes) {
 		this.ensureDecorator();
-		mDecorator.processAttributes(context, attrs, defStyleAttr, defStyleRes);
+		final PreferenceInitialState initialState = PreferenceInitialState.takePending(getClass());
+		if (initialState != null) {
+			// Preference is being created from a template, attributes has been already resolved.
+			mDecorator.restoreDefaultValue(initialState.defaultValue);
+			this.mAttributes = initialState.attributes;
+			return;
+		}
+		final int[] preferenceAttrs = resolvePreferenceAttrs();
+		final TypedArray attributes = context.obtainStyledAttributes(attrs, preferenceAttrs, defStyleAttr, defStyleRes);
+		mDecorator.processAttributes(attributes, preferenceAttrs);
+		this.mAttributes = PreferenceAttributes.capture(context, attributes, preferenceAttrs);
+		attributes.recycle();
+		PreferenceInitialState.record(this, mAttributes, mDecorator.getDefaultValue());
+	}
+
+	/**
+	 * Resolves merged and sorted array of all attributes that should be resolved for this preference.
+	 * The array is resolved only once for each preference class.
+	 *
+	 * @return Array of attributes for this class of preference.
+	 */
+	private int[] resolvePreferenceAttrs() {
+		final Class<?> classOfPreference = getClass();
+		synchronized (sPreferenceAttrs) {
+			int[] preferenceAttrs = sPreferenceAttrs.get(classOfPreference);
+			if (preferenceAttrs == null) {
+				preferenceAttrs = PreferenceAttributes.mergeAttrs(R.styleable.Ui_Settings_Preference, onGetPreferenceAttrs());
+				sPreferenceAttrs.put(classOfPreference, preferenceAttrs);
+			}
+			return preferenceAttrs;
+		}
+	}
+
+	/**
+	 * Called from one of constructors to obtain attributes specific for this preference that should
+	 * be resolved along with attributes of {@link R.styleable#Ui_Settings_Preference} in a single pass.
+	 * Values of these attributes may be then accessed via {@link #getPreferenceAttributes()}.
+	 * <p>
+	 * Subclasses that override this method should include also attributes returned by the super
+	 * implementation, for example via {@link PreferenceAttributes#mergeAttrs(int[]...)}. The returned
+	 * array is requested only once for each preference class.
+	 *
+	 * @return Array of attributes (for example a styleable array) or {@code null} if there are no
+	 * additional attributes.
+	 */
+	@Nullable
+	protected int[] onGetPreferenceAttrs() {
+		return null;
+	}
+
+	/**
+	 * Returns the snapshot of styled attributes resolved for this preference during its initialization.
+	 * <p>
+	 * <b>Note</b>, that the snapshot is available only until this preference is attached to
+	 * preference hierarchy, so this method should be called only from initialization of subclasses.
+	 *
+	 * @return Snapshot of the resolved attributes.
+	 * @throws IllegalStateException If the snapshot has been already released.
+	 * @see #onGetPreferenceAttrs()
+	 */
+	@NonNull
+	protected final PreferenceAttributes getPreferenceAttributes() {
+		if (mAttributes == null) {
+			throw new IllegalStateException("Preference attributes are available only during initialization!");
+		}
+		return mAttributes;
+	}
+
+	/**
+	 */
+	@Override
+	protected void onAttachedToHierarchy(@NonNull final PreferenceManager preferenceManager) {
+		super.onAttachedToHierarchy(preferenceManager);
+		// Resolved attributes are no more needed.
+		this.mAttributes = null;
 	}
 
 	/**
@@ -174,6 +337,98 @@ public class SettingPreference extends Preference {
 		mDecorator.onBindView(view);
 	}
 
+	/**
+	 * Attaches an observer that should be notified about changes of this preference, instead of
+	 * the preference hierarchy, whenever {@link #notifyChanged(int)} is called.
+	 *
+	 * @param observer The desired observer. May be {@code null} to detach the current one.
+	 * @see #getChangeObserver()
+	 */
+	public void setChangeObserver(@Nullable final ChangeObserver observer) {
+		this.mChangeObserver = observer;
+	}
+
+	/**
+	 * Returns the observer attached to this preference.
+	 *
+	 * @return The attached observer or {@code null} if there is no observer attached.
+	 * @see #setChangeObserver(ChangeObserver)
+	 */
+	@Nullable
+	public ChangeObserver getChangeObserver() {
+		return mChangeObserver;
+	}
+
+	/**
+	 * Notifies the specified <var>changes</var> of this preference.
+	 * <p>
+	 * If there is {@link ChangeObserver} attached, only the observer is notified, so it may rebind
+	 * only the views affected by the changes, otherwise this method performs the same as
+	 * {@link #notifyChanged()}.
+	 *
+	 * @param changes Flags of the changes. One or combination of {@link #CHANGE_TITLE},
+	 *                {@link #CHANGE_SUMMARY}, {@link #CHANGE_ICON}, {@link #CHANGE_WIDGET}.
+	 */
+	protected void notifyChanged(final int changes) {
+		if (mChangeObserver == null) notifyChanged();
+		else mChangeObserver.onPreferenceChanged(this, changes);
+	}
+
+	/**
+	 * Binds only the specified <var>changes</var> of this preference to the given <var>view</var>
+	 * that has been already bound via {@link #onBindView(View)}.
+	 * <p>
+	 * Default implementation updates title, summary and icon views and performs full binding via
+	 * {@link #onBindView(View)} for changes of widget. Subclasses that present theirs state via
+	 * widget should override this method and update only the widget view.
+	 *
+	 * @param view    The view of this preference to be updated.
+	 * @param changes Flags of the changes to bind. One or combination of {@link #CHANGE_TITLE},
+	 *                {@link #CHANGE_SUMMARY}, {@link #CHANGE_ICON}, {@link #CHANGE_WIDGET}.
+	 */
+	public void onBindViewChanges(@NonNull final View view, final int changes) {
+		if ((changes & CHANGE_WIDGET) != 0) {
+			onBindView(view);
+			return;
+		}
+		if ((changes & CHANGE_TITLE) != 0) {
+			bindTextView(view, android.R.id.title, getTitle());
+		}
+		if ((changes & CHANGE_SUMMARY) != 0) {
+			bindTextView(view, android.R.id.summary, getSummary());
+		}
+		if ((changes & CHANGE_ICON) != 0) {
+			final ImageView iconView = (ImageView) view.findViewById(android.R.id.icon);
+			if (iconView != null) {
+				final Drawable icon = getIcon();
+				iconView.setImageDrawable(icon);
+				iconView.setVisibility(icon == null ? View.GONE : View.VISIBLE);
+			}
+			this.ensureDecorator();
+			mDecorator.onBindView(view);
+		}
+	}
+
+	/**
+	 * Binds the given <var>text</var> to a text view with the specified <var>viewId</var>, changing
+	 * its visibility so the view is gone if the text is empty.
+	 *
+	 * @param view   The root view where to find the text view.
+	 * @param viewId Id of the text view.
+	 * @param text   The text to bind.
+	 */
+	private static void bindTextView(final View view, final int viewId, final CharSequence text) {
+		final TextView textView = (TextView) view.findViewById(viewId);
+		if (textView != null) {
+			if (TextUtils.isEmpty(text)) {
+				textView.setVisibility(View.GONE);
+			} else {
+				textView.setText(text);
+				textView.setVisibility(View.VISIBLE);
+			}
+		}
+	}
+
 	/*
 	 * Inner classes ===============================================================================
 	 */
@@ -21,6 +21,7 @@ package universum.studios.android.setting;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.os.Build;
+import android.preference.Preference;
 import android.preference.PreferenceCategory;
 import android.support.annotation.AttrRes;
 import android.support.annotation.NonNull;
@@ -28,9 +29,16 @@ import android.support.annotation.Nullable;
 import android.support.annotation.StyleRes;
 import android.util.AttributeSet;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Extended {@link PreferenceCategory} that provides additional features supported by the <b>Settings</b>
  * library.
+ * <p>
+ * Changes in hierarchy of setting preference category, that is addition or removal of its child
+ * preferences, may be observed via {@link OnHierarchyChangeListener OnHierarchyChangeListeners} which
+ * may be registered via {@link #addOnHierarchyChangeListener(OnHierarchyChangeListener)}.
  *
  * <h3>Xml attributes</h3>
  * See {@link PreferenceCategory}
@@ -55,6 +63,33 @@ public class SettingPreferenceCategory extends PreferenceCategory {
 	 * Interface ===================================================================================
 	 */
 
+	/**
+	 * Listener that may be used to receive a callback about changes in hierarchy of a specific
+	 * preference category.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public interface OnHierarchyChangeListener {
+
+		/**
+		 * Invoked whenever the specified <var>preference</var> has been added into the given
+		 * <var>category</var>.
+		 *
+		 * @param category   The category into which has been the preference added.
+		 * @param preference The added preference.
+		 */
+		void onPreferenceAdded(@NonNull SettingPreferenceCategory category, @NonNull Preference preference);
+
+		/**
+		 * Invoked whenever the specified <var>preference</var> has been removed from the given
+		 * <var>category</var>.
+		 *
+		 * @param category   The category from which has been the preference removed.
+		 * @param preference The removed preference.
+		 */
+		void onPreferenceRemoved(@NonNull SettingPreferenceCategory category, @NonNull Preference preference);
+	}
+
 	/*
 	 * Static members ==============================================================================
 	 */
@@ -63,6 +98,12 @@ public class SettingPreferenceCategory extends PreferenceCategory {
 	 * Members =====================================================================================
 	 */
 
+	/**
+	 * List of listeners receiving callbacks about changes in hierarchy of this category. May be
+	 * {@code null} if there were no listeners registered yet.
+	 */
+	private List<OnHierarchyChangeListener> mHierarchyChangeListeners;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -108,6 +149,108 @@ public class SettingPreferenceCategory extends PreferenceCategory {
 	 * Methods =====================================================================================
 	 */
 
+	/**
+	 * Registers a listener that should receive callbacks about changes in hierarchy of this category.
+	 * If the listener is already registered, this method does nothing.
+	 *
+	 * @param listener The desired listener to register.
+	 * @see #removeOnHierarchyChangeListener(OnHierarchyChangeListener)
+	 */
+	public void addOnHierarchyChangeListener(@NonNull final OnHierarchyChangeListener listener) {
+		if (mHierarchyChangeListeners == null) {
+			this.mHierarchyChangeListeners = new ArrayList<>(1);
+		}
+		if (!mHierarchyChangeListeners.contains(listener)) {
+			mHierarchyChangeListeners.add(listener);
+		}
+	}
+
+	/**
+	 * Unregisters the given listener from this category, so it will no longer receive callbacks
+	 * about changes in hierarchy of this category.
+	 *
+	 * @param listener The desired listener to unregister.
+	 * @see #addOnHierarchyChangeListener(OnHierarchyChangeListener)
+	 */
+	public void removeOnHierarchyChangeListener(@NonNull final OnHierarchyChangeListener listener) {
+		if (mHierarchyChangeListeners != null) {
+			mHierarchyChangeListeners.remove(listener);
+		}
+	}
+
+	/**
+	 * Checks whether there are any hierarchy change listeners registered.
+	 */
+	private boolean hasHierarchyChangeListeners() {
+		return mHierarchyChangeListeners != null && !mHierarchyChangeListeners.isEmpty();
+	}
+
+	/**
+	 * Notifies all registered listeners that the given <var>preference</var> has been added into
+	 * this category.
+	 */
+	private void notifyPreferenceAdded(final Preference preference) {
+		if (hasHierarchyChangeListeners()) {
+			// Iterate over a copy so listeners may unregister themselves while being notified.
+			for (final OnHierarchyChangeListener listener : new ArrayList<>(mHierarchyChangeListeners)) {
+				listener.onPreferenceAdded(this, preference);
+			}
+		}
+	}
+
+	/**
+	 * Notifies all registered listeners that the given <var>preference</var> has been removed from
+	 * this category.
+	 */
+	private void notifyPreferenceRemoved(final Preference preference) {
+		if (hasHierarchyChangeListeners()) {
+			for (final OnHierarchyChangeListener listener : new ArrayList<>(mHierarchyChangeListeners)) {
+				listener.onPreferenceRemoved(this, preference);
+			}
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public boolean addPreference(@NonNull final Preference preference) {
+		if (super.addPreference(preference)) {
+			this.notifyPreferenceAdded(preference);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 */
+	@Override
+	public boolean removePreference(@NonNull final Preference preference) {
+		if (super.removePreference(preference)) {
+			this.notifyPreferenceRemoved(preference);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 */
+	@Override
+	public void removeAll() {
+		if (!hasHierarchyChangeListeners()) {
+			super.removeAll();
+			return;
+		}
+		final int preferenceCount = getPreferenceCount();
+		final List<Preference> removedPreferences = new ArrayList<>(preferenceCount);
+		for (int i = 0; i < preferenceCount; i++) {
+			removedPreferences.add(getPreference(i));
+		}
+		super.removeAll();
+		for (final Preference preference : removedPreferences) {
+			this.notifyPreferenceRemoved(preference);
+		}
+	}
+
 	/*
 	 * Inner classes ===============================================================================
 	 */
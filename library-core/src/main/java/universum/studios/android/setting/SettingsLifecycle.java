@@ -0,0 +1,78 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.preference.PreferenceGroup;
+import android.support.annotation.NonNull;
+
+/**
+ * Interface for components presenting preference screens, like settings fragments, that allows
+ * other components bound to a preference screen, like managers of dialog preferences, to observe
+ * when the presenting component is being destroyed, so they may release all references to the
+ * presented preferences without requiring the presenting component to release them explicitly.
+ * Observers are also notified about preferences added by the presenting component into the
+ * presented hierarchy later, like preferences of lazily created nested preference screens.
+ *
+ * @author Martin Albedinsky
+ */
+public interface SettingsLifecycle {
+
+	/**
+	 * Observer that may be used to receive callbacks about preferences added into the presented
+	 * hierarchy and about destruction of a specific settings lifecycle.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	interface Observer {
+
+		/**
+		 * Invoked whenever preferences have been added by the specified <var>lifecycle</var> into
+		 * the given <var>preferenceGroup</var> of its already presented preference hierarchy, for
+		 * example when a lazily created nested preference screen is about to be opened.
+		 *
+		 * @param lifecycle       The lifecycle that has added the preferences.
+		 * @param preferenceGroup The group into which have been the preferences added.
+		 */
+		void onSettingsPreferencesAdded(@NonNull SettingsLifecycle lifecycle, @NonNull PreferenceGroup preferenceGroup);
+
+		/**
+		 * Invoked whenever the specified <var>lifecycle</var> is being destroyed. The observer is
+		 * automatically removed from the lifecycle after this call.
+		 *
+		 * @param lifecycle The lifecycle that is being destroyed.
+		 */
+		void onSettingsDestroy(@NonNull SettingsLifecycle lifecycle);
+	}
+
+	/**
+	 * Adds the given <var>observer</var> to be notified about destruction of this lifecycle.
+	 *
+	 * @param observer The desired observer to add.
+	 * @see #removeObserver(Observer)
+	 */
+	void addObserver(@NonNull Observer observer);
+
+	/**
+	 * Removes the given <var>observer</var> from the registered observers.
+	 *
+	 * @param observer The desired observer to remove.
+	 * @see #addObserver(Observer)
+	 */
+	void removeObserver(@NonNull Observer observer);
+}
@@ -0,0 +1,884 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.content.res.XmlResourceParser;
+import android.os.Bundle;
+import android.preference.PreferenceActivity;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.support.annotation.XmlRes;
+import android.text.TextUtils;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index that may be used to search for settings across all settings screens of an application by
+ * a text query. The index contains {@link Result Results} for preference headers and for all
+ * preferences, including theirs titles, summaries and entries, defined in preferences Xml files.
+ * <p>
+ * The index is built via {@link Builder} which parses all the specified sources at once, so no Xml
+ * needs to be parsed when the index is queried via {@link #query(String)}. The built index may be
+ * persisted via {@link #save(Context, String)} and loaded again via {@link Builder#load(String)}
+ * which returns {@code null} whenever the persisted index has been built for a different version
+ * of the application, for a different locale or from different sources than the ones added into
+ * the builder, like headers built at runtime.
+ * <p>
+ * Each search result may be used to deep-link to the target preference by showing the fragment
+ * of the result with arguments created via {@link Result#createArguments()}.
+ *
+ * @author Martin Albedinsky
+ */
+public final class SettingsSearchIndex {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "SettingsSearchIndex";
+
+	/**
+	 * Argument key used to specify key of the preference to be revealed by a settings fragment.
+	 *
+	 * @see Result#createArguments()
+	 */
+	public static final String EXTRA_PREFERENCE_KEY = SettingsSearchIndex.class.getName() + ".EXTRA.PreferenceKey";
+
+	/**
+	 * Argument key used to specify key of the nested preference screen that contains the preference
+	 * to be revealed by a settings fragment.
+	 *
+	 * @see Result#createArguments()
+	 */
+	public static final String EXTRA_PREFERENCE_SCREEN_KEY = SettingsSearchIndex.class.getName() + ".EXTRA.PreferenceScreenKey";
+
+	/**
+	 * Version of format in which is the index persisted.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Index of string in the string table of persisted index for {@code null} strings.
+	 */
+	private static final int NO_STRING = -1;
+
+	/**
+	 * Namespace of Android Xml attributes.
+	 */
+	private static final String ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Signature of the application state and of the sources for which has been this index built.
+	 *
+	 * @see Builder#computeSignature()
+	 */
+	private final long mSignature;
+
+	/**
+	 * Results contained in this index in the order in which have been theirs sources added.
+	 */
+	private final Result[] mResults;
+
+	/**
+	 * Sorted array of unique normalized tokens of the texts of all results.
+	 */
+	private final String[] mTokens;
+
+	/**
+	 * Indexes of results, in ascending order, containing token at the corresponding position in
+	 * {@link #mTokens}.
+	 */
+	private final int[][] mTokenResults;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of SettingsSearchIndex with the given <var>results</var>.
+	 *
+	 * @param signature Signature of the application state and sources for which has been the index built.
+	 * @param results   The results to be contained in the new index.
+	 */
+	SettingsSearchIndex(final long signature, final Result[] results) {
+		this.mSignature = signature;
+		this.mResults = results;
+		final Map<String, List<Integer>> tokens = new TreeMap<>();
+		for (int i = 0; i < results.length; i++) {
+			final Result result = results[i];
+			collectTokens(tokens, result.normalizedTitle, i);
+			collectTokens(tokens, normalize(result.summary), i);
+			collectTokens(tokens, normalize(result.keywords), i);
+		}
+		this.mTokens = new String[tokens.size()];
+		this.mTokenResults = new int[tokens.size()][];
+		int index = 0;
+		for (final Map.Entry<String, List<Integer>> entry : tokens.entrySet()) {
+			final List<Integer> tokenResults = entry.getValue();
+			final int[] resultIndexes = new int[tokenResults.size()];
+			for (int i = 0; i < resultIndexes.length; i++) {
+				resultIndexes[i] = tokenResults.get(i);
+			}
+			mTokens[index] = entry.getKey();
+			mTokenResults[index] = resultIndexes;
+			index++;
+		}
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Collects all tokens from the given normalized <var>text</var> into the specified <var>tokens</var>
+	 * map for result at the specified index.
+	 *
+	 * @param tokens      The map into which to collect the tokens.
+	 * @param text        The normalized text of which tokens to collect. May be {@code null}.
+	 * @param resultIndex Index of the result that contains the text.
+	 */
+	private static void collectTokens(final Map<String, List<Integer>> tokens, final String text, final int resultIndex) {
+		if (text == null) {
+			return;
+		}
+		for (final String token : tokenize(text)) {
+			List<Integer> tokenResults = tokens.get(token);
+			if (tokenResults == null) {
+				tokens.put(token, tokenResults = new ArrayList<>(1));
+			}
+			if (tokenResults.isEmpty() || tokenResults.get(tokenResults.size() - 1) != resultIndex) {
+				tokenResults.add(resultIndex);
+			}
+		}
+	}
+
+	/**
+	 * Normalizes the given <var>text</var> for the search purpose, that is, decomposes it, removes
+	 * all diacritical marks from it and converts it to lower case.
+	 *
+	 * @param text The text to normalize. May be {@code null}.
+	 * @return Normalized text or {@code null} if the given text is {@code null}.
+	 */
+	@Nullable
+	static String normalize(@Nullable final CharSequence text) {
+		if (text == null) {
+			return null;
+		}
+		final String decomposedText = Normalizer.normalize(text, Normalizer.Form.NFD);
+		final int length = decomposedText.length();
+		final StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			final char character = decomposedText.charAt(i);
+			if (Character.getType(character) != Character.NON_SPACING_MARK) {
+				builder.append(Character.toLowerCase(character));
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Splits the given normalized <var>text</var> into tokens consisting only of letters and digits.
+	 *
+	 * @param text The normalized text to split.
+	 * @return List of tokens in the order as they appear in the text.
+	 */
+	@NonNull
+	static List<String> tokenize(@NonNull final String text) {
+		final List<String> tokens = new ArrayList<>();
+		final int length = text.length();
+		int tokenStart = -1;
+		for (int i = 0; i <= length; i++) {
+			final boolean tokenCharacter = i < length && Character.isLetterOrDigit(text.charAt(i));
+			if (tokenCharacter && tokenStart == -1) {
+				tokenStart = i;
+			} else if (!tokenCharacter && tokenStart != -1) {
+				tokens.add(text.substring(tokenStart, i));
+				tokenStart = -1;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Returns the count of results contained in this index.
+	 *
+	 * @return Count of results.
+	 */
+	public int size() {
+		return mResults.length;
+	}
+
+	/**
+	 * Queries this index for results matching the specified <var>query</var>.
+	 * <p>
+	 * A result matches the query if for each word of the query the result contains a word in its
+	 * title, summary or entries that starts with that query word. Case and diacritical marks are
+	 * ignored. Results of which titles start with the whole query are returned first, other
+	 * results are returned in the order as theirs sources have been added into the builder.
+	 *
+	 * @param query The desired query.
+	 * @return List of matching results. May be empty if there are no results for the query.
+	 */
+	@NonNull
+	public List<Result> query(@NonNull final String query) {
+		final String normalizedQuery = normalize(query);
+		final List<String> queryTokens = tokenize(normalizedQuery);
+		if (queryTokens.isEmpty()) {
+			return Collections.emptyList();
+		}
+		// Matches[i] holds count of query tokens already matched by the result at i position.
+		final int[] matches = new int[mResults.length];
+		for (int i = 0; i < queryTokens.size(); i++) {
+			final String queryToken = queryTokens.get(i);
+			int tokenIndex = Arrays.binarySearch(mTokens, queryToken);
+			if (tokenIndex < 0) {
+				tokenIndex = -tokenIndex - 1;
+			}
+			boolean matched = false;
+			for (; tokenIndex < mTokens.length && mTokens[tokenIndex].startsWith(queryToken); tokenIndex++) {
+				for (final int resultIndex : mTokenResults[tokenIndex]) {
+					if (matches[resultIndex] == i) {
+						matches[resultIndex] = i + 1;
+						matched = true;
+					}
+				}
+			}
+			if (!matched) {
+				return Collections.emptyList();
+			}
+		}
+		final List<Result> results = new ArrayList<>();
+		final List<Result> otherResults = new ArrayList<>();
+		for (int i = 0; i < mResults.length; i++) {
+			if (matches[i] == queryTokens.size()) {
+				final Result result = mResults[i];
+				if (result.normalizedTitle.startsWith(normalizedQuery)) results.add(result);
+				else otherResults.add(result);
+			}
+		}
+		results.addAll(otherResults);
+		return results;
+	}
+
+	/**
+	 * Computes signature of the current state of the application that affects content of a search
+	 * index, that is, version of the application and its current locale.
+	 *
+	 * @param context Context used to access the application state.
+	 * @return The computed signature.
+	 */
+	static long computeSignature(@NonNull final Context context) {
+		long lastUpdateTime = 0;
+		try {
+			lastUpdateTime = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+		} catch (PackageManager.NameNotFoundException e) {
+			// Ignored, should not happen for own package.
+		}
+		return 31 * lastUpdateTime + context.getResources().getConfiguration().locale.toString().hashCode();
+	}
+
+	/**
+	 * Persists this index into a private file of the application with the specified <var>name</var>.
+	 *
+	 * @param context Context used to access the files directory of the application.
+	 * @param name    Name of the file into which to persist the index.
+	 * @return {@code True} if the index has been persisted, {@code false} otherwise.
+	 * @see Builder#load(String)
+	 */
+	@WorkerThread
+	public boolean save(@NonNull final Context context, @NonNull final String name) {
+		final File file = new File(context.getFilesDir(), name);
+		DataOutputStream output = null;
+		try {
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			writeTo(output);
+			output.flush();
+			return true;
+		} catch (IOException e) {
+			file.delete();
+			return false;
+		} finally {
+			close(output);
+		}
+	}
+
+	/**
+	 * Writes this index into the given <var>output</var>. All strings of the results are written
+	 * only once into a string table and the results refer to them by theirs indexes.
+	 *
+	 * @param output The output into which to write the index.
+	 * @throws IOException If some I/O error occurs.
+	 */
+	void writeTo(@NonNull final DataOutputStream output) throws IOException {
+		final Map<String, Integer> stringIndexes = new HashMap<>();
+		final List<String> strings = new ArrayList<>();
+		final int[][] resultStrings = new int[mResults.length][];
+		for (int i = 0; i < mResults.length; i++) {
+			final Result result = mResults[i];
+			resultStrings[i] = new int[]{
+					indexString(stringIndexes, strings, result.title),
+					indexString(stringIndexes, strings, result.summary),
+					indexString(stringIndexes, strings, result.keywords),
+					indexString(stringIndexes, strings, result.fragment),
+					indexString(stringIndexes, strings, result.key),
+					indexString(stringIndexes, strings, result.screenKey)
+			};
+		}
+		output.writeInt(FORMAT_VERSION);
+		output.writeLong(mSignature);
+		output.writeInt(strings.size());
+		for (final String string : strings) {
+			output.writeUTF(string);
+		}
+		output.writeInt(mResults.length);
+		for (int i = 0; i < mResults.length; i++) {
+			output.writeByte(mResults[i].type);
+			for (final int stringIndex : resultStrings[i]) {
+				output.writeInt(stringIndex);
+			}
+		}
+	}
+
+	/**
+	 * Returns index of the given <var>string</var> within the specified string table. If the string
+	 * is not contained in the table yet, it is added into it.
+	 *
+	 * @param stringIndexes Map of indexes of the strings contained in the table.
+	 * @param strings       The string table.
+	 * @param string        The string of which index to return. May be {@code null}.
+	 * @return Index of the string or {@link #NO_STRING} if the string is {@code null}.
+	 */
+	private static int indexString(final Map<String, Integer> stringIndexes, final List<String> strings, final String string) {
+		if (string == null) {
+			return NO_STRING;
+		}
+		Integer index = stringIndexes.get(string);
+		if (index == null) {
+			stringIndexes.put(string, index = strings.size());
+			strings.add(string);
+		}
+		return index;
+	}
+
+	/**
+	 * Reads index written via {@link #writeTo(DataOutputStream)} from the given <var>input</var>.
+	 *
+	 * @param input     The input from which to read the index.
+	 * @param signature Signature that the read index must match.
+	 * @return Read index or {@code null} if the written index has different format version or
+	 * signature.
+	 * @throws IOException If some I/O error occurs.
+	 */
+	@Nullable
+	static SettingsSearchIndex readFrom(@NonNull final DataInputStream input, final long signature) throws IOException {
+		if (input.readInt() != FORMAT_VERSION || input.readLong() != signature) {
+			return null;
+		}
+		final String[] strings = new String[input.readInt()];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = input.readUTF();
+		}
+		final Result[] results = new Result[input.readInt()];
+		for (int i = 0; i < results.length; i++) {
+			final int type = input.readByte();
+			results[i] = new Result(
+					type,
+					readString(input, strings),
+					readString(input, strings),
+					readString(input, strings),
+					readString(input, strings),
+					readString(input, strings),
+					readString(input, strings)
+			);
+		}
+		return new SettingsSearchIndex(signature, results);
+	}
+
+	/**
+	 * Reads index of a string from the given <var>input</var> and returns the string from the given
+	 * string table at that index.
+	 *
+	 * @param input   The input from which to read the string index.
+	 * @param strings The string table.
+	 * @return The string or {@code null} if the read index is {@link #NO_STRING}.
+	 * @throws IOException If some I/O error occurs or the read index is invalid.
+	 */
+	private static String readString(final DataInputStream input, final String[] strings) throws IOException {
+		final int index = input.readInt();
+		if (index == NO_STRING) {
+			return null;
+		}
+		if (index < 0 || index >= strings.length) {
+			throw new IOException("Invalid string index(" + index + ").");
+		}
+		return strings[index];
+	}
+
+	/**
+	 * Closes the given <var>closeable</var> ignoring any exception.
+	 *
+	 * @param closeable The closeable to close. May be {@code null}.
+	 */
+	private static void close(final Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// Ignored.
+			}
+		}
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * A single result contained in {@link SettingsSearchIndex}.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Result {
+
+		/**
+		 * Type of result that targets a preference header.
+		 */
+		public static final int TYPE_HEADER = 0;
+
+		/**
+		 * Type of result that targets a single preference.
+		 */
+		public static final int TYPE_PREFERENCE = 1;
+
+		/**
+		 * Type of this result. One of {@link #TYPE_HEADER} or {@link #TYPE_PREFERENCE}.
+		 */
+		public final int type;
+
+		/**
+		 * Title of the target header or preference.
+		 */
+		public final String title;
+
+		/**
+		 * Summary of the target header or preference. May be {@code null}.
+		 */
+		public final String summary;
+
+		/**
+		 * Additional searchable texts of the target preference, like its entries. May be {@code null}.
+		 */
+		final String keywords;
+
+		/**
+		 * Class name of the fragment that presents the target header or preference.
+		 */
+		public final String fragment;
+
+		/**
+		 * Key of the target preference. May be {@code null} for headers and preferences without key.
+		 */
+		public final String key;
+
+		/**
+		 * Key of the nested preference screen that contains the target preference. May be {@code null}
+		 * if the preference is contained directly in the root preference screen.
+		 */
+		public final String screenKey;
+
+		/**
+		 * Normalized {@link #title} used to order results of a query.
+		 */
+		final String normalizedTitle;
+
+		/**
+		 * Creates a new instance of Result with the given data.
+		 *
+		 * @param type      Type of the new result.
+		 * @param title     Title of the target.
+		 * @param summary   Summary of the target.
+		 * @param keywords  Additional searchable texts of the target.
+		 * @param fragment  Class name of the fragment that presents the target.
+		 * @param key       Key of the target preference.
+		 * @param screenKey Key of the nested screen that contains the target preference.
+		 */
+		Result(final int type, final String title, final String summary, final String keywords, final String fragment, final String key, final String screenKey) {
+			this.type = type;
+			this.title = title;
+			this.summary = summary;
+			this.keywords = keywords;
+			this.fragment = fragment;
+			this.key = key;
+			this.screenKey = screenKey;
+			this.normalizedTitle = normalize(title);
+		}
+
+		/**
+		 * Creates arguments for the {@link #fragment} of this result that request the fragment to
+		 * reveal the target preference.
+		 *
+		 * @return Arguments with {@link #EXTRA_PREFERENCE_KEY} and {@link #EXTRA_PREFERENCE_SCREEN_KEY}.
+		 */
+		@NonNull
+		public Bundle createArguments() {
+			final Bundle arguments = new Bundle();
+			if (key != null) {
+				arguments.putString(EXTRA_PREFERENCE_KEY, key);
+			}
+			if (screenKey != null) {
+				arguments.putString(EXTRA_PREFERENCE_SCREEN_KEY, screenKey);
+			}
+			return arguments;
+		}
+
+		/**
+		 */
+		@Override
+		public String toString() {
+			return "SettingsSearchIndex.Result{title: " + title + ", fragment: " + fragment + ", key: " + key + "}";
+		}
+	}
+
+	/**
+	 * Builder that may be used to build a new {@link SettingsSearchIndex} from preference headers
+	 * and preferences Xml files.
+	 * <p>
+	 * The sources are only registered when added into the builder and they are parsed when
+	 * {@link #build()} is called, which may be done on a background thread.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public static final class Builder {
+
+		/**
+		 * Context used to access resources of the added sources.
+		 */
+		private final Context mContext;
+
+		/**
+		 * Headers added via {@link #addHeaders(List)}.
+		 */
+		private final List<PreferenceActivity.Header> mHeaders = new ArrayList<>();
+
+		/**
+		 * Fragment class names along with resource ids of theirs preferences Xml files added via
+		 * {@link #addPreferences(String, int)}.
+		 */
+		private final List<PreferencesSource> mPreferencesSources = new ArrayList<>();
+
+		/**
+		 * Creates a new instance of Builder with the given <var>context</var>.
+		 *
+		 * @param context Context used to access resources of the added sources.
+		 */
+		public Builder(@NonNull final Context context) {
+			this.mContext = context.getApplicationContext();
+		}
+
+		/**
+		 * Adds the given <var>headers</var> to be indexed. Only headers with fragment are indexed.
+		 *
+		 * @param headers The headers to be indexed.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder addHeaders(@NonNull final List<PreferenceActivity.Header> headers) {
+			mHeaders.addAll(headers);
+			return this;
+		}
+
+		/**
+		 * Adds preferences from the specified Xml resource to be indexed.
+		 *
+		 * @param fragment         Class name of the fragment that presents the preferences.
+		 * @param preferencesResId Resource id of the Xml file with the preferences.
+		 * @return This builder to allow methods chaining.
+		 */
+		public Builder addPreferences(@NonNull final String fragment, @XmlRes final int preferencesResId) {
+			mPreferencesSources.add(new PreferencesSource(fragment, preferencesResId));
+			return this;
+		}
+
+		/**
+		 * Loads index persisted via {@link SettingsSearchIndex#save(Context, String)} from a private
+		 * file of the application with the specified <var>name</var>.
+		 *
+		 * @param name Name of the file from which to load the index.
+		 * @return Loaded index or {@code null} if there is no index persisted or the persisted index
+		 * has been built for different version or locale of the application or from different
+		 * sources than the ones added into this builder.
+		 * @see #build()
+		 */
+		@Nullable
+		@WorkerThread
+		public SettingsSearchIndex load(@NonNull final String name) {
+			final File file = new File(mContext.getFilesDir(), name);
+			if (!file.exists()) {
+				return null;
+			}
+			DataInputStream input = null;
+			try {
+				input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				return readFrom(input, computeSignature());
+			} catch (IOException e) {
+				return null;
+			} finally {
+				close(input);
+			}
+		}
+
+		/**
+		 * Computes signature of the current state of the application along with the sources added
+		 * into this builder. Headers are part of the signature with theirs texts, as they may be
+		 * built at runtime, while preferences Xml files only with theirs resource ids, as theirs
+		 * content may change only along with version of the application.
+		 *
+		 * @return The computed signature.
+		 * @see SettingsSearchIndex#computeSignature(Context)
+		 */
+		long computeSignature() {
+			final Resources resources = mContext.getResources();
+			long signature = SettingsSearchIndex.computeSignature(mContext);
+			for (final PreferenceActivity.Header header : mHeaders) {
+				signature = 31 * signature + hashOf(header.fragment);
+				signature = 31 * signature + hashOf(header.getTitle(resources));
+				signature = 31 * signature + hashOf(header.getSummary(resources));
+			}
+			for (final PreferencesSource source : mPreferencesSources) {
+				signature = 31 * signature + hashOf(source.fragment);
+				signature = 31 * signature + source.xmlResource;
+			}
+			return signature;
+		}
+
+		/**
+		 * Returns hash code of string value of the given <var>text</var>.
+		 *
+		 * @param text The text of which hash code to return. May be {@code null}.
+		 * @return Hash code or {@code 0} if the text is {@code null}.
+		 */
+		private static int hashOf(final CharSequence text) {
+			return text == null ? 0 : text.toString().hashCode();
+		}
+
+		/**
+		 * Builds a new SettingsSearchIndex from all the added sources.
+		 *
+		 * @return New search index.
+		 * @throws IllegalStateException If some of the added preferences Xml files cannot be parsed.
+		 */
+		@NonNull
+		@WorkerThread
+		public SettingsSearchIndex build() {
+			final Resources resources = mContext.getResources();
+			final List<Result> results = new ArrayList<>();
+			for (final PreferenceActivity.Header header : mHeaders) {
+				final CharSequence title = header.getTitle(resources);
+				if (header.fragment != null && !TextUtils.isEmpty(title)) {
+					results.add(new Result(
+							Result.TYPE_HEADER,
+							title.toString(),
+							asString(header.getSummary(resources)),
+							null,
+							header.fragment,
+							null,
+							null
+					));
+				}
+			}
+			for (final PreferencesSource source : mPreferencesSources) {
+				final XmlResourceParser parser = resources.getXml(source.xmlResource);
+				try {
+					collectPreferences(resources, parser, source.fragment, results);
+				} catch (XmlPullParserException | IOException e) {
+					throw new IllegalStateException("Failed to parse preferences Xml for fragment(" + source.fragment + ").", e);
+				} finally {
+					parser.close();
+				}
+			}
+			return new SettingsSearchIndex(computeSignature(), results.toArray(new Result[results.size()]));
+		}
+
+		/**
+		 * Parses preferences Xml via the given <var>parser</var> and collects results for all its
+		 * preferences with title except categories. Preferences contained in a nested preference
+		 * screen, at any depth, have key of the top most nested screen as theirs screen key, as only
+		 * that screen is presented in the fragment.
+		 *
+		 * @param resources Resources used to resolve attribute values.
+		 * @param parser    The parser positioned at start of the preferences Xml.
+		 * @param fragment  Class name of the fragment that presents the preferences.
+		 * @param results   The list into which to collect the results.
+		 */
+		static void collectPreferences(final Resources resources, final XmlPullParser parser, final String fragment, final List<Result> results) throws XmlPullParserException, IOException {
+			String screenKey = null;
+			int screenDepth = -1;
+			int eventType;
+			while ((eventType = parser.next()) != XmlPullParser.END_DOCUMENT) {
+				if (eventType == XmlPullParser.END_TAG && parser.getDepth() == screenDepth) {
+					screenKey = null;
+					screenDepth = -1;
+				}
+				if (eventType != XmlPullParser.START_TAG || parser.getDepth() == 1) {
+					continue;
+				}
+				final String name = parser.getName();
+				if ("intent".equals(name) || "extra".equals(name) || name.endsWith("PreferenceCategory")) {
+					continue;
+				}
+				final String key = asString(resolveText(resources, parser, "key"));
+				final String title = asString(resolveText(resources, parser, "title"));
+				if (!TextUtils.isEmpty(title)) {
+					results.add(new Result(
+							Result.TYPE_PREFERENCE,
+							title,
+							asString(resolveText(resources, parser, "summary")),
+							resolveEntries(resources, parser),
+							fragment,
+							key,
+							screenKey
+					));
+				}
+				if (screenDepth == -1 && name.endsWith("PreferenceScreen")) {
+					screenKey = key;
+					screenDepth = parser.getDepth();
+				}
+			}
+		}
+
+		/**
+		 * Resolves text of the specified Android attribute of the current tag of the given <var>parser</var>.
+		 *
+		 * @param resources Resources used to resolve the text if the attribute refers to a resource.
+		 * @param parser    The parser positioned at a start tag.
+		 * @param attribute Name of the attribute of which text to resolve.
+		 * @return Resolved text or {@code null} if the tag does not have such attribute.
+		 */
+		private static CharSequence resolveText(final Resources resources, final XmlPullParser parser, final String attribute) {
+			final String value = parser.getAttributeValue(ANDROID_NAMESPACE, attribute);
+			final int resId = parseResourceReference(value);
+			return resId == 0 ? value : resources.getText(resId);
+		}
+
+		/**
+		 * Resolves entries specified for the current tag of the given <var>parser</var> joined into
+		 * a single string.
+		 *
+		 * @param resources Resources used to resolve the entries array.
+		 * @param parser    The parser positioned at a start tag.
+		 * @return Joined entries or {@code null} if the tag does not have entries specified.
+		 */
+		private static String resolveEntries(final Resources resources, final XmlPullParser parser) {
+			final int resId = parseResourceReference(parser.getAttributeValue(ANDROID_NAMESPACE, "entries"));
+			return resId == 0 ? null : TextUtils.join(" ", resources.getTextArray(resId));
+		}
+
+		/**
+		 * Parses resource id from the given attribute <var>value</var>. Attributes of compiled Xml
+		 * resources which refer to a resource have theirs value in form of {@code @<id>}.
+		 *
+		 * @param value The attribute value to parse. May be {@code null}.
+		 * @return Resource id or {@code 0} if the value does not refer to a resource.
+		 */
+		private static int parseResourceReference(final String value) {
+			if (value == null || value.length() < 2 || value.charAt(0) != '@') {
+				return 0;
+			}
+			try {
+				return Integer.parseInt(value.substring(1));
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+
+		/**
+		 * Returns string value of the given <var>text</var>.
+		 *
+		 * @param text The text to convert. May be {@code null}.
+		 * @return The string or {@code null} if the text is {@code null}.
+		 */
+		private static String asString(final CharSequence text) {
+			return text == null ? null : text.toString();
+		}
+	}
+
+	/**
+	 * Source of preferences added into {@link Builder} via {@link Builder#addPreferences(String, int)}.
+	 */
+	private static final class PreferencesSource {
+
+		/**
+		 * Class name of the fragment that presents the preferences.
+		 */
+		final String fragment;
+
+		/**
+		 * Resource id of the Xml file with the preferences.
+		 */
+		final int xmlResource;
+
+		/**
+		 * Creates a new instance of PreferencesSource with the given data.
+		 *
+		 * @param fragment    Class name of the fragment that presents the preferences.
+		 * @param xmlResource Resource id of the Xml file with the preferences.
+		 */
+		PreferencesSource(final String fragment, final int xmlResource) {
+			this.fragment = fragment;
+			this.xmlResource = xmlResource;
+		}
+	}
+}
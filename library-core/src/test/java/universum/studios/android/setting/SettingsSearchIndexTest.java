@@ -0,0 +1,226 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.os.Bundle;
+import android.preference.PreferenceActivity;
+import android.text.TextUtils;
+import android.util.Xml;
+
+import org.junit.Test;
+import org.xmlpull.v1.XmlPullParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import universum.studios.android.test.local.RobolectricTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class SettingsSearchIndexTest extends RobolectricTestCase {
+
+	private static final String INDEX_NAME = "test_search_index";
+
+	private static PreferenceActivity.Header createHeader(final String title, final String fragment) {
+		final PreferenceActivity.Header header = new PreferenceActivity.Header();
+		header.title = title;
+		header.fragment = fragment;
+		return header;
+	}
+
+	private SettingsSearchIndex buildIndex() {
+		return createBuilder().build();
+	}
+
+	private SettingsSearchIndex.Builder createBuilder() {
+		return new SettingsSearchIndex.Builder(mApplication).addHeaders(Arrays.asList(
+				createHeader("Wireless & networks", null),
+				createHeader("Wi-Fi", "WiFiFragment"),
+				createHeader("Bluetooth", "BluetoothFragment"),
+				createHeader("Display", "DisplayFragment"),
+				createHeader("Sound & notification", "SoundFragment"),
+				createHeader("Notification wifi alerts", "AlertsFragment")
+		));
+	}
+
+	private static List<String> titlesOf(final List<SettingsSearchIndex.Result> results) {
+		final List<String> titles = new ArrayList<>(results.size());
+		for (final SettingsSearchIndex.Result result : results) {
+			titles.add(result.title);
+		}
+		return titles;
+	}
+
+	@Override
+	public void afterTest() throws Exception {
+		super.afterTest();
+		mApplication.deleteFile(INDEX_NAME);
+	}
+
+	@Test
+	public void testNormalize() {
+		assertThat(SettingsSearchIndex.normalize("Wí-Fí Zařízení"), is("wi-fi zarizeni"));
+		assertThat(SettingsSearchIndex.normalize(null), is(nullValue()));
+	}
+
+	@Test
+	public void testTokenize() {
+		assertThat(SettingsSearchIndex.tokenize("sound & notification, wi-fi"), is(Arrays.asList("sound", "notification", "wi", "fi")));
+		assertThat(SettingsSearchIndex.tokenize("  ").isEmpty(), is(true));
+	}
+
+	@Test
+	public void testBuildSkipsHeadersWithoutFragment() {
+		assertThat(buildIndex().size(), is(5));
+	}
+
+	@Test
+	public void testQuery() {
+		final SettingsSearchIndex index = buildIndex();
+		assertThat(titlesOf(index.query("blue")), is(Arrays.asList("Bluetooth")));
+		assertThat(titlesOf(index.query("NOTIF")), is(Arrays.asList("Notification wifi alerts", "Sound & notification")));
+		assertThat(titlesOf(index.query("wifi")), is(Arrays.asList("Notification wifi alerts")));
+		assertThat(titlesOf(index.query("wi fi")), is(Arrays.asList("Wi-Fi")));
+		assertThat(titlesOf(index.query("sound notif")), is(Arrays.asList("Sound & notification")));
+	}
+
+	@Test
+	public void testQueryWithoutResults() {
+		final SettingsSearchIndex index = buildIndex();
+		assertThat(index.query("storage").isEmpty(), is(true));
+		assertThat(index.query("sound storage").isEmpty(), is(true));
+		assertThat(index.query(" & ").isEmpty(), is(true));
+	}
+
+	@Test
+	public void testWriteAndRead() throws Exception {
+		final SettingsSearchIndex index = buildIndex();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		index.writeTo(new DataOutputStream(bytes));
+		final long signature = createBuilder().computeSignature();
+		final SettingsSearchIndex readIndex = SettingsSearchIndex.readFrom(
+				new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+				signature
+		);
+		assertThat(readIndex, is(notNullValue()));
+		assertThat(readIndex.size(), is(index.size()));
+		assertThat(titlesOf(readIndex.query("notif")), is(titlesOf(index.query("notif"))));
+		assertThat(readIndex.query("display").get(0).fragment, is("DisplayFragment"));
+		assertThat(SettingsSearchIndex.readFrom(
+				new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+				signature + 1
+		), is(nullValue()));
+	}
+
+	@Test
+	public void testSaveAndLoad() {
+		assertThat(createBuilder().load(INDEX_NAME), is(nullValue()));
+		assertThat(buildIndex().save(mApplication, INDEX_NAME), is(true));
+		final SettingsSearchIndex index = createBuilder().load(INDEX_NAME);
+		assertThat(index, is(notNullValue()));
+		assertThat(titlesOf(index.query("bluetooth")), is(Arrays.asList("Bluetooth")));
+	}
+
+	@Test
+	public void testLoadForChangedSources() {
+		assertThat(buildIndex().save(mApplication, INDEX_NAME), is(true));
+		final SettingsSearchIndex.Builder builder = createBuilder().addHeaders(Arrays.asList(createHeader("Storage", "StorageFragment")));
+		assertThat(builder.load(INDEX_NAME), is(nullValue()));
+		assertThat(createBuilder().addPreferences("DisplayFragment", 1).load(INDEX_NAME), is(nullValue()));
+	}
+
+	@Test
+	public void testCollectPreferences() throws Exception {
+		final int entriesRes = android.R.array.emailAddressTypes;
+		final XmlPullParser parser = Xml.newPullParser();
+		parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+		parser.setInput(new StringReader(
+				"<PreferenceScreen xmlns:android=\"http://schemas.android.com/apk/res/android\">" +
+						"<PreferenceCategory android:title=\"General\">" +
+						"<ListPreference android:key=\"theme\" android:title=\"Theme\" android:entries=\"@" + entriesRes + "\"/>" +
+						"</PreferenceCategory>" +
+						"<PreferenceScreen android:key=\"advanced\" android:title=\"Advanced\">" +
+						"<Preference android:key=\"reset\" android:title=\"Reset\" android:summary=\"Resets all settings\"/>" +
+						"<PreferenceScreen android:key=\"developer\" android:title=\"Developer\">" +
+						"<Preference android:key=\"logging\" android:title=\"Logging\"/>" +
+						"</PreferenceScreen>" +
+						"</PreferenceScreen>" +
+						"<Preference android:key=\"about\" android:title=\"About\">" +
+						"<intent android:action=\"android.intent.action.VIEW\"/>" +
+						"</Preference>" +
+						"<Preference android:key=\"untitled\"/>" +
+						"</PreferenceScreen>"
+		));
+		final List<SettingsSearchIndex.Result> results = new ArrayList<>();
+		SettingsSearchIndex.Builder.collectPreferences(mApplication.getResources(), parser, "TestFragment", results);
+		assertThat(titlesOf(results), is(Arrays.asList("Theme", "Advanced", "Reset", "Developer", "Logging", "About")));
+		final SettingsSearchIndex.Result themeResult = results.get(0);
+		assertThat(themeResult.type, is(SettingsSearchIndex.Result.TYPE_PREFERENCE));
+		assertThat(themeResult.fragment, is("TestFragment"));
+		assertThat(themeResult.key, is("theme"));
+		assertThat(themeResult.screenKey, is(nullValue()));
+		assertThat(themeResult.keywords, is(TextUtils.join(" ", mApplication.getResources().getTextArray(entriesRes))));
+		assertThat(results.get(1).key, is("advanced"));
+		assertThat(results.get(1).screenKey, is(nullValue()));
+		assertThat(results.get(2).summary, is("Resets all settings"));
+		assertThat(results.get(2).screenKey, is("advanced"));
+		// Preferences of deeper nested screens are revealed via the top most nested screen.
+		assertThat(results.get(3).screenKey, is("advanced"));
+		assertThat(results.get(4).key, is("logging"));
+		assertThat(results.get(4).screenKey, is("advanced"));
+		assertThat(results.get(5).key, is("about"));
+		assertThat(results.get(5).screenKey, is(nullValue()));
+	}
+
+	@Test
+	public void testResultCreateArguments() {
+		final Bundle arguments = new SettingsSearchIndex.Result(
+				SettingsSearchIndex.Result.TYPE_PREFERENCE,
+				"Brightness level",
+				null,
+				null,
+				"DisplayFragment",
+				"display_brightness",
+				"display_advanced"
+		).createArguments();
+		assertThat(arguments.getString(SettingsSearchIndex.EXTRA_PREFERENCE_KEY), is("display_brightness"));
+		assertThat(arguments.getString(SettingsSearchIndex.EXTRA_PREFERENCE_SCREEN_KEY), is("display_advanced"));
+		assertThat(new SettingsSearchIndex.Result(
+				SettingsSearchIndex.Result.TYPE_HEADER,
+				"Display",
+				null,
+				null,
+				"DisplayFragment",
+				null,
+				null
+		).createArguments().isEmpty(), is(true));
+	}
+}
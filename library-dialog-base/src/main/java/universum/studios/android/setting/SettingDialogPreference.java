@@ -21,7 +21,6 @@ package universum.studios.android.setting;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.Resources;
-import android.content.res.TypedArray;
 import android.os.Build;
 import android.preference.Preference;
 import android.support.annotation.AttrRes;
@@ -33,6 +32,10 @@ import android.util.AttributeSet;
 import android.view.View;
 import android.widget.TextView;
 
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
 import universum.studios.android.dialog.Dialog;
 import universum.studios.android.dialog.DialogOptions;
 
@@ -46,11 +49,22 @@ import universum.studios.android.dialog.DialogOptions;
  * <p>
  * Subclasses should override {@link #onCreateDialogOptions(Resources)} to create type of options
  * that are specific for theirs associated type of dialog along with
- * {@link #onConfigureDialogOptions(DialogOptions, Context, AttributeSet, int, int)} where these
- * options should be configured from the provided {@link AttributeSet}. Also
+ * {@link #onConfigureDialogOptions(DialogOptions, PreferenceAttributes)} where these options should
+ * be configured from the provided attributes. Attributes specific for a subclass should be declared
+ * via {@link #onGetDialogAttrs()} so all attributes are resolved in a single pass. Also
  * {@link #onHandleDialogButtonClick(Dialog, int)} should be override to provide default handling of
  * dialog button click event.
  *
+ * <h3>Lazy dialog options</h3>
+ * By default the dialog options are created and configured during initialization of the preference.
+ * If {@link R.attr#uiSettingLazyDialogOptions uiSettingLazyDialogOptions} attribute is set to
+ * {@code true} (or lazy mode is enabled by default via {@link #setLazyDialogOptionsByDefault(boolean)}),
+ * only a compact snapshot of the resolved attributes is kept during initialization and the dialog
+ * options are created and configured on the first call to {@link #getDialogOptions()}.
+ * Lazy mode is ignored for preference classes that override
+ * {@link #onConfigureDialogOptions(DialogOptions, Context, AttributeSet, int, int)} as that hook
+ * requires the attributes set which is valid only during initialization.
+ *
  * <h3>Default value</h3>
  * This preference implementation does not parse any default value. However parsing of default value
  * may be performed by the subclasses of this preference.
@@ -107,6 +121,33 @@ public class SettingDialogPreference<O extends DialogOptions<O>> extends Setting
 	 * Static members ==============================================================================
 	 */
 
+	/**
+	 * Boolean flag indicating whether dialog options should be created lazily for dialog preferences
+	 * that do not specify {@link R.attr#uiSettingLazyDialogOptions} attribute.
+	 */
+	private static volatile boolean sLazyDialogOptionsByDefault;
+
+	/**
+	 * Cache of flags indicating whether a specific dialog preference class overrides the attributes
+	 * set based {@link #onConfigureDialogOptions(DialogOptions, Context, AttributeSet, int, int)}.
+	 */
+	private static final Map<Class<?>, Boolean> sAttributeSetConfigurationOverrides = new HashMap<>(8);
+
+	/**
+	 * Preference click listener shared by all dialog preferences which dispatches clicks to their
+	 * registered click listeners, so a click handled by those listeners is consumed the same way
+	 * as by any {@link OnPreferenceClickListener}.
+	 */
+	private static final OnPreferenceClickListener CLICK_DISPATCHER = new OnPreferenceClickListener() {
+
+		/**
+		 */
+		@Override
+		public boolean onPreferenceClick(@NonNull final Preference preference) {
+			return ((SettingDialogPreference) preference).dispatchClick();
+		}
+	};
+
 	/*
 	 * Members =====================================================================================
 	 */
@@ -116,6 +157,18 @@ public class SettingDialogPreference<O extends DialogOptions<O>> extends Setting
 	 */
 	private int mDialogId = NO_DIALOG_ID;
 
+	/**
+	 * Callback to be invoked whenever this dialog preference is clicked.
+	 *
+	 * @see #setOnClickListener(OnClickListener)
+	 */
+	private OnClickListener mClickListener;
+
+	/**
+	 * Preference click listener registered via {@link #setOnPreferenceClickListener(OnPreferenceClickListener)}.
+	 */
+	private OnPreferenceClickListener mPreferenceClickListener;
+
 	/**
 	 * Dialog options specific for this type of dialog preference.
 	 *
@@ -123,6 +176,13 @@ public class SettingDialogPreference<O extends DialogOptions<O>> extends Setting
 	 */
 	private O mDialogOptions;
 
+	/**
+	 * Snapshot of dialog attributes kept until dialog options are created in lazy mode.
+	 *
+	 * @see #getDialogOptions()
+	 */
+	private PreferenceAttributes mDialogAttributes;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -179,16 +239,151 @@ public class SettingDialogPreference<O extends DialogOptions<O>> extends Setting
 	 * data from the current theme provided by the specified <var>context</var>.
 	 */
 	private void init(final Context context, final AttributeSet attrs, final int defStyleAttr, final int defStyleRes) {
-		this.mDialogOptions = onCreateDialogOptions(context.getResources());
-		onConfigureDialogOptions(mDialogOptions, context, attrs, defStyleAttr, defStyleRes);
+		final PreferenceAttributes attributes = getPreferenceAttributes();
+		this.mDialogId = attributes.getResourceId(R.attr.dialogId, NO_DIALOG_ID);
+		onProcessDialogAttributes(attributes);
+		if (attributes.getBoolean(R.attr.uiSettingLazyDialogOptions, sLazyDialogOptionsByDefault) &&
+				!overridesAttributeSetConfiguration(getClass())) {
+			this.mDialogAttributes = attributes;
+		} else {
+			this.mDialogOptions = onCreateDialogOptions(context.getResources());
+			onConfigureDialogOptions(mDialogOptions, attributes);
+			onConfigureDialogOptions(mDialogOptions, context, attrs, defStyleAttr, defStyleRes);
+		}
 	}
 
 	/**
-	 * Called from one of constructors to configure dialog options specific for this dialog preference.
+	 * Checks whether the specified <var>preferenceClass</var> overrides the attributes set based
+	 * {@link #onConfigureDialogOptions(DialogOptions, Context, AttributeSet, int, int)}, in which
+	 * case its dialog options may not be created lazily.
 	 *
-	 * @param options The options created via {@link #onCreateDialogOptions(Resources)}.
+	 * @param preferenceClass The class of dialog preference to check.
+	 * @return {@code True} if the class or any of its super classes below this class overrides the
+	 * method, {@code false} otherwise.
+	 */
+	static boolean overridesAttributeSetConfiguration(@NonNull final Class<?> preferenceClass) {
+		synchronized (sAttributeSetConfigurationOverrides) {
+			Boolean overrides = sAttributeSetConfigurationOverrides.get(preferenceClass);
+			if (overrides == null) {
+				overrides = false;
+				Class<?> type = preferenceClass;
+				while (type != null && type != SettingDialogPreference.class && !overrides) {
+					for (final Method method : type.getDeclaredMethods()) {
+						final Class<?>[] parameterTypes = method.getParameterTypes();
+						if ("onConfigureDialogOptions".equals(method.getName()) &&
+								parameterTypes.length == 5 &&
+								parameterTypes[2] == AttributeSet.class) {
+							overrides = true;
+							break;
+						}
+					}
+					type = type.getSuperclass();
+				}
+				sAttributeSetConfigurationOverrides.put(preferenceClass, overrides);
+			}
+			return overrides;
+		}
+	}
+
+	/**
+	 */
+	@NonNull
+	@Override
+	protected int[] onGetPreferenceAttrs() {
+		return PreferenceAttributes.mergeAttrs(
+				super.onGetPreferenceAttrs(),
+				R.styleable.Ui_Settings_DialogPreference,
+				onGetDialogAttrs()
+		);
+	}
+
+	/**
+	 * Sets a flag indicating whether dialog options should be created lazily on the first call to
+	 * {@link #getDialogOptions()} for all dialog preferences that do not specify
+	 * {@link R.attr#uiSettingLazyDialogOptions uiSettingLazyDialogOptions} attribute.
+	 * <p>
+	 * This flag affects only dialog preferences created after this call.
+	 *
+	 * @param lazy {@code True} to create dialog options lazily, {@code false} otherwise.
+	 */
+	public static void setLazyDialogOptionsByDefault(final boolean lazy) {
+		sLazyDialogOptionsByDefault = lazy;
+	}
+
+	/**
+	 * Called from one of constructors to obtain attributes specific for this dialog preference that
+	 * should be resolved along with attributes of {@link R.styleable#Ui_Settings_DialogPreference}
+	 * and all other attributes of this preference in a single pass.
+	 * Values of these attributes are then delivered to {@link #onProcessDialogAttributes(PreferenceAttributes)}
+	 * and {@link #onConfigureDialogOptions(DialogOptions, PreferenceAttributes)}.
+	 * <p>
+	 * The returned array should be a constant as it is requested only once for each dialog
+	 * preference class.
+	 *
+	 * @return Array of attributes (for example a styleable array) or {@code null} if there are no
+	 * additional attributes.
+	 */
+	@Nullable
+	protected int[] onGetDialogAttrs() {
+		return null;
+	}
+
+	/**
+	 * Called from one of constructors to process values of the resolved <var>attributes</var> that
+	 * need to be available immediately, regardless of whether the dialog options are created lazily
+	 * or not.
+	 *
+	 * @param attributes Snapshot of the resolved attributes.
+	 */
+	protected void onProcessDialogAttributes(@NonNull final PreferenceAttributes attributes) {
+		// May be implemented by the inheritance hierarchies.
+	}
+
+	/**
+	 * Called to configure dialog options specific for this dialog preference from the resolved
+	 * <var>attributes</var>. This is called either from one of constructors or from the first call
+	 * to {@link #getDialogOptions()} if the options are created lazily.
+	 *
+	 * @param options    The options created via {@link #onCreateDialogOptions(Resources)}.
+	 * @param attributes Snapshot of the resolved attributes.
 	 */
 	@SuppressWarnings("ResourceType")
+	protected void onConfigureDialogOptions(@NonNull final O options, @NonNull final PreferenceAttributes attributes) {
+		options.icon(attributes.getResourceId(R.attr.dialogIcon, options.icon()));
+		options.vectorIcon(attributes.getResourceId(R.attr.dialogVectorIcon, options.vectorIcon()));
+		if (attributes.hasValue(R.attr.dialogTitle)) {
+			options.title(attributes.getText(R.attr.dialogTitle));
+		}
+		if (attributes.hasValue(R.attr.dialogContent)) {
+			options.content(attributes.getText(R.attr.dialogContent));
+		}
+		if (attributes.hasValue(R.attr.dialogPositiveButton)) {
+			options.positiveButton(attributes.getText(R.attr.dialogPositiveButton));
+		}
+		if (attributes.hasValue(R.attr.dialogNeutralButton)) {
+			options.neutralButton(attributes.getText(R.attr.dialogNeutralButton));
+		}
+		if (attributes.hasValue(R.attr.dialogNegativeButton)) {
+			options.negativeButton(attributes.getText(R.attr.dialogNegativeButton));
+		}
+		options.buttonsWidthMode(attributes.getInt(R.attr.dialogButtonsWidthMode, options.buttonsWidthMode()));
+		options.cancelable(attributes.getBoolean(R.attr.dialogCancelable, options.shouldBeCancelable()));
+		options.dismissOnRestore(attributes.getBoolean(R.attr.dialogDismissOnRestore, options.shouldDismissOnRestore()));
+		options.remain(attributes.getBoolean(R.attr.dialogRemain, options.shouldRemain()));
+		options.theme(attributes.getResourceId(R.attr.dialogTheme, options.theme()));
+	}
+
+	/**
+	 * Called from one of constructors to configure dialog options specific for this dialog preference
+	 * directly from the given <var>attrs</var> set, after the options has been configured via
+	 * {@link #onConfigureDialogOptions(DialogOptions, PreferenceAttributes)}.
+	 * <p>
+	 * <b>Note</b>, that overriding this method disables lazy creation of dialog options for the
+	 * subclass as the attributes set is no longer valid after initialization. Subclasses should
+	 * prefer to declare theirs attributes via {@link #onGetDialogAttrs()} instead.
+	 *
+	 * @param options The options created via {@link #onCreateDialogOptions(Resources)}.
+	 */
 	protected void onConfigureDialogOptions(
 			@NonNull final O options,
 			@NonNull final Context context,
@@ -196,38 +391,7 @@ public class SettingDialogPreference<O extends DialogOptions<O>> extends Setting
 			@AttrRes final int defStyleAttr,
 			@StyleRes final int defStyleRes
 	) {
-		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_DialogPreference, defStyleAttr, defStyleRes);
-		for (int i = 0; i < attributes.getIndexCount(); i++) {
-			final int index = attributes.getIndex(i);
-			if (index == R.styleable.Ui_Settings_DialogPreference_dialogId) {
-				this.mDialogId = attributes.getResourceId(index, NO_DIALOG_ID);
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogIcon) {
-				options.icon(attributes.getResourceId(index, options.icon()));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogVectorIcon) {
-				options.vectorIcon(attributes.getResourceId(index, options.vectorIcon()));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogTitle) {
-				options.title(attributes.getText(index));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogContent) {
-				options.content(attributes.getText(index));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogPositiveButton) {
-				options.positiveButton(attributes.getText(index));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogNeutralButton) {
-				options.neutralButton(attributes.getText(index));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogNegativeButton) {
-				options.negativeButton(attributes.getText(index));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogButtonsWidthMode) {
-				options.buttonsWidthMode(attributes.getInt(index, options.buttonsWidthMode()));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogCancelable) {
-				options.cancelable(attributes.getBoolean(index, options.shouldBeCancelable()));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogDismissOnRestore) {
-				options.dismissOnRestore(attributes.getBoolean(index, options.shouldDismissOnRestore()));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogRemain) {
-				options.remain(attributes.getBoolean(index, options.shouldRemain()));
-			} else if (index == R.styleable.Ui_Settings_DialogPreference_dialogTheme) {
-				options.theme(attributes.getResourceId(index, options.theme()));
-			}
-		}
-		attributes.recycle();
+		// May be implemented by the inheritance hierarchies.
 	}
 
 	/**
@@ -248,22 +412,64 @@ public class SettingDialogPreference<O extends DialogOptions<O>> extends Setting
 	/**
 	 * Registers a callback to be invoked whenever this dialog preference is clicked.
 	 * <p>
-	 * <b>Note</b>, that this method uses {@link #setOnPreferenceClickListener(OnPreferenceClickListener)}
-	 * to register the requested callback. Any previously registered {@link OnPreferenceClickListener}
-	 * will be replaced.
+	 * The callback does not replace any {@link OnPreferenceClickListener} registered via
+	 * {@link #setOnPreferenceClickListener(OnPreferenceClickListener)}. Such listener is invoked
+	 * first and, if it does not handle the click, this callback is invoked. If the click is handled
+	 * by this callback, it is consumed, so it is not dispatched to the preference tree nor is the
+	 * intent of this preference started.
 	 *
 	 * @param listener The desired callback. May be {@code null} to clear the current one.
+	 * @see #getOnClickListener()
 	 */
 	public void setOnClickListener(@Nullable final OnClickListener listener) {
-		setOnPreferenceClickListener(listener == null ? null : new OnPreferenceClickListener() {
+		this.mClickListener = listener;
+		this.updateClickDispatcher();
+	}
 
-			/**
-			 */
-			@Override
-			public boolean onPreferenceClick(Preference preference) {
-				return listener.onDialogPreferenceClick((SettingDialogPreference) preference);
-			}
-		});
+	/**
+	 */
+	@Override
+	public void setOnPreferenceClickListener(@Nullable final OnPreferenceClickListener listener) {
+		this.mPreferenceClickListener = listener;
+		this.updateClickDispatcher();
+	}
+
+	/**
+	 */
+	@Override
+	public OnPreferenceClickListener getOnPreferenceClickListener() {
+		return mPreferenceClickListener;
+	}
+
+	/**
+	 * Registers the shared {@link #CLICK_DISPATCHER} as preference click listener of this preference
+	 * if there is any click listener to dispatch clicks to, or unregisters it otherwise.
+	 */
+	private void updateClickDispatcher() {
+		super.setOnPreferenceClickListener(mClickListener == null && mPreferenceClickListener == null ? null : CLICK_DISPATCHER);
+	}
+
+	/**
+	 * Dispatches click on this preference to the registered click listeners.
+	 *
+	 * @return {@code True} if the click has been handled by one of the listeners, {@code false}
+	 * otherwise.
+	 */
+	final boolean dispatchClick() {
+		if (mPreferenceClickListener != null && mPreferenceClickListener.onPreferenceClick(this)) {
+			return true;
+		}
+		return mClickListener != null && mClickListener.onDialogPreferenceClick(this);
+	}
+
+	/**
+	 * Returns the callback registered via {@link #setOnClickListener(OnClickListener)}.
+	 *
+	 * @return The registered callback or {@code null} if there is no callback registered.
+	 */
+	@Nullable
+	public OnClickListener getOnClickListener() {
+		return mClickListener;
 	}
 
 	/**
@@ -279,6 +485,9 @@ public class SettingDialogPreference<O extends DialogOptions<O>> extends Setting
 	/**
 	 * Returns the dialog options specific for the dialog associated with this dialog preference.
 	 * <p>
+	 * If the dialog options are created lazily, the first call to this method creates and configures
+	 * them.
+	 * <p>
 	 * Subclasses may override this method and provide the dialog options with the current preferred
 	 * value so it may be properly displayed in the associated dialog.
 	 *
@@ -286,6 +495,11 @@ public class SettingDialogPreference<O extends DialogOptions<O>> extends Setting
 	 */
 	@NonNull
 	public O getDialogOptions() {
+		if (mDialogOptions == null) {
+			this.mDialogOptions = onCreateDialogOptions(getContext().getResources());
+			onConfigureDialogOptions(mDialogOptions, mDialogAttributes);
+			this.mDialogAttributes = null;
+		}
 		return mDialogOptions;
 	}
 
@@ -313,6 +527,19 @@ public class SettingDialogPreference<O extends DialogOptions<O>> extends Setting
 		}
 	}
 
+	/**
+	 * This implementation binds change of summary via {@link #synchronizeSummaryView(View)}.
+	 */
+	@Override
+	public void onBindViewChanges(@NonNull final View view, final int changes) {
+		if ((changes & CHANGE_WIDGET) == 0 && (changes & CHANGE_SUMMARY) != 0) {
+			synchronizeSummaryView(view);
+			super.onBindViewChanges(view, changes & ~CHANGE_SUMMARY);
+		} else {
+			super.onBindViewChanges(view, changes);
+		}
+	}
+
 	/**
 	 * Called from {@link #synchronizeSummaryView(View)} to retrieve the current summary text for
 	 * this dialog preference.
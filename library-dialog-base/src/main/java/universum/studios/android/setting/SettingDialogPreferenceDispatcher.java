@@ -0,0 +1,110 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Dispatcher used by {@link SettingDialogPreferenceManager} to route results of preference dialogs
+ * back to theirs associated dialog preferences.
+ * <p>
+ * As only one preference dialog may be shown at a time, the dispatcher remembers only the dialog
+ * preference of which dialog has been requested to be shown the last and resolves the preference
+ * for a dialog result directly from it by comparing the dialog id of the result with the dialog id
+ * of that preference. This way the manager does not need to map all attached dialog preferences
+ * to theirs dialog ids.
+ *
+ * @author Martin Albedinsky
+ */
+final class SettingDialogPreferenceDispatcher {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "SettingDialogPreferenceDispatcher";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Weak reference to the dialog preference of which dialog has been shown the last. May be
+	 * {@code null} if no dialog has been shown yet.
+	 */
+	private WeakReference<SettingDialogPreference> mPreference;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Registers the given <var>preference</var> as the one of which dialog is being shown, so it may
+	 * be resolved for results of that dialog via {@link #resolvePreference(int)}.
+	 *
+	 * @param preference The dialog preference of which dialog is being shown.
+	 */
+	void registerPreference(@NonNull final SettingDialogPreference preference) {
+		if (mPreference == null || mPreference.get() != preference) {
+			this.mPreference = new WeakReference<>(preference);
+		}
+	}
+
+	/**
+	 * Returns the registered dialog preference if it is associated with the specified <var>dialogId</var>.
+	 *
+	 * @param dialogId Id of the dialog for which to resolve its associated preference.
+	 * @return The registered preference or {@code null} if there is no preference registered or it
+	 * is associated with a different dialog.
+	 */
+	@Nullable
+	SettingDialogPreference resolvePreference(final int dialogId) {
+		final SettingDialogPreference preference = mPreference == null ? null : mPreference.get();
+		return preference != null && preference.getDialogId() == dialogId ? preference : null;
+	}
+
+	/**
+	 * Clears the registered dialog preference, if any.
+	 */
+	void clear() {
+		this.mPreference = null;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -23,12 +23,15 @@ import android.app.Activity;
 import android.app.Fragment;
 import android.app.FragmentManager;
 import android.preference.Preference;
-import android.preference.PreferenceCategory;
+import android.preference.PreferenceGroup;
 import android.preference.PreferenceScreen;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Log;
-import android.util.SparseArray;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 import universum.studios.android.dialog.Dialog;
 import universum.studios.android.dialog.manage.DialogController;
@@ -45,13 +48,34 @@ import universum.studios.android.dialog.manage.DialogXmlFactory;
  * handling of button click events occurred in those shown preference dialogs via
  * {@link #handleOnPreferenceDialogButtonClick(Dialog, int)} where this method delegates the click
  * event to the associated dialog preference via {@link SettingDialogPreference#handleOnDialogButtonClick(Dialog, int)}.
+ * <h3>Lifecycle</h3>
+ * Dialog preferences manager holds the attached preference screen and its dialog preferences only
+ * weakly, so it does not prevent them from being garbage collected even if it is not detached from
+ * the preference screen. If created for a fragment that implements {@link SettingsLifecycle}, like
+ * <b>SettingsBaseFragment</b>, the manager is bound to that lifecycle and detaches from the attached
+ * preference screen automatically when the fragment is being destroyed. The manager is also attached
+ * to preferences added by the bound lifecycle later, like preferences of lazily created nested
+ * preference screens. Other lifecycles may be bound via {@link #bindToLifecycle(SettingsLifecycle)}.
+ *
+ * <h3>Dialog factory</h3>
+ * By default, dialogs are provided by {@link DialogXmlFactory} which parses the {@link R.xml#ui_settings_dialogs}
+ * file when a dialog is requested for the first time, so the first click on a dialog preference
+ * pays for that parsing. Applications that do not override the dialogs Xml file may opt in to use
+ * {@link SettingDialogFactory}, which is generated from that file at build time, via
+ * {@link #setDialogFactory(DialogFactory)}. Such factory answers lookups and creates dialogs
+ * directly, without any Xml parsing at runtime, so there is nothing left to be indexed ahead of
+ * the first click. <b>Note</b>, that tags of dialogs created by the generated factory differ from
+ * those created by {@link DialogXmlFactory}.
  * <p>
  * Subclasses may inherit this manager and override any default behavior as needed.
  *
  * @author Martin Albedinsky
  */
 @SuppressLint("LongLogTag")
-public class SettingDialogPreferenceManager implements SettingDialogPreference.OnClickListener {
+public class SettingDialogPreferenceManager implements
+		SettingDialogPreference.OnClickListener,
+		SettingPreferenceCategory.OnHierarchyChangeListener,
+		SettingsLifecycle.Observer {
 
 	/*
 	 * Constants ===================================================================================
@@ -87,19 +111,31 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 	/**
 	 * Boolean flag indicating whether this manager is attached to preference screen or not.
 	 *
-	 * @see #attachToPreference(Preference)
+	 * @see #attachToPreferenceScreen(PreferenceScreen)
 	 * @see #detachFromPreferenceScreen(PreferenceScreen)
 	 */
 	private boolean mAttachedToPreferenceScreen;
 
 	/**
-	 * Array map containing dialog preferences gathered from the preferences of the {@link PreferenceScreen}
-	 * to which is this manager attached. The dialog preferences are mapped to theirs corresponding
-	 * dialog id.
+	 * Weak reference to the preference screen to which is this manager attached. May be {@code null}
+	 * if this manager is not attached to any preference screen.
+	 */
+	private WeakReference<PreferenceScreen> mPreferenceScreen;
+
+	/**
+	 * Lifecycle to which is this manager bound. May be {@code null}.
 	 *
-	 * @see SettingDialogPreference#getDialogId()
+	 * @see #bindToLifecycle(SettingsLifecycle)
 	 */
-	private SparseArray<SettingDialogPreference> mDialogPreferences;
+	private SettingsLifecycle mLifecycle;
+
+	/**
+	 * Dispatcher used to route results of the shown preference dialogs to theirs associated dialog
+	 * preferences.
+	 *
+	 * @see #handleOnPreferenceDialogButtonClick(Dialog, int)
+	 */
+	private final SettingDialogPreferenceDispatcher mDialogDispatcher = new SettingDialogPreferenceDispatcher();
 
 	/*
 	 * Constructors ================================================================================
@@ -126,7 +162,9 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 	 * <p>
 	 * This constructor creates this manager with default instance of {@link DialogController} and
 	 * default {@link DialogXmlFactory} with {@link R.xml#ui_settings_dialogs} file containing dialogs
-	 * for all dialog preferences provided by the <b>Settings</b> library.
+	 * for all dialog preferences provided by the <b>Settings</b> library. Applications that do not
+	 * override the dialogs Xml file may specify {@link SettingDialogFactory} via
+	 * {@link #setDialogFactory(DialogFactory)} to avoid parsing of the Xml file at runtime.
 	 *
 	 * @param activity The activity used to instantiate the default dialog controller along with
 	 *                 default dialog factory.
@@ -145,7 +183,12 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 	 * <p>
 	 * This constructor creates this manager with default instance of {@link DialogController} and
 	 * default {@link DialogXmlFactory} with {@link R.xml#ui_settings_dialogs} file containing dialogs
-	 * for all dialog preferences provided by the <b>Settings</b> library.
+	 * for all dialog preferences provided by the <b>Settings</b> library. Applications that do not
+	 * override the dialogs Xml file may specify {@link SettingDialogFactory} via
+	 * {@link #setDialogFactory(DialogFactory)} to avoid parsing of the Xml file at runtime.
+	 *
+	 * If the given fragment implements {@link SettingsLifecycle}, this manager is also bound to
+	 * that lifecycle via {@link #bindToLifecycle(SettingsLifecycle)}.
 	 *
 	 * @param fragment The fragment used to instantiate the default dialog controller along with
 	 *                 default dialog factory.
@@ -156,6 +199,9 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 	 */
 	public SettingDialogPreferenceManager(@NonNull final Fragment fragment) {
 		this(new DialogController(fragment), new DialogXmlFactory(fragment.getActivity(), R.xml.ui_settings_dialogs));
+		if (fragment instanceof SettingsLifecycle) {
+			bindToLifecycle((SettingsLifecycle) fragment);
+		}
 	}
 
 	/**
@@ -249,74 +295,176 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 		return mDialogFactory;
 	}
 
+	/**
+	 * Binds this manager to the given <var>lifecycle</var>, so this manager detaches from the attached
+	 * preference screen automatically when that lifecycle is being destroyed.
+	 *
+	 * @param lifecycle The lifecycle to bind to. May be {@code null} to unbind from the current one.
+	 */
+	public void bindToLifecycle(@Nullable final SettingsLifecycle lifecycle) {
+		if (mLifecycle != null) {
+			mLifecycle.removeObserver(this);
+		}
+		this.mLifecycle = lifecycle;
+		if (lifecycle != null) {
+			lifecycle.addObserver(this);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public void onSettingsPreferencesAdded(@NonNull final SettingsLifecycle lifecycle, @NonNull final PreferenceGroup preferenceGroup) {
+		if (mLifecycle == lifecycle && mAttachedToPreferenceScreen) {
+			this.attachToHierarchy(preferenceGroup);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public void onSettingsDestroy(@NonNull final SettingsLifecycle lifecycle) {
+		if (mLifecycle == lifecycle) {
+			this.mLifecycle = null;
+			if (mAttachedToPreferenceScreen) {
+				this.detach();
+			}
+		}
+	}
+
 	/**
 	 * Attaches this manager to the given <var>preferenceScreen</var>.
 	 * <p>
 	 * Dialog preferences manager will use the preference screen to look up for all instances of
-	 * {@link SettingDialogPreference dialog preferences} that are added to that preference screen.
-	 * To all those dialog preferences is than this manager attached as {@link SettingDialogPreference.OnClickListener}
+	 * {@link SettingDialogPreference dialog preferences} that are added to that preference screen,
+	 * including those added into nested preference groups and preference screens. To all those
+	 * dialog preferences is than this manager attached as {@link SettingDialogPreference.OnClickListener}
 	 * so it may receive the preference click callback and show dialog for that particular preference.
 	 * The context that is using this manager should dispatch {@link Dialog.OnDialogListener#onDialogButtonClick(Dialog, int)}
 	 * callback to this manager via {@link #handleOnPreferenceDialogButtonClick(Dialog, int)}.
 	 * <p>
+	 * Preferences added to or removed from {@link SettingPreferenceCategory setting categories} of
+	 * the attached screen are attached or detached by this manager automatically. Preferences added
+	 * to or removed from other preference groups, like the preference screen itself, should be
+	 * attached via {@link #attachToPreference(Preference)} or detached via {@link #detachFromPreference(Preference)}.
+	 * <p>
 	 * When this manager is no more needed it should be detached from the attached preference screen
-	 * via {@link #detachFromPreferenceScreen(PreferenceScreen)}.
+	 * via {@link #detachFromPreferenceScreen(PreferenceScreen)}, unless it is bound to a lifecycle
+	 * via {@link #bindToLifecycle(SettingsLifecycle)}. If this manager is already attached
+	 * to the given preference screen, this method does nothing. If it is attached to other preference
+	 * screen, it is first detached from that screen.
 	 *
 	 * @param preferenceScreen The preference screen to attach to.
 	 */
 	public void attachToPreferenceScreen(@NonNull final PreferenceScreen preferenceScreen) {
 		if (mAttachedToPreferenceScreen) {
-			throw new IllegalStateException("Already attached to preference screen! Detach via detachFromPreferenceScreen(...) first.");
-		}
-		final int preferenceCount = preferenceScreen.getPreferenceCount();
-		this.mDialogPreferences = new SparseArray<>(preferenceCount);
-		for (int i = 0; i < preferenceCount; i++) {
-			this.attachToPreference(preferenceScreen.getPreference(i));
+			if (mPreferenceScreen.get() == preferenceScreen) {
+				return;
+			}
+			this.detach();
 		}
+		this.mPreferenceScreen = new WeakReference<>(preferenceScreen);
 		this.mAttachedToPreferenceScreen = true;
+		this.attachToHierarchy(preferenceScreen);
 	}
 
 	/**
-	 * Attaches this manager as {@link SettingDialogPreference.OnClickListener} to the given
-	 * <var>preference</var> if it is instance of {@link SettingDialogPreference}. If the specified
-	 * preference is instance of {@link PreferenceCategory} this method will recursively iterate
-	 * child preferences of the specified preference category.
+	 * Attaches this manager to the given <var>preference</var> added into the preference screen to
+	 * which is this manager attached. If the specified preference is a preference group, this manager
+	 * is attached to all dialog preferences within hierarchy of that group.
+	 * <p>
+	 * This method should be called only for preferences added into groups that cannot be observed
+	 * by this manager, like {@link PreferenceScreen}, as preferences added into
+	 * {@link SettingPreferenceCategory setting categories} are attached automatically.
 	 *
-	 * @param preference The preference to which attach on click listener if it is a dialog preference
-	 *                   type.
-	 */
-	private void attachToPreference(final Preference preference) {
-		if (preference instanceof SettingDialogPreference) {
-			final SettingDialogPreference dialogPreference = (SettingDialogPreference) preference;
-			final int dialogId = dialogPreference.getDialogId();
-			if (dialogId != SettingDialogPreference.NO_DIALOG_ID) {
-				mDialogPreferences.put(dialogId, dialogPreference);
-				dialogPreference.setOnClickListener(this);
-				onAttachedToPreference(dialogPreference);
-			} else {
-				Log.w(TAG, "Found preference(" + dialogPreference.getClass().getSimpleName() + ") without dialog id!");
-			}
-		} else if (preference instanceof PreferenceCategory) {
-			final PreferenceCategory preferenceCategory = (PreferenceCategory) preference;
-			final int preferenceCount = preferenceCategory.getPreferenceCount();
-			for (int i = 0; i < preferenceCount; i++) {
-				attachToPreference(preferenceCategory.getPreference(i));
+	 * @param preference The preference to attach to.
+	 * @throws IllegalStateException If this manager is not attached to preference screen.
+	 * @see #detachFromPreference(Preference)
+	 */
+	public void attachToPreference(@NonNull final Preference preference) {
+		if (!mAttachedToPreferenceScreen) {
+			throw new IllegalStateException("Not attached to preference screen! Attach via attachToPreferenceScreen(...) first.");
+		}
+		this.attachToHierarchy(preference);
+	}
+
+	/**
+	 * Attaches this manager to all dialog preferences within hierarchy of the given <var>preference</var>.
+	 * The hierarchy is traversed iteratively, in order as the preferences are presented, so it is
+	 * independent on its depth.
+	 *
+	 * @param preference The root preference of the hierarchy to attach to.
+	 */
+	private void attachToHierarchy(final Preference preference) {
+		final Deque<Preference> preferences = new ArrayDeque<>();
+		preferences.push(preference);
+		while (!preferences.isEmpty()) {
+			final Preference next = preferences.pop();
+			if (next instanceof SettingDialogPreference) {
+				this.attachToDialogPreference((SettingDialogPreference) next);
+			} else if (next instanceof PreferenceGroup) {
+				final PreferenceGroup preferenceGroup = (PreferenceGroup) next;
+				if (preferenceGroup instanceof SettingPreferenceCategory) {
+					((SettingPreferenceCategory) preferenceGroup).addOnHierarchyChangeListener(this);
+				}
+				for (int i = preferenceGroup.getPreferenceCount() - 1; i >= 0; i--) {
+					preferences.push(preferenceGroup.getPreference(i));
+				}
 			}
 		}
 	}
 
+	/**
+	 * Attaches this manager as {@link SettingDialogPreference.OnClickListener} to the given
+	 * <var>dialogPreference</var>.
+	 *
+	 * @param dialogPreference The dialog preference to which attach on click listener.
+	 * @return {@code True} if this manager has been attached, {@code false} if the preference does
+	 * not have specified its dialog id.
+	 */
+	private boolean attachToDialogPreference(final SettingDialogPreference dialogPreference) {
+		final int dialogId = dialogPreference.getDialogId();
+		if (dialogId == SettingDialogPreference.NO_DIALOG_ID) {
+			Log.w(TAG, "Found preference(" + dialogPreference.getClass().getSimpleName() + ") without dialog id!");
+			return false;
+		}
+		dialogPreference.setOnClickListener(this);
+		onAttachedToPreference(dialogPreference);
+		return true;
+	}
+
 	/**
 	 * Called when this manager has been successfully attached to the given <var>dialogPreference</var>.
 	 *
 	 * @param dialogPreference The dialog preference to which has been this manager just attached.
 	 * @see #attachToPreferenceScreen(PreferenceScreen)
+	 * @see #attachToPreference(Preference)
 	 */
 	protected void onAttachedToPreference(@NonNull final SettingDialogPreference dialogPreference) {
 		// May be implemented by the inheritance hierarchies.
 	}
 
 	/**
-	 * Searches for the dialog preference associated with the specified <var>dialogId</var>.
+	 */
+	@Override
+	public void onPreferenceAdded(@NonNull final SettingPreferenceCategory category, @NonNull final Preference preference) {
+		if (mAttachedToPreferenceScreen) {
+			this.attachToHierarchy(preference);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public void onPreferenceRemoved(@NonNull final SettingPreferenceCategory category, @NonNull final Preference preference) {
+		if (mAttachedToPreferenceScreen) {
+			this.detachFromHierarchy(preference);
+		}
+	}
+
+	/**
+	 * Searches for the dialog preference associated with the specified <var>dialogId</var> within
+	 * hierarchy of the attached preference screen.
 	 * <p>
 	 * <b>Note</b>, that the manager should be attached to preference screen via
 	 * {@link #attachToPreferenceScreen(PreferenceScreen)} otherwise this method will always return
@@ -328,7 +476,79 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 	 */
 	@Nullable
 	public SettingDialogPreference findDialogPreference(final int dialogId) {
-		return mDialogPreferences == null ? null : mDialogPreferences.get(dialogId);
+		final PreferenceScreen preferenceScreen = mAttachedToPreferenceScreen ? mPreferenceScreen.get() : null;
+		if (preferenceScreen == null) {
+			return null;
+		}
+		final Deque<Preference> preferences = new ArrayDeque<>();
+		preferences.push(preferenceScreen);
+		while (!preferences.isEmpty()) {
+			final Preference next = preferences.pop();
+			if (next instanceof SettingDialogPreference) {
+				final SettingDialogPreference dialogPreference = (SettingDialogPreference) next;
+				if (dialogPreference.getDialogId() == dialogId && dialogPreference.getOnClickListener() == this) {
+					return dialogPreference;
+				}
+			} else if (next instanceof PreferenceGroup) {
+				final PreferenceGroup preferenceGroup = (PreferenceGroup) next;
+				for (int i = preferenceGroup.getPreferenceCount() - 1; i >= 0; i--) {
+					preferences.push(preferenceGroup.getPreference(i));
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Detaches this manager from the given <var>preference</var> removed from the preference screen
+	 * to which is this manager attached. If the specified preference is a preference group, this
+	 * manager is detached from all dialog preferences within hierarchy of that group.
+	 *
+	 * @param preference The preference to detach from.
+	 * @see #attachToPreference(Preference)
+	 */
+	public void detachFromPreference(@NonNull final Preference preference) {
+		if (mAttachedToPreferenceScreen) {
+			this.detachFromHierarchy(preference);
+		}
+	}
+
+	/**
+	 * Detaches this manager from all dialog preferences within hierarchy of the given <var>preference</var>.
+	 *
+	 * @param preference The root preference of the hierarchy to detach from.
+	 */
+	private void detachFromHierarchy(final Preference preference) {
+		final Deque<Preference> preferences = new ArrayDeque<>();
+		preferences.push(preference);
+		while (!preferences.isEmpty()) {
+			final Preference next = preferences.pop();
+			if (next instanceof SettingDialogPreference) {
+				final SettingDialogPreference dialogPreference = (SettingDialogPreference) next;
+				if (dialogPreference.getOnClickListener() == this) {
+					this.detachFromDialogPreference(dialogPreference);
+				}
+			} else if (next instanceof PreferenceGroup) {
+				final PreferenceGroup preferenceGroup = (PreferenceGroup) next;
+				if (preferenceGroup instanceof SettingPreferenceCategory) {
+					((SettingPreferenceCategory) preferenceGroup).removeOnHierarchyChangeListener(this);
+				}
+				for (int i = preferenceGroup.getPreferenceCount() - 1; i >= 0; i--) {
+					preferences.push(preferenceGroup.getPreference(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Detaches this manager as {@link SettingDialogPreference.OnClickListener} from the given
+	 * <var>dialogPreference</var>.
+	 *
+	 * @param dialogPreference The dialog preference from which to detach on click listener.
+	 */
+	private void detachFromDialogPreference(final SettingDialogPreference dialogPreference) {
+		dialogPreference.setOnClickListener(null);
+		onDetachedFromPreference(dialogPreference);
 	}
 
 	/**
@@ -338,15 +558,23 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 	 * @param preferenceScreen The preference screen from which to detach this manager.
 	 */
 	public void detachFromPreferenceScreen(@NonNull final PreferenceScreen preferenceScreen) {
-		if (mAttachedToPreferenceScreen) {
-			for (int i = 0; i < mDialogPreferences.size(); i++) {
-				final SettingDialogPreference preference = mDialogPreferences.get(mDialogPreferences.keyAt(i));
-				preference.setOnClickListener(null);
-				onDetachedFromPreference(preference);
-			}
-			this.mDialogPreferences = null;
-			this.mAttachedToPreferenceScreen = false;
+		if (mAttachedToPreferenceScreen && mPreferenceScreen.get() == preferenceScreen) {
+			this.detach();
+		}
+	}
+
+	/**
+	 * Detaches this manager from the attached preference screen, if it is still available, and
+	 * from all dialog preferences within its hierarchy.
+	 */
+	private void detach() {
+		final PreferenceScreen preferenceScreen = mPreferenceScreen.get();
+		if (preferenceScreen != null) {
+			this.detachFromHierarchy(preferenceScreen);
 		}
+		mDialogDispatcher.clear();
+		this.mPreferenceScreen = null;
+		this.mAttachedToPreferenceScreen = false;
 	}
 
 	/**
@@ -354,6 +582,7 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 	 *
 	 * @param dialogPreference The dialog preference from which has been this manager just detached.
 	 * @see #detachFromPreferenceScreen(PreferenceScreen)
+	 * @see #detachFromPreference(Preference)
 	 */
 	protected void onDetachedFromPreference(@NonNull final SettingDialogPreference dialogPreference) {
 		// May be implemented by the inheritance hierarchies.
@@ -381,6 +610,7 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 				);
 				return false;
 			}
+			mDialogDispatcher.registerPreference(dialogPreference);
 			return onShowPreferenceDialog(mDialogController, dialogPreference);
 		}
 		Log.w(TAG, "Clicked preference(" + dialogPreference.getClass().getSimpleName() + ") with not specified dialog id!");
@@ -402,6 +632,10 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 
 	/**
 	 * Handles button click occurred in the given preference <var>dialog</var>.
+	 * <p>
+	 * The associated dialog preference is resolved directly from the preference that has been
+	 * clicked the last. Only if the dialog has been restored (for example after configuration
+	 * change), the preference is searched within hierarchy of the attached preference screen.
 	 *
 	 * @param dialog The preference dialog where the <var>button</var> has been clicked.
 	 * @param button The clicked dialog button.
@@ -412,10 +646,14 @@ public class SettingDialogPreferenceManager implements SettingDialogPreference.O
 	public boolean handleOnPreferenceDialogButtonClick(@NonNull final Dialog dialog, @Dialog.Button final int button) {
 		if (mAttachedToPreferenceScreen) {
 			final int dialogId = dialog.getDialogId();
-			final SettingDialogPreference dialogPreference = findDialogPreference(dialogId);
+			SettingDialogPreference dialogPreference = mDialogDispatcher.resolvePreference(dialogId);
 			if (dialogPreference == null) {
-				Log.w(TAG, "No preference found for the clicked button of dialog with id(" + dialogId + ")!");
-				return false;
+				dialogPreference = findDialogPreference(dialogId);
+				if (dialogPreference == null) {
+					Log.w(TAG, "No preference found for the clicked button of dialog with id(" + dialogId + ")!");
+					return false;
+				}
+				mDialogDispatcher.registerPreference(dialogPreference);
 			}
 			return dialogPreference.handleOnDialogButtonClick(dialog, button);
 		}
@@ -0,0 +1,71 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import org.junit.Test;
+
+import universum.studios.android.dialog.DialogOptions;
+import universum.studios.android.test.local.RobolectricTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class SettingDialogFactoryTest extends RobolectricTestCase {
+
+	private static final int[] DIALOG_IDS = {
+			R.id.ui_settings_dialog_edit,
+			R.id.ui_settings_dialog_date,
+			R.id.ui_settings_dialog_time,
+			R.id.ui_settings_dialog_color,
+			R.id.ui_settings_dialog_selection
+	};
+
+	@Test
+	public void testIsDialogProvided() {
+		final SettingDialogFactory factory = new SettingDialogFactory(mApplication);
+		for (final int dialogId : DIALOG_IDS) {
+			assertThat(factory.isDialogProvided(dialogId), is(true));
+		}
+		assertThat(factory.isDialogProvided(SettingDialogPreference.NO_DIALOG_ID), is(false));
+	}
+
+	@Test
+	public void testCreateDialogTag() {
+		final SettingDialogFactory factory = new SettingDialogFactory(mApplication);
+		for (final int dialogId : DIALOG_IDS) {
+			assertThat(factory.createDialogTag(dialogId), is(not(nullValue())));
+		}
+		assertThat(factory.createDialogTag(SettingDialogPreference.NO_DIALOG_ID), is(nullValue()));
+	}
+
+	@Test
+	public void testCreateDialogForNotProvidedId() {
+		assertThat(new SettingDialogFactory(mApplication).createDialog(SettingDialogPreference.NO_DIALOG_ID, null), is(nullValue()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateDialogWithNotSupportedOptions() {
+		new SettingDialogFactory(mApplication).createDialog(R.id.ui_settings_dialog_edit, new DialogOptions(mApplication.getResources()));
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+
+import org.junit.Test;
+
+import universum.studios.android.dialog.DialogOptions;
+import universum.studios.android.test.local.RobolectricTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class SettingDialogPreferenceLazyOptionsTest extends RobolectricTestCase {
+
+	@Override
+	public void afterTest() throws Exception {
+		super.afterTest();
+		SettingDialogPreference.setLazyDialogOptionsByDefault(false);
+	}
+
+	@Test
+	public void testEagerDialogOptionsCreatedDuringInitialization() {
+		final CountingPreference preference = new CountingPreference(mApplication);
+		assertThat(preference.createdOptionsCount, is(1));
+		preference.getDialogOptions();
+		assertThat(preference.createdOptionsCount, is(1));
+	}
+
+	@Test
+	public void testLazyDialogOptionsNotCreatedUntilAccessed() {
+		SettingDialogPreference.setLazyDialogOptionsByDefault(true);
+		final CountingPreference preference = new CountingPreference(mApplication);
+		assertThat(preference.createdOptionsCount, is(0));
+		assertThat(preference.configuredOptionsCount, is(0));
+		final Object options = preference.getDialogOptions();
+		assertThat(options, is(not(nullValue())));
+		assertThat(preference.createdOptionsCount, is(1));
+		assertThat(preference.configuredOptionsCount, is(1));
+		assertThat(preference.getDialogOptions(), is(sameInstance(options)));
+		assertThat(preference.createdOptionsCount, is(1));
+	}
+
+	@Test
+	public void testLazyModeIgnoredWhenAttributeSetConfigurationIsOverridden() {
+		SettingDialogPreference.setLazyDialogOptionsByDefault(true);
+		final AttributeSetConfiguringPreference preference = new AttributeSetConfiguringPreference(mApplication);
+		assertThat(preference.createdOptionsCount, is(1));
+		assertThat(preference.configuredOptionsCount, is(1));
+		assertThat(preference.attributeSetConfiguredOptionsCount, is(1));
+	}
+
+	@Test
+	public void testOverridesAttributeSetConfiguration() {
+		assertThat(SettingDialogPreference.overridesAttributeSetConfiguration(SettingDialogPreference.class), is(false));
+		assertThat(SettingDialogPreference.overridesAttributeSetConfiguration(CountingPreference.class), is(false));
+		assertThat(SettingDialogPreference.overridesAttributeSetConfiguration(AttributeSetConfiguringPreference.class), is(true));
+		assertThat(SettingDialogPreference.overridesAttributeSetConfiguration(InheritingPreference.class), is(true));
+	}
+
+	@SuppressWarnings("unchecked")
+	static class CountingPreference extends SettingDialogPreference {
+
+		int createdOptionsCount, configuredOptionsCount;
+
+		CountingPreference(final Context context) {
+			super(context);
+		}
+
+		@NonNull
+		@Override
+		protected DialogOptions onCreateDialogOptions(@NonNull final Resources resources) {
+			this.createdOptionsCount++;
+			return super.onCreateDialogOptions(resources);
+		}
+
+		@Override
+		protected void onConfigureDialogOptions(@NonNull final DialogOptions options, @NonNull final PreferenceAttributes attributes) {
+			super.onConfigureDialogOptions(options, attributes);
+			this.configuredOptionsCount++;
+		}
+	}
+
+	static class AttributeSetConfiguringPreference extends CountingPreference {
+
+		int attributeSetConfiguredOptionsCount;
+
+		AttributeSetConfiguringPreference(final Context context) {
+			super(context);
+		}
+
+		@Override
+		protected void onConfigureDialogOptions(
+				@NonNull final DialogOptions options,
+				@NonNull final Context context,
+				@Nullable final AttributeSet attrs,
+				final int defStyleAttr,
+				final int defStyleRes
+		) {
+			super.onConfigureDialogOptions(options, context, attrs, defStyleAttr, defStyleRes);
+			this.attributeSetConfiguredOptionsCount++;
+		}
+	}
+
+	static final class InheritingPreference extends AttributeSetConfiguringPreference {
+
+		InheritingPreference(final Context context) {
+			super(context);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.app.Activity;
+import android.app.FragmentManager;
+import android.content.Context;
+import android.os.Bundle;
+import android.preference.PreferenceGroup;
+import android.preference.PreferenceManager;
+import android.preference.PreferenceScreen;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Test;
+import org.robolectric.Robolectric;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import universum.studios.android.test.local.RobolectricTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class SettingDialogPreferenceManagerRetentionTest extends RobolectricTestCase {
+
+	private static final int PREFERENCES_COUNT = 5;
+	private static final int FRAGMENT_CYCLES_COUNT = 100;
+	private static final int GC_ATTEMPTS_COUNT = 10;
+
+	@Test
+	public void testDetachedFromPreferencesOnFragmentDestroy() {
+		final Activity activity = Robolectric.setupActivity(Activity.class);
+		final FragmentManager fragmentManager = activity.getFragmentManager();
+		for (int i = 0; i < FRAGMENT_CYCLES_COUNT; i++) {
+			final TestFragment fragment = new TestFragment();
+			fragmentManager.beginTransaction().add(fragment, null).commit();
+			fragmentManager.executePendingTransactions();
+			final SettingDialogPreferenceManager manager = fragment.dialogPreferenceManager;
+			assertThat(manager.findDialogPreference(1), is(fragment.preferences.get(0)));
+			for (final SettingDialogPreference preference : fragment.preferences) {
+				assertThat(preference.getOnClickListener(), is((Object) manager));
+			}
+			fragmentManager.beginTransaction().remove(fragment).commit();
+			fragmentManager.executePendingTransactions();
+			for (final SettingDialogPreference preference : fragment.preferences) {
+				assertThat(preference.getOnClickListener(), is(nullValue()));
+			}
+			assertThat(manager.findDialogPreference(1), is(nullValue()));
+			// Manager should no longer observe hierarchy of the category.
+			final SettingDialogPreference addedPreference = createDialogPreference(mApplication, PREFERENCES_COUNT + 1);
+			fragment.category.addPreference(addedPreference);
+			assertThat(addedPreference.getOnClickListener(), is(nullValue()));
+		}
+	}
+
+	@Test
+	public void testAttachedToPreferencesAddedByLifecycle() {
+		final SettingDialogPreferenceManager manager = new SettingDialogPreferenceManager();
+		final TestLifecycle lifecycle = new TestLifecycle();
+		manager.bindToLifecycle(lifecycle);
+		final List<SettingDialogPreference> preferences = new ArrayList<>(PREFERENCES_COUNT);
+		final PreferenceScreen screen = createPreferenceScreen(new SettingPreferenceCategory(mApplication), preferences);
+		manager.attachToPreferenceScreen(screen);
+		// Simulate materialization of a lazily created nested screen.
+		final PreferenceScreen nestedScreen = screen.getPreferenceManager().createPreferenceScreen(mApplication);
+		screen.addPreference(nestedScreen);
+		final SettingDialogPreference addedPreference = createDialogPreference(mApplication, PREFERENCES_COUNT + 1);
+		nestedScreen.addPreference(addedPreference);
+		assertThat(addedPreference.getOnClickListener(), is(nullValue()));
+		lifecycle.addPreferences(nestedScreen);
+		assertThat(addedPreference.getOnClickListener(), is((Object) manager));
+	}
+
+	@Test
+	public void testPreferenceScreenHeldWeakly() {
+		final SettingDialogPreferenceManager manager = new SettingDialogPreferenceManager();
+		final WeakReference<PreferenceScreen> screenReference = attachToNewPreferenceScreen(manager);
+		assertThat(manager.findDialogPreference(1), is(notNullValue()));
+		// Neither this test nor the manager reference the screen strongly, so it may be collected.
+		for (int i = 0; i < GC_ATTEMPTS_COUNT && screenReference.get() != null; i++) {
+			System.gc();
+		}
+		assertThat(screenReference.get(), is(nullValue()));
+		assertThat(manager.findDialogPreference(1), is(nullValue()));
+	}
+
+	private WeakReference<PreferenceScreen> attachToNewPreferenceScreen(final SettingDialogPreferenceManager manager) {
+		final PreferenceScreen screen = createPreferenceScreen(
+				new SettingPreferenceCategory(mApplication),
+				new ArrayList<SettingDialogPreference>(PREFERENCES_COUNT)
+		);
+		manager.attachToPreferenceScreen(screen);
+		return new WeakReference<>(screen);
+	}
+
+	private PreferenceScreen createPreferenceScreen(final SettingPreferenceCategory category, final List<SettingDialogPreference> preferences) {
+		final PreferenceManager preferenceManager = ReflectionHelpers.callConstructor(
+				PreferenceManager.class,
+				ReflectionHelpers.ClassParameter.from(Context.class, mApplication)
+		);
+		final PreferenceScreen screen = preferenceManager.createPreferenceScreen(mApplication);
+		screen.addPreference(category);
+		addDialogPreferences(category, preferences);
+		return screen;
+	}
+
+	private static void addDialogPreferences(final SettingPreferenceCategory category, final List<SettingDialogPreference> preferences) {
+		for (int i = 0; i < PREFERENCES_COUNT; i++) {
+			final SettingDialogPreference preference = createDialogPreference(category.getContext(), i + 1);
+			category.addPreference(preference);
+			preferences.add(preference);
+		}
+	}
+
+	private static SettingDialogPreference createDialogPreference(final Context context, final int dialogId) {
+		final SettingDialogPreference preference = new SettingDialogPreference(context);
+		ReflectionHelpers.setField(preference, "mDialogId", dialogId);
+		return preference;
+	}
+
+	public static final class TestFragment extends SettingsBaseFragment {
+
+		final List<SettingDialogPreference> preferences = new ArrayList<>(PREFERENCES_COUNT);
+		SettingPreferenceCategory category;
+		SettingDialogPreferenceManager dialogPreferenceManager;
+
+		@Override
+		public void onCreate(@Nullable final Bundle savedInstanceState) {
+			super.onCreate(savedInstanceState);
+			final PreferenceScreen screen = getPreferenceManager().createPreferenceScreen(getActivity());
+			setPreferenceScreen(screen);
+			this.category = new SettingPreferenceCategory(getActivity());
+			screen.addPreference(category);
+			addDialogPreferences(category, preferences);
+			this.dialogPreferenceManager = new SettingDialogPreferenceManager(this);
+			dialogPreferenceManager.attachToPreferenceScreen(screen);
+		}
+	}
+
+	private static final class TestLifecycle implements SettingsLifecycle {
+
+		private final List<Observer> observers = new ArrayList<>(1);
+
+		@Override
+		public void addObserver(@NonNull final Observer observer) {
+			observers.add(observer);
+		}
+
+		@Override
+		public void removeObserver(@NonNull final Observer observer) {
+			observers.remove(observer);
+		}
+
+		void addPreferences(final PreferenceGroup preferenceGroup) {
+			for (final Observer observer : new ArrayList<>(observers)) {
+				observer.onSettingsPreferencesAdded(this, preferenceGroup);
+			}
+		}
+	}
+}
@@ -18,17 +18,137 @@
  */
 package universum.studios.android.setting;
 
+import android.content.Context;
+import android.preference.PreferenceManager;
+import android.preference.PreferenceScreen;
+
 import org.junit.Test;
+import org.robolectric.util.ReflectionHelpers;
 
 import universum.studios.android.test.local.RobolectricTestCase;
 
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
 public final class SettingDialogPreferenceManagerTest extends RobolectricTestCase {
 
+	private PreferenceManager mPreferenceManager;
+
+	@Override
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mPreferenceManager = ReflectionHelpers.callConstructor(
+				PreferenceManager.class,
+				ReflectionHelpers.ClassParameter.from(Context.class, mApplication)
+		);
+	}
+
 	@Test
-	public void test() {
-		// todo:: implement test
+	public void testAttachToNestedPreferenceScreens() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final PreferenceScreen nestedScreen = mPreferenceManager.createPreferenceScreen(mApplication);
+		screen.addPreference(nestedScreen);
+		final SettingPreferenceCategory category = new SettingPreferenceCategory(mApplication);
+		nestedScreen.addPreference(category);
+		final SettingDialogPreference preference = createDialogPreference(R.id.ui_settings_dialog_edit);
+		category.addPreference(preference);
+		final SettingDialogPreferenceManager manager = new SettingDialogPreferenceManager();
+		manager.attachToPreferenceScreen(screen);
+		assertThat(manager.findDialogPreference(R.id.ui_settings_dialog_edit), is(sameInstance(preference)));
+	}
+
+	@Test
+	public void testAttachToPreferenceScreenRepeatedly() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final SettingDialogPreference preference = createDialogPreference(R.id.ui_settings_dialog_edit);
+		screen.addPreference(preference);
+		final SettingDialogPreferenceManager manager = new SettingDialogPreferenceManager();
+		manager.attachToPreferenceScreen(screen);
+		manager.attachToPreferenceScreen(screen);
+		assertThat(manager.findDialogPreference(R.id.ui_settings_dialog_edit), is(sameInstance(preference)));
+		final PreferenceScreen otherScreen = mPreferenceManager.createPreferenceScreen(mApplication);
+		manager.attachToPreferenceScreen(otherScreen);
+		assertThat(manager.findDialogPreference(R.id.ui_settings_dialog_edit), is(nullValue()));
+	}
+
+	@Test
+	public void testDetachFromPreferenceRemovedFromCategory() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final SettingPreferenceCategory category = new SettingPreferenceCategory(mApplication);
+		screen.addPreference(category);
+		final SettingDialogPreference preference = createDialogPreference(R.id.ui_settings_dialog_edit);
+		category.addPreference(preference);
+		final SettingDialogPreferenceManager manager = new SettingDialogPreferenceManager();
+		manager.attachToPreferenceScreen(screen);
+		assertThat(preference.getOnClickListener(), is((Object) manager));
+		category.removePreference(preference);
+		assertThat(preference.getOnClickListener(), is(nullValue()));
+	}
+
+	@Test
+	public void testDetachFromPreferenceRemovedFromScreen() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final SettingDialogPreference preference = createDialogPreference(R.id.ui_settings_dialog_edit);
+		screen.addPreference(preference);
+		final SettingDialogPreferenceManager manager = new SettingDialogPreferenceManager();
+		manager.attachToPreferenceScreen(screen);
+		// Preference screen cannot be observed by the manager.
+		screen.removePreference(preference);
+		manager.detachFromPreference(preference);
+		assertThat(preference.getOnClickListener(), is(nullValue()));
+	}
+
+	@Test
+	public void testAttachIncrementallyToCategory() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final SettingPreferenceCategory category = new SettingPreferenceCategory(mApplication);
+		screen.addPreference(category);
+		final SettingDialogPreferenceManager manager = new SettingDialogPreferenceManager();
+		manager.attachToPreferenceScreen(screen);
+		final SettingDialogPreference preference = createDialogPreference(R.id.ui_settings_dialog_date);
+		category.addPreference(preference);
+		assertThat(manager.findDialogPreference(R.id.ui_settings_dialog_date), is(sameInstance(preference)));
+		category.removePreference(preference);
+		assertThat(manager.findDialogPreference(R.id.ui_settings_dialog_date), is(nullValue()));
+	}
+
+	@Test
+	public void testAttachAndDetachPreference() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final SettingDialogPreferenceManager manager = new SettingDialogPreferenceManager();
+		manager.attachToPreferenceScreen(screen);
+		final SettingDialogPreference preference = createDialogPreference(R.id.ui_settings_dialog_time);
+		screen.addPreference(preference);
+		manager.attachToPreference(preference);
+		assertThat(manager.findDialogPreference(R.id.ui_settings_dialog_time), is(sameInstance(preference)));
+		screen.removePreference(preference);
+		manager.detachFromPreference(preference);
+		assertThat(manager.findDialogPreference(R.id.ui_settings_dialog_time), is(nullValue()));
+	}
+
+	@Test
+	public void testDetachFromPreferenceScreen() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final SettingPreferenceCategory category = new SettingPreferenceCategory(mApplication);
+		screen.addPreference(category);
+		category.addPreference(createDialogPreference(R.id.ui_settings_dialog_color));
+		final SettingDialogPreferenceManager manager = new SettingDialogPreferenceManager();
+		manager.attachToPreferenceScreen(screen);
+		manager.detachFromPreferenceScreen(screen);
+		assertThat(manager.findDialogPreference(R.id.ui_settings_dialog_color), is(nullValue()));
+		// Category should not be observed anymore.
+		category.addPreference(createDialogPreference(R.id.ui_settings_dialog_selection));
+		assertThat(manager.findDialogPreference(R.id.ui_settings_dialog_selection), is(nullValue()));
+	}
+
+	private SettingDialogPreference createDialogPreference(final int dialogId) {
+		final SettingDialogPreference preference = new SettingDialogPreference(mApplication);
+		ReflectionHelpers.setField(preference, "mDialogId", dialogId);
+		return preference;
 	}
 }
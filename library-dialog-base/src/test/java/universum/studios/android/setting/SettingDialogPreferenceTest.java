@@ -18,17 +18,86 @@
  */
 package universum.studios.android.setting;
 
+import android.content.Intent;
+import android.preference.Preference;
+import android.preference.PreferenceScreen;
+
 import org.junit.Test;
+import org.robolectric.Shadows;
+import org.robolectric.util.ReflectionHelpers;
 
 import universum.studios.android.test.local.RobolectricTestCase;
 
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
 /**
  * @author Martin Albedinsky
  */
 public final class SettingDialogPreferenceTest extends RobolectricTestCase {
 
 	@Test
-	public void test() {
-		// todo:: implement test
+	public void testSetOnClickListener() {
+		final SettingDialogPreference preference = new SettingDialogPreference(mApplication);
+		final SettingDialogPreference.OnClickListener listener = mock(SettingDialogPreference.OnClickListener.class);
+		preference.setOnClickListener(listener);
+		assertThat(preference.getOnClickListener(), is(sameInstance(listener)));
+		// Listener should not be wrapped into preference click listener.
+		assertThat(preference.getOnPreferenceClickListener(), is(nullValue()));
+		preference.dispatchClick();
+		verify(listener).onDialogPreferenceClick(preference);
+	}
+
+	@Test
+	public void testSetOnClickListenerKeepsPreferenceClickListener() {
+		final SettingDialogPreference preference = new SettingDialogPreference(mApplication);
+		final Preference.OnPreferenceClickListener preferenceClickListener = mock(Preference.OnPreferenceClickListener.class);
+		preference.setOnPreferenceClickListener(preferenceClickListener);
+		final SettingDialogPreference.OnClickListener listener = mock(SettingDialogPreference.OnClickListener.class);
+		preference.setOnClickListener(listener);
+		assertThat(preference.getOnPreferenceClickListener(), is(sameInstance(preferenceClickListener)));
+		preference.dispatchClick();
+		verify(preferenceClickListener).onPreferenceClick(preference);
+		verify(listener).onDialogPreferenceClick(preference);
+	}
+
+	@Test
+	public void testHandledClickIsConsumed() {
+		final SettingDialogPreference preference = new SettingDialogPreference(mApplication);
+		preference.setIntent(new Intent(Intent.ACTION_VIEW));
+		final SettingDialogPreference.OnClickListener listener = mock(SettingDialogPreference.OnClickListener.class);
+		when(listener.onDialogPreferenceClick(preference)).thenReturn(true);
+		preference.setOnClickListener(listener);
+		performClick(preference);
+		assertThat(Shadows.shadowOf(mApplication).getNextStartedActivity(), is(nullValue()));
+		when(listener.onDialogPreferenceClick(preference)).thenReturn(false);
+		performClick(preference);
+		assertThat(Shadows.shadowOf(mApplication).getNextStartedActivity(), is(notNullValue()));
+	}
+
+	private static void performClick(final Preference preference) {
+		ReflectionHelpers.callInstanceMethod(
+				preference,
+				"performClick",
+				ReflectionHelpers.ClassParameter.from(PreferenceScreen.class, null)
+		);
+	}
+
+	@Test
+	public void testSetOnClickListenerNull() {
+		final SettingDialogPreference preference = new SettingDialogPreference(mApplication);
+		final SettingDialogPreference.OnClickListener listener = mock(SettingDialogPreference.OnClickListener.class);
+		preference.setOnClickListener(listener);
+		preference.setOnClickListener(null);
+		assertThat(preference.getOnClickListener(), is(nullValue()));
+		preference.dispatchClick();
+		verifyZeroInteractions(listener);
 	}
 }
@@ -248,10 +248,9 @@ public class SettingSelectionDialogPreference extends SettingDialogPreference<Se
 	 * data from the current theme provided by the specified <var>context</var>.
 	 */
 	private void init(final Context context, final AttributeSet attrs, final int defStyleAttr, final int defStyleRes) {
-		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_SelectionDialogPreference, defStyleAttr, defStyleRes);
-		setEntries(attributes.getTextArray(R.styleable.Ui_Settings_SelectionDialogPreference_android_entries));
-		setEntryValues(attributes.getTextArray(R.styleable.Ui_Settings_SelectionDialogPreference_android_entryValues));
-		attributes.recycle();
+		final PreferenceAttributes attributes = getPreferenceAttributes();
+		setEntries(attributes.getTextArray(android.R.attr.entries));
+		setEntryValues(attributes.getTextArray(android.R.attr.entryValues));
 		this.mSummaryTextBuilder = new DefaultSummaryTextBuilder(SUMMARY_ENTRIES_SEPARATOR);
 	}
 
@@ -266,28 +265,22 @@ public class SettingSelectionDialogPreference extends SettingDialogPreference<Se
 				.emptySelectionAllowed(true);
 	}
 
+	/**
+	 */
+	@Nullable
+	@Override
+	protected int[] onGetDialogAttrs() {
+		return R.styleable.Ui_Settings_SelectionDialogPreference;
+	}
+
 	/**
 	 */
 	@Override
 	@SuppressWarnings("ResourceType")
-	protected void onConfigureDialogOptions(
-			@NonNull final SelectionDialog.SelectionOptions options,
-			@NonNull final Context context,
-			@Nullable final AttributeSet attrs,
-			@AttrRes final int defStyleAttr,
-			@StyleRes final int defStyleRes
-	) {
-		super.onConfigureDialogOptions(options, context, attrs, defStyleAttr, defStyleRes);
-		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_SelectionDialogPreference, defStyleAttr, defStyleRes);
-		for (int i = 0; i < attributes.getIndexCount(); i++) {
-			final int index = attributes.getIndex(i);
-			if (index == R.styleable.Ui_Settings_SelectionDialogPreference_dialogSelectionMode) {
-				options.selectionMode(attributes.getInt(index, options.selectionMode()));
-			} else if (index == R.styleable.Ui_Settings_SelectionDialogPreference_dialogEmptySelectionAllowed) {
-				options.emptySelectionAllowed(attributes.getBoolean(index, options.shouldAllowEmptySelection()));
-			}
-		}
-		attributes.recycle();
+	protected void onConfigureDialogOptions(@NonNull final SelectionDialog.SelectionOptions options, @NonNull final PreferenceAttributes attributes) {
+		super.onConfigureDialogOptions(options, attributes);
+		options.selectionMode(attributes.getInt(R.attr.dialogSelectionMode, options.selectionMode()));
+		options.emptySelectionAllowed(attributes.getBoolean(R.attr.dialogEmptySelectionAllowed, options.shouldAllowEmptySelection()));
 	}
 
 	/**
@@ -482,7 +475,7 @@ public class SettingSelectionDialogPreference extends SettingDialogPreference<Se
 			this.mSelectionSet = true;
 			persistString(selectionValues);
 			if (changed) {
-				notifyChanged();
+				notifyChanged(CHANGE_SUMMARY);
 			}
 		}
 	}
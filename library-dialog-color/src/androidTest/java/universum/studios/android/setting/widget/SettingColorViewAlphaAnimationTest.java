@@ -0,0 +1,141 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import org.junit.Test;
+
+import universum.studios.android.test.instrumented.InstrumentedTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class SettingColorViewAlphaAnimationTest extends InstrumentedTestCase {
+
+	private static final int SWATCHES_COUNT = 50;
+	private static final int SWATCH_SIZE = 48;
+	private static final int FRAMES_COUNT = 300;
+	private static final int HALF_ALPHA_FRAME = 15;
+
+	@Test
+	public void testAnimatingSwatchesDoNotUpdateColors() {
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				final LinearLayout container = new LinearLayout(mContext);
+				container.setOrientation(LinearLayout.VERTICAL);
+				final CountingColorView[] swatches = new CountingColorView[SWATCHES_COUNT];
+				for (int i = 0; i < SWATCHES_COUNT; i++) {
+					final CountingColorView swatch = new CountingColorView(mContext);
+					swatch.setCanvasColor(Color.WHITE);
+					swatch.setColor(Color.HSVToColor(new float[]{i * 360f / SWATCHES_COUNT, 1f, 1f}));
+					container.addView(swatch, new LinearLayout.LayoutParams(SWATCH_SIZE, SWATCH_SIZE));
+					swatches[i] = swatch;
+				}
+				final int width = SWATCH_SIZE;
+				final int height = SWATCH_SIZE * SWATCHES_COUNT;
+				container.measure(
+						View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+						View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY)
+				);
+				container.layout(0, 0, width, height);
+				final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+				final Canvas canvas = new Canvas(bitmap);
+				for (final CountingColorView swatch : swatches) {
+					swatch.resetCounts();
+				}
+				for (int frame = 0; frame < FRAMES_COUNT; frame++) {
+					drawFrame(container, swatches, canvas, frame);
+				}
+				// Alpha is applied to the draw colors by the view itself, so animation of alpha must
+				// neither update colors of the view nor request additional invalidations.
+				for (final CountingColorView swatch : swatches) {
+					assertThat(swatch.setColorCount, is(0));
+					assertThat(swatch.setCanvasColorCount, is(0));
+					assertThat(swatch.invalidateCount, is(0));
+				}
+				final int rawColor = Color.HSVToColor(new float[]{0f, 1f, 1f});
+				drawFrame(container, swatches, canvas, HALF_ALPHA_FRAME);
+				assertThat(Color.alpha(swatches[0].getColor()), is((int) (0.5f * 255)));
+				assertThat(swatches[0].getColor() & 0x00ffffff, is(rawColor & 0x00ffffff));
+				// Frame at FRAMES_COUNT draws swatches fully opaque, alpha animation must not drift their colors.
+				drawFrame(container, swatches, canvas, FRAMES_COUNT);
+				assertThat(swatches[0].getColor(), is(rawColor));
+				assertThat(swatches[0].getCanvasColor(), is(Color.WHITE));
+				bitmap.recycle();
+			}
+		});
+	}
+
+	private static void drawFrame(View container, SettingColorView[] swatches, Canvas canvas, int frame) {
+		final float alpha = Math.abs((frame % 60) - 30) / 30f;
+		for (final SettingColorView swatch : swatches) {
+			swatch.setAlpha(alpha);
+		}
+		canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+		container.draw(canvas);
+	}
+
+	private static final class CountingColorView extends SettingColorView {
+
+		int setColorCount, setCanvasColorCount, invalidateCount;
+
+		CountingColorView(@NonNull final Context context) {
+			super(context);
+		}
+
+		void resetCounts() {
+			this.setColorCount = 0;
+			this.setCanvasColorCount = 0;
+			this.invalidateCount = 0;
+		}
+
+		@Override
+		public void setColor(@ColorInt final int color) {
+			this.setColorCount++;
+			super.setColor(color);
+		}
+
+		@Override
+		public void setCanvasColor(@ColorInt final int color) {
+			this.setCanvasColorCount++;
+			super.setCanvasColor(color);
+		}
+
+		@Override
+		public void invalidate() {
+			this.invalidateCount++;
+			super.invalidate();
+		}
+	}
+}
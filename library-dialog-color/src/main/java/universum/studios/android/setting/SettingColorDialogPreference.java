@@ -24,6 +24,7 @@ import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Color;
 import android.os.Build;
+import android.support.annotation.ArrayRes;
 import android.support.annotation.AttrRes;
 import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
@@ -34,6 +35,7 @@ import android.view.View;
 
 import universum.studios.android.dialog.ColorPickerDialog;
 import universum.studios.android.dialog.Dialog;
+import universum.studios.android.setting.widget.SettingColorPaletteView;
 import universum.studios.android.setting.widget.SettingColorView;
 
 /**
@@ -49,6 +51,17 @@ import universum.studios.android.setting.widget.SettingColorView;
  * has been clicked, the color provided via {@link ColorPickerDialog#getColor()} is set as color for
  * this preference via {@link #setColor(int)}.
  *
+ * <h3>Palette mode</h3>
+ * If there is specified a palette of colors via {@link #setPalette(int[])} or via
+ * {@link R.attr#uiSettingColorPalette uiSettingColorPalette} attribute, this preference allows to
+ * pick only from the colors of that palette. Any color specified via {@link #setColor(int)} is in
+ * such case resolved to the nearest palette color. Only the color is persisted, as {@link Integer}
+ * the same way as outside of palette mode, and its palette index is resolved by lookup of the
+ * persisted color within the palette when the value is restored. If the preference
+ * is styled via {@code Ui.Settings.DialogPreference.Color.Palette} style, the palette is displayed
+ * via {@link SettingColorPaletteView} widget in the widget area so the user may pick a color directly
+ * from the preference row.
+ *
  * <h3>Default value</h3>
  * Default value for this preference is parsed as color {@link Integer}. See {@link TypedArray#getColor(int, int)}.
  *
@@ -72,6 +85,13 @@ public final class SettingColorDialogPreference extends SettingDialogPreference<
 	 */
 	// private static final String TAG = "SettingColorDialogPreference";
 
+	/**
+	 * Constant identifying no palette index.
+	 *
+	 * @see #getPaletteIndex()
+	 */
+	public static final int NO_PALETTE_INDEX = -1;
+
 	/*
 	 * Interface ===================================================================================
 	 */
@@ -98,6 +118,34 @@ public final class SettingColorDialogPreference extends SettingDialogPreference<
 	 */
 	private int mColor = Color.TRANSPARENT;
 
+	/**
+	 * Palette of colors from which may be picked the color value for this preference. This field is
+	 * intentionally not initialized in its declaration as it is already specified from
+	 * {@link #onProcessDialogAttributes(PreferenceAttributes)} invoked from the super constructor.
+	 */
+	private int[] mPalette;
+
+	/**
+	 * Palette index of the current color value. Valid only if {@link #mPalette} is specified.
+	 */
+	private int mPaletteIndex = NO_PALETTE_INDEX;
+
+	/**
+	 * Canvas color resolved from {@link R.attr#dialogColorCanvas dialogColorCanvas} attribute that
+	 * is drawn behind the color in the widget area. Valid only if {@link #mCanvasColorSpecified} is
+	 * {@code true}. These fields are intentionally not initialized in theirs declaration as they are
+	 * already specified from {@link #onProcessDialogAttributes(PreferenceAttributes)} invoked from
+	 * the super constructor.
+	 */
+	private int mCanvasColor;
+	private boolean mCanvasColorSpecified;
+
+	/**
+	 * Listener attached to the palette view of this preference (if presented). Created lazily once
+	 * for the whole lifetime of this preference.
+	 */
+	private SettingColorPaletteView.OnColorSelectedListener mPaletteListener;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -151,29 +199,129 @@ public final class SettingColorDialogPreference extends SettingDialogPreference<
 		return new ColorPickerDialog.ColorOptions(resources);
 	}
 
+	/**
+	 */
+	@Nullable
+	@Override
+	protected int[] onGetDialogAttrs() {
+		return R.styleable.Ui_Settings_ColorDialogPreference;
+	}
+
+	/**
+	 */
+	@Override
+	protected void onProcessDialogAttributes(@NonNull final PreferenceAttributes attributes) {
+		super.onProcessDialogAttributes(attributes);
+		this.mPalette = obtainPalette(getContext().getResources(), attributes.getResourceId(R.attr.uiSettingColorPalette, 0));
+		this.mCanvasColorSpecified = attributes.hasValue(R.attr.dialogColorCanvas);
+		this.mCanvasColor = attributes.getColor(R.attr.dialogColorCanvas, Color.TRANSPARENT);
+	}
+
 	/**
 	 */
 	@Override
-	protected void onConfigureDialogOptions(
-			@NonNull final ColorPickerDialog.ColorOptions options,
-			@NonNull final Context context,
-			@Nullable final AttributeSet attrs,
-			@AttrRes final int defStyleAttr,
-			@StyleRes final int defStyleRes
-	) {
-		super.onConfigureDialogOptions(options, context, attrs, defStyleAttr, defStyleRes);
-		int canvasColor = options.canvasColor();
-		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_ColorDialogPreference, defStyleAttr, defStyleRes);
-		for (int i = 0; i < attributes.getIndexCount(); i++) {
-			final int index = attributes.getIndex(i);
-			if (index == R.styleable.Ui_Settings_ColorDialogPreference_dialogColor) {
-				options.color(attributes.getColor(index, options.color()));
-			} else if (index == R.styleable.Ui_Settings_ColorDialogPreference_dialogColorCanvas) {
-				canvasColor = attributes.getColor(index, canvasColor);
+	protected void onConfigureDialogOptions(@NonNull final ColorPickerDialog.ColorOptions options, @NonNull final PreferenceAttributes attributes) {
+		super.onConfigureDialogOptions(options, attributes);
+		options.color(attributes.getColor(R.attr.dialogColor, options.color()));
+		options.canvasColor(attributes.getColor(R.attr.dialogColorCanvas, options.canvasColor()));
+	}
+
+	/**
+	 * Obtains palette of colors from the specified array resource.
+	 *
+	 * @param resources Resources used to obtain the array.
+	 * @param resId     Resource id of the desired array with colors.
+	 * @return Obtained palette or {@code null} if the resource id is {@code 0}.
+	 */
+	private static int[] obtainPalette(final Resources resources, final int resId) {
+		if (resId == 0) {
+			return null;
+		}
+		final TypedArray array = resources.obtainTypedArray(resId);
+		final int[] palette = new int[array.length()];
+		for (int i = 0; i < palette.length; i++) {
+			palette[i] = array.getColor(i, Color.TRANSPARENT);
+		}
+		array.recycle();
+		return palette;
+	}
+
+	/**
+	 * Same as {@link #setPalette(int[])} for resource id.
+	 *
+	 * @param resId Resource id of the desired array with palette colors.
+	 */
+	public void setPalette(@ArrayRes final int resId) {
+		setPalette(obtainPalette(getContext().getResources(), resId));
+	}
+
+	/**
+	 * Sets a palette of colors from which may be picked color value for this preference. Specifying
+	 * a non-empty palette enables palette mode for this preference.
+	 * <p>
+	 * The current color value is resolved to the nearest color from the palette.
+	 *
+	 * @param palette The desired palette. May be {@code null} to disable palette mode.
+	 * @see #getPalette()
+	 * @see #getPaletteIndex()
+	 */
+	public void setPalette(@Nullable final int[] palette) {
+		this.mPalette = palette == null || palette.length == 0 ? null : palette;
+		this.mPaletteIndex = NO_PALETTE_INDEX;
+		if (mPalette != null && mColorSet) {
+			setColor(mColor);
+		}
+		notifyChanged(CHANGE_WIDGET);
+	}
+
+	/**
+	 * Returns the palette of colors from which may be picked color value for this preference.
+	 *
+	 * @return Palette of colors or {@code null} if this preference is not in palette mode.
+	 * @see #setPalette(int[])
+	 */
+	@Nullable
+	public int[] getPalette() {
+		return mPalette;
+	}
+
+	/**
+	 * Returns the palette index of the current color value of this preference.
+	 *
+	 * @return Palette index or {@link #NO_PALETTE_INDEX} if this preference is not in palette mode
+	 * or there has not been specified any color value yet.
+	 * @see #getColor()
+	 */
+	public int getPaletteIndex() {
+		return mPalette == null ? NO_PALETTE_INDEX : mPaletteIndex;
+	}
+
+	/**
+	 * Resolves index of the color from the current palette that is the nearest one to the specified
+	 * <var>color</var>.
+	 *
+	 * @param color The color for which to find its nearest palette color.
+	 * @return Palette index of the nearest color.
+	 */
+	private int findNearestPaletteIndex(final int color) {
+		int nearestIndex = 0;
+		int nearestDistance = Integer.MAX_VALUE;
+		for (int i = 0; i < mPalette.length; i++) {
+			final int paletteColor = mPalette[i];
+			if (paletteColor == color) {
+				return i;
+			}
+			final int red = Color.red(paletteColor) - Color.red(color);
+			final int green = Color.green(paletteColor) - Color.green(color);
+			final int blue = Color.blue(paletteColor) - Color.blue(color);
+			final int alpha = Color.alpha(paletteColor) - Color.alpha(color);
+			final int distance = red * red + green * green + blue * blue + alpha * alpha;
+			if (distance < nearestDistance) {
+				nearestDistance = distance;
+				nearestIndex = i;
 			}
 		}
-		attributes.recycle();
-		options.canvasColor(canvasColor);
+		return nearestIndex;
 	}
 
 	/**
@@ -188,7 +336,11 @@ public final class SettingColorDialogPreference extends SettingDialogPreference<
 	@Override
 	@SuppressWarnings({"ResourceType", "ConstantConditions"})
 	protected void onSetInitialValue(final boolean restorePersistedValue, @Nullable final Object defaultValue) {
-		setColor(restorePersistedValue ? getPersistedInt(mColor) : (Integer) defaultValue);
+		if (!restorePersistedValue) {
+			setColor((Integer) defaultValue);
+			return;
+		}
+		setColor(getPersistedInt(mColor));
 	}
 
 	/**
@@ -196,18 +348,50 @@ public final class SettingColorDialogPreference extends SettingDialogPreference<
 	 * <p>
 	 * If value of this preference changes, it is persisted and the change listener is notified
 	 * about the change.
+	 * <p>
+	 * If this preference is in palette mode, the nearest color from the palette is set instead.
 	 *
 	 * @param color The preferred color to be persisted as {@link Integer}.
 	 * @see #getColor()
+	 * @see #setPalette(int[])
 	 */
 	public void setColor(@ColorInt final int color) {
-		final boolean changed = mColor != color;
+		if (mPalette == null) {
+			this.updateColor(color, NO_PALETTE_INDEX);
+		} else {
+			setPaletteColor(findNearestPaletteIndex(color));
+		}
+	}
+
+	/**
+	 * Sets a color from the current palette at the specified <var>index</var> as color value for
+	 * this preference.
+	 *
+	 * @param index Index of the desired palette color.
+	 * @see #getPaletteIndex()
+	 */
+	public void setPaletteColor(final int index) {
+		if (mPalette == null) {
+			throw new IllegalStateException("No palette specified!");
+		}
+		this.updateColor(mPalette[index], index);
+	}
+
+	/**
+	 * Updates the current color value of this preference.
+	 *
+	 * @param color        The desired color value.
+	 * @param paletteIndex Palette index of the color or {@link #NO_PALETTE_INDEX} if not in palette mode.
+	 */
+	private void updateColor(final int color, final int paletteIndex) {
+		final boolean changed = mColor != color || mPaletteIndex != paletteIndex;
 		if (callChangeListener(color) && (changed || !mColorSet)) {
 			this.mColor = color;
+			this.mPaletteIndex = paletteIndex;
 			this.mColorSet = true;
-			persistInt(mColor);
+			this.persistInt(mColor);
 			if (changed) {
-				notifyChanged();
+				notifyChanged(CHANGE_WIDGET);
 			}
 		}
 	}
@@ -229,11 +413,55 @@ public final class SettingColorDialogPreference extends SettingDialogPreference<
 	@Override
 	public void onBindView(@NonNull final View view) {
 		super.onBindView(view);
+		this.bindWidgetViews(view);
+	}
+
+	/**
+	 * This implementation binds change of widget only into the color views.
+	 */
+	@Override
+	public void onBindViewChanges(@NonNull final View view, final int changes) {
+		if ((changes & CHANGE_WIDGET) != 0) {
+			this.bindWidgetViews(view);
+			super.onBindViewChanges(view, changes & ~CHANGE_WIDGET);
+		} else {
+			super.onBindViewChanges(view, changes);
+		}
+	}
+
+	/**
+	 * Binds the current color value and palette of this preference into the color views contained
+	 * within the given <var>view</var>.
+	 *
+	 * @param view The root view of this preference.
+	 */
+	private void bindWidgetViews(final View view) {
 		final SettingColorView colorView = (SettingColorView) view.findViewById(R.id.ui_setting_color_view);
 		if (colorView != null) {
-			colorView.setCanvasColor(getDialogOptions().canvasColor());
+			if (mCanvasColorSpecified) {
+				colorView.setCanvasColor(mCanvasColor);
+			}
 			colorView.setColor(mColor);
 		}
+		final SettingColorPaletteView paletteView = (SettingColorPaletteView) view.findViewById(R.id.ui_setting_color_palette_view);
+		if (paletteView != null) {
+			if (mPaletteListener == null) {
+				this.mPaletteListener = new SettingColorPaletteView.OnColorSelectedListener() {
+
+					/**
+					 */
+					@Override
+					public void onColorSelected(@NonNull final SettingColorPaletteView view, final int index, @ColorInt final int color) {
+						if (mPalette != null && index < mPalette.length) {
+							setPaletteColor(index);
+						}
+					}
+				};
+			}
+			paletteView.setPalette(mPalette);
+			paletteView.setSelectedIndex(getPaletteIndex());
+			paletteView.setOnColorSelectedListener(mPaletteListener);
+		}
 	}
 
 	/**
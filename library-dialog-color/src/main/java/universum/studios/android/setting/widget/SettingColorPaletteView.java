@@ -0,0 +1,496 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting.widget;
+
+import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.annotation.AttrRes;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StyleRes;
+import android.util.AttributeSet;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import universum.studios.android.setting.R;
+
+/**
+ * A simple {@link View} implementation that draws a palette of colors in a single row of circular
+ * swatches and allows to select one of them by tapping on it. The palette may be specified via
+ * {@link #setPalette(int[])} and the selected swatch via {@link #setSelectedIndex(int)}.
+ * <p>
+ * When focused, the selection may be moved to the previous or next swatch via left and right
+ * direction keys, and accessibility services may move it via scroll backward and forward actions.
+ * <p>
+ * All swatches are drawn from a single {@link SettingColorSwatchAtlas} that is shared across all
+ * palette views with the same palette, so this view does not need to own a paint for each of its
+ * swatches.
+ *
+ * <h3>Xml attributes</h3>
+ * See {@link View},
+ * {@link R.styleable#Ui_Settings_ColorPaletteView SettingColorPaletteView Attributes}
+ *
+ * <h3>Default style attribute</h3>
+ * {@link R.attr#uiSettingColorPaletteViewStyle uiSettingColorPaletteViewStyle}
+ *
+ * @author Martin Albedinsky
+ */
+public class SettingColorPaletteView extends View {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "SettingColorPaletteView";
+
+	/**
+	 * Constant identifying no selected palette index.
+	 */
+	public static final int NO_INDEX = -1;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/**
+	 * Listener that may be used to receive a callback about selected color swatch.
+	 *
+	 * @author Martin Albedinsky
+	 */
+	public interface OnColorSelectedListener {
+
+		/**
+		 * Invoked whenever a color swatch has been selected by the user in the given palette view.
+		 *
+		 * @param view  The palette view where the swatch has been selected.
+		 * @param index Palette index of the selected swatch.
+		 * @param color Color of the selected swatch.
+		 */
+		void onColorSelected(@NonNull SettingColorPaletteView view, int index, @ColorInt int color);
+	}
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Paint used to draw swatches from the atlas. Only its alpha is modified.
+	 */
+	private final Paint mSwatchPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+	/**
+	 * Paint used to draw indicator of the selected swatch.
+	 */
+	private final Paint mSelectorPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+	/**
+	 * Rect used to specify bounds of a swatch when drawing.
+	 */
+	private final Rect mSwatchBounds = new Rect();
+
+	/**
+	 * Palette of colors drawn by this view.
+	 */
+	private int[] mPalette;
+
+	/**
+	 * Atlas from which are drawn swatches of this view. Resolved lazily when drawing.
+	 */
+	private SettingColorSwatchAtlas mAtlas;
+
+	/**
+	 * Index of the currently selected swatch.
+	 */
+	private int mSelectedIndex = NO_INDEX;
+
+	/**
+	 * Size of a single swatch.
+	 */
+	private int mSwatchSize;
+
+	/**
+	 * Spacing between swatches.
+	 */
+	private int mSwatchSpacing;
+
+	/**
+	 * Color drawn behind each swatch.
+	 */
+	private int mCanvasColor = Color.WHITE;
+
+	/**
+	 * Raw color of the selector indicator.
+	 */
+	private int mSelectorColor = Color.BLACK;
+
+	/**
+	 * Listener to be notified about selected swatches.
+	 */
+	private OnColorSelectedListener mListener;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Same as {@link #SettingColorPaletteView(Context, AttributeSet)} without attributes.
+	 */
+	public SettingColorPaletteView(@NonNull final Context context) {
+		this(context, null);
+	}
+
+	/**
+	 * Same as {@link #SettingColorPaletteView(Context, AttributeSet, int)} with
+	 * {@link R.attr#uiSettingColorPaletteViewStyle} as attribute for default style.
+	 */
+	public SettingColorPaletteView(@NonNull final Context context, @Nullable final AttributeSet attrs) {
+		this(context, attrs, R.attr.uiSettingColorPaletteViewStyle);
+	}
+
+	/**
+	 * Same as {@link #SettingColorPaletteView(Context, AttributeSet, int, int)} with {@code 0} as
+	 * default style.
+	 */
+	public SettingColorPaletteView(@NonNull final Context context, @Nullable final AttributeSet attrs, @AttrRes final int defStyleAttr) {
+		super(context, attrs, defStyleAttr);
+		this.init(context, attrs, defStyleAttr, 0);
+	}
+
+	/**
+	 * Creates a new instance of SettingColorPaletteView for the given <var>context</var>.
+	 *
+	 * @param context      Context in which will be the new view presented.
+	 * @param attrs        Set of Xml attributes used to configure the new instance of this view.
+	 * @param defStyleAttr An attribute which contains a reference to a default style resource for
+	 *                     this view within a theme of the given context.
+	 * @param defStyleRes  Resource id of the default style for the new view.
+	 */
+	@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+	public SettingColorPaletteView(@NonNull final Context context, @Nullable final AttributeSet attrs, @AttrRes final int defStyleAttr, @StyleRes final int defStyleRes) {
+		super(context, attrs, defStyleAttr, defStyleRes);
+		this.init(context, attrs, defStyleAttr, defStyleRes);
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Called from one of constructors of this view to perform its initialization.
+	 * <p>
+	 * Initialization is done via parsing of the specified <var>attrs</var> set and obtaining for
+	 * this view specific data from it that can be used to configure this new view instance. The
+	 * specified <var>defStyleAttr</var> and <var>defStyleRes</var> are used to obtain default data
+	 * from the current theme provided by the specified <var>context</var>.
+	 */
+	private void init(final Context context, final AttributeSet attrs, final int defStyleAttr, final int defStyleRes) {
+		final float density = context.getResources().getDisplayMetrics().density;
+		this.mSwatchSize = Math.round(24 * density);
+		this.mSwatchSpacing = Math.round(8 * density);
+		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_ColorPaletteView, defStyleAttr, defStyleRes);
+		for (int i = 0; i < attributes.getIndexCount(); i++) {
+			final int index = attributes.getIndex(i);
+			if (index == R.styleable.Ui_Settings_ColorPaletteView_uiColorSwatchSize) {
+				this.mSwatchSize = attributes.getDimensionPixelSize(index, mSwatchSize);
+			} else if (index == R.styleable.Ui_Settings_ColorPaletteView_uiColorSwatchSpacing) {
+				this.mSwatchSpacing = attributes.getDimensionPixelSize(index, mSwatchSpacing);
+			} else if (index == R.styleable.Ui_Settings_ColorPaletteView_uiColorSwatchCanvasColor) {
+				this.mCanvasColor = attributes.getColor(index, mCanvasColor);
+			} else if (index == R.styleable.Ui_Settings_ColorPaletteView_uiColorSwatchSelectorColor) {
+				this.mSelectorColor = attributes.getColor(index, mSelectorColor);
+			}
+		}
+		attributes.recycle();
+		mSelectorPaint.setStyle(Paint.Style.STROKE);
+		mSelectorPaint.setStrokeWidth(Math.max(1, Math.round(2 * density)));
+		mSelectorPaint.setColor(mSelectorColor);
+		setFocusable(true);
+	}
+
+	/**
+	 */
+	@Override
+	@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+	public void onInitializeAccessibilityEvent(@NonNull final AccessibilityEvent event) {
+		super.onInitializeAccessibilityEvent(event);
+		event.setClassName(SettingColorPaletteView.class.getName());
+	}
+
+	/**
+	 */
+	@Override
+	@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+	public void onInitializeAccessibilityNodeInfo(@NonNull final AccessibilityNodeInfo info) {
+		super.onInitializeAccessibilityNodeInfo(info);
+		info.setClassName(SettingColorPaletteView.class.getName());
+		if (isEnabled() && mPalette != null) {
+			if (mSelectedIndex > 0) {
+				info.addAction(AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD);
+			}
+			if (mSelectedIndex < mPalette.length - 1) {
+				info.addAction(AccessibilityNodeInfo.ACTION_SCROLL_FORWARD);
+			}
+		}
+	}
+
+	/**
+	 */
+	@Override
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public boolean performAccessibilityAction(final int action, @Nullable final Bundle arguments) {
+		switch (action) {
+			case AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD:
+				return moveSelection(-1);
+			case AccessibilityNodeInfo.ACTION_SCROLL_FORWARD:
+				return moveSelection(1);
+			default:
+				return super.performAccessibilityAction(action, arguments);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+	public void onPopulateAccessibilityEvent(@NonNull final AccessibilityEvent event) {
+		super.onPopulateAccessibilityEvent(event);
+		if (mPalette != null && mSelectedIndex != NO_INDEX) {
+			event.getText().add((mSelectedIndex + 1) + "/" + mPalette.length);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public boolean onKeyDown(final int keyCode, @NonNull final KeyEvent event) {
+		if (isEnabled()) {
+			switch (keyCode) {
+				case KeyEvent.KEYCODE_DPAD_LEFT:
+					if (moveSelection(-1)) return true;
+					break;
+				case KeyEvent.KEYCODE_DPAD_RIGHT:
+					if (moveSelection(1)) return true;
+					break;
+				default:
+					break;
+			}
+		}
+		return super.onKeyDown(keyCode, event);
+	}
+
+	/**
+	 * Moves the current selection by the specified <var>offset</var> and notifies the listener
+	 * about the selected swatch as it would be selected by the user.
+	 *
+	 * @param offset Offset by which to move the selection.
+	 * @return {@code True} if the selection has been moved, {@code false} if there is no swatch
+	 * at the new position.
+	 */
+	private boolean moveSelection(final int offset) {
+		if (mPalette == null || mPalette.length == 0) {
+			return false;
+		}
+		final int index = mSelectedIndex == NO_INDEX ? 0 : mSelectedIndex + offset;
+		if (index < 0 || index >= mPalette.length || index == mSelectedIndex) {
+			return false;
+		}
+		this.selectIndex(index);
+		sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
+		return true;
+	}
+
+	/**
+	 * Selects swatch at the specified <var>index</var> and notifies the listener about it.
+	 *
+	 * @param index Index of the selected swatch.
+	 */
+	private void selectIndex(final int index) {
+		setSelectedIndex(index);
+		if (mListener != null) {
+			mListener.onColorSelected(this, index, mPalette[index]);
+		}
+	}
+
+	/**
+	 * Registers a callback to be invoked whenever a color swatch is selected by the user.
+	 *
+	 * @param listener The desired listener. May be {@code null} to clear the current one.
+	 */
+	public void setOnColorSelectedListener(@Nullable final OnColorSelectedListener listener) {
+		this.mListener = listener;
+	}
+
+	/**
+	 * Sets a palette of colors to be drawn by this view.
+	 * <p>
+	 * <b>Note</b>, that the given array should not be modified after it is passed to this view.
+	 *
+	 * @param palette The desired palette. May be {@code null} to clear the current one.
+	 * @see #getPalette()
+	 */
+	public void setPalette(@Nullable final int[] palette) {
+		if (mPalette != palette) {
+			this.mPalette = palette;
+			this.mAtlas = null;
+			if (mPalette == null || mSelectedIndex >= mPalette.length) {
+				this.mSelectedIndex = NO_INDEX;
+			}
+			requestLayout();
+			invalidate();
+		}
+	}
+
+	/**
+	 * Returns the palette of colors drawn by this view.
+	 *
+	 * @return Current palette or {@code null} if no palette has been specified.
+	 * @see #setPalette(int[])
+	 */
+	@Nullable
+	public int[] getPalette() {
+		return mPalette;
+	}
+
+	/**
+	 * Sets an index of the swatch that should be drawn as selected.
+	 *
+	 * @param index The desired index. May be {@link #NO_INDEX} to clear the current selection.
+	 * @see #getSelectedIndex()
+	 */
+	public void setSelectedIndex(final int index) {
+		if (mSelectedIndex != index) {
+			this.mSelectedIndex = index;
+			invalidate();
+		}
+	}
+
+	/**
+	 * Returns the index of the currently selected swatch.
+	 *
+	 * @return Selected index or {@link #NO_INDEX} if there is no swatch selected.
+	 * @see #setSelectedIndex(int)
+	 */
+	public int getSelectedIndex() {
+		return mSelectedIndex;
+	}
+
+	/**
+	 */
+	@Override
+	protected boolean onSetAlpha(final int alpha) {
+		mSwatchPaint.setAlpha(alpha);
+		mSelectorPaint.setColor((mSelectorColor & 0x00ffffff) | (((mSelectorColor >>> 24) * alpha / 255) << 24));
+		return true;
+	}
+
+	/**
+	 */
+	@Override
+	protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+		final int count = mPalette == null ? 0 : mPalette.length;
+		final int width = count * mSwatchSize + Math.max(0, count - 1) * mSwatchSpacing + getPaddingLeft() + getPaddingRight();
+		final int height = mSwatchSize + getPaddingTop() + getPaddingBottom();
+		setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+	}
+
+	/**
+	 */
+	@Override
+	@SuppressLint("ClickableViewAccessibility")
+	public boolean onTouchEvent(@NonNull final MotionEvent event) {
+		if (!isEnabled() || mPalette == null || mPalette.length == 0) {
+			return super.onTouchEvent(event);
+		}
+		switch (event.getAction()) {
+			case MotionEvent.ACTION_DOWN:
+				return true;
+			case MotionEvent.ACTION_UP:
+				final int index = resolveIndexAt(event.getX());
+				if (index != NO_INDEX) {
+					this.selectIndex(index);
+				}
+				return true;
+			default:
+				return super.onTouchEvent(event);
+		}
+	}
+
+	/**
+	 * Resolves index of the swatch at the specified <var>x</var> coordinate.
+	 *
+	 * @param x The x coordinate relative to this view.
+	 * @return Index of the swatch or {@link #NO_INDEX} if there is no swatch at the coordinate.
+	 */
+	private int resolveIndexAt(final float x) {
+		final float offset = x - getPaddingLeft();
+		if (offset < 0) {
+			return NO_INDEX;
+		}
+		final int step = mSwatchSize + mSwatchSpacing;
+		final int index = (int) (offset / step);
+		return index < mPalette.length && offset - index * step <= mSwatchSize ? index : NO_INDEX;
+	}
+
+	/**
+	 */
+	@Override
+	protected void onDraw(@NonNull final Canvas canvas) {
+		super.onDraw(canvas);
+		if (mPalette == null || mPalette.length == 0 || mSwatchSize <= 0) {
+			return;
+		}
+		if (mAtlas == null) {
+			this.mAtlas = SettingColorSwatchAtlas.obtain(mPalette, mSwatchSize, mCanvasColor);
+		}
+		final int top = getPaddingTop();
+		int left = getPaddingLeft();
+		for (int i = 0; i < mPalette.length; i++) {
+			mSwatchBounds.set(left, top, left + mSwatchSize, top + mSwatchSize);
+			mAtlas.drawSwatch(canvas, i, mSwatchBounds, mSwatchPaint);
+			if (i == mSelectedIndex) {
+				final float radius = (mSwatchSize - mSelectorPaint.getStrokeWidth()) / 2f;
+				canvas.drawCircle(mSwatchBounds.exactCenterX(), mSwatchBounds.exactCenterY(), radius, mSelectorPaint);
+			}
+			left += mSwatchSize + mSwatchSpacing;
+		}
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -0,0 +1,303 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Atlas that contains pre-rendered color swatches for a specific palette of colors within a single
+ * {@link Bitmap}. Swatches within the atlas are laid out in a grid of which dimensions never exceed
+ * {@link #MAX_TEXTURE_SIZE}, so the atlas bitmap may be always drawn by hardware accelerated canvas.
+ * Each swatch occupies a square of the size specified for the atlas, or smaller one if the whole
+ * grid would not fit into the texture size limit, so a swatch for a desired palette index may be
+ * drawn via {@link #drawSwatch(Canvas, int, Rect, Paint)}.
+ * <p>
+ * Atlases are shared across all views that draw the same palette with the same swatch size and
+ * canvas color. A shared atlas may be obtained via {@link #obtain(int[], int, int)}. The cache of
+ * shared atlases is limited by count of atlases and also by the total size of theirs bitmaps.
+ *
+ * @author Martin Albedinsky
+ */
+public final class SettingColorSwatchAtlas {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "SettingColorSwatchAtlas";
+
+	/**
+	 * Maximum count of atlases that may be cached at a time.
+	 */
+	private static final int CACHE_MAX_SIZE = 8;
+
+	/**
+	 * Maximum total size in bytes of bitmaps of atlases that may be cached at a time.
+	 */
+	private static final int CACHE_MAX_BYTES = 4 * 1024 * 1024;
+
+	/**
+	 * Maximum width and height of an atlas bitmap. This is the minimum texture size that is
+	 * guaranteed to be supported by all devices with hardware accelerated rendering.
+	 */
+	static final int MAX_TEXTURE_SIZE = 2048;
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Cache containing all currently shared atlases ordered from the least to the most recently
+	 * used one.
+	 */
+	private static final List<SettingColorSwatchAtlas> sCache = new ArrayList<>(CACHE_MAX_SIZE);
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Palette of colors rendered into this atlas.
+	 */
+	private final int[] mPalette;
+
+	/**
+	 * Size of a single swatch within this atlas.
+	 */
+	private final int mSwatchSize;
+
+	/**
+	 * Color drawn behind each swatch within this atlas.
+	 */
+	private final int mCanvasColor;
+
+	/**
+	 * Size of a single swatch as it is rendered within {@link #mBitmap}. May be smaller than
+	 * {@link #mSwatchSize} if the swatches would not fit into the texture size limit.
+	 */
+	private final int mRenderedSwatchSize;
+
+	/**
+	 * Count of columns of the grid in which are the swatches laid out within {@link #mBitmap}.
+	 */
+	private final int mColumnsCount;
+
+	/**
+	 * Bitmap containing all rendered swatches.
+	 */
+	private final Bitmap mBitmap;
+
+	/**
+	 * Rect used to specify bounds of a swatch within {@link #mBitmap} when drawing.
+	 */
+	private final Rect mSourceRect = new Rect();
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of SettingColorSwatchAtlas with the specified parameters and renders
+	 * all swatches into its bitmap.
+	 *
+	 * @param palette     Palette of colors to be rendered.
+	 * @param swatchSize  Size of a single swatch.
+	 * @param canvasColor Color to be drawn behind each swatch.
+	 */
+	private SettingColorSwatchAtlas(final int[] palette, final int swatchSize, final int canvasColor) {
+		this.mPalette = palette.clone();
+		this.mSwatchSize = swatchSize;
+		this.mCanvasColor = canvasColor;
+		final int count = Math.max(1, palette.length);
+		// Swatches are rendered smaller only if even a square grid would not fit the texture limit.
+		final int minColumnsCount = (int) Math.ceil(Math.sqrt(count));
+		this.mRenderedSwatchSize = Math.max(1, Math.min(swatchSize, MAX_TEXTURE_SIZE / minColumnsCount));
+		this.mColumnsCount = Math.min(count, Math.max(minColumnsCount, MAX_TEXTURE_SIZE / mRenderedSwatchSize));
+		final int rowsCount = (count + mColumnsCount - 1) / mColumnsCount;
+		this.mBitmap = Bitmap.createBitmap(mColumnsCount * mRenderedSwatchSize, rowsCount * mRenderedSwatchSize, Bitmap.Config.ARGB_8888);
+		final Canvas canvas = new Canvas(mBitmap);
+		final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		final float radius = mRenderedSwatchSize / 2f;
+		for (int i = 0; i < palette.length; i++) {
+			final float centerX = (i % mColumnsCount) * mRenderedSwatchSize + radius;
+			final float centerY = (i / mColumnsCount) * mRenderedSwatchSize + radius;
+			if ((canvasColor >>> 24) != 0) {
+				paint.setColor(canvasColor);
+				canvas.drawCircle(centerX, centerY, radius, paint);
+			}
+			paint.setColor(palette[i]);
+			canvas.drawCircle(centerX, centerY, radius, paint);
+		}
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Obtains an atlas for the specified parameters. If there is already cached atlas that matches
+	 * the parameters, that atlas is returned, otherwise a new one is created and cached.
+	 * <p>
+	 * This method may be called from any thread.
+	 *
+	 * @param palette     Palette of colors for which to obtain the atlas.
+	 * @param swatchSize  Size of a single swatch in pixels. Must be greater than {@code 0}.
+	 * @param canvasColor Color to be drawn behind each swatch.
+	 * @return Shared atlas with rendered swatches.
+	 */
+	@NonNull
+	public static SettingColorSwatchAtlas obtain(@NonNull final int[] palette, final int swatchSize, @ColorInt final int canvasColor) {
+		if (swatchSize <= 0) {
+			throw new IllegalArgumentException("Swatch size must be greater than 0!");
+		}
+		synchronized (sCache) {
+			for (int i = sCache.size() - 1; i >= 0; i--) {
+				final SettingColorSwatchAtlas atlas = sCache.get(i);
+				if (atlas.matches(palette, swatchSize, canvasColor)) {
+					if (i != sCache.size() - 1) {
+						sCache.remove(i);
+						sCache.add(atlas);
+					}
+					return atlas;
+				}
+			}
+			final SettingColorSwatchAtlas atlas = new SettingColorSwatchAtlas(palette, swatchSize, canvasColor);
+			sCache.add(atlas);
+			int cacheBytes = 0;
+			for (final SettingColorSwatchAtlas cachedAtlas : sCache) {
+				cacheBytes += cachedAtlas.getByteCount();
+			}
+			// Evicted atlases may still be used by some views so theirs bitmaps are not recycled.
+			while (sCache.size() > 1 && (sCache.size() > CACHE_MAX_SIZE || cacheBytes > CACHE_MAX_BYTES)) {
+				cacheBytes -= sCache.remove(0).getByteCount();
+			}
+			return atlas;
+		}
+	}
+
+	/**
+	 * Clears all cached atlases.
+	 */
+	public static void clearCache() {
+		synchronized (sCache) {
+			sCache.clear();
+		}
+	}
+
+	/**
+	 * Returns the count of atlases that are currently cached.
+	 *
+	 * @return Count of cached atlases.
+	 */
+	static int getCacheSize() {
+		synchronized (sCache) {
+			return sCache.size();
+		}
+	}
+
+	/**
+	 * Checks whether this atlas has been created for the specified parameters.
+	 *
+	 * @return {@code True} if parameters match, {@code false} otherwise.
+	 */
+	private boolean matches(final int[] palette, final int swatchSize, final int canvasColor) {
+		return mSwatchSize == swatchSize && mCanvasColor == canvasColor && Arrays.equals(mPalette, palette);
+	}
+
+	/**
+	 * Returns the count of swatches contained within this atlas.
+	 *
+	 * @return Swatches count.
+	 */
+	public int getSwatchesCount() {
+		return mPalette.length;
+	}
+
+	/**
+	 * Returns the size of a single swatch within this atlas.
+	 *
+	 * @return Swatch size in pixels.
+	 */
+	public int getSwatchSize() {
+		return mSwatchSize;
+	}
+
+	/**
+	 * Returns the width of the bitmap of this atlas.
+	 *
+	 * @return Bitmap width in pixels.
+	 */
+	int getBitmapWidth() {
+		return mBitmap.getWidth();
+	}
+
+	/**
+	 * Returns the height of the bitmap of this atlas.
+	 *
+	 * @return Bitmap height in pixels.
+	 */
+	int getBitmapHeight() {
+		return mBitmap.getHeight();
+	}
+
+	/**
+	 * Returns the size of the bitmap of this atlas in bytes.
+	 *
+	 * @return Bitmap size in bytes.
+	 */
+	private int getByteCount() {
+		return mBitmap.getRowBytes() * mBitmap.getHeight();
+	}
+
+	/**
+	 * Draws a swatch at the specified <var>index</var> into the given <var>bounds</var> on the
+	 * specified <var>canvas</var>.
+	 *
+	 * @param canvas The canvas on which to draw the swatch.
+	 * @param index  Index of the desired swatch within palette of this atlas.
+	 * @param bounds Bounds into which to draw the swatch.
+	 * @param paint  Paint used to draw the swatch. May be used to specify alpha.
+	 */
+	public void drawSwatch(@NonNull final Canvas canvas, final int index, @NonNull final Rect bounds, @NonNull final Paint paint) {
+		final int left = (index % mColumnsCount) * mRenderedSwatchSize;
+		final int top = (index / mColumnsCount) * mRenderedSwatchSize;
+		mSourceRect.set(left, top, left + mRenderedSwatchSize, top + mRenderedSwatchSize);
+		canvas.drawBitmap(mBitmap, mSourceRect, bounds, paint);
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -90,6 +90,12 @@ public class SettingColorView extends View {
 	 */
 	private int mDrawCanvasColor = mRawCanvasColor;
 
+	/**
+	 * Current alpha value of this view as dispatched to {@link #onSetAlpha(int)}. This alpha is
+	 * always applied to the raw colors in order to compute the colors used for drawing.
+	 */
+	private int mDrawAlpha = 255;
+
 	/**
 	 * Raw color specified via {@link #setColor(int)}. This color is used as base for color used to
 	 * draw primary graphics of this view.
@@ -116,6 +122,11 @@ public class SettingColorView extends View {
 	 */
 	private float mRadius;
 
+	/**
+	 * Center coordinates of the circular graphics of this view.
+	 */
+	private float mCenterX, mCenterY;
+
 	/*
 	 * Constructors ================================================================================
 	 */
@@ -212,8 +223,9 @@ public class SettingColorView extends View {
 	 * @see #setColor(int)
 	 */
 	public void setCanvasColor(@ColorInt final int color) {
-		if (mRawCanvasColor != color || mDrawCanvasColor != color) {
-			this.mRawCanvasColor = mDrawCanvasColor = color;
+		if (mRawCanvasColor != color) {
+			this.mRawCanvasColor = color;
+			this.mDrawCanvasColor = applyAlpha(color, mDrawAlpha);
 			invalidate();
 		}
 	}
@@ -235,8 +247,9 @@ public class SettingColorView extends View {
 	 * @see #getColor()
 	 */
 	public void setColor(@ColorInt final int color) {
-		if (mRawColor != color || mDrawColor != color) {
-			this.mRawColor = mDrawColor = color;
+		if (mRawColor != color) {
+			this.mRawColor = color;
+			this.mDrawColor = applyAlpha(color, mDrawAlpha);
 			invalidate();
 		}
 	}
@@ -256,11 +269,29 @@ public class SettingColorView extends View {
 	 */
 	@Override
 	protected boolean onSetAlpha(final int alpha) {
-		this.mDrawColor = (mRawColor << 8 >>> 8) | (alpha << 24);
-		this.mDrawCanvasColor = (mDrawCanvasColor << 8 >>> 8) | (alpha << 24);
+		if (mDrawAlpha != alpha) {
+			this.mDrawAlpha = alpha;
+			this.mDrawColor = applyAlpha(mRawColor, alpha);
+			this.mDrawCanvasColor = applyAlpha(mRawCanvasColor, alpha);
+		}
 		return true;
 	}
 
+	/**
+	 * Applies the specified <var>alpha</var> to the given <var>color</var> by multiplying the color's
+	 * own alpha component by it.
+	 *
+	 * @param color The color to which to apply the alpha.
+	 * @param alpha The alpha value from the {@code [0, 255]} range.
+	 * @return The color with modified alpha component.
+	 */
+	private static int applyAlpha(final int color, final int alpha) {
+		if (alpha == 255) {
+			return color;
+		}
+		return (color & 0x00ffffff) | (((color >>> 24) * alpha / 255) << 24);
+	}
+
 	/**
 	 */
 	@Override
@@ -282,6 +313,8 @@ public class SettingColorView extends View {
 		this.mWidth = w;
 		this.mHeight = h;
 		this.mRadius = Math.min(mWidth, mHeight) / 2f;
+		this.mCenterX = mWidth / 2f;
+		this.mCenterY = mHeight / 2f;
 	}
 
 	/**
@@ -290,12 +323,23 @@ public class SettingColorView extends View {
 	protected void onDraw(@NonNull final Canvas canvas) {
 		super.onDraw(canvas);
 		if ((mDrawCanvasColor >>> 24) != 0) {
-			mPaint.setColor(mRawCanvasColor);
-			canvas.drawCircle(mWidth / 2f, mHeight / 2f, mRadius, mPaint);
+			this.updatePaintColor(mDrawCanvasColor);
+			canvas.drawCircle(mCenterX, mCenterY, mRadius, mPaint);
 		}
 		if ((mDrawColor >>> 24) != 0) {
-			mPaint.setColor(mDrawColor);
-			canvas.drawCircle(mWidth / 2f, mHeight / 2f, mRadius, mPaint);
+			this.updatePaintColor(mDrawColor);
+			canvas.drawCircle(mCenterX, mCenterY, mRadius, mPaint);
+		}
+	}
+
+	/**
+	 * Updates color of the paint of this view to the specified one, if it is not already set.
+	 *
+	 * @param color The desired paint color.
+	 */
+	private void updatePaintColor(final int color) {
+		if (mPaint.getColor() != color) {
+			mPaint.setColor(color);
 		}
 	}
 
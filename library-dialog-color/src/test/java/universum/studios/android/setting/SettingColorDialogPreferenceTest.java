@@ -18,17 +18,70 @@
  */
 package universum.studios.android.setting;
 
+import android.content.Context;
+import android.graphics.Color;
+import android.preference.PreferenceManager;
+import android.preference.PreferenceScreen;
+
 import org.junit.Test;
+import org.robolectric.util.ReflectionHelpers;
 
 import universum.studios.android.test.local.RobolectricTestCase;
 
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
 public final class SettingColorDialogPreferenceTest extends RobolectricTestCase {
 
+	private static final int[] PALETTE = {Color.RED, Color.GREEN, Color.BLUE};
+
+	@Test
+	public void testPaletteColorIsPersistedAsPlainColor() {
+		final PreferenceManager preferenceManager = ReflectionHelpers.callConstructor(
+				PreferenceManager.class,
+				ReflectionHelpers.ClassParameter.from(Context.class, mApplication)
+		);
+		final PreferenceScreen screen = preferenceManager.createPreferenceScreen(mApplication);
+		final SettingColorDialogPreference preference = new SettingColorDialogPreference(mApplication);
+		preference.setKey("color");
+		preference.setPalette(PALETTE);
+		screen.addPreference(preference);
+		preference.setPaletteColor(2);
+		assertThat(preferenceManager.getSharedPreferences().getInt("color", Color.TRANSPARENT), is(Color.BLUE));
+		final SettingColorDialogPreference restoredPreference = new SettingColorDialogPreference(mApplication);
+		restoredPreference.setKey("color");
+		restoredPreference.setPalette(PALETTE);
+		screen.addPreference(restoredPreference);
+		assertThat(restoredPreference.getColor(), is(Color.BLUE));
+		assertThat(restoredPreference.getPaletteIndex(), is(2));
+	}
+
+	@Test
+	public void testSetColorInPaletteMode() {
+		final SettingColorDialogPreference preference = new SettingColorDialogPreference(mApplication);
+		preference.setPalette(PALETTE);
+		preference.setColor(Color.rgb(10, 240, 20));
+		assertThat(preference.getColor(), is(Color.GREEN));
+		assertThat(preference.getPaletteIndex(), is(1));
+	}
+
+	@Test
+	public void testSetPaletteColor() {
+		final SettingColorDialogPreference preference = new SettingColorDialogPreference(mApplication);
+		preference.setPalette(PALETTE);
+		preference.setPaletteColor(2);
+		assertThat(preference.getColor(), is(Color.BLUE));
+		assertThat(preference.getPaletteIndex(), is(2));
+	}
+
 	@Test
-	public void test() {
-		// todo:: implement test
+	public void testSetColorWithoutPalette() {
+		final SettingColorDialogPreference preference = new SettingColorDialogPreference(mApplication);
+		preference.setColor(Color.CYAN);
+		assertThat(preference.getColor(), is(Color.CYAN));
+		assertThat(preference.getPaletteIndex(), is(SettingColorDialogPreference.NO_PALETTE_INDEX));
 	}
 }
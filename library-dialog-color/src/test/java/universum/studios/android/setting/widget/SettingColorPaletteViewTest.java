@@ -0,0 +1,59 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting.widget;
+
+import android.graphics.Color;
+import android.view.KeyEvent;
+
+import org.junit.Test;
+
+import universum.studios.android.test.local.RobolectricTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class SettingColorPaletteViewTest extends RobolectricTestCase {
+
+	@Test
+	public void testSetPaletteClearsOutOfRangeSelection() {
+		final SettingColorPaletteView view = new SettingColorPaletteView(mApplication);
+		view.setPalette(new int[]{Color.RED, Color.GREEN, Color.BLUE});
+		view.setSelectedIndex(2);
+		assertThat(view.getSelectedIndex(), is(2));
+		view.setPalette(new int[]{Color.RED});
+		assertThat(view.getSelectedIndex(), is(SettingColorPaletteView.NO_INDEX));
+	}
+
+	@Test
+	public void testDirectionKeysMoveSelection() {
+		final SettingColorPaletteView view = new SettingColorPaletteView(mApplication);
+		view.setPalette(new int[]{Color.RED, Color.GREEN, Color.BLUE});
+		view.setSelectedIndex(0);
+		assertThat(view.isFocusable(), is(true));
+		assertThat(view.onKeyDown(KeyEvent.KEYCODE_DPAD_RIGHT, new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_DPAD_RIGHT)), is(true));
+		assertThat(view.getSelectedIndex(), is(1));
+		assertThat(view.onKeyDown(KeyEvent.KEYCODE_DPAD_LEFT, new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_DPAD_LEFT)), is(true));
+		assertThat(view.getSelectedIndex(), is(0));
+		assertThat(view.onKeyDown(KeyEvent.KEYCODE_DPAD_LEFT, new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_DPAD_LEFT)), is(false));
+		assertThat(view.getSelectedIndex(), is(0));
+	}
+}
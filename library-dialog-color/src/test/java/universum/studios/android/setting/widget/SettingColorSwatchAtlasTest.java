@@ -0,0 +1,90 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting.widget;
+
+import android.graphics.Color;
+
+import org.junit.Test;
+
+import universum.studios.android.test.local.RobolectricTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.hamcrest.number.OrderingComparison.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class SettingColorSwatchAtlasTest extends RobolectricTestCase {
+
+	private static int[] createPalette(final int size) {
+		final int[] palette = new int[size];
+		for (int i = 0; i < size; i++) {
+			palette[i] = Color.rgb(i, 255 - i, i / 2);
+		}
+		return palette;
+	}
+
+	@Override
+	public void afterTest() throws Exception {
+		super.afterTest();
+		SettingColorSwatchAtlas.clearCache();
+	}
+
+	@Test
+	public void testObtainSharesAtlasForSamePalette() {
+		final SettingColorSwatchAtlas atlas = SettingColorSwatchAtlas.obtain(new int[]{Color.RED, Color.BLUE}, 10, Color.WHITE);
+		assertThat(SettingColorSwatchAtlas.obtain(new int[]{Color.RED, Color.BLUE}, 10, Color.WHITE), is(sameInstance(atlas)));
+		assertThat(atlas.getSwatchesCount(), is(2));
+		assertThat(atlas.getSwatchSize(), is(10));
+	}
+
+	@Test
+	public void testObtainCreatesAtlasForDifferentParameters() {
+		final SettingColorSwatchAtlas atlas = SettingColorSwatchAtlas.obtain(new int[]{Color.RED, Color.BLUE}, 10, Color.WHITE);
+		assertThat(SettingColorSwatchAtlas.obtain(new int[]{Color.RED, Color.BLUE}, 12, Color.WHITE), is(not(sameInstance(atlas))));
+		assertThat(SettingColorSwatchAtlas.obtain(new int[]{Color.RED}, 10, Color.WHITE), is(not(sameInstance(atlas))));
+		assertThat(SettingColorSwatchAtlas.obtain(new int[]{Color.RED, Color.BLUE}, 10, Color.BLACK), is(not(sameInstance(atlas))));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testObtainWithInvalidSwatchSize() {
+		SettingColorSwatchAtlas.obtain(new int[]{Color.RED}, 0, Color.WHITE);
+	}
+
+	@Test
+	public void testAtlasFitsMaxTextureSize() {
+		for (final int swatchSize : new int[]{24, 96, 200}) {
+			final SettingColorSwatchAtlas atlas = SettingColorSwatchAtlas.obtain(createPalette(256), swatchSize, Color.WHITE);
+			assertThat(atlas.getBitmapWidth(), is(lessThanOrEqualTo(SettingColorSwatchAtlas.MAX_TEXTURE_SIZE)));
+			assertThat(atlas.getBitmapHeight(), is(lessThanOrEqualTo(SettingColorSwatchAtlas.MAX_TEXTURE_SIZE)));
+			assertThat(atlas.getSwatchesCount(), is(256));
+		}
+	}
+
+	@Test
+	public void testCacheIsBounded() {
+		for (int i = 0; i < 20; i++) {
+			SettingColorSwatchAtlas.obtain(createPalette(256), 96 + i, Color.WHITE);
+		}
+		assertThat(SettingColorSwatchAtlas.getCacheSize(), is(lessThanOrEqualTo(8)));
+	}
+}
@@ -18,17 +18,49 @@
  */
 package universum.studios.android.setting.widget;
 
+import android.graphics.Color;
+
 import org.junit.Test;
 
 import universum.studios.android.test.local.RobolectricTestCase;
 
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
 public final class SettingColorViewTest extends RobolectricTestCase {
 
 	@Test
-	public void test() {
-		// todo:: implement test
+	public void testOnSetAlphaDoesNotDriftCanvasColor() {
+		final SettingColorView view = new SettingColorView(mApplication);
+		view.setCanvasColor(Color.RED);
+		for (int i = 0; i < 10; i++) {
+			view.onSetAlpha(128);
+			view.onSetAlpha(64);
+		}
+		view.onSetAlpha(255);
+		assertThat(view.getCanvasColor(), is(Color.RED));
+	}
+
+	@Test
+	public void testOnSetAlphaMultipliesColorAlpha() {
+		final SettingColorView view = new SettingColorView(mApplication);
+		view.setColor(Color.argb(128, 0, 0, 255));
+		view.onSetAlpha(0);
+		assertThat(Color.alpha(view.getColor()), is(0));
+		view.onSetAlpha(255);
+		assertThat(view.getColor(), is(Color.argb(128, 0, 0, 255)));
+	}
+
+	@Test
+	public void testSetColorKeepsCurrentAlpha() {
+		final SettingColorView view = new SettingColorView(mApplication);
+		view.onSetAlpha(0);
+		view.setColor(Color.GREEN);
+		view.setCanvasColor(Color.BLUE);
+		assertThat(Color.alpha(view.getColor()), is(0));
+		assertThat(Color.alpha(view.getCanvasColor()), is(0));
 	}
 }
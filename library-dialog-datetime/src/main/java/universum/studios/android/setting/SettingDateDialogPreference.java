@@ -157,35 +157,32 @@ public final class SettingDateDialogPreference extends SettingDateTimeDialogPref
 
 	/**
 	 */
+	@Nullable
 	@Override
-	protected void onConfigureDialogOptions(
-			@NonNull final DatePickerDialog.DateOptions options,
-			@NonNull final Context context,
-			@Nullable final AttributeSet attrs,
-			@AttrRes final int defStyleAttr,
-			@StyleRes final int defStyleRes
-	) {
-		super.onConfigureDialogOptions(options, context, attrs, defStyleAttr, defStyleRes);
-		String formatPattern = FORMAT_PATTERN;
-		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_DateDialogPreference, defStyleAttr, defStyleRes);
-		for (int i = 0; i < attributes.getIndexCount(); i++) {
-			final int index = attributes.getIndex(i);
-			if (index == R.styleable.Ui_Settings_DateDialogPreference_uiSettingDateFormat) {
-				final String dateFormat = attributes.getString(index);
-				formatPattern = TextUtils.isEmpty(dateFormat) ? formatPattern : dateFormat;
-			} else if (index == R.styleable.Ui_Settings_DateDialogPreference_dialogDate) {
-				final Long date = parseDate(attributes.getString(index));
-				if (date != null) options.date(date);
-			} else if (index == R.styleable.Ui_Settings_DateDialogPreference_dialogDateMin) {
-				final Long date = parseDate(attributes.getString(index));
-				if (date != null) options.minDate(date);
-			} else if (index == R.styleable.Ui_Settings_DateDialogPreference_dialogDateMax) {
-				final Long date = parseDate(attributes.getString(index));
-				if (date != null) options.maxDate(date);
-			}
-		}
-		attributes.recycle();
-		setFormat(new SimpleDateFormat(formatPattern, Locale.getDefault()));
+	protected int[] onGetDialogAttrs() {
+		return R.styleable.Ui_Settings_DateDialogPreference;
+	}
+
+	/**
+	 */
+	@Override
+	protected void onProcessDialogAttributes(@NonNull final PreferenceAttributes attributes) {
+		super.onProcessDialogAttributes(attributes);
+		final String dateFormat = attributes.getString(R.attr.uiSettingDateFormat);
+		setFormat(new SimpleDateFormat(TextUtils.isEmpty(dateFormat) ? FORMAT_PATTERN : dateFormat, Locale.getDefault()));
+	}
+
+	/**
+	 */
+	@Override
+	protected void onConfigureDialogOptions(@NonNull final DatePickerDialog.DateOptions options, @NonNull final PreferenceAttributes attributes) {
+		super.onConfigureDialogOptions(options, attributes);
+		final Long date = parseDate(attributes.getString(R.attr.dialogDate));
+		if (date != null) options.date(date);
+		final Long minDate = parseDate(attributes.getString(R.attr.dialogDateMin));
+		if (minDate != null) options.minDate(minDate);
+		final Long maxDate = parseDate(attributes.getString(R.attr.dialogDateMax));
+		if (maxDate != null) options.maxDate(maxDate);
 	}
 
 	/**
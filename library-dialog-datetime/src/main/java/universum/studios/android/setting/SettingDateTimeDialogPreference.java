@@ -185,7 +185,7 @@ public abstract class SettingDateTimeDialogPreference<O extends DialogOptions<O>
 			this.mMillisecondsSet = true;
 			persistLong(mMilliseconds);
 			if (changed) {
-				notifyChanged();
+				notifyChanged(CHANGE_SUMMARY);
 			}
 		}
 	}
@@ -155,36 +155,35 @@ public class SettingTimeDialogPreference extends SettingDateTimeDialogPreference
 		return new TimePickerDialog.TimeOptions(resources);
 	}
 
+	/**
+	 */
+	@Nullable
+	@Override
+	protected int[] onGetDialogAttrs() {
+		return R.styleable.Ui_Settings_TimeDialogPreference;
+	}
+
+	/**
+	 */
+	@Override
+	protected void onProcessDialogAttributes(@NonNull final PreferenceAttributes attributes) {
+		super.onProcessDialogAttributes(attributes);
+		final String dateFormat = attributes.getString(R.attr.uiSettingDateFormat);
+		setFormat(new SimpleDateFormat(TextUtils.isEmpty(dateFormat) ? FORMAT_PATTERN : dateFormat, Locale.getDefault()));
+	}
+
 	/**
 	 */
 	@Override
 	@SuppressWarnings("ResourceType")
-	protected void onConfigureDialogOptions(
-			@NonNull final TimePickerDialog.TimeOptions options,
-			@NonNull final Context context,
-			@Nullable final AttributeSet attrs,
-			@AttrRes final int defStyleAttr,
-			@StyleRes final int defStyleRes
-	) {
-		super.onConfigureDialogOptions(options, context, attrs, defStyleAttr, defStyleRes);
-		String formatPattern = FORMAT_PATTERN;
-		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_TimeDialogPreference, defStyleAttr, defStyleRes);
-		for (int i = 0; i < attributes.getIndexCount(); i++) {
-			final int index = attributes.getIndex(i);
-			if (index == R.styleable.Ui_Settings_TimeDialogPreference_uiSettingDateFormat) {
-				final String dateFormat = attributes.getString(index);
-				formatPattern = TextUtils.isEmpty(dateFormat) ? formatPattern : dateFormat;
-			} else if (index == R.styleable.Ui_Settings_TimeDialogPreference_dialogTime) {
-				final Long time = parseTime(attributes.getString(index));
-				if (time != null) options.time(time);
-			} else if (index == R.styleable.Ui_Settings_TimeDialogPreference_dialogTimePickers) {
-				options.timePickers(attributes.getInt(index, options.timePickers()));
-			} else if (index == R.styleable.Ui_Settings_TimeDialogPreference_dialogTimeQuantityText) {
-				options.timeQuantityText(attributes.getResourceId(index, 0));
-			}
+	protected void onConfigureDialogOptions(@NonNull final TimePickerDialog.TimeOptions options, @NonNull final PreferenceAttributes attributes) {
+		super.onConfigureDialogOptions(options, attributes);
+		final Long time = parseTime(attributes.getString(R.attr.dialogTime));
+		if (time != null) options.time(time);
+		options.timePickers(attributes.getInt(R.attr.dialogTimePickers, options.timePickers()));
+		if (attributes.hasValue(R.attr.dialogTimeQuantityText)) {
+			options.timeQuantityText(attributes.getResourceId(R.attr.dialogTimeQuantityText, 0));
 		}
-		attributes.recycle();
-		setFormat(new SimpleDateFormat(formatPattern, Locale.getDefault()));
 	}
 
 	/**
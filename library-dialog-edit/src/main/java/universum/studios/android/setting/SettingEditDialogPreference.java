@@ -144,27 +144,24 @@ public class SettingEditDialogPreference extends SettingDialogPreference<EditDia
 
 	/**
 	 */
+	@Nullable
 	@Override
-	protected void onConfigureDialogOptions(
-			@NonNull final EditDialog.EditOptions options,
-			@NonNull final Context context,
-			@Nullable final AttributeSet attrs,
-			@AttrRes final int defStyleAttr,
-			@StyleRes final int defStyleRes
-	) {
-		super.onConfigureDialogOptions(options, context, attrs, defStyleAttr, defStyleRes);
-		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_EditDialogPreference, defStyleAttr, defStyleRes);
-		for (int i = 0; i < attributes.getIndexCount(); i++) {
-			final int index = attributes.getIndex(i);
-			if (index == R.styleable.Ui_Settings_EditDialogPreference_dialogHint) {
-				options.hint(attributes.getText(index));
-			} else if (index == R.styleable.Ui_Settings_EditDialogPreference_dialogInputStyle) {
-				options.inputConfig(InputConfig.fromStyle(context, attributes.getResourceId(index, 0)));
-			} else if (index == R.styleable.Ui_Settings_EditDialogPreference_dialogShowSoftKeyboard) {
-				options.showSoftKeyboard(attributes.getBoolean(index, options.shouldShowSoftKeyboard()));
-			}
+	protected int[] onGetDialogAttrs() {
+		return R.styleable.Ui_Settings_EditDialogPreference;
+	}
+
+	/**
+	 */
+	@Override
+	protected void onConfigureDialogOptions(@NonNull final EditDialog.EditOptions options, @NonNull final PreferenceAttributes attributes) {
+		super.onConfigureDialogOptions(options, attributes);
+		if (attributes.hasValue(R.attr.dialogHint)) {
+			options.hint(attributes.getText(R.attr.dialogHint));
+		}
+		if (attributes.hasValue(R.attr.dialogInputStyle)) {
+			options.inputConfig(InputConfig.fromStyle(getContext(), attributes.getResourceId(R.attr.dialogInputStyle, 0)));
 		}
-		attributes.recycle();
+		options.showSoftKeyboard(attributes.getBoolean(R.attr.dialogShowSoftKeyboard, options.shouldShowSoftKeyboard()));
 	}
 
 	/**
@@ -205,7 +202,7 @@ public class SettingEditDialogPreference extends SettingDialogPreference<EditDia
 			this.mInputSet = true;
 			persistString(mInput);
 			if (changed) {
-				notifyChanged();
+				notifyChanged(CHANGE_SUMMARY);
 			}
 		}
 	}
@@ -0,0 +1,872 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.SharedPreferences;
+import android.content.res.TypedArray;
+import android.database.DataSetObserver;
+import android.graphics.drawable.Drawable;
+import android.preference.Preference;
+import android.preference.PreferenceScreen;
+import android.preference.TwoStatePreference;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.ListAdapter;
+import android.widget.TextView;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link RecyclerView.Adapter} implementation that presents preferences of a {@link PreferenceScreen}.
+ * <p>
+ * The adapter presents the same flattened list of preferences as the root adapter of the attached
+ * preference screen (see {@link PreferenceScreen#getRootAdapter()}) and observes that adapter for
+ * changes. When a change is reported, only preferences of which presented state has changed are
+ * rebound, and if only title, summary or icon of a preference has changed, only the corresponding
+ * view of its item view is updated via payload. Items are identified by stable ids of theirs
+ * preferences, so preferences added into or removed from the screen are notified as range changes.
+ * <p>
+ * The adapter is also attached as {@link SettingPreference.ChangeObserver} to all presented setting
+ * preferences, so changes notified by those preferences via {@link SettingPreference#notifyChanged(int)}
+ * rebind only item views of the changed preferences and only the views affected by the changes
+ * via {@link SettingPreference#onBindViewChanges(View, int)}.
+ * <p>
+ * Each combination of preference class, its layout and widget layout is presented as a separate
+ * view type. View types are shared by all instances of this adapter, so adapters presenting different
+ * preference screens may share a single {@link RecyclerView.RecycledViewPool}.
+ *
+ * @author Martin Albedinsky
+ */
+final class PreferenceRecyclerAdapter extends RecyclerView.Adapter<PreferenceRecyclerAdapter.ViewHolder>
+		implements
+		SettingPreference.ChangeObserver {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	private static final String TAG = "PreferenceRecyclerAdapter";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * View types registered for all combinations of preference class, layout and widget layout
+	 * presented by adapters so far.
+	 */
+	private static final Map<ViewType, Integer> sViewTypes = new HashMap<>();
+
+	/**
+	 * Boolean flag indicating whether {@link #sOnCreateViewMethod} has been already resolved.
+	 */
+	private static boolean sOnCreateViewMethodResolved;
+
+	/**
+	 * Method of {@link Preference} used to create item views without binding them. May be {@code null}
+	 * if not available on the current platform.
+	 */
+	private static Method sOnCreateViewMethod;
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Observer registered on the root adapter of the attached preference screen.
+	 */
+	private final DataSetObserver mRootAdapterObserver = new DataSetObserver() {
+
+		/**
+		 */
+		@Override
+		public void onChanged() {
+			handleRootAdapterChange();
+		}
+
+		/**
+		 */
+		@Override
+		public void onInvalidated() {
+			handleRootAdapterChange();
+		}
+	};
+
+	/**
+	 * Listener dispatching clicks on item views to the corresponding preferences.
+	 */
+	private final View.OnClickListener mItemClickListener = new View.OnClickListener() {
+
+		/**
+		 */
+		@Override
+		public void onClick(@NonNull final View view) {
+			handleItemClick(view);
+		}
+	};
+
+	/**
+	 * Recycler view to which is this adapter attached.
+	 */
+	private RecyclerView mRecyclerView;
+
+	/**
+	 * Preference screen of which preferences are presented by this adapter.
+	 */
+	private PreferenceScreen mPreferenceScreen;
+
+	/**
+	 * Root adapter of the attached preference screen.
+	 */
+	private ListAdapter mRootAdapter;
+
+	/**
+	 * Preferences presented by this adapter.
+	 */
+	private List<Preference> mItems = Collections.emptyList();
+
+	/**
+	 * Stable ids of preferences stored at the same positions as the preferences in {@link #mItems}.
+	 */
+	private long[] mItemIds = new long[0];
+
+	/**
+	 * View types of preferences stored at the same positions as the preferences in {@link #mItems}.
+	 */
+	private int[] mItemViewTypes = new int[0];
+
+	/**
+	 * States of preferences as last presented by this adapter stored at the same positions as the
+	 * preferences in {@link #mItems}.
+	 */
+	private ItemState[] mItemStates = new ItemState[0];
+
+	/**
+	 * Preferences of which item views are used to create item views for the corresponding view types.
+	 */
+	private final SparseArray<Preference> mViewTypePrototypes = new SparseArray<>();
+
+	/**
+	 * Resource id of background used for item views that do not have theirs own background.
+	 */
+	private int mItemBackgroundResource = -1;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of PreferenceRecyclerAdapter with stable ids.
+	 */
+	PreferenceRecyclerAdapter() {
+		super();
+		setHasStableIds(true);
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Attaches the given <var>preferenceScreen</var> to this adapter and notifies data set change.
+	 *
+	 * @param preferenceScreen The preference screen of which preferences to present. May be {@code null}
+	 *                         to detach the current one.
+	 */
+	void setPreferenceScreen(@Nullable final PreferenceScreen preferenceScreen) {
+		if (mPreferenceScreen == preferenceScreen) {
+			return;
+		}
+		if (mRootAdapter != null) {
+			mRootAdapter.unregisterDataSetObserver(mRootAdapterObserver);
+			this.mRootAdapter = null;
+		}
+		this.mPreferenceScreen = preferenceScreen;
+		if (preferenceScreen != null) {
+			this.mRootAdapter = preferenceScreen.getRootAdapter();
+			mRootAdapter.registerDataSetObserver(mRootAdapterObserver);
+		}
+		final List<Preference> previousItems = mItems;
+		mViewTypePrototypes.clear();
+		this.mItems = collectItems();
+		this.mItemIds = collectItemIds();
+		this.mItemViewTypes = collectItemViewTypes();
+		this.mItemStates = new ItemState[mItems.size()];
+		this.collectItemStates(0, mItemStates.length);
+		this.updateChangeObservers(previousItems, mItems);
+		notifyDataSetChanged();
+	}
+
+	/**
+	 * Returns the preference screen attached to this adapter.
+	 *
+	 * @return The attached preference screen or {@code null} if there is no screen attached.
+	 */
+	@Nullable
+	PreferenceScreen getPreferenceScreen() {
+		return mPreferenceScreen;
+	}
+
+	/**
+	 * Collects preferences currently presented by the root adapter.
+	 *
+	 * @return List of preferences.
+	 */
+	private List<Preference> collectItems() {
+		if (mRootAdapter == null) {
+			return Collections.emptyList();
+		}
+		final int count = mRootAdapter.getCount();
+		final List<Preference> items = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			items.add((Preference) mRootAdapter.getItem(i));
+		}
+		return items;
+	}
+
+	/**
+	 * Collects stable ids of preferences currently presented by the root adapter.
+	 *
+	 * @return Array of ids.
+	 */
+	private long[] collectItemIds() {
+		final int count = mRootAdapter == null ? 0 : mRootAdapter.getCount();
+		final long[] itemIds = new long[count];
+		for (int i = 0; i < count; i++) {
+			itemIds[i] = mRootAdapter.getItemId(i);
+		}
+		return itemIds;
+	}
+
+	/**
+	 * Resolves view types of preferences from {@link #mItems} and registers preferences of view types
+	 * not presented by this adapter yet as prototypes for creation of theirs item views.
+	 *
+	 * @return Array of view types.
+	 */
+	private int[] collectItemViewTypes() {
+		final int count = mItems.size();
+		final int[] itemViewTypes = new int[count];
+		if (count == 0) {
+			return itemViewTypes;
+		}
+		synchronized (sViewTypes) {
+			for (int i = 0; i < count; i++) {
+				final ViewType viewType = new ViewType(mItems.get(i));
+				Integer registeredType = sViewTypes.get(viewType);
+				if (registeredType == null) {
+					registeredType = sViewTypes.size();
+					sViewTypes.put(viewType, registeredType);
+				}
+				itemViewTypes[i] = registeredType;
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			if (mViewTypePrototypes.get(itemViewTypes[i]) == null) {
+				mViewTypePrototypes.put(itemViewTypes[i], mItems.get(i));
+			}
+		}
+		return itemViewTypes;
+	}
+
+	/**
+	 * Attaches this adapter as change observer to all setting preferences from the given
+	 * <var>items</var> and detaches it from the setting preferences that are presented no more.
+	 *
+	 * @param previousItems Preferences presented previously.
+	 * @param items         Preferences presented now.
+	 */
+	private void updateChangeObservers(final List<Preference> previousItems, final List<Preference> items) {
+		final Set<Preference> presentedItems = Collections.newSetFromMap(new IdentityHashMap<Preference, Boolean>(items.size()));
+		for (final Preference preference : items) {
+			presentedItems.add(preference);
+			if (preference instanceof SettingPreference) {
+				((SettingPreference) preference).setChangeObserver(this);
+			}
+		}
+		for (final Preference preference : previousItems) {
+			if (preference instanceof SettingPreference && !presentedItems.contains(preference)) {
+				final SettingPreference settingPreference = (SettingPreference) preference;
+				if (settingPreference.getChangeObserver() == this) {
+					settingPreference.setChangeObserver(null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects states of preferences presented at the specified range of positions into
+	 * {@link #mItemStates}.
+	 * <p>
+	 * As the type of persisted values is not known up front, all persisted values are read at once,
+	 * so this should be called only for items that are newly presented.
+	 *
+	 * @param start Position of the first item of which state to collect.
+	 * @param count Count of items of which states to collect.
+	 */
+	private void collectItemStates(final int start, final int count) {
+		if (count == 0) {
+			return;
+		}
+		final Map<String, ?> values = collectPersistedValues();
+		for (int i = start; i < start + count; i++) {
+			final Preference preference = mItems.get(i);
+			mItemStates[i] = new ItemState(preference, preference.hasKey() ? values.get(preference.getKey()) : null);
+		}
+	}
+
+	/**
+	 * Collects values of preferences persisted in shared preferences of the attached preference screen.
+	 *
+	 * @return Map of persisted values.
+	 */
+	private Map<String, ?> collectPersistedValues() {
+		final SharedPreferences sharedPreferences = mPreferenceScreen == null ? null : mPreferenceScreen.getSharedPreferences();
+		return sharedPreferences == null ? Collections.<String, Object>emptyMap() : sharedPreferences.getAll();
+	}
+
+	/**
+	 * Reads value of the given <var>preference</var> persisted in shared preferences of the attached
+	 * preference screen. As shared preferences do not provide untyped access to a single value, the
+	 * value is read as of the same type as its <var>previousValue</var>.
+	 *
+	 * @param preference    The preference of which value to read.
+	 * @param previousValue The previously presented value of the preference. May be {@code null}.
+	 * @return Persisted value or {@code null} if there is no value persisted or its type cannot
+	 * be determined.
+	 */
+	private Object readPersistedValue(final Preference preference, final Object previousValue) {
+		final SharedPreferences sharedPreferences = mPreferenceScreen == null ? null : mPreferenceScreen.getSharedPreferences();
+		if (sharedPreferences == null || previousValue == null || !preference.hasKey()) {
+			return null;
+		}
+		final String key = preference.getKey();
+		if (!sharedPreferences.contains(key)) {
+			return null;
+		}
+		try {
+			if (previousValue instanceof String) return sharedPreferences.getString(key, null);
+			if (previousValue instanceof Boolean) return sharedPreferences.getBoolean(key, false);
+			if (previousValue instanceof Integer) return sharedPreferences.getInt(key, 0);
+			if (previousValue instanceof Long) return sharedPreferences.getLong(key, 0L);
+			if (previousValue instanceof Float) return sharedPreferences.getFloat(key, 0f);
+			if (previousValue instanceof Set) return sharedPreferences.getStringSet(key, null);
+		} catch (ClassCastException e) {
+			// Type of the persisted value has changed.
+		}
+		return null;
+	}
+
+	/**
+	 * Handles change reported by the root adapter of the attached preference screen.
+	 * <p>
+	 * Preferences added or removed between the preferences at the start and at the end of the
+	 * presented list, identified by theirs stable ids, are notified as range changes. Preferences
+	 * which remained are rebound only if theirs state has changed. If no change can be determined,
+	 * all items are rebound.
+	 * <p>
+	 * Presented states of preferences which remained are reused and are compared directly with the
+	 * current state of those preferences, reading only theirs own persisted values. New states are
+	 * created only for preferences of which state has changed or which are newly presented.
+	 */
+	final void handleRootAdapterChange() {
+		final List<Preference> previousItems = mItems;
+		final long[] previousItemIds = mItemIds;
+		final ItemState[] previousStates = mItemStates;
+		this.mItems = collectItems();
+		this.mItemIds = collectItemIds();
+		this.mItemViewTypes = collectItemViewTypes();
+		this.updateChangeObservers(previousItems, mItems);
+		final int previousCount = previousItemIds.length;
+		final int count = mItemIds.length;
+		int headCount = 0;
+		while (headCount < previousCount && headCount < count && previousItemIds[headCount] == mItemIds[headCount]) {
+			headCount++;
+		}
+		int tailCount = 0;
+		while (tailCount < previousCount - headCount && tailCount < count - headCount &&
+				previousItemIds[previousCount - 1 - tailCount] == mItemIds[count - 1 - tailCount]) {
+			tailCount++;
+		}
+		final int removedCount = previousCount - headCount - tailCount;
+		final int insertedCount = count - headCount - tailCount;
+		if (removedCount > 0 || insertedCount > 0) {
+			this.mItemStates = new ItemState[count];
+			System.arraycopy(previousStates, 0, mItemStates, 0, headCount);
+			System.arraycopy(previousStates, previousCount - tailCount, mItemStates, count - tailCount, tailCount);
+			this.collectItemStates(headCount, insertedCount);
+		}
+		if (removedCount > 0) {
+			notifyItemRangeRemoved(headCount, removedCount);
+		}
+		if (insertedCount > 0) {
+			notifyItemRangeInserted(headCount, insertedCount);
+		}
+		boolean changeDetected = removedCount > 0 || insertedCount > 0;
+		for (int i = 0; i < headCount; i++) {
+			changeDetected |= dispatchItemChange(i);
+		}
+		for (int i = count - tailCount; i < count; i++) {
+			changeDetected |= dispatchItemChange(i);
+		}
+		if (!changeDetected && count > 0) {
+			// The change is not observable from state of the preferences, like change of a value
+			// that is not persisted, so rebind all items to be sure.
+			notifyItemRangeChanged(0, count);
+		}
+	}
+
+	/**
+	 * Notifies change of item at the specified <var>position</var> if current state of its preference
+	 * differs from its presented state. The presented state is updated if so.
+	 *
+	 * @param position Position of the item.
+	 * @return {@code True} if change has been notified, {@code false} otherwise.
+	 */
+	private boolean dispatchItemChange(final int position) {
+		final Preference preference = mItems.get(position);
+		final ItemState presentedState = mItemStates[position];
+		final Object value = readPersistedValue(preference, presentedState.value);
+		if (!presentedState.isContentSameAs(preference, value)) {
+			mItemStates[position] = new ItemState(preference, value);
+			notifyItemChanged(position);
+			return true;
+		}
+		final int changes = presentedState.resolveChanges(preference);
+		if (changes != 0) {
+			mItemStates[position] = new ItemState(preference, value);
+			notifyItemChanged(position, changes);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 */
+	@Override
+	public void onPreferenceChanged(@NonNull final SettingPreference preference, final int changes) {
+		final int position = mItems.indexOf(preference);
+		if (position != RecyclerView.NO_POSITION) {
+			// Keep the presented state up to date so the change is not dispatched again. Only value of
+			// the changed preference is read, if it cannot be read the item is rebound once more on
+			// the next change of the root adapter.
+			mItemStates[position] = new ItemState(preference, readPersistedValue(preference, mItemStates[position].value));
+			notifyItemChanged(position, changes);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public void onAttachedToRecyclerView(@NonNull final RecyclerView recyclerView) {
+		super.onAttachedToRecyclerView(recyclerView);
+		this.mRecyclerView = recyclerView;
+	}
+
+	/**
+	 */
+	@Override
+	public void onDetachedFromRecyclerView(@NonNull final RecyclerView recyclerView) {
+		super.onDetachedFromRecyclerView(recyclerView);
+		this.mRecyclerView = null;
+	}
+
+	/**
+	 */
+	@Override
+	public int getItemCount() {
+		return mItems.size();
+	}
+
+	/**
+	 */
+	@Override
+	public long getItemId(final int position) {
+		return mItemIds[position];
+	}
+
+	/**
+	 * Returns the preference presented at the specified <var>position</var>.
+	 *
+	 * @param position Position of the desired preference.
+	 * @return The preference at the position.
+	 */
+	@NonNull
+	Preference getItem(final int position) {
+		return mItems.get(position);
+	}
+
+	/**
+	 */
+	@Override
+	public int getItemViewType(final int position) {
+		return mItemViewTypes[position];
+	}
+
+	/**
+	 */
+	@Override
+	public ViewHolder onCreateViewHolder(@NonNull final ViewGroup parent, final int viewType) {
+		final View itemView = createItemView(mViewTypePrototypes.get(viewType), parent);
+		if (itemView.getBackground() == null) {
+			itemView.setBackgroundResource(resolveItemBackgroundResource(parent));
+		}
+		return new ViewHolder(itemView);
+	}
+
+	/**
+	 * Creates a new item view for the given <var>preference</var>.
+	 *
+	 * @param preference The preference for which to create the item view.
+	 * @param parent     The parent view of the item view.
+	 * @return New item view.
+	 */
+	private static View createItemView(final Preference preference, final ViewGroup parent) {
+		final Method onCreateViewMethod = resolveOnCreateViewMethod();
+		if (onCreateViewMethod != null) {
+			try {
+				return (View) onCreateViewMethod.invoke(preference, parent);
+			} catch (Exception e) {
+				Log.w(TAG, "Failed to create view for preference(" + preference.getClass().getSimpleName() + ").", e);
+			}
+		}
+		return preference.getView(null, parent);
+	}
+
+	/**
+	 * Resolves the method used to create item views for preferences.
+	 *
+	 * @return The resolved method or {@code null} if not available.
+	 */
+	@Nullable
+	private static synchronized Method resolveOnCreateViewMethod() {
+		if (!sOnCreateViewMethodResolved) {
+			sOnCreateViewMethodResolved = true;
+			try {
+				sOnCreateViewMethod = Preference.class.getDeclaredMethod("onCreateView", ViewGroup.class);
+				sOnCreateViewMethod.setAccessible(true);
+			} catch (Exception e) {
+				sOnCreateViewMethod = null;
+			}
+		}
+		return sOnCreateViewMethod;
+	}
+
+	/**
+	 * Resolves resource id of background for item views that do not have theirs own background.
+	 *
+	 * @param parent The parent view of item views.
+	 * @return Resource id of the background.
+	 */
+	private int resolveItemBackgroundResource(final ViewGroup parent) {
+		if (mItemBackgroundResource == -1) {
+			final TypedArray attributes = parent.getContext().obtainStyledAttributes(new int[]{android.R.attr.selectableItemBackground});
+			this.mItemBackgroundResource = attributes.getResourceId(0, 0);
+			attributes.recycle();
+		}
+		return mItemBackgroundResource;
+	}
+
+	/**
+	 */
+	@Override
+	public void onBindViewHolder(@NonNull final ViewHolder holder, final int position) {
+		final Preference preference = getItem(position);
+		preference.getView(holder.itemView, mRecyclerView);
+		final boolean selectable = preference.isSelectable();
+		holder.itemView.setOnClickListener(selectable ? mItemClickListener : null);
+		holder.itemView.setClickable(selectable);
+	}
+
+	/**
+	 * Binds only views for which the specified <var>payloads</var> has been dispatched, if possible.
+	 * Changes of setting preferences are bound via {@link SettingPreference#onBindViewChanges(View, int)}.
+	 */
+	@Override
+	public void onBindViewHolder(@NonNull final ViewHolder holder, final int position, @NonNull final List<Object> payloads) {
+		if (payloads.isEmpty()) {
+			onBindViewHolder(holder, position);
+			return;
+		}
+		int flags = 0;
+		for (final Object payload : payloads) {
+			if (!(payload instanceof Integer)) {
+				onBindViewHolder(holder, position);
+				return;
+			}
+			flags |= (Integer) payload;
+		}
+		final Preference preference = getItem(position);
+		if (preference instanceof SettingPreference) {
+			((SettingPreference) preference).onBindViewChanges(holder.itemView, flags);
+		} else if (!holder.bindChanges(preference, flags)) {
+			onBindViewHolder(holder, position);
+		}
+	}
+
+	/**
+	 * Handles click on the given item <var>view</var>.
+	 *
+	 * @param view The clicked item view.
+	 */
+	final void handleItemClick(final View view) {
+		final int position = mRecyclerView == null ? RecyclerView.NO_POSITION : mRecyclerView.getChildAdapterPosition(view);
+		if (position == RecyclerView.NO_POSITION || mPreferenceScreen == null) {
+			return;
+		}
+		final Preference preference = getItem(position);
+		int rootPosition = position;
+		if (rootPosition >= mRootAdapter.getCount() || mRootAdapter.getItem(rootPosition) != preference) {
+			rootPosition = -1;
+			for (int i = 0; i < mRootAdapter.getCount(); i++) {
+				if (mRootAdapter.getItem(i) == preference) {
+					rootPosition = i;
+					break;
+				}
+			}
+			if (rootPosition == -1) {
+				return;
+			}
+		}
+		// Let the screen handle the click the same way as for its framework list view.
+		mPreferenceScreen.onItemClick(null, view, rootPosition, mRootAdapter.getItemId(rootPosition));
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Key of a view type registered for a specific combination of preference class, its layout and
+	 * widget layout.
+	 */
+	private static final class ViewType {
+
+		/**
+		 * Class of preference.
+		 */
+		final Class<?> preferenceClass;
+
+		/**
+		 * Layout and widget layout resources of preference.
+		 */
+		final int layoutResource, widgetLayoutResource;
+
+		/**
+		 * Creates a new instance of ViewType for the given <var>preference</var>.
+		 *
+		 * @param preference The preference for which to create view type.
+		 */
+		ViewType(final Preference preference) {
+			this.preferenceClass = preference.getClass();
+			this.layoutResource = preference.getLayoutResource();
+			this.widgetLayoutResource = preference.getWidgetLayoutResource();
+		}
+
+		/**
+		 */
+		@Override
+		public int hashCode() {
+			int hash = preferenceClass.hashCode();
+			hash = 31 * hash + layoutResource;
+			hash = 31 * hash + widgetLayoutResource;
+			return hash;
+		}
+
+		/**
+		 */
+		@Override
+		public boolean equals(final Object other) {
+			if (other == this) return true;
+			if (!(other instanceof ViewType)) return false;
+			final ViewType viewType = (ViewType) other;
+			return preferenceClass.equals(viewType.preferenceClass) &&
+					layoutResource == viewType.layoutResource &&
+					widgetLayoutResource == viewType.widgetLayoutResource;
+		}
+	}
+
+	/**
+	 * State of a preference as presented by the adapter.
+	 */
+	private static final class ItemState {
+
+		/**
+		 * Presented texts of preference.
+		 */
+		final CharSequence title, summary;
+
+		/**
+		 * Presented icon of preference.
+		 */
+		final Drawable icon;
+
+		/**
+		 * Presented enabled state of preference.
+		 */
+		final boolean enabled;
+
+		/**
+		 * Presented checked state of preference if it is a {@link TwoStatePreference}.
+		 */
+		final boolean checked;
+
+		/**
+		 * Presented persisted value of preference.
+		 */
+		final Object value;
+
+		/**
+		 * Creates a new instance of ItemState for the given <var>preference</var>.
+		 *
+		 * @param preference The preference of which state to capture.
+		 * @param value      Persisted value of the preference. May be {@code null}.
+		 */
+		ItemState(final Preference preference, final Object value) {
+			this.title = preference.getTitle();
+			this.summary = preference.getSummary();
+			this.icon = preference.getIcon();
+			this.enabled = preference.isEnabled();
+			this.checked = preference instanceof TwoStatePreference && ((TwoStatePreference) preference).isChecked();
+			this.value = value;
+		}
+
+		/**
+		 * Checks whether the content of this state that may be presented only via full binding is
+		 * the same as the current content of the given <var>preference</var>.
+		 *
+		 * @param preference   The preference to compare with.
+		 * @param currentValue Current persisted value of the preference. May be {@code null}.
+		 * @return {@code True} if the content is the same, {@code false} otherwise.
+		 */
+		boolean isContentSameAs(final Preference preference, final Object currentValue) {
+			return enabled == preference.isEnabled() &&
+					checked == (preference instanceof TwoStatePreference && ((TwoStatePreference) preference).isChecked()) &&
+					(value == null ? currentValue == null : value.equals(currentValue));
+		}
+
+		/**
+		 * Resolves flags of changes that need to be bound to present the current state of the given
+		 * <var>preference</var> instead of this state.
+		 *
+		 * @param preference The preference to compare with.
+		 * @return Change flags or {@code 0} if the presented texts and icon are the same.
+		 * @see SettingPreference#CHANGE_TITLE
+		 * @see SettingPreference#CHANGE_SUMMARY
+		 * @see SettingPreference#CHANGE_ICON
+		 */
+		int resolveChanges(final Preference preference) {
+			int changes = 0;
+			if (!TextUtils.equals(title, preference.getTitle())) changes |= SettingPreference.CHANGE_TITLE;
+			if (!TextUtils.equals(summary, preference.getSummary())) changes |= SettingPreference.CHANGE_SUMMARY;
+			if (icon != preference.getIcon()) changes |= SettingPreference.CHANGE_ICON;
+			return changes;
+		}
+	}
+
+	/**
+	 * A {@link RecyclerView.ViewHolder} implementation for item views of preferences.
+	 */
+	static final class ViewHolder extends RecyclerView.ViewHolder {
+
+		/**
+		 * Creates a new instance of ViewHolder for the given <var>itemView</var>.
+		 *
+		 * @param itemView Item view created by preference.
+		 */
+		ViewHolder(@NonNull final View itemView) {
+			super(itemView);
+		}
+
+		/**
+		 * Updates only views of the item view specified by the given change <var>flags</var>.
+		 *
+		 * @param preference The preference of which data to bind.
+		 * @param flags      Change flags.
+		 * @return {@code True} if the views has been updated, {@code false} if the changes cannot
+		 * be bound partially so the item view needs to be fully bound.
+		 */
+		boolean bindChanges(final Preference preference, final int flags) {
+			if ((flags & SettingPreference.CHANGE_WIDGET) != 0) {
+				return false;
+			}
+			final TextView titleView = (TextView) itemView.findViewById(android.R.id.title);
+			final TextView summaryView = (TextView) itemView.findViewById(android.R.id.summary);
+			final ImageView iconView = (ImageView) itemView.findViewById(android.R.id.icon);
+			if (((flags & SettingPreference.CHANGE_TITLE) != 0 && titleView == null) ||
+					((flags & SettingPreference.CHANGE_SUMMARY) != 0 && summaryView == null) ||
+					((flags & SettingPreference.CHANGE_ICON) != 0 && iconView == null)) {
+				return false;
+			}
+			if ((flags & SettingPreference.CHANGE_TITLE) != 0) {
+				bindText(titleView, preference.getTitle());
+			}
+			if ((flags & SettingPreference.CHANGE_SUMMARY) != 0) {
+				bindText(summaryView, preference.getSummary());
+			}
+			if ((flags & SettingPreference.CHANGE_ICON) != 0) {
+				final Drawable icon = preference.getIcon();
+				iconView.setImageDrawable(icon);
+				iconView.setVisibility(icon == null ? View.GONE : View.VISIBLE);
+				final View iconFrameView = itemView.findViewById(R.id.icon_frame);
+				if (iconFrameView != null) {
+					iconFrameView.setVisibility(icon == null ? View.GONE : View.VISIBLE);
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Binds the given <var>text</var> to the specified <var>textView</var> the same way as
+		 * {@link Preference} does.
+		 *
+		 * @param textView The text view to which to bind the text.
+		 * @param text     The text to bind.
+		 */
+		private static void bindText(final TextView textView, final CharSequence text) {
+			if (TextUtils.isEmpty(text)) {
+				textView.setVisibility(View.GONE);
+			} else {
+				textView.setText(text);
+				textView.setVisibility(View.VISIBLE);
+			}
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Context;
+import android.preference.PreferenceManager;
+import android.preference.PreferenceScreen;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.XmlRes;
+import android.util.Log;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Helper used to inflate preference hierarchies into detached {@link PreferenceScreen PreferenceScreens}
+ * via {@link PreferenceManager}, so these may be processed before being attached to a fragment.
+ * <p>
+ * The framework does not provide public API for inflation of preferences outside of
+ * {@link android.preference.PreferenceFragment#addPreferencesFromResource(int)}, so this helper
+ * accesses the corresponding method of the preference manager reflectively. Whether the inflation
+ * is supported on the current platform may be checked via {@link #isSupported()}.
+ * <p>
+ * Preferences may be also inflated on a background thread into a detached preference manager
+ * created via {@link #createDetachedPreferenceManager(Context)}, which is not bound to any fragment
+ * and thus is not accessed by the main thread. Whether this is supported may be checked via
+ * {@link #isDetachedInflationSupported()}.
+ *
+ * @author Martin Albedinsky
+ */
+final class PreferenceScreenInflater {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	private static final String TAG = "PreferenceScreenInflater";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Boolean flag indicating whether {@link #sInflateMethod} has been already resolved.
+	 */
+	private static boolean sInflateMethodResolved;
+
+	/**
+	 * Method of {@link PreferenceManager} used to inflate preferences. May be {@code null} if not
+	 * available on the current platform.
+	 */
+	private static Method sInflateMethod;
+
+	/**
+	 * Boolean flag indicating whether {@link #sManagerConstructor} has been already resolved.
+	 */
+	private static boolean sManagerConstructorResolved;
+
+	/**
+	 * Constructor of {@link PreferenceManager} used to create detached preference managers. May be
+	 * {@code null} if not available on the current platform.
+	 */
+	private static Constructor<PreferenceManager> sManagerConstructor;
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 */
+	private PreferenceScreenInflater() {
+		// Not allowed to be instantiated publicly.
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Checks whether inflation of preferences via this helper is supported on the current platform.
+	 *
+	 * @return {@code True} if supported, {@code false} otherwise.
+	 */
+	static boolean isSupported() {
+		return resolveInflateMethod() != null;
+	}
+
+	/**
+	 * Resolves the method used to inflate preferences.
+	 *
+	 * @return The resolved method or {@code null} if not available.
+	 */
+	@Nullable
+	private static synchronized Method resolveInflateMethod() {
+		if (!sInflateMethodResolved) {
+			sInflateMethodResolved = true;
+			try {
+				sInflateMethod = PreferenceManager.class.getDeclaredMethod(
+						"inflateFromResource",
+						Context.class,
+						int.class,
+						PreferenceScreen.class
+				);
+				sInflateMethod.setAccessible(true);
+			} catch (Exception e) {
+				Log.w(TAG, "Inflation of preferences is not supported on this platform.", e);
+				sInflateMethod = null;
+			}
+		}
+		return sInflateMethod;
+	}
+
+	/**
+	 * Checks whether inflation of preferences into a detached preference manager is supported on
+	 * the current platform.
+	 *
+	 * @return {@code True} if supported, {@code false} otherwise.
+	 * @see #createDetachedPreferenceManager(Context)
+	 */
+	static boolean isDetachedInflationSupported() {
+		return resolveInflateMethod() != null && resolveManagerConstructor() != null;
+	}
+
+	/**
+	 * Resolves the constructor used to create detached preference managers.
+	 *
+	 * @return The resolved constructor or {@code null} if not available.
+	 */
+	@Nullable
+	private static synchronized Constructor<PreferenceManager> resolveManagerConstructor() {
+		if (!sManagerConstructorResolved) {
+			sManagerConstructorResolved = true;
+			try {
+				sManagerConstructor = PreferenceManager.class.getDeclaredConstructor(Context.class);
+				sManagerConstructor.setAccessible(true);
+			} catch (Exception e) {
+				Log.w(TAG, "Detached preference managers are not supported on this platform.", e);
+				sManagerConstructor = null;
+			}
+		}
+		return sManagerConstructor;
+	}
+
+	/**
+	 * Creates a new preference manager which is not bound to any fragment, so preferences inflated
+	 * into it may be created on a background thread.
+	 *
+	 * @param context Context used to access the shared preferences.
+	 * @return New detached preference manager.
+	 * @throws UnsupportedOperationException If detached preference managers are not supported on
+	 *                                       the current platform.
+	 * @see #isDetachedInflationSupported()
+	 */
+	@NonNull
+	static PreferenceManager createDetachedPreferenceManager(@NonNull final Context context) {
+		final Constructor<PreferenceManager> constructor = resolveManagerConstructor();
+		if (constructor == null) {
+			throw new UnsupportedOperationException("Detached preference managers are not supported on this platform!");
+		}
+		try {
+			return constructor.newInstance(context);
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new UnsupportedOperationException("Detached preference managers are not supported on this platform!", e);
+		} catch (InvocationTargetException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException("Failed to create preference manager.", cause);
+		}
+	}
+
+	/**
+	 * Inflates hierarchy of preferences from the specified <var>xmlResource</var> into a new
+	 * preference screen that is not attached to any fragment.
+	 * <p>
+	 * This method must be called on the main thread, unless the given preference manager is
+	 * a detached one, as the inflated preferences are attached to the given preference manager.
+	 *
+	 * @param preferenceManager The preference manager that will manage the inflated preferences.
+	 * @param context           Context used to inflate the preferences.
+	 * @param xmlResource       Resource id of the Xml file with preferences to inflate.
+	 * @return New preference screen with the inflated preferences.
+	 * @throws UnsupportedOperationException If inflation is not supported on the current platform.
+	 */
+	@NonNull
+	static PreferenceScreen inflate(@NonNull final PreferenceManager preferenceManager, @NonNull final Context context, @XmlRes final int xmlResource) {
+		final Method inflateMethod = resolveInflateMethod();
+		if (inflateMethod == null) {
+			throw new UnsupportedOperationException("Inflation of preferences is not supported on this platform!");
+		}
+		try {
+			return (PreferenceScreen) inflateMethod.invoke(preferenceManager, context, xmlResource, null);
+		} catch (IllegalAccessException e) {
+			throw new UnsupportedOperationException("Inflation of preferences is not supported on this platform!", e);
+		} catch (InvocationTargetException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException("Failed to inflate preferences.", cause);
+		}
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
@@ -0,0 +1,511 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Bundle;
+import android.preference.Preference;
+import android.preference.PreferenceCategory;
+import android.preference.PreferenceGroup;
+import android.preference.PreferenceManager;
+import android.preference.PreferenceScreen;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact, immutable template of a preference hierarchy that has been inflated from Xml. A template
+ * may be used to create new instances of the same preference hierarchy without parsing of the Xml
+ * resource and resolving of styled attributes of the setting preferences again.
+ * <p>
+ * A new template may be created via {@link #create(PreferenceScreen, Map)} from a freshly inflated
+ * preference screen along with initial states recorded for its setting preferences during the
+ * inflation. Only hierarchies composed of preference groups and setting preferences provided by
+ * the <b>Settings</b> library, of which state is fully captured by theirs public API and the recorded
+ * initial states, are supported. Hierarchies containing any other preferences or dependencies
+ * between preferences are not supported and {@code null} is returned for them.
+ * <p>
+ * Nested preference screens of an instantiated hierarchy may be also created only as stubs without
+ * theirs children which are created later when the nested screen is about to be opened. See
+ * {@link DeferredScreens} for more information.
+ *
+ * @author Martin Albedinsky
+ */
+final class PreferenceTemplate {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "PreferenceTemplate";
+
+	/**
+	 * Names of classes of preference groups that may be contained in a template. State of these
+	 * groups is fully restorable via theirs public API.
+	 */
+	private static final Set<String> TEMPLATABLE_GROUP_CLASS_NAMES = new HashSet<>(Arrays.asList(
+			PreferenceCategory.class.getName(),
+			PreferenceScreen.class.getName(),
+			SettingPreferenceCategory.class.getName()
+	));
+
+	/**
+	 * Names of classes of setting preferences that may be contained in a template. These preferences
+	 * resolve all theirs state from the recorded {@link PreferenceInitialState}, so theirs instances
+	 * created from a template are the same as the inflated ones. Subclasses of these preferences
+	 * are not supported, as they may resolve additional attributes.
+	 */
+	private static final Set<String> TEMPLATABLE_PREFERENCE_CLASS_NAMES = new HashSet<>(Arrays.asList(
+			SettingPreference.class.getName(),
+			SettingPreference.class.getPackage().getName() + ".SettingEmptyPreference",
+			SettingPreference.class.getPackage().getName() + ".SettingDialogPreference",
+			SettingPreference.class.getPackage().getName() + ".SettingEditDialogPreference",
+			SettingPreference.class.getPackage().getName() + ".SettingColorDialogPreference",
+			SettingPreference.class.getPackage().getName() + ".SettingDateDialogPreference",
+			SettingPreference.class.getPackage().getName() + ".SettingTimeDialogPreference",
+			SettingPreference.class.getPackage().getName() + ".SettingSelectionDialogPreference",
+			SettingPreference.class.getPackage().getName() + ".SettingSpinnerPreference",
+			SettingPreference.class.getPackage().getName() + ".SettingSeekBarPreference"
+	));
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Node of the root preference screen.
+	 */
+	private final Node mRoot;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 * Creates a new instance of PreferenceTemplate with the given <var>root</var> node.
+	 *
+	 * @param root Node of the root preference screen.
+	 */
+	private PreferenceTemplate(final Node root) {
+		this.mRoot = root;
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Creates a new template for the given freshly inflated <var>preferenceScreen</var>.
+	 * <p>
+	 * <b>Note</b>, that the template should be created before the inflated preferences are modified
+	 * in any way, for example before theirs keys are modified.
+	 *
+	 * @param preferenceScreen The inflated preference screen.
+	 * @param initialStates    Initial states recorded for setting preferences during the inflation.
+	 * @return New template or {@code null} if the preference hierarchy cannot be represented by
+	 * a template.
+	 */
+	@Nullable
+	static PreferenceTemplate create(@NonNull final PreferenceScreen preferenceScreen, @NonNull final Map<Preference, PreferenceInitialState> initialStates) {
+		final Node root = Node.create(preferenceScreen, initialStates);
+		if (root == null) {
+			return null;
+		}
+		root.resolveDeferrable();
+		return new PreferenceTemplate(root);
+	}
+
+	/**
+	 * Same as {@link #instantiate(PreferenceManager, Context, DeferredScreens)} without deferring
+	 * of nested preference screens.
+	 */
+	@NonNull
+	PreferenceScreen instantiate(@NonNull final PreferenceManager preferenceManager, @NonNull final Context context) {
+		return instantiate(preferenceManager, context, null);
+	}
+
+	/**
+	 * Creates a new instance of the preference hierarchy represented by this template.
+	 * <p>
+	 * If <var>deferredScreens</var> are specified, nested preference screens which may be deferred
+	 * are created without theirs children and are registered into the given deferred screens, so
+	 * theirs children may be created later via {@link DeferredScreens#materialize(PreferenceScreen, PreferenceManager, Context)}.
+	 *
+	 * @param preferenceManager The preference manager that will manage the created preferences.
+	 * @param context           Context in which will be the preferences presented.
+	 * @param deferredScreens   Deferred screens where to register stubs of nested preference screens.
+	 *                          May be {@code null} to create the whole hierarchy.
+	 * @return New preference screen with the created preferences.
+	 */
+	@NonNull
+	PreferenceScreen instantiate(@NonNull final PreferenceManager preferenceManager, @NonNull final Context context, @Nullable final DeferredScreens deferredScreens) {
+		try {
+			return (PreferenceScreen) mRoot.instantiate(preferenceManager, context, null, deferredScreens);
+		} catch (Exception e) {
+			throw asRuntimeException(e);
+		}
+	}
+
+	/**
+	 * Wraps the given exception thrown during instantiation of preferences into runtime exception.
+	 *
+	 * @param e The exception to wrap.
+	 * @return The runtime exception to be thrown.
+	 */
+	private static RuntimeException asRuntimeException(final Exception e) {
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+		if (e instanceof InvocationTargetException) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				return (RuntimeException) cause;
+			}
+			return new IllegalStateException("Failed to instantiate preferences from template.", cause);
+		}
+		return new IllegalStateException("Failed to instantiate preferences from template.", e);
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Registry of nested preference screens that has been created from a template only as stubs,
+	 * without theirs children. Children of such screens are created, attached and have theirs
+	 * values loaded only when {@link #materialize(PreferenceScreen, PreferenceManager, Context)} is
+	 * called for them, which is desired to be done when the screen is about to be opened.
+	 * <p>
+	 * Only nested screens which do not specify fragment nor intent may be deferred.
+	 */
+	static final class DeferredScreens {
+
+		/**
+		 * Map of template nodes for the deferred preference screens.
+		 */
+		private final Map<PreferenceScreen, Node> nodes = new IdentityHashMap<>(2);
+
+		/**
+		 * Registers the given stub <var>preferenceScreen</var> along with its template node.
+		 */
+		void add(final PreferenceScreen preferenceScreen, final Node node) {
+			nodes.put(preferenceScreen, node);
+		}
+
+		/**
+		 * Checks whether the given <var>preference</var> is a deferred preference screen which has
+		 * not been materialized yet.
+		 *
+		 * @param preference The preference to check.
+		 * @return {@code True} if the preference is a deferred screen, {@code false} otherwise.
+		 */
+		boolean contains(@NonNull final Preference preference) {
+			return preference instanceof PreferenceScreen && nodes.containsKey(preference);
+		}
+
+		/**
+		 * Creates children of the given deferred <var>preferenceScreen</var> and adds them into it.
+		 * Nested screens of the screen which may be deferred are created again only as stubs and
+		 * are registered into these deferred screens.
+		 *
+		 * @param preferenceScreen  The deferred preference screen to materialize.
+		 * @param preferenceManager The preference manager that manages the preferences.
+		 * @param context           Context in which will be the preferences presented.
+		 * @return {@code True} if the screen has been materialized, {@code false} if it is not
+		 * a deferred screen.
+		 */
+		boolean materialize(@NonNull final PreferenceScreen preferenceScreen, @NonNull final PreferenceManager preferenceManager, @NonNull final Context context) {
+			final Node node = nodes.remove(preferenceScreen);
+			if (node == null) {
+				return false;
+			}
+			try {
+				node.instantiateChildren(preferenceManager, context, preferenceScreen, this);
+			} catch (Exception e) {
+				throw asRuntimeException(e);
+			}
+			return true;
+		}
+
+		/**
+		 * Drops all registered deferred screens.
+		 */
+		void clear() {
+			nodes.clear();
+		}
+	}
+
+	/**
+	 * Node of a template holding state of a single preference and nodes of its children.
+	 */
+	private static final class Node {
+
+		/**
+		 * Class of the preference.
+		 */
+		Class<? extends Preference> preferenceClass;
+
+		/**
+		 * Constructor used to create instances of the preference. {@code null} for preference screens
+		 * which are created via {@link PreferenceManager#createPreferenceScreen(Context)}.
+		 */
+		Constructor<? extends Preference> constructor;
+
+		/**
+		 * Initial state recorded for the preference if it is a setting preference.
+		 */
+		PreferenceInitialState initialState;
+
+		/**
+		 * State of the preference restorable via its public API.
+		 */
+		String key, fragment;
+		CharSequence title, summary;
+		Drawable.ConstantState iconState;
+		int layoutResource, widgetLayoutResource, order;
+		boolean enabled, selectable, persistent, shouldDisableView;
+		boolean iconSpaceReserved, singleLineTitle;
+		Intent intent;
+		Bundle extras;
+
+		/**
+		 * State of the preference if it is a {@link PreferenceGroup}.
+		 */
+		boolean orderingAsAdded;
+		Node[] children;
+
+		/**
+		 * Boolean flag indicating whether the preference is a nested preference screen of which
+		 * children may be created later.
+		 *
+		 * @see DeferredScreens
+		 */
+		boolean deferrable;
+
+		/**
+		 * Creates a new node for the given <var>preference</var> and its children, if any.
+		 *
+		 * @param preference    The preference for which to create the node.
+		 * @param initialStates Initial states recorded for setting preferences.
+		 * @return New node or {@code null} if the preference or any of its children cannot be
+		 * represented by a template node.
+		 */
+		@Nullable
+		@TargetApi(Build.VERSION_CODES.O)
+		static Node create(final Preference preference, final Map<Preference, PreferenceInitialState> initialStates) {
+			final Class<? extends Preference> preferenceClass = preference.getClass();
+			final PreferenceInitialState initialState = initialStates.get(preference);
+			if (initialState == null) {
+				if (!TEMPLATABLE_GROUP_CLASS_NAMES.contains(preferenceClass.getName())) {
+					return null;
+				}
+			} else if (!TEMPLATABLE_PREFERENCE_CLASS_NAMES.contains(preferenceClass.getName())) {
+				return null;
+			}
+			// Dependency may be set only to a preference attached to its final hierarchy.
+			if (preference.getDependency() != null) {
+				return null;
+			}
+			final Node node = new Node();
+			node.preferenceClass = preferenceClass;
+			node.initialState = initialState;
+			if (preferenceClass != PreferenceScreen.class) {
+				try {
+					node.constructor = preferenceClass.getConstructor(Context.class);
+				} catch (NoSuchMethodException e) {
+					return null;
+				}
+			}
+			final Drawable icon = preference.getIcon();
+			if (icon != null) {
+				node.iconState = icon.getConstantState();
+				if (node.iconState == null) {
+					return null;
+				}
+			}
+			node.key = preference.getKey();
+			node.fragment = preference.getFragment();
+			node.title = preference.getTitle();
+			node.summary = preference.getSummary();
+			node.layoutResource = preference.getLayoutResource();
+			node.widgetLayoutResource = preference.getWidgetLayoutResource();
+			node.order = preference.getOrder();
+			node.enabled = preference.isEnabled();
+			node.selectable = preference.isSelectable();
+			node.persistent = preference.isPersistent();
+			node.shouldDisableView = preference.getShouldDisableView();
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+				node.iconSpaceReserved = preference.isIconSpaceReserved();
+				node.singleLineTitle = preference.isSingleLineTitle();
+			}
+			final Intent intent = preference.getIntent();
+			node.intent = intent == null ? null : new Intent(intent);
+			final Bundle extras = preference.peekExtras();
+			node.extras = extras == null ? null : new Bundle(extras);
+			if (preference instanceof PreferenceGroup) {
+				final PreferenceGroup group = (PreferenceGroup) preference;
+				node.orderingAsAdded = group.isOrderingAsAdded();
+				final int childCount = group.getPreferenceCount();
+				node.children = new Node[childCount];
+				for (int i = 0; i < childCount; i++) {
+					final Node child = create(group.getPreference(i), initialStates);
+					if (child == null) {
+						return null;
+					}
+					node.children[i] = child;
+				}
+			}
+			return node;
+		}
+
+		/**
+		 * Resolves which of nested preference screens of this node may be deferred.
+		 */
+		void resolveDeferrable() {
+			if (children == null) {
+				return;
+			}
+			for (final Node child : children) {
+				child.deferrable = child.isDeferrableScreen();
+				child.resolveDeferrable();
+			}
+		}
+
+		/**
+		 * Checks whether this node is a nested preference screen that may be deferred. Such screen
+		 * must have some children and must not be opened via fragment or intent.
+		 */
+		private boolean isDeferrableScreen() {
+			return preferenceClass == PreferenceScreen.class && fragment == null && intent == null && children != null && children.length > 0;
+		}
+
+		/**
+		 * Creates a new instance of the preference represented by this node along with its children
+		 * and adds it into the given <var>parent</var>, if specified.
+		 *
+		 * @param preferenceManager The preference manager that will manage the created preference.
+		 * @param context           Context in which will be the preference presented.
+		 * @param parent            The group into which to add the created preference. May be {@code null}.
+		 * @param deferredScreens   Deferred screens where to register the created preference without
+		 *                          its children if it is a deferrable nested screen. May be {@code null}.
+		 * @return The created preference.
+		 */
+		@TargetApi(Build.VERSION_CODES.O)
+		Preference instantiate(
+				final PreferenceManager preferenceManager,
+				final Context context,
+				final PreferenceGroup parent,
+				final DeferredScreens deferredScreens
+		) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+			final Preference preference;
+			if (constructor == null) {
+				preference = preferenceManager.createPreferenceScreen(context);
+			} else {
+				PreferenceInitialState.setPending(initialState);
+				try {
+					preference = constructor.newInstance(context);
+				} finally {
+					PreferenceInitialState.setPending(null);
+				}
+			}
+			if (key != null) {
+				preference.setKey(key);
+			}
+			preference.setFragment(fragment);
+			preference.setTitle(title);
+			preference.setSummary(summary);
+			if (iconState != null) {
+				preference.setIcon(iconState.newDrawable(context.getResources()));
+			}
+			preference.setLayoutResource(layoutResource);
+			preference.setWidgetLayoutResource(widgetLayoutResource);
+			preference.setOrder(order);
+			preference.setEnabled(enabled);
+			preference.setSelectable(selectable);
+			preference.setPersistent(persistent);
+			preference.setShouldDisableView(shouldDisableView);
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+				preference.setIconSpaceReserved(iconSpaceReserved);
+				preference.setSingleLineTitle(singleLineTitle);
+			}
+			preference.setIntent(intent == null ? null : new Intent(intent));
+			if (extras != null) {
+				preference.getExtras().putAll(extras);
+			}
+			// Default value of setting preferences is resolved from the same attribute by both the
+			// framework and the library, so the recorded one is also the one of the framework.
+			if (initialState != null && initialState.defaultValue != null) {
+				preference.setDefaultValue(initialState.defaultValue);
+			}
+			// Preferences are added into theirs parent before theirs children are created, the same
+			// way as they are when inflated from Xml.
+			if (parent != null) {
+				parent.addPreference(preference);
+			}
+			if (children != null) {
+				final PreferenceGroup group = (PreferenceGroup) preference;
+				group.setOrderingAsAdded(orderingAsAdded);
+				if (deferredScreens != null && deferrable && parent != null) {
+					deferredScreens.add((PreferenceScreen) group, this);
+				} else {
+					instantiateChildren(preferenceManager, context, group, deferredScreens);
+				}
+			}
+			return preference;
+		}
+
+		/**
+		 * Creates new instances of children of this node and adds them into the given <var>group</var>.
+		 *
+		 * @see #instantiate(PreferenceManager, Context, PreferenceGroup, DeferredScreens)
+		 */
+		void instantiateChildren(
+				final PreferenceManager preferenceManager,
+				final Context context,
+				final PreferenceGroup group,
+				final DeferredScreens deferredScreens
+		) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+			for (final Node child : children) {
+				child.instantiate(preferenceManager, context, group, deferredScreens);
+			}
+		}
+	}
+}
@@ -0,0 +1,428 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.preference.Preference;
+import android.preference.PreferenceManager;
+import android.preference.PreferenceScreen;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.XmlRes;
+import android.util.TypedValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-level cache of {@link PreferenceTemplate PreferenceTemplates} keyed by resource id of
+ * the Xml file from which has been the template inflated, class of the context in which has been
+ * inflated, configuration of its resources and values of its theme attributes used to style
+ * preferences.
+ * <p>
+ * Preferences for a specific Xml resource are inflated from Xml only for the first time, each next
+ * inflation for the same key creates the preferences from the cached template which skips parsing
+ * of the Xml resource and resolving of styled attributes of setting preferences.
+ *
+ * @author Martin Albedinsky
+ */
+final class PreferenceTemplateCache {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "PreferenceTemplateCache";
+
+	/**
+	 * Maximum count of templates held by the cache. The least recently used templates are dropped
+	 * first.
+	 */
+	private static final int MAX_TEMPLATES_COUNT = 16;
+
+	/**
+	 * Template stored in the cache for keys of Xml resources which cannot be represented by template
+	 * so those are not recorded again on each inflation.
+	 */
+	private static final Object NOT_TEMPLATABLE = new Object();
+
+	/**
+	 * Theme attributes which are used to style preferences and of which values are thus part of
+	 * a key of a cached template.
+	 */
+	private static final int[] THEME_ATTRS = {
+			android.R.attr.preferenceStyle,
+			android.R.attr.preferenceCategoryStyle,
+			android.R.attr.preferenceScreenStyle,
+			android.R.attr.dialogPreferenceStyle,
+			android.R.attr.textColorPrimary,
+			android.R.attr.textColorSecondary,
+			android.R.attr.colorAccent,
+			android.R.attr.colorControlNormal,
+			R.attr.uiSettingCategoryStyle,
+			R.attr.uiSettingIconStyle,
+			R.attr.uiSettingTitleStyle,
+			R.attr.uiSettingSummaryStyle
+	};
+
+	/**
+	 * Names of theme attributes of the <b>Settings</b> library which are used to style setting
+	 * preferences and of which values are thus also part of a key of a cached template. These are
+	 * declared by library modules which this module does not depend on, so theirs ids are resolved
+	 * by theirs names at runtime.
+	 */
+	private static final String[] LIBRARY_THEME_ATTR_NAMES = {
+			"uiSettingEditDialogPreferenceStyle",
+			"uiSettingColorDialogPreferenceStyle",
+			"uiSettingDateDialogPreferenceStyle",
+			"uiSettingTimeDialogPreferenceStyle",
+			"uiSettingSelectionDialogPreferenceStyle",
+			"uiSettingSpinnerPreferenceStyle",
+			"uiSettingSeekBarPreferenceStyle"
+	};
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/**
+	 * Map of cached templates ordered by theirs access.
+	 */
+	private static final Map<Key, Object> sTemplates = new LinkedHashMap<Key, Object>(MAX_TEMPLATES_COUNT, 0.75f, true) {
+
+		/**
+		 */
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Key, Object> eldest) {
+			return size() > MAX_TEMPLATES_COUNT;
+		}
+	};
+
+	/**
+	 * Boolean flag indicating whether the cache is enabled.
+	 */
+	private static volatile boolean sEnabled;
+
+	/**
+	 * Ids of {@link #LIBRARY_THEME_ATTR_NAMES} resolved for the current application. Ids of attributes
+	 * which are not available in the application are {@code 0}.
+	 */
+	private static int[] sLibraryThemeAttrs;
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/**
+	 */
+	private PreferenceTemplateCache() {
+		// Not allowed to be instantiated publicly.
+	}
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 * Sets whether the cache should be enabled or not. The cache is disabled by default. Disabling
+	 * of the cache also drops all cached templates.
+	 *
+	 * @param enabled {@code True} to enable the cache, {@code false} otherwise.
+	 */
+	static void setEnabled(final boolean enabled) {
+		sEnabled = enabled;
+		if (!enabled) {
+			clear();
+		}
+	}
+
+	/**
+	 * Returns a flag indicating whether the cache is enabled and supported on the current platform.
+	 *
+	 * @return {@code True} if enabled, {@code false} otherwise.
+	 */
+	static boolean isEnabled() {
+		return sEnabled && PreferenceScreenInflater.isSupported();
+	}
+
+	/**
+	 * Drops all cached templates.
+	 */
+	static void clear() {
+		synchronized (sTemplates) {
+			sTemplates.clear();
+		}
+	}
+
+	/**
+	 * Same as {@link #inflate(PreferenceManager, Context, int, PreferenceTemplate.DeferredScreens)}
+	 * without deferring of nested preference screens.
+	 */
+	@NonNull
+	static PreferenceScreen inflate(@NonNull final PreferenceManager preferenceManager, @NonNull final Context context, @XmlRes final int xmlResource) {
+		return inflate(preferenceManager, context, xmlResource, null);
+	}
+
+	/**
+	 * Inflates hierarchy of preferences from the specified <var>xmlResource</var> into a new
+	 * preference screen that is not attached to any fragment. The preferences are created from
+	 * a cached template if there is one available, otherwise they are inflated via
+	 * {@link PreferenceScreenInflater} and a new template is cached for them.
+	 * <p>
+	 * Nested preference screens may be deferred only when the preferences are created from a cached
+	 * template. When inflated from Xml, the whole hierarchy is always created.
+	 * <p>
+	 * This method may be called from a background thread.
+	 *
+	 * @param preferenceManager The preference manager that will manage the inflated preferences.
+	 * @param context           Context used to inflate the preferences.
+	 * @param xmlResource       Resource id of the Xml file with preferences to inflate.
+	 * @param deferredScreens   Deferred screens where to register stubs of nested preference screens.
+	 *                          May be {@code null} to create the whole hierarchy.
+	 * @return New preference screen with the inflated preferences.
+	 * @see PreferenceScreenInflater#inflate(PreferenceManager, Context, int)
+	 * @see PreferenceTemplate#instantiate(PreferenceManager, Context, PreferenceTemplate.DeferredScreens)
+	 */
+	@NonNull
+	static PreferenceScreen inflate(
+			@NonNull final PreferenceManager preferenceManager,
+			@NonNull final Context context,
+			@XmlRes final int xmlResource,
+			@Nullable final PreferenceTemplate.DeferredScreens deferredScreens
+	) {
+		if (!isEnabled()) {
+			return PreferenceScreenInflater.inflate(preferenceManager, context, xmlResource);
+		}
+		final Key key = new Key(xmlResource, context);
+		final Object cached;
+		synchronized (sTemplates) {
+			cached = sTemplates.get(key);
+		}
+		if (cached instanceof PreferenceTemplate) {
+			return ((PreferenceTemplate) cached).instantiate(preferenceManager, context, deferredScreens);
+		}
+		if (cached == NOT_TEMPLATABLE) {
+			return PreferenceScreenInflater.inflate(preferenceManager, context, xmlResource);
+		}
+		final PreferenceScreen preferenceScreen;
+		final Map<Preference, PreferenceInitialState> initialStates;
+		PreferenceInitialState.startRecording();
+		try {
+			preferenceScreen = PreferenceScreenInflater.inflate(preferenceManager, context, xmlResource);
+		} finally {
+			initialStates = PreferenceInitialState.stopRecording();
+		}
+		final PreferenceTemplate template = PreferenceTemplate.create(preferenceScreen, initialStates);
+		synchronized (sTemplates) {
+			sTemplates.put(key, template == null ? NOT_TEMPLATABLE : template);
+		}
+		return preferenceScreen;
+	}
+
+	/**
+	 * Returns a template of the preference hierarchy declared in the specified <var>xmlResource</var>.
+	 * If there is no cached template available, the preferences are inflated into a detached
+	 * preference manager and a new template is created for them. The created template is cached
+	 * only if the cache is enabled.
+	 * <p>
+	 * This method is intended to be called from a background thread, so the main thread needs only
+	 * to instantiate the returned template.
+	 *
+	 * @param context     Context used to inflate the preferences.
+	 * @param xmlResource Resource id of the Xml file with preferences.
+	 * @return The template or {@code null} if the preference hierarchy cannot be represented by
+	 * a template or inflation into a detached preference manager is not supported.
+	 * @see PreferenceScreenInflater#createDetachedPreferenceManager(Context)
+	 */
+	@Nullable
+	static PreferenceTemplate obtainTemplate(@NonNull final Context context, @XmlRes final int xmlResource) {
+		if (!PreferenceScreenInflater.isDetachedInflationSupported()) {
+			return null;
+		}
+		final boolean enabled = isEnabled();
+		final Key key = enabled ? new Key(xmlResource, context) : null;
+		if (enabled) {
+			final Object cached;
+			synchronized (sTemplates) {
+				cached = sTemplates.get(key);
+			}
+			if (cached != null) {
+				return cached instanceof PreferenceTemplate ? (PreferenceTemplate) cached : null;
+			}
+		}
+		final PreferenceScreen preferenceScreen;
+		final Map<Preference, PreferenceInitialState> initialStates;
+		PreferenceInitialState.startRecording();
+		try {
+			preferenceScreen = PreferenceScreenInflater.inflate(
+					PreferenceScreenInflater.createDetachedPreferenceManager(context),
+					context,
+					xmlResource
+			);
+		} finally {
+			initialStates = PreferenceInitialState.stopRecording();
+		}
+		final PreferenceTemplate template = PreferenceTemplate.create(preferenceScreen, initialStates);
+		if (enabled) {
+			synchronized (sTemplates) {
+				sTemplates.put(key, template == null ? NOT_TEMPLATABLE : template);
+			}
+		}
+		return template;
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+
+	/**
+	 * Key of a template within the cache.
+	 */
+	private static final class Key {
+
+		/**
+		 * Resource id of the Xml file from which has been the template inflated.
+		 */
+		final int xmlResource;
+
+		/**
+		 * Class of the context in which has been the template inflated.
+		 */
+		final Class<?> contextClass;
+
+		/**
+		 * Fingerprint of values of {@link #THEME_ATTRS} and {@link #LIBRARY_THEME_ATTR_NAMES} resolved
+		 * from theme of the context in which has been the template inflated, as the same context
+		 * class may be used with different themes.
+		 */
+		final int themeFingerprint;
+
+		/**
+		 * Configuration of resources from which has been the template inflated.
+		 */
+		final Configuration configuration;
+
+		/**
+		 * Creates a new instance of Key for the given <var>xmlResource</var> and <var>context</var>.
+		 *
+		 * @param xmlResource Resource id of the Xml file with preferences.
+		 * @param context     Context used to inflate the preferences.
+		 */
+		Key(final int xmlResource, final Context context) {
+			this.xmlResource = xmlResource;
+			this.contextClass = context.getClass();
+			this.configuration = new Configuration(context.getResources().getConfiguration());
+			this.themeFingerprint = computeThemeFingerprint(context.getTheme(), resolveLibraryThemeAttrs(context.getResources()));
+		}
+
+		/**
+		 * Resolves ids of {@link #LIBRARY_THEME_ATTR_NAMES} if they have not been resolved yet.
+		 * The attributes are merged into resources of the application along with attributes of
+		 * this library, so they are looked up within the same package.
+		 *
+		 * @param resources Resources used to resolve the attributes.
+		 * @return The resolved ids.
+		 */
+		private static synchronized int[] resolveLibraryThemeAttrs(final Resources resources) {
+			if (sLibraryThemeAttrs == null) {
+				final String attrsPackage = resources.getResourcePackageName(R.attr.uiSettingCategoryStyle);
+				final int[] attrs = new int[LIBRARY_THEME_ATTR_NAMES.length];
+				for (int i = 0; i < attrs.length; i++) {
+					attrs[i] = resources.getIdentifier(LIBRARY_THEME_ATTR_NAMES[i], "attr", attrsPackage);
+				}
+				sLibraryThemeAttrs = attrs;
+			}
+			return sLibraryThemeAttrs;
+		}
+
+		/**
+		 * Computes fingerprint of values of {@link #THEME_ATTRS} and the given <var>libraryAttrs</var>
+		 * within the given <var>theme</var>.
+		 *
+		 * @param theme        The theme for which to compute the fingerprint.
+		 * @param libraryAttrs Resolved ids of {@link #LIBRARY_THEME_ATTR_NAMES}.
+		 * @return The computed fingerprint.
+		 */
+		private static int computeThemeFingerprint(final Resources.Theme theme, final int[] libraryAttrs) {
+			final TypedValue value = new TypedValue();
+			int fingerprint = 1;
+			for (final int attr : THEME_ATTRS) {
+				fingerprint = appendToFingerprint(fingerprint, theme, attr, value);
+			}
+			for (final int attr : libraryAttrs) {
+				fingerprint = appendToFingerprint(fingerprint, theme, attr, value);
+			}
+			return fingerprint;
+		}
+
+		/**
+		 * Appends value of the specified <var>attr</var> within the given <var>theme</var> to the
+		 * given <var>fingerprint</var>.
+		 *
+		 * @param fingerprint The fingerprint computed so far.
+		 * @param theme       The theme from which to resolve the attribute.
+		 * @param attr        The attribute of which value to append. May be {@code 0}.
+		 * @param value       Value holder used to resolve the attribute.
+		 * @return The updated fingerprint.
+		 */
+		private static int appendToFingerprint(final int fingerprint, final Resources.Theme theme, final int attr, final TypedValue value) {
+			if (attr == 0 || !theme.resolveAttribute(attr, value, true)) {
+				return 31 * fingerprint;
+			}
+			int result = 31 * fingerprint + value.type;
+			result = 31 * result + value.data;
+			result = 31 * result + value.resourceId;
+			return result;
+		}
+
+		/**
+		 */
+		@Override
+		public int hashCode() {
+			int hash = xmlResource;
+			hash = 31 * hash + contextClass.hashCode();
+			hash = 31 * hash + themeFingerprint;
+			hash = 31 * hash + configuration.hashCode();
+			return hash;
+		}
+
+		/**
+		 */
+		@Override
+		public boolean equals(final Object other) {
+			if (other == this) return true;
+			if (!(other instanceof Key)) return false;
+			final Key key = (Key) other;
+			return xmlResource == key.xmlResource && contextClass.equals(key.contextClass) && themeFingerprint == key.themeFingerprint && configuration.equals(key.configuration);
+		}
+	}
+}
@@ -18,35 +18,89 @@
  */
 package universum.studios.android.setting;
 
+import android.app.Dialog;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.res.TypedArray;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.preference.Preference;
 import android.preference.PreferenceFragment;
+import android.preference.PreferenceScreen;
 import android.support.annotation.CheckResult;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.XmlRes;
 import android.support.v4.app.ActivityCompat;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.ListAdapter;
 import android.widget.ListView;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 import universum.studios.android.setting.key.PreferenceScreenKeyModificator;
 
 /**
  * A {@link PreferenceFragment} implementation which inflates its layout from a style specified in
  * the current theme.
+ * <p>
+ * Settings base fragment also implements {@link SettingsLifecycle} so components bound to its
+ * preference screen, like dialog preference managers, may release theirs references to the
+ * presented preferences automatically when the fragment is being destroyed.
+ *
+ * <h3>Asynchronous inflation</h3>
+ * Preferences may be added asynchronously via {@link #addPreferencesFromResourceAsync(int)}.
+ * The Xml resource is then parsed and inflated into a detached preference manager on a background
+ * executor and a {@link PreferenceTemplate} of the inflated hierarchy is created, while the main
+ * thread only instantiates that template and attaches the created preferences to the preference
+ * screen of this fragment, as preferences of the fragment and theirs preference manager may not
+ * be accessed from other threads. Hierarchies which cannot be represented by a template are
+ * inflated from Xml on the main thread. {@link #onPreferencesAdded()} is called after the
+ * preferences are attached.
+ *
+ * <h3>Preference templates</h3>
+ * Caching of preference templates may be enabled via {@link #setPreferenceTemplatesEnabled(boolean)}.
+ * When enabled, preferences added via {@link #addPreferencesFromResource(int)} or {@link #addPreferencesFromResourceAsync(int)}
+ * are inflated from Xml only for the first time for a specific Xml resource, activity class, theme
+ * and configuration. A compact template of the inflated preference hierarchy is cached for the whole
+ * process and used to create preferences for each next fragment instance, for example when the
+ * fragment is re-created due to orientation change, without parsing of the Xml resource and resolving
+ * of styled attributes of setting preferences again. Only hierarchies composed of preference groups
+ * and setting preferences provided by this library, without dependencies between preferences, may
+ * be cached. Other hierarchies are always inflated from Xml.
+ *
+ * <h3>Lazy nested screens</h3>
+ * When preferences are created from a cached template, nested preference screens may be created
+ * only as lightweight stubs if {@link #setLazyNestedScreensEnabled(boolean)} is enabled. Preferences
+ * of such nested screen are created, attached and have theirs keys modified and initial values
+ * loaded only when the screen is opened for the first time. <b>Note</b>, that until then these
+ * preferences cannot be found via {@link #findPreference(CharSequence)}.
+ *
+ * <h3>Search results</h3>
+ * If this fragment is created with arguments for a {@link SettingsSearchIndex.Result}, it reveals
+ * the target preference when its preferences are bound for the first time. The list is scrolled to
+ * the target preference or, if the preference is contained in a nested preference screen, that
+ * screen is opened and its list is scrolled to the target preference.
  *
  * <h3>Theme style attribute</h3>
  * {@link R.attr#uiSettingsFragmentStyle uiSettingsFragmentStyle}
  *
  * @author Martin Albedinsky
  */
-public abstract class SettingsBaseFragment extends PreferenceFragment {
+public abstract class SettingsBaseFragment extends PreferenceFragment implements SettingsLifecycle {
 
 	/*
 	 * Constants ===================================================================================
@@ -55,12 +109,7 @@ public abstract class SettingsBaseFragment extends PreferenceFragment {
 	/**
 	 * Log TAG.
 	 */
-	// private static final String TAG = "SettingsBaseFragmentCompat";
-
-	/**
-	 * Constant that identifies invalid/unspecified position attached to a specified holder.
-	 */
-	private static final int NO_POSITION = -1;
+	private static final String TAG = "SettingsBaseFragment";
 
 	/**
 	 * Base for keys used to store state of SettingsBaseFragment fragments.
@@ -68,22 +117,18 @@ public abstract class SettingsBaseFragment extends PreferenceFragment {
 	private static final String SAVED_STATE_KEY_BASE = SettingsBaseFragment.class.getName() + ".SAVED_STATE.";
 
 	/**
-	 * Key used to store position of the first visible preference item in the settings fragment's
-	 * list view so such state may be restored later.
+	 * Key used to store scroll states of the settings fragment's list views so such states may be
+	 * restored later.
 	 *
 	 * @see #onSaveInstanceState(Bundle)
-	 * @see #onViewCreated(View, Bundle)
+	 * @see #onCreate(Bundle)
 	 */
-	private static final String SAVED_STATE_FIRST_VISIBLE_ITEM_POSITION = SAVED_STATE_KEY_BASE + "FirstVisibleItemPosition";
+	private static final String SAVED_STATE_SCROLL_STATES = SAVED_STATE_KEY_BASE + "ScrollStates";
 
 	/**
-	 * Key used to store top offset of the first visible preference item in the settings fragment's
-	 * list view so such state may be restored later.
-	 *
-	 * @see #onSaveInstanceState(Bundle)
-	 * @see #onViewCreated(View, Bundle)
+	 * Key under which is stored scroll state of preference screen that does not have its key specified.
 	 */
-	private static final String SAVED_STATE_FIRST_VISIBLE_ITEM_TOP = SAVED_STATE_KEY_BASE + "FirstVisibleItemTop";
+	private static final String SCROLL_STATE_KEY_ROOT = SettingsBaseFragment.class.getName() + ".ROOT";
 
 	/*
 	 * Interface ===================================================================================
@@ -93,6 +138,18 @@ public abstract class SettingsBaseFragment extends PreferenceFragment {
 	 * Static members ==============================================================================
 	 */
 
+	/**
+	 * Handler used to instantiate and attach asynchronously prepared preferences on the main thread.
+	 */
+	private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+	/**
+	 * Executor used to prepare preferences for inflation asynchronously.
+	 *
+	 * @see #setPreferencesInflationExecutor(Executor)
+	 */
+	private static Executor sPreferencesInflationExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+
 	/*
 	 * Members =====================================================================================
 	 */
@@ -118,24 +175,71 @@ public abstract class SettingsBaseFragment extends PreferenceFragment {
 	private boolean mPreferencesAdded;
 
 	/**
-	 * Saved position of the first visible preference item from the preferences {@link ListView}.
-	 * This position is used to restore the scroll position when a new view for this fragment is
-	 * re-created.
+	 * Store with saved scroll states of the preferences {@link ListView} and list views of nested
+	 * preference screens keyed by keys of theirs preference screens. These states are used to restore
+	 * the scroll positions when views for the screens are re-created.
 	 *
-	 * @see #onViewCreated(View, Bundle)
 	 * @see #onDestroyView()
+	 * @see #onActivityCreated(Bundle)
+	 */
+	private final ScrollStateStore mScrollStates = new ScrollStateStore();
+
+	/**
+	 * Boolean flag indicating whether restoration of scroll state of the preferences list view is
+	 * pending until preferences are bound to the list view.
+	 */
+	private boolean mPendingScrollStateRestore;
+
+	/**
+	 * Boolean flag indicating whether revealing of preference requested via arguments of this
+	 * fragment created for a {@link SettingsSearchIndex.Result} is pending until preferences are
+	 * bound to the list view.
+	 */
+	private boolean mPendingSearchResultReveal;
+
+	/**
+	 * Preference to be revealed for the requested search result. Resolved before keys of the added
+	 * preferences are modified, as the search index contains the keys specified in Xml.
+	 */
+	private Preference mSearchResultPreference;
+
+	/**
+	 * Preference to be revealed for the requested search result within the nested preference screen
+	 * resolved as {@link #mSearchResultPreference}. For a lazy nested screen, resolved when that
+	 * screen is materialized.
 	 */
-	private int mSavedFirstVisibleItemPosition = NO_POSITION;
+	private Preference mSearchResultNestedPreference;
 
 	/**
-	 * Saved top offset of the first visible preference item from the preferences {@link ListView}.
-	 * This top offset is used along with {@link #mSavedFirstVisibleItemPosition} for restoring of
-	 * the scroll position when a new view for this fragment is re-created.
+	 * List of observers registered to be notified when this fragment is being destroyed. Lazily
+	 * initialized.
 	 *
-	 * @see #onViewCreated(View, Bundle)
-	 * @see #onDestroyView()
+	 * @see #addObserver(Observer)
+	 * @see #onDestroy()
 	 */
-	private int mSavedFirstVisibleItemTop;
+	private List<Observer> mLifecycleObservers;
+
+	/**
+	 * Task preparing preferences for inflation asynchronously. May be {@code null} if there is no
+	 * inflation running.
+	 *
+	 * @see #addPreferencesFromResourceAsync(int)
+	 */
+	private PreferencesInflationTask mPreferencesInflationTask;
+
+	/**
+	 * Boolean flag indicating whether nested preference screens should be created only as stubs
+	 * and materialized when opened.
+	 *
+	 * @see #setLazyNestedScreensEnabled(boolean)
+	 */
+	private boolean mLazyNestedScreensEnabled;
+
+	/**
+	 * Nested preference screens of this fragment which has been created only as stubs and have not
+	 * been materialized yet.
+	 */
+	private final PreferenceTemplate.DeferredScreens mDeferredScreens = new PreferenceTemplate.DeferredScreens();
 
 	/*
 	 * Constructors ================================================================================
@@ -214,10 +318,169 @@ public abstract class SettingsBaseFragment extends PreferenceFragment {
 	 */
 	@Override
 	public void addPreferencesFromResource(@XmlRes final int preferencesResId) {
-		super.addPreferencesFromResource(preferencesResId);
+		if (PreferenceTemplateCache.isEnabled()) {
+			this.attachPreferenceScreen(PreferenceTemplateCache.inflate(
+					getPreferenceManager(),
+					getActivity(),
+					preferencesResId,
+					mLazyNestedScreensEnabled ? mDeferredScreens : null
+			));
+		} else {
+			super.addPreferencesFromResource(preferencesResId);
+		}
+		this.handlePreferencesAdded();
+	}
+
+	/**
+	 * Sets whether templates of inflated preference hierarchies should be cached and used to create
+	 * preferences for all settings fragments.
+	 * <p>
+	 * Templates are disabled by default. Disabling of templates also drops all cached templates, so
+	 * this method may be also used to invalidate the cached templates, for example when the theme
+	 * of an activity is changed at runtime.
+	 *
+	 * @param enabled {@code True} to enable templates, {@code false} otherwise.
+	 */
+	public static void setPreferenceTemplatesEnabled(final boolean enabled) {
+		PreferenceTemplateCache.setEnabled(enabled);
+	}
+
+	/**
+	 * Sets whether nested preference screens of preferences added to this fragment should be created
+	 * only as stubs and theirs preferences created when such screen is opened for the first time.
+	 * <p>
+	 * Nested screens are created as stubs only if the preferences are created from a cached template,
+	 * and only those which do not specify fragment nor intent. <b>Note</b>, that preferences of
+	 * a lazy nested screen cannot be found via {@link #findPreference(CharSequence)} until that
+	 * screen is opened for the first time.
+	 * <p>
+	 * Lazy nested screens are disabled by default. This should be specified before preferences are
+	 * added to this fragment.
+	 *
+	 * @param enabled {@code True} to enable lazy nested screens, {@code false} otherwise.
+	 * @see #isLazyNestedScreensEnabled()
+	 * @see #setPreferenceTemplatesEnabled(boolean)
+	 */
+	protected void setLazyNestedScreensEnabled(final boolean enabled) {
+		this.mLazyNestedScreensEnabled = enabled;
+	}
+
+	/**
+	 * Returns a flag indicating whether lazy nested screens are enabled for this fragment.
+	 *
+	 * @return {@code True} if enabled, {@code false} otherwise.
+	 * @see #setLazyNestedScreensEnabled(boolean)
+	 */
+	protected boolean isLazyNestedScreensEnabled() {
+		return mLazyNestedScreensEnabled;
+	}
+
+	/**
+	 * <b>Note</b>, that if lazy nested screens are enabled, this method returns {@code null} for
+	 * keys of preferences contained in nested preference screens which have not been opened yet,
+	 * as those preferences are not created until then.
+	 *
+	 * @see #setLazyNestedScreensEnabled(boolean)
+	 */
+	@Override
+	public Preference findPreference(@NonNull final CharSequence key) {
+		return super.findPreference(key);
+	}
+
+	/**
+	 * Sets an executor that should be used to prepare preferences for inflation for all settings
+	 * fragments via {@link #addPreferencesFromResourceAsync(int)}.
+	 * <p>
+	 * Default executor is {@link AsyncTask#THREAD_POOL_EXECUTOR}.
+	 *
+	 * @param executor The desired executor.
+	 */
+	public static void setPreferencesInflationExecutor(@NonNull final Executor executor) {
+		sPreferencesInflationExecutor = executor;
+	}
+
+	/**
+	 * Same as {@link #addPreferencesFromResource(int)} but the Xml resource is parsed and inflated
+	 * into a template of the preference hierarchy on a background executor, so the main thread only
+	 * instantiates the preferences from that template without parsing of the Xml resource and
+	 * resolving of styled attributes of setting preferences. If the hierarchy cannot be represented
+	 * by a template, the preferences are inflated via {@link #addPreferencesFromResource(int)} on
+	 * the main thread.
+	 * <p>
+	 * {@link #onPreferencesAdded()} is called after the preferences are attached, so also any binding
+	 * requested via {@link #requestBindPreferences()} is performed after that. If this fragment is
+	 * destroyed before the preparation finishes, the preferences are not added at all.
+	 *
+	 * @param preferencesResId Resource id of the Xml file with preferences to inflate.
+	 * @see #isInflatingPreferences()
+	 * @see #setPreferencesInflationExecutor(Executor)
+	 */
+	protected void addPreferencesFromResourceAsync(@XmlRes final int preferencesResId) {
+		if (mPreferencesInflationTask != null) {
+			mPreferencesInflationTask.cancel();
+		}
+		this.mPreferencesInflationTask = new PreferencesInflationTask(this, preferencesResId);
+		sPreferencesInflationExecutor.execute(mPreferencesInflationTask);
+	}
+
+	/**
+	 * Returns a flag indicating whether this fragment is inflating its preferences asynchronously
+	 * at this time.
+	 *
+	 * @return {@code True} if preferences inflation is running, {@code false} otherwise.
+	 * @see #addPreferencesFromResourceAsync(int)
+	 */
+	protected boolean isInflatingPreferences() {
+		return mPreferencesInflationTask != null;
+	}
+
+	/**
+	 * Instantiates and attaches preferences prepared by the given <var>task</var> to this fragment.
+	 * Called on the main thread.
+	 *
+	 * @param task The task that prepared the preferences.
+	 */
+	final void addPreparedPreferences(final PreferencesInflationTask task) {
+		if (mPreferencesInflationTask != task) {
+			return;
+		}
+		this.mPreferencesInflationTask = null;
+		if (task.template == null) {
+			addPreferencesFromResource(task.xmlResource);
+			return;
+		}
+		this.attachPreferenceScreen(task.template.instantiate(
+				getPreferenceManager(),
+				getActivity(),
+				mLazyNestedScreensEnabled ? mDeferredScreens : null
+		));
 		this.handlePreferencesAdded();
 	}
 
+	/**
+	 * Attaches the given detached <var>preferenceScreen</var> to this fragment. If this fragment
+	 * does not have its preference screen yet, the given one is set as the fragment's screen,
+	 * otherwise its preferences are moved into the current one so its identity is preserved.
+	 *
+	 * @param preferenceScreen The preference screen to attach.
+	 */
+	private void attachPreferenceScreen(final PreferenceScreen preferenceScreen) {
+		final PreferenceScreen currentScreen = getPreferenceScreen();
+		if (currentScreen == null) {
+			setPreferenceScreen(preferenceScreen);
+			return;
+		}
+		final int preferenceCount = preferenceScreen.getPreferenceCount();
+		final List<Preference> preferences = new ArrayList<>(preferenceCount);
+		for (int i = 0; i < preferenceCount; i++) {
+			preferences.add(preferenceScreen.getPreference(i));
+		}
+		preferenceScreen.removeAll();
+		for (final Preference preference : preferences) {
+			currentScreen.addPreference(preference);
+		}
+	}
+
 	/**
 	 * Adds a preferences from the specified <var>intent</var> and registers this fragment as
 	 * {@link android.preference.Preference.OnPreferenceChangeListener} on the current preference
@@ -235,9 +498,30 @@ public abstract class SettingsBaseFragment extends PreferenceFragment {
 	 */
 	private void handlePreferencesAdded() {
 		this.mPreferencesAdded = true;
+		if (mPendingSearchResultReveal) {
+			// Search index contains keys specified in Xml, so resolve before the keys are modified.
+			this.mSearchResultPreference = resolveSearchResultPreference();
+			if (mSearchResultPreference instanceof PreferenceScreen) {
+				this.mSearchResultNestedPreference = resolveSearchResultNestedPreference((PreferenceScreen) mSearchResultPreference);
+			}
+		}
 		if (mKeyModificator != null) {
 			mKeyModificator.modifyKeys(getPreferenceScreen());
 		}
+		final View view = getView();
+		if ((mPendingScrollStateRestore || mPendingSearchResultReveal) && view != null) {
+			// Preferences are bound to the list view asynchronously, restore after that.
+			view.post(new Runnable() {
+
+				/**
+				 */
+				@Override
+				public void run() {
+					restoreScrollStateIfPossible();
+					revealSearchResultIfPossible();
+				}
+			});
+		}
 		onPreferencesAdded();
 	}
 
@@ -304,55 +588,341 @@ public abstract class SettingsBaseFragment extends PreferenceFragment {
 	}
 
 	/**
-	 * This implementation restores the first visible item's position and its offset.
 	 */
 	@Override
-	public void onViewCreated(@NonNull final View view, @Nullable final Bundle savedInstanceState) {
-		super.onViewCreated(view, savedInstanceState);
-		final ListView listView = (ListView) view.findViewById(android.R.id.list);
-		if (listView != null) {
-			final int itemPosition;
-			final int itemTop;
-			if (savedInstanceState != null) {
-				itemPosition = savedInstanceState.getInt(SAVED_STATE_FIRST_VISIBLE_ITEM_POSITION, 0);
-				itemTop = savedInstanceState.getInt(SAVED_STATE_FIRST_VISIBLE_ITEM_TOP, 0);
-			} else if (mSavedFirstVisibleItemPosition != NO_POSITION) {
-				itemPosition = mSavedFirstVisibleItemPosition;
-				itemTop = mSavedFirstVisibleItemTop;
-				this.mSavedFirstVisibleItemPosition = NO_POSITION;
-				this.mSavedFirstVisibleItemTop = 0;
+	public void onCreate(@Nullable final Bundle savedInstanceState) {
+		super.onCreate(savedInstanceState);
+		if (savedInstanceState != null) {
+			mScrollStates.restoreFrom(savedInstanceState.getBundle(SAVED_STATE_SCROLL_STATES));
+		} else {
+			final Bundle arguments = getArguments();
+			this.mPendingSearchResultReveal = arguments != null && (
+					arguments.containsKey(SettingsSearchIndex.EXTRA_PREFERENCE_KEY) ||
+					arguments.containsKey(SettingsSearchIndex.EXTRA_PREFERENCE_SCREEN_KEY)
+			);
+		}
+	}
+
+	/**
+	 * This implementation restores scroll state of the preferences list view for the current
+	 * preference screen, if there is one saved.
+	 * <p>
+	 * The scroll state is restored before the list view is laid out for the first time, so it does
+	 * not require any additional layout pass.
+	 */
+	@Override
+	public void onActivityCreated(@Nullable final Bundle savedInstanceState) {
+		super.onActivityCreated(savedInstanceState);
+		this.mPendingScrollStateRestore = true;
+		this.restoreScrollStateIfPossible();
+		this.revealSearchResultIfPossible();
+	}
+
+	/**
+	 * Restores scroll state of the view presenting preferences if there is restoration pending and
+	 * the preferences are already bound to that view.
+	 */
+	private void restoreScrollStateIfPossible() {
+		if (mPendingScrollStateRestore && restoreScrollState(mScrollStates.get(resolveScrollStateKey(getPreferenceScreen())))) {
+			this.mPendingScrollStateRestore = false;
+		}
+	}
+
+	/**
+	 * Restores the given scroll <var>state</var> of the view presenting preferences of this fragment.
+	 * <p>
+	 * The state is applied during the next layout of the view.
+	 *
+	 * @param state The state to restore as array with position of the first visible item and its
+	 *              top offset. May be {@code null} if there is no state saved.
+	 * @return {@code True} if the view is created and preferences are bound to it, so the restoration
+	 * is finished, {@code false} otherwise.
+	 * @see #saveScrollState()
+	 */
+	boolean restoreScrollState(@Nullable final int[] state) {
+		final View view = getView();
+		final ListView listView = view == null ? null : (ListView) view.findViewById(android.R.id.list);
+		if (listView == null || listView.getAdapter() == null) {
+			return false;
+		}
+		ScrollStateStore.apply(state, listView);
+		return true;
+	}
+
+	/**
+	 * Resolves preference to be revealed for the search result requested via arguments of this
+	 * fragment. If the target preference is contained in a nested preference screen, the nested
+	 * screen is resolved instead, as only the nested screen is presented in the preferences list.
+	 *
+	 * @return The resolved preference or {@code null} if there is no such preference.
+	 */
+	private Preference resolveSearchResultPreference() {
+		final Bundle arguments = getArguments();
+		final String screenKey = arguments.getString(SettingsSearchIndex.EXTRA_PREFERENCE_SCREEN_KEY);
+		final String key = screenKey == null ? arguments.getString(SettingsSearchIndex.EXTRA_PREFERENCE_KEY) : screenKey;
+		return key == null || getPreferenceScreen() == null ? null : findPreference(key);
+	}
+
+	/**
+	 * Resolves preference to be revealed for the search result requested via arguments of this
+	 * fragment within the given <var>nestedScreen</var>.
+	 *
+	 * @param nestedScreen The nested preference screen resolved for the search result.
+	 * @return The resolved preference or {@code null} if the search result does not target preference
+	 * within nested screen or the nested screen does not have its preferences created yet.
+	 */
+	private Preference resolveSearchResultNestedPreference(final PreferenceScreen nestedScreen) {
+		final Bundle arguments = getArguments();
+		if (arguments.getString(SettingsSearchIndex.EXTRA_PREFERENCE_SCREEN_KEY) == null) {
+			return null;
+		}
+		final String key = arguments.getString(SettingsSearchIndex.EXTRA_PREFERENCE_KEY);
+		return key == null ? null : nestedScreen.findPreference(key);
+	}
+
+	/**
+	 * Reveals preference resolved for the requested search result if there is revealing pending
+	 * and the preferences are already bound to the list view. The preference is revealed by scrolling
+	 * to its position via {@link #scrollToPreferenceAt(int)} or, if the preference is a nested
+	 * preference screen, by opening that screen and scrolling its list to the target preference.
+	 */
+	private void revealSearchResultIfPossible() {
+		final View view = getView();
+		final ListView listView = view == null ? null : (ListView) view.findViewById(android.R.id.list);
+		final PreferenceScreen preferenceScreen = getPreferenceScreen();
+		if (!mPendingSearchResultReveal || listView == null || listView.getAdapter() == null || preferenceScreen == null) {
+			return;
+		}
+		this.mPendingSearchResultReveal = false;
+		final Preference preference = mSearchResultPreference;
+		if (preference == null) {
+			return;
+		}
+		final int position = indexOfPreference(preferenceScreen, preference);
+		if (position != -1) {
+			if (preference instanceof PreferenceScreen) {
+				// Nested preference of a lazy screen is resolved while the screen is being opened.
+				preferenceScreen.onItemClick(null, null, position, preferenceScreen.getRootAdapter().getItemId(position));
+				this.revealNestedSearchResult(view, (PreferenceScreen) preference, mSearchResultNestedPreference);
 			} else {
-				itemPosition = itemTop = 0;
+				scrollToPreferenceAt(position);
+			}
+		}
+		this.mSearchResultPreference = null;
+		this.mSearchResultNestedPreference = null;
+	}
+
+	/**
+	 * Scrolls list of the opened <var>nestedScreen</var> to the given <var>preference</var>. The
+	 * list is scrolled after the dialog of the nested screen is shown and its scroll state restored.
+	 *
+	 * @param view         View of this fragment.
+	 * @param nestedScreen The opened nested preference screen.
+	 * @param preference   The preference to scroll to. May be {@code null}.
+	 */
+	private void revealNestedSearchResult(final View view, final PreferenceScreen nestedScreen, final Preference preference) {
+		if (preference == null) {
+			return;
+		}
+		view.post(new Runnable() {
+
+			/**
+			 */
+			@Override
+			public void run() {
+				final Dialog dialog = nestedScreen.getDialog();
+				final ListView listView = dialog == null ? null : (ListView) dialog.findViewById(android.R.id.list);
+				final int position = indexOfPreference(nestedScreen, preference);
+				if (listView != null && position != -1) {
+					listView.setSelection(position);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns position of the given <var>preference</var> within the flattened list of preferences
+	 * presented for the given <var>preferenceScreen</var>.
+	 *
+	 * @param preferenceScreen The preference screen in which to search for the preference.
+	 * @param preference       The preference of which position to resolve.
+	 * @return Position of the preference or {@code -1} if it is not presented for the screen.
+	 */
+	private static int indexOfPreference(final PreferenceScreen preferenceScreen, final Preference preference) {
+		final ListAdapter adapter = preferenceScreen.getRootAdapter();
+		final int itemCount = adapter.getCount();
+		for (int i = 0; i < itemCount; i++) {
+			if (adapter.getItem(i) == preference) {
+				return i;
 			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Scrolls the view presenting preferences of this fragment, so the preference at the specified
+	 * <var>position</var> is shown at its top.
+	 *
+	 * @param position Position of the preference within the flattened list of preferences.
+	 */
+	void scrollToPreferenceAt(final int position) {
+		final View view = getView();
+		final ListView listView = view == null ? null : (ListView) view.findViewById(android.R.id.list);
+		if (listView != null) {
+			listView.setSelection(position);
+		}
+	}
+
+	/**
+	 * Resolves key under which should be stored scroll state for the given <var>preferenceScreen</var>.
+	 *
+	 * @param preferenceScreen The preference screen for which to resolve the key. May be {@code null}.
+	 * @return Key of the preference screen or {@link #SCROLL_STATE_KEY_ROOT} if the screen does not
+	 * have key specified.
+	 */
+	private static String resolveScrollStateKey(final PreferenceScreen preferenceScreen) {
+		return preferenceScreen == null || !preferenceScreen.hasKey() ? SCROLL_STATE_KEY_ROOT : preferenceScreen.getKey();
+	}
+
+	/**
+	 * Saves scroll state of the view presenting preferences of this fragment, if it is created.
+	 */
+	private void saveScrollStateIfPossible() {
+		if (!mPendingScrollStateRestore) {
+			final int[] state = saveScrollState();
+			if (state != null) {
+				mScrollStates.put(resolveScrollStateKey(getPreferenceScreen()), state);
+			}
+		}
+	}
+
+	/**
+	 * Captures the current scroll state of the view presenting preferences of this fragment.
+	 *
+	 * @return The state as array with position of the first visible item and its top offset from
+	 * the top padding of the view, or {@code null} if the view is not created or there are no
+	 * preferences bound to it.
+	 * @see #restoreScrollState(int[])
+	 */
+	@Nullable
+	int[] saveScrollState() {
+		final View view = getView();
+		final ListView listView = view == null ? null : (ListView) view.findViewById(android.R.id.list);
+		return listView == null || listView.getAdapter() == null ? null : ScrollStateStore.capture(listView);
+	}
+
+	/**
+	 * This implementation also restores scroll state of the list view presenting preferences of
+	 * the clicked nested preference screen and starts tracking of its changes.
+	 */
+	@Override
+	public boolean onPreferenceTreeClick(@NonNull final PreferenceScreen preferenceScreen, @NonNull final Preference preference) {
+		if (mDeferredScreens.contains(preference)) {
+			this.materializeNestedScreen(preferenceScreen, (PreferenceScreen) preference);
+			return true;
+		}
+		final boolean handled = super.onPreferenceTreeClick(preferenceScreen, preference);
+		final View view = getView();
+		if (!handled && view != null && preference instanceof PreferenceScreen && preference.hasKey()) {
+			final PreferenceScreen nestedScreen = (PreferenceScreen) preference;
+			// The nested screen shows its dialog after this method returns.
 			view.post(new Runnable() {
+
+				/**
+				 */
 				@Override
 				public void run() {
-					listView.setSelectionFromTop(itemPosition, itemTop);
+					final Dialog dialog = nestedScreen.getDialog();
+					final ListView listView = dialog == null ? null : (ListView) dialog.findViewById(android.R.id.list);
+					if (listView != null) {
+						mScrollStates.restore(nestedScreen.getKey(), listView);
+						mScrollStates.track(nestedScreen.getKey(), listView);
+					}
 				}
 			});
 		}
+		return handled;
 	}
 
 	/**
-	 * This implementation saves the current scroll position of the preferences list view.
+	 * Materializes the given deferred <var>nestedScreen</var>, notifies the registered lifecycle
+	 * observers about its added preferences and performs click on it again, so its dialog with the
+	 * created preferences is shown.
+	 * <p>
+	 * Stub of a nested screen without preferences does not show its dialog when clicked.
+	 *
+	 * @param preferenceScreen The preference screen in which has been the nested screen clicked.
+	 * @param nestedScreen     The clicked deferred nested screen.
+	 */
+	private void materializeNestedScreen(final PreferenceScreen preferenceScreen, final PreferenceScreen nestedScreen) {
+		mDeferredScreens.materialize(nestedScreen, getPreferenceManager(), getActivity());
+		if (nestedScreen == mSearchResultPreference) {
+			this.mSearchResultNestedPreference = resolveSearchResultNestedPreference(nestedScreen);
+		}
+		if (mKeyModificator != null) {
+			mKeyModificator.modifyKeys(nestedScreen);
+		}
+		// Components bound to the preference hierarchy, like dialog preference managers, have
+		// traversed it before the preferences of the nested screen have been created.
+		if (mLifecycleObservers != null && !mLifecycleObservers.isEmpty()) {
+			for (final Observer observer : new ArrayList<>(mLifecycleObservers)) {
+				observer.onSettingsPreferencesAdded(this, nestedScreen);
+			}
+		}
+		final int position = indexOfPreference(preferenceScreen, nestedScreen);
+		if (position != -1) {
+			preferenceScreen.onItemClick(null, null, position, preferenceScreen.getRootAdapter().getItemId(position));
+		}
+	}
+
+	/**
+	 * This implementation saves scroll state of the preferences list view.
 	 */
 	@Override
-	@SuppressWarnings("ConstantConditions")
 	public void onDestroyView() {
+		this.saveScrollStateIfPossible();
 		super.onDestroyView();
-		final ListView listView = (ListView) getView().findViewById(android.R.id.list);
-		if (listView != null) {
-			this.mSavedFirstVisibleItemPosition = listView.getFirstVisiblePosition();
-			if (listView.getChildCount() > 0) {
-				this.mSavedFirstVisibleItemTop = listView.getChildAt(0).getTop();
-				if (mSavedFirstVisibleItemTop < 0) {
-					// The item is scrolled beyond the top visible boundary of the list view, use
-					// item at the next position.
-					this.mSavedFirstVisibleItemTop = listView.getChildAt(1).getTop();
-					this.mSavedFirstVisibleItemPosition += 1;
-				}
+	}
+
+	/**
+	 */
+	@Override
+	public void addObserver(@NonNull final Observer observer) {
+		if (mLifecycleObservers == null) {
+			this.mLifecycleObservers = new ArrayList<>(1);
+		}
+		if (!mLifecycleObservers.contains(observer)) {
+			mLifecycleObservers.add(observer);
+		}
+	}
+
+	/**
+	 */
+	@Override
+	public void removeObserver(@NonNull final Observer observer) {
+		if (mLifecycleObservers != null) {
+			mLifecycleObservers.remove(observer);
+		}
+	}
+
+	/**
+	 * This implementation notifies all registered lifecycle observers and removes them.
+	 */
+	@Override
+	public void onDestroy() {
+		if (mPreferencesInflationTask != null) {
+			mPreferencesInflationTask.cancel();
+			this.mPreferencesInflationTask = null;
+		}
+		mDeferredScreens.clear();
+		if (mLifecycleObservers != null && !mLifecycleObservers.isEmpty()) {
+			final List<Observer> observers = new ArrayList<>(mLifecycleObservers);
+			mLifecycleObservers.clear();
+			for (final Observer observer : observers) {
+				observer.onSettingsDestroy(this);
 			}
 		}
+		super.onDestroy();
 	}
 
 	/**
@@ -360,11 +930,239 @@ public abstract class SettingsBaseFragment extends PreferenceFragment {
 	@Override
 	public void onSaveInstanceState(@NonNull final Bundle state) {
 		super.onSaveInstanceState(state);
-		state.putInt(SAVED_STATE_FIRST_VISIBLE_ITEM_POSITION, mSavedFirstVisibleItemPosition);
-		state.putInt(SAVED_STATE_FIRST_VISIBLE_ITEM_TOP, mSavedFirstVisibleItemTop);
+		this.saveScrollStateIfPossible();
+		state.putBundle(SAVED_STATE_SCROLL_STATES, mScrollStates.toBundle());
 	}
 
 	/*
 	 * Inner classes ===============================================================================
 	 */
+
+	/**
+	 * Store of scroll states of list views keyed by keys of preference screens presented by them.
+	 */
+	static final class ScrollStateStore {
+
+		/**
+		 * Map of scroll states where each state is stored as array with position of the first visible
+		 * item and its top offset from the top padding of its list view.
+		 */
+		private final Map<String, int[]> states = new HashMap<>(2);
+
+		/**
+		 * Saves scroll state of the given <var>listView</var> under the specified <var>key</var>.
+		 *
+		 * @param key      The key under which to save the state.
+		 * @param listView The list view of which scroll state to save.
+		 */
+		void save(@NonNull final String key, @NonNull final ListView listView) {
+			states.put(key, capture(listView));
+		}
+
+		/**
+		 * Captures scroll state of the given <var>listView</var>.
+		 *
+		 * @param listView The list view of which scroll state to capture.
+		 * @return The captured state.
+		 */
+		@NonNull
+		static int[] capture(@NonNull final ListView listView) {
+			final int position = listView.getFirstVisiblePosition();
+			final View firstChild = listView.getChildCount() > 0 ? listView.getChildAt(0) : null;
+			// The top offset may be negative if the item is partially scrolled out of the list view,
+			// which is also supported when restoring the state.
+			final int top = firstChild == null ? 0 : firstChild.getTop() - listView.getPaddingTop();
+			return new int[]{position, top};
+		}
+
+		/**
+		 * Stores the given scroll <var>state</var> under the specified <var>key</var>.
+		 *
+		 * @param key   The key under which to store the state.
+		 * @param state The state to store.
+		 */
+		void put(@NonNull final String key, @NonNull final int[] state) {
+			states.put(key, state);
+		}
+
+		/**
+		 * Returns the scroll state stored under the specified <var>key</var>.
+		 *
+		 * @param key The key under which has been the state stored.
+		 * @return The stored state or {@code null} if there is no state stored.
+		 */
+		@Nullable
+		int[] get(@NonNull final String key) {
+			return states.get(key);
+		}
+
+		/**
+		 * Restores scroll state saved under the specified <var>key</var> for the given <var>listView</var>.
+		 * <p>
+		 * The state is applied during the next layout of the list view.
+		 *
+		 * @param key      The key under which has been the state saved.
+		 * @param listView The list view of which scroll state to restore.
+		 */
+		void restore(@NonNull final String key, @NonNull final ListView listView) {
+			apply(states.get(key), listView);
+		}
+
+		/**
+		 * Applies the given scroll <var>state</var> to the given <var>listView</var>.
+		 *
+		 * @param state    The state to apply. May be {@code null}.
+		 * @param listView The list view to which to apply the state.
+		 */
+		static void apply(@Nullable final int[] state, @NonNull final ListView listView) {
+			if (state != null && state[0] < listView.getCount()) {
+				listView.setSelectionFromTop(state[0], state[1]);
+			}
+		}
+
+		/**
+		 * Starts tracking of scroll state of the given <var>listView</var>, so it is saved under
+		 * the specified <var>key</var> whenever scrolling of the list view stops.
+		 *
+		 * @param key      The key under which to save the state.
+		 * @param listView The list view of which scroll state to track.
+		 */
+		void track(@NonNull final String key, @NonNull final ListView listView) {
+			listView.setOnScrollListener(new AbsListView.OnScrollListener() {
+
+				/**
+				 */
+				@Override
+				public void onScrollStateChanged(@NonNull final AbsListView view, final int scrollState) {
+					if (scrollState == SCROLL_STATE_IDLE) {
+						save(key, listView);
+					}
+				}
+
+				/**
+				 */
+				@Override
+				public void onScroll(@NonNull final AbsListView view, final int firstVisibleItem, final int visibleItemCount, final int totalItemCount) {
+					// Scroll state is saved only when scrolling stops.
+				}
+			});
+		}
+
+		/**
+		 * Creates a bundle with all states of this store.
+		 *
+		 * @return Bundle with the saved states.
+		 * @see #restoreFrom(Bundle)
+		 */
+		@NonNull
+		Bundle toBundle() {
+			final Bundle bundle = new Bundle();
+			for (final Map.Entry<String, int[]> entry : states.entrySet()) {
+				bundle.putIntArray(entry.getKey(), entry.getValue());
+			}
+			return bundle;
+		}
+
+		/**
+		 * Restores states of this store from the given <var>bundle</var>.
+		 *
+		 * @param bundle The bundle created via {@link #toBundle()}. May be {@code null}.
+		 */
+		void restoreFrom(@Nullable final Bundle bundle) {
+			if (bundle != null) {
+				for (final String key : bundle.keySet()) {
+					final int[] state = bundle.getIntArray(key);
+					if (state != null && state.length == 2) {
+						states.put(key, state);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Task that prepares preferences of a specific settings fragment on a background thread and then
+	 * posts a request to instantiate and attach them to that fragment on the main thread.
+	 * <p>
+	 * The preparation consists of inflation of the Xml resource into a detached preference manager
+	 * and creation of a {@link PreferenceTemplate} of the inflated hierarchy, or of obtaining such
+	 * template from {@link PreferenceTemplateCache}. No preferences of the fragment are created on
+	 * the background thread, as neither those preferences nor theirs preference manager are safe
+	 * to be accessed from other threads.
+	 */
+	static final class PreferencesInflationTask implements Runnable {
+
+		/**
+		 * Weak reference to the fragment for which to prepare preferences, so the task does not
+		 * prevent the fragment from being garbage collected.
+		 */
+		final WeakReference<SettingsBaseFragment> fragmentReference;
+
+		/**
+		 * Resource id of the Xml file with preferences to prepare.
+		 */
+		final int xmlResource;
+
+		/**
+		 * Context used to inflate the preferences.
+		 */
+		final Context context;
+
+		/**
+		 * Template of the prepared preferences. May be {@code null} if the preferences cannot be
+		 * represented by a template, so these need to be inflated on the main thread.
+		 */
+		volatile PreferenceTemplate template;
+
+		/**
+		 * Boolean flag indicating whether this task has been cancelled.
+		 */
+		volatile boolean cancelled;
+
+		/**
+		 * Creates a new instance of PreferencesInflationTask for the given <var>fragment</var>.
+		 *
+		 * @param fragment    The fragment for which to prepare preferences.
+		 * @param xmlResource Resource id of the Xml file with preferences to prepare.
+		 */
+		PreferencesInflationTask(final SettingsBaseFragment fragment, final int xmlResource) {
+			this.fragmentReference = new WeakReference<>(fragment);
+			this.xmlResource = xmlResource;
+			this.context = fragment.getActivity();
+		}
+
+		/**
+		 */
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+			try {
+				this.template = PreferenceTemplateCache.obtainTemplate(context, xmlResource);
+			} catch (RuntimeException e) {
+				// Failure will be reported by the inflation on the main thread.
+				Log.w(TAG, "Failed to prepare preferences from Xml resource.", e);
+			}
+			MAIN_HANDLER.post(new Runnable() {
+
+				/**
+				 */
+				@Override
+				public void run() {
+					final SettingsBaseFragment fragment = fragmentReference.get();
+					if (!cancelled && fragment != null) {
+						fragment.addPreparedPreferences(PreferencesInflationTask.this);
+					}
+				}
+			});
+		}
+
+		/**
+		 * Cancels this task, so the prepared preferences will not be added.
+		 */
+		void cancel() {
+			this.cancelled = true;
+		}
+	}
 }
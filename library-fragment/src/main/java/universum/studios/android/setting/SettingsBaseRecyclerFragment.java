@@ -0,0 +1,254 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.app.Activity;
+import android.content.res.TypedArray;
+import android.os.Bundle;
+import android.preference.PreferenceScreen;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * A {@link SettingsBaseFragment} implementation which presents its preferences via {@link RecyclerView}
+ * instead of {@link android.widget.ListView}.
+ * <p>
+ * Each combination of preference class and its layouts is presented as a separate view type and
+ * item views are recycled via {@link RecyclerView.RecycledViewPool} that is shared by all recycler
+ * settings fragments displayed within the same activity, so switching between settings screens
+ * re-uses already created item views. When a preference changes, only items of which presented
+ * state has changed are rebound and, if only title, summary or icon of a preference has changed,
+ * only the corresponding view of its item is updated.
+ * <p>
+ * <b>Note</b>, that the layout of this fragment still needs to contain a {@link android.widget.ListView}
+ * with {@link android.R.id#list} id, as it is required by {@link android.preference.PreferenceFragment}.
+ * Such list view may be hidden.
+ *
+ * <h3>Theme style attribute</h3>
+ * {@link R.attr#uiSettingsFragmentStyle uiSettingsFragmentStyle}, see {@link R.attr#uiRecyclerLayout uiRecyclerLayout}
+ *
+ * @author Martin Albedinsky
+ */
+public abstract class SettingsBaseRecyclerFragment extends SettingsBaseFragment {
+
+	/*
+	 * Constants ===================================================================================
+	 */
+
+	/**
+	 * Log TAG.
+	 */
+	// private static final String TAG = "SettingsBaseRecyclerFragment";
+
+	/*
+	 * Interface ===================================================================================
+	 */
+
+	/*
+	 * Static members ==============================================================================
+	 */
+
+	/*
+	 * Members =====================================================================================
+	 */
+
+	/**
+	 * Recycler view presenting preferences of this fragment.
+	 */
+	private RecyclerView mRecyclerView;
+
+	/**
+	 * Adapter presenting preferences of this fragment in its recycler view.
+	 */
+	private PreferenceRecyclerAdapter mAdapter;
+
+	/*
+	 * Constructors ================================================================================
+	 */
+
+	/*
+	 * Methods =====================================================================================
+	 */
+
+	/**
+	 */
+	@Override
+	public View onCreateView(@NonNull final LayoutInflater inflater, @Nullable final ViewGroup container, @Nullable final Bundle savedInstanceState) {
+		final TypedArray attributes = inflater.getContext().obtainStyledAttributes(
+				null,
+				R.styleable.Ui_Settings_Fragment,
+				R.attr.uiSettingsFragmentStyle,
+				0
+		);
+		final int layoutResource = attributes.getResourceId(
+				R.styleable.Ui_Settings_Fragment_uiRecyclerLayout,
+				R.layout.ui_settings_recycler_fragment
+		);
+		attributes.recycle();
+		return inflater.inflate(layoutResource, container, false);
+	}
+
+	/**
+	 * This implementation sets up the recycler view presenting preferences of this fragment.
+	 */
+	@Override
+	public void onViewCreated(@NonNull final View view, @Nullable final Bundle savedInstanceState) {
+		super.onViewCreated(view, savedInstanceState);
+		this.mRecyclerView = (RecyclerView) view.findViewById(R.id.ui_settings_recycler_view);
+		if (mRecyclerView == null) {
+			throw new IllegalStateException(
+					"Settings recycler fragment requires RecyclerView with id 'R.id.ui_settings_recycler_view' in its layout!"
+			);
+		}
+		if (mRecyclerView.getLayoutManager() == null) {
+			mRecyclerView.setLayoutManager(new LinearLayoutManager(view.getContext()));
+		}
+		mRecyclerView.setRecycledViewPool(obtainSharedRecycledViewPool(getActivity()));
+		this.mAdapter = new PreferenceRecyclerAdapter();
+		mAdapter.setPreferenceScreen(getPreferenceScreen());
+		mRecyclerView.setAdapter(mAdapter);
+	}
+
+	/**
+	 * Obtains the recycled view pool shared by all recycler settings fragments displayed within the
+	 * given <var>activity</var>. The pool is stored as tag of the activity's decor view, so it is
+	 * released along with the activity's window.
+	 *
+	 * @param activity The activity for which to obtain the pool.
+	 * @return The shared recycled view pool.
+	 */
+	private static RecyclerView.RecycledViewPool obtainSharedRecycledViewPool(final Activity activity) {
+		final View decorView = activity.getWindow().getDecorView();
+		RecyclerView.RecycledViewPool pool = (RecyclerView.RecycledViewPool) decorView.getTag(R.id.ui_settings_recycled_view_pool);
+		if (pool == null) {
+			pool = new RecyclerView.RecycledViewPool();
+			decorView.setTag(R.id.ui_settings_recycled_view_pool, pool);
+		}
+		return pool;
+	}
+
+	/**
+	 */
+	@Override
+	public void setPreferenceScreen(@Nullable final PreferenceScreen preferenceScreen) {
+		super.setPreferenceScreen(preferenceScreen);
+		if (mAdapter != null) {
+			mAdapter.setPreferenceScreen(getPreferenceScreen());
+		}
+	}
+
+	/**
+	 * Returns the recycler view presenting preferences of this fragment.
+	 *
+	 * @return The recycler view or {@code null} if the view of this fragment has not been created yet
+	 * or it has been already destroyed.
+	 */
+	@Nullable
+	protected RecyclerView getRecyclerView() {
+		return mRecyclerView;
+	}
+
+	/**
+	 * This implementation scrolls the recycler view presenting preferences instead of the hidden
+	 * list view.
+	 */
+	@Override
+	void scrollToPreferenceAt(final int position) {
+		if (mRecyclerView == null) {
+			return;
+		}
+		final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+		if (layoutManager instanceof LinearLayoutManager) {
+			((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, 0);
+		} else {
+			mRecyclerView.scrollToPosition(position);
+		}
+	}
+
+	/**
+	 * This implementation restores the state via layout manager of the recycler view presenting
+	 * preferences instead of the hidden list view.
+	 */
+	@Override
+	boolean restoreScrollState(@Nullable final int[] state) {
+		if (mRecyclerView == null || mAdapter == null || mAdapter.getPreferenceScreen() == null) {
+			return false;
+		}
+		if (state != null && state[0] < mAdapter.getItemCount()) {
+			final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+			if (layoutManager instanceof LinearLayoutManager) {
+				((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(state[0], state[1]);
+			} else {
+				mRecyclerView.scrollToPosition(state[0]);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * This implementation captures the state from the recycler view presenting preferences instead
+	 * of the hidden list view.
+	 */
+	@Nullable
+	@Override
+	int[] saveScrollState() {
+		if (mRecyclerView == null || mAdapter == null || mAdapter.getPreferenceScreen() == null) {
+			return null;
+		}
+		final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+		final View firstChild = layoutManager == null || layoutManager.getChildCount() == 0 ? null : layoutManager.getChildAt(0);
+		final int position = firstChild == null ? RecyclerView.NO_POSITION : mRecyclerView.getChildAdapterPosition(firstChild);
+		if (position == RecyclerView.NO_POSITION) {
+			return new int[]{0, 0};
+		}
+		// The top offset may be negative if the item is partially scrolled out of the recycler view,
+		// which is also supported when restoring the state.
+		return new int[]{position, layoutManager.getDecoratedTop(firstChild) - mRecyclerView.getPaddingTop()};
+	}
+
+	/**
+	 * This implementation also recycles all item views of the recycler view into the shared pool,
+	 * so they may be re-used by other recycler settings fragments.
+	 */
+	@Override
+	public void onDestroyView() {
+		// Scroll state of the recycler view is saved by the super implementation, so it needs to be
+		// called while the recycler view is still available.
+		super.onDestroyView();
+		if (mRecyclerView != null) {
+			// Removes and recycles all item views into the shared pool. Swapping of adapter (unlike
+			// setting it) does not clear the pool when no other recycler view is attached to it.
+			mRecyclerView.swapAdapter(null, true);
+			this.mRecyclerView = null;
+		}
+		if (mAdapter != null) {
+			mAdapter.setPreferenceScreen(null);
+			this.mAdapter = null;
+		}
+	}
+
+	/*
+	 * Inner classes ===============================================================================
+	 */
+}
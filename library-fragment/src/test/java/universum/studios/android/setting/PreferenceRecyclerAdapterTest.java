@@ -0,0 +1,161 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Context;
+import android.preference.Preference;
+import android.preference.PreferenceCategory;
+import android.preference.PreferenceManager;
+import android.preference.PreferenceScreen;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Test;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import universum.studios.android.test.local.RobolectricTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class PreferenceRecyclerAdapterTest extends RobolectricTestCase {
+
+	private PreferenceManager mPreferenceManager;
+
+	@Override
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mPreferenceManager = ReflectionHelpers.callConstructor(
+				PreferenceManager.class,
+				ReflectionHelpers.ClassParameter.from(Context.class, mApplication)
+		);
+	}
+
+	@Test
+	public void testPresentsFlattenedPreferences() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final PreferenceCategory category = new PreferenceCategory(mApplication);
+		screen.addPreference(category);
+		final Preference preference = new Preference(mApplication);
+		category.addPreference(preference);
+		final PreferenceScreen nestedScreen = mPreferenceManager.createPreferenceScreen(mApplication);
+		nestedScreen.addPreference(new Preference(mApplication));
+		screen.addPreference(nestedScreen);
+		final PreferenceRecyclerAdapter adapter = new PreferenceRecyclerAdapter();
+		adapter.setPreferenceScreen(screen);
+		assertThat(adapter.getItemCount(), is(3));
+		assertThat(adapter.getItem(0), is(sameInstance((Preference) category)));
+		assertThat(adapter.getItem(1), is(sameInstance(preference)));
+		assertThat(adapter.getItem(2), is(sameInstance((Preference) nestedScreen)));
+		adapter.setPreferenceScreen(null);
+		assertThat(adapter.getItemCount(), is(0));
+	}
+
+	@Test
+	public void testStableIds() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		screen.addPreference(new Preference(mApplication));
+		screen.addPreference(new Preference(mApplication));
+		final PreferenceRecyclerAdapter adapter = new PreferenceRecyclerAdapter();
+		adapter.setPreferenceScreen(screen);
+		assertThat(adapter.hasStableIds(), is(true));
+		assertThat(adapter.getItemId(0), is(screen.getRootAdapter().getItemId(0)));
+		assertThat(adapter.getItemId(1), is(screen.getRootAdapter().getItemId(1)));
+		assertThat(adapter.getItemId(0), is(not(adapter.getItemId(1))));
+	}
+
+	@Test
+	public void testAttachesChangeObserverToSettingPreferences() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final SettingPreference preference = new SettingPreference(mApplication);
+		screen.addPreference(preference);
+		final PreferenceRecyclerAdapter adapter = new PreferenceRecyclerAdapter();
+		adapter.setPreferenceScreen(screen);
+		assertThat(preference.getChangeObserver(), is(sameInstance((SettingPreference.ChangeObserver) adapter)));
+		adapter.setPreferenceScreen(null);
+		assertThat(preference.getChangeObserver(), is(nullValue()));
+	}
+
+	@Test
+	public void testViewTypesSharedBetweenAdapters() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		screen.addPreference(new Preference(mApplication));
+		screen.addPreference(new PreferenceCategory(mApplication));
+		final PreferenceScreen otherScreen = mPreferenceManager.createPreferenceScreen(mApplication);
+		otherScreen.addPreference(new Preference(mApplication));
+		final PreferenceRecyclerAdapter adapter = new PreferenceRecyclerAdapter();
+		adapter.setPreferenceScreen(screen);
+		final PreferenceRecyclerAdapter otherAdapter = new PreferenceRecyclerAdapter();
+		otherAdapter.setPreferenceScreen(otherScreen);
+		assertThat(otherAdapter.getItemViewType(0), is(adapter.getItemViewType(0)));
+		assertThat(adapter.getItemViewType(1), is(not(adapter.getItemViewType(0))));
+	}
+
+	@Test
+	public void testRootAdapterChangeNotifiesOnlyChangedItems() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		screen.addPreference(new Preference(mApplication));
+		final Preference preference = new Preference(mApplication);
+		preference.setTitle("Title");
+		screen.addPreference(preference);
+		screen.addPreference(new Preference(mApplication));
+		final PreferenceRecyclerAdapter adapter = new PreferenceRecyclerAdapter();
+		adapter.setPreferenceScreen(screen);
+		final List<String> notifications = new ArrayList<>();
+		adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+
+			@Override
+			public void onChanged() {
+				notifications.add("changed");
+			}
+
+			@Override
+			public void onItemRangeChanged(final int positionStart, final int itemCount, final Object payload) {
+				notifications.add("changed(" + positionStart + ", " + itemCount + ", " + payload + ")");
+			}
+
+			@Override
+			public void onItemRangeInserted(final int positionStart, final int itemCount) {
+				notifications.add("inserted(" + positionStart + ", " + itemCount + ")");
+			}
+
+			@Override
+			public void onItemRangeRemoved(final int positionStart, final int itemCount) {
+				notifications.add("removed(" + positionStart + ", " + itemCount + ")");
+			}
+		});
+		// Change of the preference is reported by the root adapter of its screen.
+		preference.setTitle("Changed title");
+		assertThat(notifications.size(), is(1));
+		assertThat(notifications.get(0), is("changed(1, 1, " + SettingPreference.CHANGE_TITLE + ")"));
+		notifications.clear();
+		// The presented state has been updated, so the same change is not notified again.
+		preference.setSummary("Summary");
+		assertThat(notifications.size(), is(1));
+		assertThat(notifications.get(0), is("changed(1, 1, " + SettingPreference.CHANGE_SUMMARY + ")"));
+	}
+}
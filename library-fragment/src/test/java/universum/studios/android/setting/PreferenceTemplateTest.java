@@ -0,0 +1,196 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.setting;
+
+import android.content.Context;
+import android.preference.Preference;
+import android.preference.PreferenceCategory;
+import android.preference.PreferenceManager;
+import android.preference.PreferenceScreen;
+
+import org.junit.Test;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import universum.studios.android.test.local.RobolectricTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class PreferenceTemplateTest extends RobolectricTestCase {
+
+	private PreferenceManager mPreferenceManager;
+
+	@Override
+	public void beforeTest() throws Exception {
+		super.beforeTest();
+		this.mPreferenceManager = ReflectionHelpers.callConstructor(
+				PreferenceManager.class,
+				ReflectionHelpers.ClassParameter.from(Context.class, mApplication)
+		);
+	}
+
+	@Test
+	public void testInstantiate() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final PreferenceCategory category = new PreferenceCategory(mApplication);
+		category.setKey("category");
+		category.setTitle("Category");
+		screen.addPreference(category);
+		PreferenceInitialState.startRecording();
+		final SettingPreference preference = new SettingPreference(mApplication);
+		final Map<Preference, PreferenceInitialState> initialStates = PreferenceInitialState.stopRecording();
+		preference.setKey("preference");
+		preference.setTitle("Title");
+		preference.setSummary("Summary");
+		preference.setEnabled(false);
+		category.addPreference(preference);
+		final PreferenceTemplate template = PreferenceTemplate.create(screen, initialStates);
+		assertThat(template, is(notNullValue()));
+		final PreferenceScreen instantiatedScreen = template.instantiate(mPreferenceManager, mApplication);
+		assertThat(instantiatedScreen, is(not(sameInstance(screen))));
+		assertThat(instantiatedScreen.getPreferenceCount(), is(1));
+		final PreferenceCategory instantiatedCategory = (PreferenceCategory) instantiatedScreen.getPreference(0);
+		assertThat(instantiatedCategory.getKey(), is("category"));
+		assertThat(instantiatedCategory.getTitle().toString(), is("Category"));
+		assertThat(instantiatedCategory.getPreferenceCount(), is(1));
+		final Preference instantiatedPreference = instantiatedCategory.getPreference(0);
+		assertThat(instantiatedPreference, is(not(sameInstance((Preference) preference))));
+		assertThat(instantiatedPreference.getKey(), is("preference"));
+		assertThat(instantiatedPreference.getTitle().toString(), is("Title"));
+		assertThat(instantiatedPreference.getSummary().toString(), is("Summary"));
+		assertThat(instantiatedPreference.isEnabled(), is(false));
+		assertThat(instantiatedPreference.getOrder(), is(preference.getOrder()));
+	}
+
+	@Test
+	public void testCreateForPlainPreference() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		screen.addPreference(new Preference(mApplication));
+		assertThat(PreferenceTemplate.create(screen, new IdentityHashMap<Preference, PreferenceInitialState>()), is(nullValue()));
+	}
+
+	@Test
+	public void testCreateForNotTemplatablePreference() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		screen.addPreference(new Preference(mApplication) {});
+		assertThat(PreferenceTemplate.create(screen, new IdentityHashMap<Preference, PreferenceInitialState>()), is(nullValue()));
+	}
+
+	@Test
+	public void testInstantiateSettingPreference() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		PreferenceInitialState.startRecording();
+		final SettingPreference preference = new SettingPreference(mApplication);
+		final Map<Preference, PreferenceInitialState> initialStates = PreferenceInitialState.stopRecording();
+		assertThat(initialStates.containsKey(preference), is(true));
+		preference.setKey("preference");
+		screen.addPreference(preference);
+		final PreferenceTemplate template = PreferenceTemplate.create(screen, initialStates);
+		assertThat(template, is(notNullValue()));
+		final Preference instantiatedPreference = template.instantiate(mPreferenceManager, mApplication).getPreference(0);
+		assertThat(instantiatedPreference, is(instanceOf(SettingPreference.class)));
+		assertThat(instantiatedPreference, is(not(sameInstance((Preference) preference))));
+		assertThat(instantiatedPreference.getKey(), is("preference"));
+	}
+
+	@Test
+	public void testCreateForSettingPreferenceWithoutInitialState() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		screen.addPreference(new SettingPreference(mApplication));
+		assertThat(PreferenceTemplate.create(screen, new IdentityHashMap<Preference, PreferenceInitialState>()), is(nullValue()));
+	}
+
+	@Test
+	public void testCreateForSettingPreferenceSubclass() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		PreferenceInitialState.startRecording();
+		screen.addPreference(new SettingPreference(mApplication) {});
+		final Map<Preference, PreferenceInitialState> initialStates = PreferenceInitialState.stopRecording();
+		assertThat(PreferenceTemplate.create(screen, initialStates), is(nullValue()));
+	}
+
+	@Test
+	public void testCreateForPreferenceWithDependency() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		PreferenceInitialState.startRecording();
+		final SettingPreference preference = new SettingPreference(mApplication);
+		final SettingPreference dependentPreference = new SettingPreference(mApplication);
+		final Map<Preference, PreferenceInitialState> initialStates = PreferenceInitialState.stopRecording();
+		preference.setKey("preference");
+		screen.addPreference(preference);
+		// Dependency specified in Xml is set without registration.
+		ReflectionHelpers.setField(dependentPreference, "mDependencyKey", "preference");
+		screen.addPreference(dependentPreference);
+		assertThat(PreferenceTemplate.create(screen, initialStates), is(nullValue()));
+	}
+
+	@Test
+	public void testInstantiateWithDeferredNestedScreen() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final PreferenceScreen nestedScreen = mPreferenceManager.createPreferenceScreen(mApplication);
+		nestedScreen.setKey("nested");
+		screen.addPreference(nestedScreen);
+		PreferenceInitialState.startRecording();
+		final SettingPreference nestedPreference = new SettingPreference(mApplication);
+		final Map<Preference, PreferenceInitialState> initialStates = PreferenceInitialState.stopRecording();
+		nestedPreference.setKey("nested.preference");
+		nestedScreen.addPreference(nestedPreference);
+		final PreferenceTemplate template = PreferenceTemplate.create(screen, initialStates);
+		assertThat(template, is(notNullValue()));
+		final PreferenceTemplate.DeferredScreens deferredScreens = new PreferenceTemplate.DeferredScreens();
+		final PreferenceScreen instantiatedScreen = template.instantiate(mPreferenceManager, mApplication, deferredScreens);
+		final PreferenceScreen instantiatedNestedScreen = (PreferenceScreen) instantiatedScreen.getPreference(0);
+		assertThat(instantiatedNestedScreen.getKey(), is("nested"));
+		assertThat(instantiatedNestedScreen.getPreferenceCount(), is(0));
+		assertThat(deferredScreens.contains(instantiatedNestedScreen), is(true));
+		assertThat(deferredScreens.materialize(instantiatedNestedScreen, mPreferenceManager, mApplication), is(true));
+		assertThat(deferredScreens.contains(instantiatedNestedScreen), is(false));
+		assertThat(instantiatedNestedScreen.getPreferenceCount(), is(1));
+		assertThat(instantiatedNestedScreen.getPreference(0), is(instanceOf(SettingPreference.class)));
+		assertThat(instantiatedNestedScreen.getPreference(0).getKey(), is("nested.preference"));
+		assertThat(deferredScreens.materialize(instantiatedNestedScreen, mPreferenceManager, mApplication), is(false));
+	}
+
+	@Test
+	public void testInstantiateDoesNotDeferNestedScreenWithFragment() {
+		final PreferenceScreen screen = mPreferenceManager.createPreferenceScreen(mApplication);
+		final PreferenceScreen nestedScreen = mPreferenceManager.createPreferenceScreen(mApplication);
+		nestedScreen.setFragment("universum.studios.android.setting.SettingsBaseFragment");
+		screen.addPreference(nestedScreen);
+		nestedScreen.addPreference(new PreferenceCategory(mApplication));
+		final PreferenceTemplate template = PreferenceTemplate.create(screen, new IdentityHashMap<Preference, PreferenceInitialState>());
+		assertThat(template, is(notNullValue()));
+		final PreferenceTemplate.DeferredScreens deferredScreens = new PreferenceTemplate.DeferredScreens();
+		final PreferenceScreen instantiatedScreen = template.instantiate(mPreferenceManager, mApplication, deferredScreens);
+		final PreferenceScreen instantiatedNestedScreen = (PreferenceScreen) instantiatedScreen.getPreference(0);
+		assertThat(instantiatedNestedScreen.getPreferenceCount(), is(1));
+		assertThat(deferredScreens.contains(instantiatedNestedScreen), is(false));
+	}
+}
@@ -18,17 +18,54 @@
  */
 package universum.studios.android.setting;
 
+import android.os.Bundle;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
 import org.junit.Test;
 
 import universum.studios.android.test.local.RobolectricTestCase;
 
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
 /**
  * @author Martin Albedinsky
  */
 public final class SettingsBaseFragmentTest extends RobolectricTestCase {
 
 	@Test
-	public void test() {
-		// todo:: implement test
+	public void testScrollStateStoreBundleRoundTrip() {
+		final SettingsBaseFragment.ScrollStateStore store = new SettingsBaseFragment.ScrollStateStore();
+		final Bundle bundle = new Bundle();
+		bundle.putIntArray("screen.nested", new int[]{12, -24});
+		bundle.putIntArray("screen.invalid", new int[]{1});
+		store.restoreFrom(bundle);
+		final Bundle restoredBundle = store.toBundle();
+		assertThat(restoredBundle.size(), is(1));
+		assertThat(restoredBundle.getIntArray("screen.nested")[0], is(12));
+		assertThat(restoredBundle.getIntArray("screen.nested")[1], is(-24));
+	}
+
+	@Test
+	public void testScrollStateStoreSaveForEmptyListView() {
+		final SettingsBaseFragment.ScrollStateStore store = new SettingsBaseFragment.ScrollStateStore();
+		final ListView listView = new ListView(mApplication);
+		store.save("screen", listView);
+		final int[] state = store.toBundle().getIntArray("screen");
+		assertThat(state[0], is(0));
+		assertThat(state[1], is(0));
+	}
+
+	@Test
+	public void testScrollStateStoreRestoreIgnoresOutOfRangePosition() {
+		final SettingsBaseFragment.ScrollStateStore store = new SettingsBaseFragment.ScrollStateStore();
+		final Bundle bundle = new Bundle();
+		bundle.putIntArray("screen", new int[]{10, 0});
+		store.restoreFrom(bundle);
+		final ListView listView = new ListView(mApplication);
+		listView.setAdapter(new ArrayAdapter<>(mApplication, android.R.layout.simple_list_item_1, new String[]{"A", "B"}));
+		store.restore("screen", listView);
+		assertThat(listView.getSelectedItemPosition(), is(ListView.INVALID_POSITION));
 	}
 }
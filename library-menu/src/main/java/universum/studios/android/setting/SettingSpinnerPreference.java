@@ -205,20 +205,27 @@ public class SettingSpinnerPreference extends SettingPreference {
 	private void init(final Context context, final AttributeSet attrs, final int defStyleAttr, final int defStyleRes) {
 		this.mAdapter = new EntriesAdapter(context);
 		this.mAdapter.setTitle(getTitle());
-		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_SpinnerPreference, defStyleAttr, defStyleRes);
-		for (int i = 0; i < attributes.getIndexCount(); i++) {
-			final int index = attributes.getIndex(i);
-			if (index == R.styleable.Ui_Settings_SpinnerPreference_android_entries) {
-				setEntries(attributes.getTextArray(index));
-			} else if (index == R.styleable.Ui_Settings_SpinnerPreference_android_entryValues) {
-				setEntryValues(attributes.getTextArray(index));
-			} else if (index == R.styleable.Ui_Settings_SpinnerPreference_uiSettingSpinnerViewLayout) {
-				mAdapter.setViewLayoutResource(attributes.getResourceId(index, R.layout.ui_setting_spinner_view));
-			} else if (index == R.styleable.Ui_Settings_SpinnerPreference_uiSettingSpinnerDropDownViewLayout) {
-				mAdapter.setDropDownViewLayoutResource(attributes.getResourceId(index, R.layout.ui_setting_spinner_drop_down_view));
-			}
+		final PreferenceAttributes attributes = getPreferenceAttributes();
+		if (attributes.hasValue(android.R.attr.entries)) {
+			setEntries(attributes.getTextArray(android.R.attr.entries));
+		}
+		if (attributes.hasValue(android.R.attr.entryValues)) {
+			setEntryValues(attributes.getTextArray(android.R.attr.entryValues));
+		}
+		if (attributes.hasValue(R.attr.uiSettingSpinnerViewLayout)) {
+			mAdapter.setViewLayoutResource(attributes.getResourceId(R.attr.uiSettingSpinnerViewLayout, R.layout.ui_setting_spinner_view));
 		}
-		attributes.recycle();
+		if (attributes.hasValue(R.attr.uiSettingSpinnerDropDownViewLayout)) {
+			mAdapter.setDropDownViewLayoutResource(attributes.getResourceId(R.attr.uiSettingSpinnerDropDownViewLayout, R.layout.ui_setting_spinner_drop_down_view));
+		}
+	}
+
+	/**
+	 */
+	@NonNull
+	@Override
+	protected int[] onGetPreferenceAttrs() {
+		return PreferenceAttributes.mergeAttrs(super.onGetPreferenceAttrs(), R.styleable.Ui_Settings_SpinnerPreference);
 	}
 
 	/**
@@ -366,7 +373,7 @@ public class SettingSpinnerPreference extends SettingPreference {
 			this.mValueSet = true;
 			persistString(mValue);
 			if (changed) {
-				notifyChanged();
+				notifyChanged(CHANGE_WIDGET);
 			}
 		}
 	}
@@ -387,6 +394,29 @@ public class SettingSpinnerPreference extends SettingPreference {
 	@Override
 	public void onBindView(@NonNull final View view) {
 		super.onBindView(view);
+		this.bindSpinner(view);
+	}
+
+	/**
+	 * This implementation binds change of widget only into the spinner.
+	 */
+	@Override
+	public void onBindViewChanges(@NonNull final View view, final int changes) {
+		if ((changes & CHANGE_WIDGET) != 0) {
+			this.bindSpinner(view);
+			super.onBindViewChanges(view, changes & ~CHANGE_WIDGET);
+		} else {
+			super.onBindViewChanges(view, changes);
+		}
+	}
+
+	/**
+	 * Binds entries and the current value of this preference into the spinner contained within the
+	 * given <var>view</var>.
+	 *
+	 * @param view The root view of this preference.
+	 */
+	private void bindSpinner(final View view) {
 		final Spinner spinner = (Spinner) view.findViewById(R.id.ui_setting_spinner);
 		if (spinner != null) {
 			spinner.setOnItemSelectedListener(null);
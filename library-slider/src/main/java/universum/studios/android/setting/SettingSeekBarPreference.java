@@ -187,14 +187,15 @@ public class SettingSeekBarPreference extends SettingPreference {
 	 * data from the current theme provided by the specified <var>context</var>.
 	 */
 	private void init(final Context context, final AttributeSet attrs, final int defStyleAttr, final int defStyleRes) {
-		final TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.Ui_Settings_SeekBarPreference, defStyleAttr, defStyleRes);
-		for (int i = 0; i < attributes.getIndexCount(); i++) {
-			final int index = attributes.getIndex(i);
-			if (index == R.styleable.Ui_Settings_SeekBarPreference_android_max) {
-				this.mMaxProgress = attributes.getInt(index, mMaxProgress);
-			}
-		}
-		attributes.recycle();
+		this.mMaxProgress = getPreferenceAttributes().getInt(android.R.attr.max, mMaxProgress);
+	}
+
+	/**
+	 */
+	@NonNull
+	@Override
+	protected int[] onGetPreferenceAttrs() {
+		return PreferenceAttributes.mergeAttrs(super.onGetPreferenceAttrs(), R.styleable.Ui_Settings_SeekBarPreference);
 	}
 
 	/**
@@ -252,7 +253,7 @@ public class SettingSeekBarPreference extends SettingPreference {
 			this.mProgressSet = true;
 			persistInt(mProgress);
 			if (changed) {
-				notifyChanged();
+				notifyChanged(CHANGE_WIDGET);
 			}
 		}
 	}
@@ -272,6 +273,29 @@ public class SettingSeekBarPreference extends SettingPreference {
 	@Override
 	public void onBindView(@NonNull final View view) {
 		super.onBindView(view);
+		this.bindSeekBar(view);
+	}
+
+	/**
+	 * This implementation binds change of widget only into the seek bar.
+	 */
+	@Override
+	public void onBindViewChanges(@NonNull final View view, final int changes) {
+		if ((changes & CHANGE_WIDGET) != 0) {
+			this.bindSeekBar(view);
+			super.onBindViewChanges(view, changes & ~CHANGE_WIDGET);
+		} else {
+			super.onBindViewChanges(view, changes);
+		}
+	}
+
+	/**
+	 * Binds the current progress of this preference into the seek bar contained within the given
+	 * <var>view</var>.
+	 *
+	 * @param view The root view of this preference.
+	 */
+	private void bindSeekBar(final View view) {
 		final SeekBar seekBar = (SeekBar) view.findViewById(R.id.ui_setting_seek_bar);
 		if (seekBar != null) {
 			seekBar.setOnSeekBarChangeListener(null);
@@ -0,0 +1,95 @@
+/*
+ * =================================================================================================
+ *                             Copyright (C) 2017 Universum Studios
+ * =================================================================================================
+ *         Licensed under the Apache License, Version 2.0 or later (further "License" only).
+ * -------------------------------------------------------------------------------------------------
+ * You may use this file only in compliance with the License. More details and copy of this License
+ * you may obtain at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * You can redistribute, modify or publish any part of the code written within this file but as it
+ * is described in the License, the software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES or CONDITIONS OF ANY KIND.
+ *
+ * See the License for the specific language governing permissions and limitations under the License.
+ * =================================================================================================
+ */
+package universum.studios.android.samples.setting;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
+import android.preference.PreferenceScreen;
+import android.support.test.InstrumentationRegistry;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import universum.studios.android.test.instrumented.InstrumentedTestCase;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.number.OrderingComparison.greaterThan;
+import static org.hamcrest.number.OrderingComparison.lessThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Martin Albedinsky
+ */
+public final class SettingsPreviewInflationBenchmarkTest extends InstrumentedTestCase {
+
+	@SuppressWarnings("unused")
+	private static final String TAG = "SettingsPreviewInflationBenchmarkTest";
+
+	private static final int WARM_UP_INFLATIONS_COUNT = 50;
+	private static final int INFLATIONS_COUNT = 1000;
+	private static final long INFLATION_BUDGET_NANOS = 16000000L;
+
+	@Test
+	public void testInflateSettingsPreview() throws Exception {
+		final Context context = new ContextThemeWrapper(mContext, R.style.Theme);
+		// PreferenceManager does not provide public API for inflation of preferences outside of
+		// PreferenceActivity or PreferenceFragment, so we need to access its hidden API.
+		final Constructor<PreferenceManager> managerConstructor = PreferenceManager.class.getDeclaredConstructor(Context.class);
+		managerConstructor.setAccessible(true);
+		final Method inflateMethod = PreferenceManager.class.getDeclaredMethod("inflateFromResource", Context.class, int.class, PreferenceScreen.class);
+		inflateMethod.setAccessible(true);
+		final PreferenceManager manager = managerConstructor.newInstance(context);
+		final Exception[] failure = new Exception[1];
+		final long[] totalTime = new long[1];
+		final PreferenceScreen[] screen = new PreferenceScreen[1];
+		InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < WARM_UP_INFLATIONS_COUNT; i++) {
+						inflateMethod.invoke(manager, context, R.xml.settings_preview, null);
+					}
+					final long startTime = SystemClock.elapsedRealtimeNanos();
+					for (int i = 0; i < INFLATIONS_COUNT; i++) {
+						screen[0] = (PreferenceScreen) inflateMethod.invoke(manager, context, R.xml.settings_preview, null);
+					}
+					totalTime[0] = SystemClock.elapsedRealtimeNanos() - startTime;
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			}
+		});
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+		assertThat(screen[0], is(not(nullValue())));
+		assertThat(screen[0].getPreferenceCount(), is(greaterThan(0)));
+		final long averageTime = totalTime[0] / INFLATIONS_COUNT;
+		Log.i(TAG, "Inflation of settings_preview.xml " + INFLATIONS_COUNT + " times took " + totalTime[0] + "ns (average " + averageTime + "ns).");
+		assertThat(averageTime, is(lessThan(INFLATION_BUDGET_NANOS)));
+	}
+}
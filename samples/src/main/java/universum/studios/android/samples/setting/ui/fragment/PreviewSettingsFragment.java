@@ -49,10 +49,4 @@ public final class PreviewSettingsFragment extends SettingsBaseFragment implemen
 	public boolean onDialogButtonClick(@NonNull Dialog dialog, int button) {
 		return dialogPreferencesManager.handleOnPreferenceDialogButtonClick(dialog, button);
 	}
-
-	@Override
-	public void onDestroy() {
-		super.onDestroy();
-		dialogPreferencesManager.detachFromPreferenceScreen(getPreferenceScreen());
-	}
 }